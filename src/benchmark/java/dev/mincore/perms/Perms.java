@@ -0,0 +1,30 @@
+package dev.mincore.perms;
+
+import java.util.UUID;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+/**
+ * Test-only stand-in for MinCore's permission gateway. Mirrors the static signatures that {@code
+ * dev.minemotes.perms.Perms} binds to; answers with {@link #answer} or the OP fallback when unset.
+ */
+public final class Perms {
+  public static volatile Boolean answer;
+
+  private Perms() {}
+
+  public static boolean check(ServerPlayerEntity player, String node, int opLevelFallback) {
+    Boolean value = answer;
+    return value != null ? value : player.hasPermissionLevel(opLevelFallback);
+  }
+
+  public static boolean checkUUID(
+      MinecraftServer server, UUID uuid, String node, int opLevelFallback) {
+    Boolean value = answer;
+    if (value != null) {
+      return value;
+    }
+    ServerPlayerEntity player = server.getPlayerManager().getPlayer(uuid);
+    return player != null && player.hasPermissionLevel(opLevelFallback);
+  }
+}
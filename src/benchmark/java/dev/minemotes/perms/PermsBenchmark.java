@@ -0,0 +1,254 @@
+package dev.minemotes.perms;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.PlayerManager;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures the cost of {@link Perms#check} and {@link Perms#checkUUID} for every step of the
+ * gateway chain. Each scenario loads a fresh copy of {@link Perms} in an isolating class loader
+ * that only exposes the selected backend stand-ins, so backend detection runs exactly as it does
+ * on a server. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class PermsBenchmark {
+  static {
+    SharedConstants.createGameVersion();
+    Bootstrap.initialize();
+  }
+
+  private static final String PERMS_CLASS = "dev.minemotes.perms.Perms";
+  private static final String MINCORE_PKG = "dev.mincore.";
+  private static final String LUCKPERMS_PKG = "net.luckperms.";
+  private static final String FABRIC_PKG = "me.lucko.fabric.api.permissions.";
+  private static final String NODE = "minemotes.sit";
+  private static final int WARMUP = 50_000;
+  private static final int MEASURE = 500_000;
+
+  private static final MethodType CHECK_TYPE =
+      MethodType.methodType(boolean.class, ServerPlayerEntity.class, String.class, int.class);
+  private static final MethodType CHECK_UUID_TYPE =
+      MethodType.methodType(
+          boolean.class, MinecraftServer.class, UUID.class, String.class, int.class);
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private int sink;
+
+  @Test
+  void gatewayFallbackPaths() throws Throwable {
+    UUID uuid = UUID.randomUUID();
+    ServerPlayerEntity player = mock(ServerPlayerEntity.class, withSettings().stubOnly());
+    when(player.getUuid()).thenReturn(uuid);
+    // OP denies, every backend allows: a true result proves the expected backend answered.
+    when(player.hasPermissionLevel(anyInt())).thenReturn(false);
+    PlayerManager playerManager = mock(PlayerManager.class, withSettings().stubOnly());
+    when(playerManager.getPlayer(uuid)).thenReturn(player);
+    MinecraftServer server = mock(MinecraftServer.class, withSettings().stubOnly());
+    when(server.getPlayerManager()).thenReturn(playerManager);
+
+    List<Row> rows = new ArrayList<>();
+    MethodHandle baseline =
+        MethodHandles.lookup().findStatic(PermsBenchmark.class, "baseline", CHECK_TYPE);
+    rows.add(measureCheck("baseline (mock OP)", baseline, player));
+
+    for (Backend backend : Backend.values()) {
+      Class<?> perms = backend.load();
+      MethodHandle check = MethodHandles.publicLookup().findStatic(perms, "check", CHECK_TYPE);
+      rows.add(measureCheck(backend.label + " check", check, player));
+
+      perms = backend.load();
+      MethodHandle checkUuid =
+          MethodHandles.publicLookup().findStatic(perms, "checkUUID", CHECK_UUID_TYPE);
+      rows.add(measureCheckUuid(backend.label + " checkUUID", checkUuid, server, uuid));
+    }
+
+    print(rows);
+    for (Row row : rows) {
+      if (row.label.startsWith("op ") || row.label.startsWith("baseline")) {
+        assertFalse(row.result, row.label);
+      } else {
+        assertTrue(row.result, row.label);
+      }
+    }
+  }
+
+  private Row measureCheck(String label, MethodHandle check, ServerPlayerEntity player)
+      throws Throwable {
+    long allocStart = THREADS.getCurrentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    boolean result = (boolean) check.invokeExact(player, NODE, 0);
+    long coldNanos = System.nanoTime() - start;
+    long coldBytes = THREADS.getCurrentThreadAllocatedBytes() - allocStart;
+
+    for (int i = 0; i < WARMUP; i++) {
+      sink += (boolean) check.invokeExact(player, NODE, 0) ? 1 : 0;
+    }
+    allocStart = THREADS.getCurrentThreadAllocatedBytes();
+    start = System.nanoTime();
+    for (int i = 0; i < MEASURE; i++) {
+      sink += (boolean) check.invokeExact(player, NODE, 0) ? 1 : 0;
+    }
+    long warmNanos = System.nanoTime() - start;
+    long warmBytes = THREADS.getCurrentThreadAllocatedBytes() - allocStart;
+    return new Row(label, result, coldNanos, coldBytes, warmNanos, warmBytes);
+  }
+
+  private Row measureCheckUuid(
+      String label, MethodHandle check, MinecraftServer server, UUID uuid) throws Throwable {
+    long allocStart = THREADS.getCurrentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    boolean result = (boolean) check.invokeExact(server, uuid, NODE, 0);
+    long coldNanos = System.nanoTime() - start;
+    long coldBytes = THREADS.getCurrentThreadAllocatedBytes() - allocStart;
+
+    for (int i = 0; i < WARMUP; i++) {
+      sink += (boolean) check.invokeExact(server, uuid, NODE, 0) ? 1 : 0;
+    }
+    allocStart = THREADS.getCurrentThreadAllocatedBytes();
+    start = System.nanoTime();
+    for (int i = 0; i < MEASURE; i++) {
+      sink += (boolean) check.invokeExact(server, uuid, NODE, 0) ? 1 : 0;
+    }
+    long warmNanos = System.nanoTime() - start;
+    long warmBytes = THREADS.getCurrentThreadAllocatedBytes() - allocStart;
+    return new Row(label, result, coldNanos, coldBytes, warmNanos, warmBytes);
+  }
+
+  private void print(List<Row> rows) {
+    System.out.printf(
+        "%-28s %6s %12s %12s %10s %10s%n",
+        "path", "result", "cold ns", "cold B", "warm ns/op", "warm B/op");
+    for (Row row : rows) {
+      System.out.printf(
+          "%-28s %6s %12d %12d %10.1f %10.1f%n",
+          row.label,
+          row.result,
+          row.coldNanos,
+          row.coldBytes,
+          row.warmNanos / (double) MEASURE,
+          row.warmBytes / (double) MEASURE);
+    }
+    System.out.println("(sink " + sink + ")");
+  }
+
+  private static boolean baseline(ServerPlayerEntity player, String node, int opLevelFallback) {
+    return player.hasPermissionLevel(opLevelFallback);
+  }
+
+  private record Row(
+      String label, boolean result, long coldNanos, long coldBytes, long warmNanos, long warmBytes) {}
+
+  /** One step of the gateway chain and the stand-ins that must be visible to reach it. */
+  private enum Backend {
+    MINCORE("mincore", Set.of(MINCORE_PKG, LUCKPERMS_PKG, FABRIC_PKG)),
+    LUCKPERMS("luckperms", Set.of(LUCKPERMS_PKG, FABRIC_PKG)),
+    LUCKPERMS_UNDEFINED("luckperms->fabric", Set.of(LUCKPERMS_PKG, FABRIC_PKG)),
+    FABRIC("fabric", Set.of(FABRIC_PKG)),
+    OP("op fallback", Set.of());
+
+    private final String label;
+    private final Set<String> visible;
+
+    Backend(String label, Set<String> visible) {
+      this.label = label;
+      this.visible = visible;
+    }
+
+    Class<?> load() throws ReflectiveOperationException {
+      IsolatingClassLoader loader =
+          new IsolatingClassLoader(PermsBenchmark.class.getClassLoader(), visible);
+      if (visible.contains(MINCORE_PKG)) {
+        loader.loadClass("dev.mincore.perms.Perms").getField("answer").set(null, Boolean.TRUE);
+      }
+      if (visible.contains(LUCKPERMS_PKG)) {
+        String answer = this == LUCKPERMS_UNDEFINED ? "UNDEFINED" : "TRUE";
+        loader.loadClass("net.luckperms.api.LuckPermsProvider").getField("answer").set(null, answer);
+      }
+      if (visible.contains(FABRIC_PKG)) {
+        loader
+            .loadClass("me.lucko.fabric.api.permissions.v0.Permissions")
+            .getField("answer")
+            .set(null, Boolean.TRUE);
+      }
+      return loader.loadClass(PERMS_CLASS);
+    }
+  }
+
+  /**
+   * Child-first loader for {@link Perms} and the backend stand-ins. Stand-ins outside {@code
+   * visible} are reported as missing; everything else (Minecraft, log4j) is shared with the parent.
+   */
+  private static final class IsolatingClassLoader extends ClassLoader {
+    private final Set<String> visible;
+
+    IsolatingClassLoader(ClassLoader parent, Set<String> visible) {
+      super(parent);
+      this.visible = visible;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> loaded = findLoadedClass(name);
+        if (loaded == null) {
+          String backend = backendOf(name);
+          if (backend == null && !name.equals(PERMS_CLASS)) {
+            return super.loadClass(name, resolve);
+          }
+          if (backend != null && !visible.contains(backend)) {
+            throw new ClassNotFoundException(name);
+          }
+          loaded = defineFromParent(name);
+        }
+        if (resolve) {
+          resolveClass(loaded);
+        }
+        return loaded;
+      }
+    }
+
+    private Class<?> defineFromParent(String name) throws ClassNotFoundException {
+      String resource = name.replace('.', '/') + ".class";
+      try (InputStream in = getParent().getResourceAsStream(resource)) {
+        if (in == null) {
+          throw new ClassNotFoundException(name);
+        }
+        byte[] bytes = in.readAllBytes();
+        return defineClass(name, bytes, 0, bytes.length);
+      } catch (IOException e) {
+        throw new ClassNotFoundException(name, e);
+      }
+    }
+
+    private static String backendOf(String name) {
+      for (String prefix : List.of(MINCORE_PKG, LUCKPERMS_PKG, FABRIC_PKG)) {
+        if (name.startsWith(prefix)) {
+          return prefix;
+        }
+      }
+      return null;
+    }
+  }
+}
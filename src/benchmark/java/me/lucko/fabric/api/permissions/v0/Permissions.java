@@ -0,0 +1,22 @@
+package me.lucko.fabric.api.permissions.v0;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
+
+/**
+ * Test-only stand-in for the Fabric Permissions API v0. The entity overload takes {@link Entity},
+ * matching the published API; answers with {@link #answer} or the OP fallback when unset.
+ */
+public final class Permissions {
+  public static volatile Boolean answer;
+
+  private Permissions() {}
+
+  public static boolean check(Entity entity, String permission, int defaultRequiredLevel) {
+    Boolean value = answer;
+    if (value != null) {
+      return value;
+    }
+    return entity instanceof PlayerEntity player && player.hasPermissionLevel(defaultRequiredLevel);
+  }
+}
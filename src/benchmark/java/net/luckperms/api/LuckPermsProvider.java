@@ -0,0 +1,65 @@
+package net.luckperms.api;
+
+import java.util.UUID;
+
+/**
+ * Test-only stand-in for the LuckPerms API entry point. Only the call chain walked reflectively by
+ * {@code dev.minemotes.perms.Perms} is modelled: {@code get().getUserManager().getUser(uuid)
+ * .getCachedData().getPermissionData().checkPermission(node)}.
+ */
+public final class LuckPermsProvider {
+  /** Name of the {@link Tristate} every permission lookup resolves to. */
+  public static volatile String answer = "UNDEFINED";
+
+  private static final LuckPerms INSTANCE = new LuckPerms();
+
+  private LuckPermsProvider() {}
+
+  public static LuckPerms get() {
+    return INSTANCE;
+  }
+
+  public enum Tristate {
+    TRUE,
+    FALSE,
+    UNDEFINED
+  }
+
+  public static final class LuckPerms {
+    private final UserManager userManager = new UserManager();
+
+    public UserManager getUserManager() {
+      return userManager;
+    }
+  }
+
+  public static final class UserManager {
+    private final User user = new User();
+
+    public User getUser(UUID uuid) {
+      return uuid != null ? user : null;
+    }
+  }
+
+  public static final class User {
+    private final CachedDataManager cachedData = new CachedDataManager();
+
+    public CachedDataManager getCachedData() {
+      return cachedData;
+    }
+  }
+
+  public static final class CachedDataManager {
+    private final CachedPermissionData permissionData = new CachedPermissionData();
+
+    public CachedPermissionData getPermissionData() {
+      return permissionData;
+    }
+  }
+
+  public static final class CachedPermissionData {
+    public Tristate checkPermission(String node) {
+      return Tristate.valueOf(answer);
+    }
+  }
+}
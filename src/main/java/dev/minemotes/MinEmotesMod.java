@@ -1,15 +1,25 @@
 package dev.minemotes;
 
 import dev.minemotes.commands.CommandRegistrar;
+import dev.minemotes.config.ConfigDiff;
 import dev.minemotes.config.ConfigLoader;
 import dev.minemotes.config.ConfigManager;
 import dev.minemotes.core.EmoteService;
+import dev.minemotes.core.FabricEmotes;
 import dev.minemotes.core.SeatManager;
+import dev.minemotes.ledger.LedgerWriter;
+import dev.minemotes.metrics.MetricsSnapshot;
+import dev.minemotes.metrics.PrometheusExporter;
+import dev.minemotes.profiling.ProfileRecorder;
+import java.util.EnumSet;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.entity.event.v1.ServerEntityWorldChangeEvents;
 import net.fabricmc.fabric.api.entity.event.v1.ServerLivingEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.fabricmc.fabric.api.event.player.PlayerBlockBreakEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import net.minecraft.server.network.ServerPlayerEntity;
 import org.apache.logging.log4j.LogManager;
@@ -18,10 +28,14 @@ import org.apache.logging.log4j.Logger;
 public final class MinEmotesMod implements ModInitializer {
   public static final String MODID = "minemotes";
   private static final Logger LOGGER = LogManager.getLogger("minemotes");
+  /** Server ticks between metrics snapshots; scrapes see values at most this old. */
+  private static final int METRICS_INTERVAL_TICKS = 20;
 
   private static ConfigManager configManager;
   private static SeatManager seatManager;
+  private static LedgerWriter ledgerWriter;
   private static EmoteService emoteService;
+  private static PrometheusExporter metricsExporter;
 
   public static ConfigManager configManager() {
     return configManager;
@@ -31,37 +45,98 @@ public final class MinEmotesMod implements ModInitializer {
     return emoteService;
   }
 
+  public static LedgerWriter ledger() {
+    return ledgerWriter;
+  }
+
   @Override
   public void onInitialize() {
     LOGGER.info("(minemotes) initializing");
     configManager = new ConfigManager(ConfigLoader.defaultPath());
     configManager.start();
-    seatManager = new SeatManager();
-    emoteService = new EmoteService(() -> configManager.current(), seatManager);
-    configManager.addListener(emoteService::onConfigReload);
+    seatManager = FabricEmotes.seatManager();
+    ledgerWriter =
+        LedgerWriter.forMinCore(
+            configManager.current().ledger(), LedgerWriter.defaultSpoolDirectory());
+    ledgerWriter.start();
+    configManager.addListener(
+        EnumSet.of(ConfigDiff.Section.LEDGER),
+        (config, diff) -> ledgerWriter.applySettings(config.ledger()));
+    emoteService = new EmoteService(() -> configManager.current(), seatManager, ledgerWriter);
+    configManager.addListener(
+        EnumSet.of(ConfigDiff.Section.CORE, ConfigDiff.Section.EMOTES),
+        emoteService::onConfigChanged);
 
-    CommandRegistrar.registerAll(emoteService, configManager);
+    ProfileRecorder profiler = new ProfileRecorder(ProfileRecorder.defaultDirectory());
+    CommandRegistrar.registerAll(emoteService, configManager, profiler);
 
-    ServerTickEvents.END_SERVER_TICK.register(server -> emoteService.tick(server));
+    metricsExporter = new PrometheusExporter();
+    configManager.addListener(
+        EnumSet.of(ConfigDiff.Section.METRICS),
+        (config, diff) -> metricsExporter.apply(config.metrics()));
+    ServerLifecycleEvents.SERVER_STARTED.register(
+        server -> metricsExporter.apply(configManager.current().metrics()));
 
-    ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> emoteService.onDisconnect(handler.getPlayer()));
+    ServerLifecycleEvents.SERVER_STARTED.register(server -> refreshSeatableBlocks());
+    ServerLifecycleEvents.END_DATA_PACK_RELOAD.register(
+        (server, resources, success) -> refreshSeatableBlocks());
+    configManager.addListener(
+        EnumSet.of(ConfigDiff.Section.EMOTES),
+        (config, diff) -> {
+          if (diff.chairBlockTagsChanged()) {
+            refreshSeatableBlocks();
+          }
+        });
+
+    ServerTickEvents.START_SERVER_TICK.register(server -> configManager.applyPending());
+    ServerTickEvents.END_WORLD_TICK.register(world -> FabricEmotes.tickWorld(emoteService, world));
+    ServerTickEvents.END_SERVER_TICK.register(
+        server -> {
+          FabricEmotes.tick(emoteService, server);
+          if (server.getTicks() % METRICS_INTERVAL_TICKS == 0 && metricsExporter.running()) {
+            metricsExporter.publish(
+                MetricsSnapshot.collect(emoteService, ledgerWriter, configManager));
+          }
+        });
+
+    ServerPlayConnectionEvents.DISCONNECT.register(
+        (handler, server) -> FabricEmotes.onDisconnect(emoteService, handler.getPlayer()));
+
+    PlayerBlockBreakEvents.AFTER.register(
+        (world, player, pos, state, blockEntity) ->
+            FabricEmotes.onBlockBroken(emoteService, world, pos));
+
+    ServerChunkEvents.CHUNK_UNLOAD.register(
+        (world, chunk) -> FabricEmotes.onChunkUnload(emoteService, world, chunk));
+    ServerChunkEvents.CHUNK_LOAD.register(
+        (world, chunk) -> FabricEmotes.onChunkLoad(emoteService, world, chunk));
+    ServerWorldEvents.UNLOAD.register(
+        (server, world) -> FabricEmotes.onWorldUnload(emoteService, world));
 
     ServerEntityWorldChangeEvents.AFTER_PLAYER_CHANGE_WORLD.register(
-        (player, origin, destination) -> emoteService.onWorldChange(player));
+        (player, origin, destination) -> FabricEmotes.onWorldChange(emoteService, player));
 
     ServerLivingEntityEvents.AFTER_DEATH.register(
         (entity, source) -> {
           if (entity instanceof ServerPlayerEntity player) {
-            emoteService.onDeath(player);
+            FabricEmotes.onDeath(emoteService, player);
           }
         });
 
     ServerLifecycleEvents.SERVER_STOPPED.register(
         server -> {
-          seatManager.discardAll();
+          metricsExporter.close();
+          profiler.stop();
+          emoteService.shutdown();
+          ledgerWriter.close();
           configManager.close();
         });
 
     LOGGER.info("(minemotes) initialized");
   }
+
+  private static void refreshSeatableBlocks() {
+    FabricEmotes.refreshSeatableBlocks(
+        emoteService, configManager.current().emotes().chairBlockTags());
+  }
 }
@@ -1,34 +1,93 @@
 package dev.minemotes.commands;
 
+import com.mojang.authlib.GameProfile;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import dev.minemotes.config.Config;
 import dev.minemotes.config.ConfigManager;
+import dev.minemotes.config.EmoteRegistry;
+import dev.minemotes.config.ReloadResult;
 import dev.minemotes.core.EmoteService;
 import dev.minemotes.core.EmoteService.Result;
 import dev.minemotes.core.EmoteService.Toggle;
 import dev.minemotes.core.EmoteType;
+import dev.minemotes.core.FabricEmotes;
 import dev.minemotes.perms.Perms;
+import dev.minemotes.profiling.ProfileRecorder;
+import dev.minemotes.stats.CommandTrace;
+import dev.minemotes.stats.LogHistogram;
+import dev.minemotes.stats.PerfMonitor;
+import dev.minemotes.stats.SessionStats;
+import dev.minemotes.stats.TransitionLog;
+import dev.minemotes.trace.TraceRecorder;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.Text;
+import net.minecraft.util.UserCache;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
-/** Registers Fabric commands for all emotes and admin actions. */
+/**
+ * Registers Fabric commands for all emotes and admin actions. Emote commands come from the current
+ * config's {@link EmoteRegistry}; custom emotes added by a hot reload get their command the next
+ * time commands are registered (server restart or {@code /reload}). An emote whose name is already
+ * a root command, from vanilla or another mod, is skipped rather than merged into that command.
+ */
 public final class CommandRegistrar {
+  private static final Logger LOGGER = LogManager.getLogger("minemotes");
+  /** Longest recording {@code /minemotes profile} will start. */
+  private static final int MAX_PROFILE_SECONDS = 600;
+  /** Longest trace {@code /minemotes trace} will record. */
+  private static final int MAX_TRACE_SECONDS = 3_600;
+  /** Most transitions {@code /minemotes history chat} prints; files take the whole ring. */
+  private static final int MAX_HISTORY_CHAT = 50;
+  private static final DateTimeFormatter FILE_TIME =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.ROOT);
+
   private CommandRegistrar() {}
 
-  public static void registerAll(EmoteService service, ConfigManager configManager) {
+  public static void registerAll(
+      EmoteService service, ConfigManager configManager, ProfileRecorder profiler) {
     CommandRegistrationCallback.EVENT.register(
         (dispatcher, registryAccess, environment) -> {
           dispatcher.register(crawlCommand(service));
-          dispatcher.register(seatCommand("sit", EmoteType.SIT, service));
-          dispatcher.register(seatCommand("chair", EmoteType.CHAIR, service));
-          dispatcher.register(seatCommand("lay", EmoteType.LAY, service));
-          dispatcher.register(seatCommand("belly", EmoteType.BELLY, service));
-          dispatcher.register(rootCommand(configManager));
+          EmoteRegistry emotes = configManager.current().registry();
+          for (int emote = 0; emote < emotes.size(); emote++) {
+            if (emotes.pose(emote) == EmoteType.CRAWL) {
+              continue;
+            }
+            String name = emotes.name(emote);
+            if (dispatcher.getRoot().getChild(name) != null) {
+              LOGGER.warn("(minemotes) not registering /{}; another command already uses it", name);
+              continue;
+            }
+            dispatcher.register(emoteCommand(name, service));
+          }
+          dispatcher.register(rootCommand(service, configManager, profiler));
         });
   }
 
@@ -50,55 +109,465 @@ public final class CommandRegistrar {
                     }));
   }
 
-  private static LiteralArgumentBuilder<ServerCommandSource> seatCommand(
-      String literal, EmoteType type, EmoteService service) {
-    return CommandManager.literal(literal).executes(ctx -> executeSeat(ctx, service, type));
+  private static LiteralArgumentBuilder<ServerCommandSource> emoteCommand(
+      String name, EmoteService service) {
+    return CommandManager.literal(name).executes(ctx -> executeEmote(ctx, service, name));
   }
 
-  private static LiteralArgumentBuilder<ServerCommandSource> rootCommand(ConfigManager configManager) {
+  private static LiteralArgumentBuilder<ServerCommandSource> rootCommand(
+      EmoteService service, ConfigManager configManager, ProfileRecorder profiler) {
     return CommandManager.literal("minemotes")
         .then(
             CommandManager.literal("reload")
                 .executes(
                     ctx -> {
                       ServerCommandSource source = ctx.getSource();
-                      ServerPlayerEntity player =
-                          source.getEntity() instanceof ServerPlayerEntity playerEntity
-                              ? playerEntity
-                              : null;
-                      if (player != null) {
-                        if (!Perms.check(
-                            player,
-                            configManager.current().permissions().admin(),
-                            configManager.current().permissions().fallbackLevel(EmoteType.ADMIN))) {
-                          source.sendError(Text.translatable("commands.generic.unknown"));
-                          return 0;
-                        }
-                      } else if (!source.hasPermissionLevel(
-                          configManager.current().permissions().fallbackLevel(EmoteType.ADMIN))) {
-                        source.sendError(Text.translatable("commands.generic.unknown"));
+                      if (!checkAdmin(source, configManager)) {
+                        return 0;
+                      }
+                      configManager
+                          .reloadAsync()
+                          .thenAccept(
+                              result ->
+                                  source.getServer().execute(() -> reportReload(source, result)));
+                      return 1;
+                    }))
+        .then(
+            CommandManager.literal("perf")
+                .executes(
+                    ctx -> {
+                      if (!checkAdmin(ctx.getSource(), configManager)) {
                         return 0;
                       }
-                      configManager.reloadNow();
-                      source.sendFeedback(() -> Text.translatable("minemotes.reload.ok"), true);
+                      reportPerf(ctx.getSource(), service);
                       return 1;
+                    })
+                .then(
+                    CommandManager.literal("reset")
+                        .executes(
+                            ctx -> {
+                              if (!checkAdmin(ctx.getSource(), configManager)) {
+                                return 0;
+                              }
+                              service.perf().reset();
+                              ctx.getSource()
+                                  .sendFeedback(() -> Text.translatable("minemotes.perf.reset"), true);
+                              return 1;
+                            })))
+        .then(
+            CommandManager.literal("sessions")
+                .executes(
+                    ctx -> {
+                      if (!checkAdmin(ctx.getSource(), configManager)) {
+                        return 0;
+                      }
+                      reportSessions(ctx.getSource(), service);
+                      return 1;
+                    }))
+        .then(
+            CommandManager.literal("profile")
+                .then(
+                    CommandManager.argument(
+                            "seconds", IntegerArgumentType.integer(1, MAX_PROFILE_SECONDS))
+                        .executes(
+                            ctx -> {
+                              if (!checkAdmin(ctx.getSource(), configManager)) {
+                                return 0;
+                              }
+                              int seconds = IntegerArgumentType.getInteger(ctx, "seconds");
+                              startProfile(ctx.getSource(), profiler, seconds);
+                              return 1;
+                            }))
+                .then(
+                    CommandManager.literal("stop")
+                        .executes(
+                            ctx -> {
+                              if (!checkAdmin(ctx.getSource(), configManager)) {
+                                return 0;
+                              }
+                              return stopProfile(ctx.getSource(), profiler);
+                            })))
+        .then(
+            CommandManager.literal("trace")
+                .then(
+                    CommandManager.argument(
+                            "seconds", IntegerArgumentType.integer(1, MAX_TRACE_SECONDS))
+                        .executes(
+                            ctx -> {
+                              if (!checkAdmin(ctx.getSource(), configManager)) {
+                                return 0;
+                              }
+                              int seconds = IntegerArgumentType.getInteger(ctx, "seconds");
+                              return startTrace(ctx.getSource(), service, seconds);
+                            }))
+                .then(
+                    CommandManager.literal("stop")
+                        .executes(
+                            ctx -> {
+                              if (!checkAdmin(ctx.getSource(), configManager)) {
+                                return 0;
+                              }
+                              return stopTrace(ctx.getSource(), service);
+                            })))
+        .then(
+            CommandManager.literal("history")
+                .then(historyCommand("chat", service, configManager, MAX_HISTORY_CHAT, false))
+                .then(
+                    historyCommand(
+                        "file", service, configManager, TransitionLog.DEFAULT_CAPACITY, true)));
+  }
+
+  private static LiteralArgumentBuilder<ServerCommandSource> historyCommand(
+      String name, EmoteService service, ConfigManager configManager, int max, boolean toFile) {
+    return CommandManager.literal(name)
+        .then(
+            CommandManager.argument("count", IntegerArgumentType.integer(1, max))
+                .executes(
+                    ctx -> {
+                      if (!checkAdmin(ctx.getSource(), configManager)) {
+                        return 0;
+                      }
+                      int count = IntegerArgumentType.getInteger(ctx, "count");
+                      return reportHistory(ctx.getSource(), service, count, null, toFile);
+                    })
+                .then(
+                    CommandManager.argument("player", StringArgumentType.word())
+                        .executes(
+                            ctx -> {
+                              if (!checkAdmin(ctx.getSource(), configManager)) {
+                                return 0;
+                              }
+                              int count = IntegerArgumentType.getInteger(ctx, "count");
+                              String player = StringArgumentType.getString(ctx, "player");
+                              return reportHistory(ctx.getSource(), service, count, player, toFile);
+                            })));
+  }
+
+  private static int reportHistory(
+      ServerCommandSource source, EmoteService service, int count, String player, boolean toFile) {
+    UUID filter = null;
+    if (player != null) {
+      filter = resolvePlayer(source.getServer(), player);
+      if (filter == null) {
+        source.sendError(Text.translatable("minemotes.history.unknown", player));
+        return 0;
+      }
+    }
+    List<TransitionLog.Entry> entries = service.transitions().last(count, filter);
+    if (entries.isEmpty()) {
+      source.sendFeedback(() -> Text.translatable("minemotes.history.empty"), false);
+      return 1;
+    }
+    MinecraftServer server = source.getServer();
+    List<String> lines = new ArrayList<>(entries.size());
+    for (TransitionLog.Entry entry : entries) {
+      lines.add(describe(server, entry));
+    }
+    if (!toFile) {
+      source.sendFeedback(() -> Text.translatable("minemotes.history.header", lines.size()), false);
+      for (String line : lines) {
+        source.sendFeedback(() -> Text.literal(" - " + line), false);
+      }
+      return 1;
+    }
+    Path file =
+        FabricLoader.getInstance()
+            .getGameDir()
+            .resolve("minemotes")
+            .resolve("history-" + LocalDateTime.now().format(FILE_TIME) + ".log");
+    CompletableFuture.runAsync(
+            () -> {
+              try {
+                Files.createDirectories(file.getParent());
+                Files.write(file, lines, StandardCharsets.UTF_8);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            })
+        .whenComplete(
+            (ignored, error) ->
+                server.execute(
+                    () -> {
+                      if (error == null) {
+                        source.sendFeedback(
+                            () ->
+                                Text.translatable(
+                                    "minemotes.history.saved", lines.size(), file.toString()),
+                            true);
+                      } else {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        source.sendError(
+                            Text.translatable(
+                                "minemotes.history.failed", String.valueOf(cause.getMessage())));
+                      }
                     }));
+    return 1;
+  }
+
+  /** Online player name or UUID; offline players can only be given by UUID. */
+  private static UUID resolvePlayer(MinecraftServer server, String value) {
+    ServerPlayerEntity online = server.getPlayerManager().getPlayer(value);
+    if (online != null) {
+      return online.getUuid();
+    }
+    try {
+      return UUID.fromString(value);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static String playerName(MinecraftServer server, UUID player) {
+    ServerPlayerEntity online = server.getPlayerManager().getPlayer(player);
+    if (online != null) {
+      return online.getName().getString();
+    }
+    UserCache cache = server.getUserCache();
+    if (cache == null) {
+      return player.toString();
+    }
+    return cache.getByUuid(player).map(GameProfile::getName).orElse(player.toString());
+  }
+
+  private static String describe(MinecraftServer server, TransitionLog.Entry entry) {
+    return String.format(
+        Locale.ROOT,
+        "#%d tick=%d %s %s %s %s%s",
+        entry.sequence(),
+        entry.tick(),
+        Instant.ofEpochMilli(entry.timeMillis()),
+        playerName(server, entry.player()),
+        entry.type().id(),
+        entry.start() ? "start" : "stop",
+        entry.start() ? "" : " reason=" + entry.reason().name().toLowerCase(Locale.ROOT));
+  }
+
+  /** Starts the recording off the server thread, since loading JFR settings can take a while. */
+  private static void startProfile(
+      ServerCommandSource source, ProfileRecorder profiler, int seconds) {
+    CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return profiler.start(Duration.ofSeconds(seconds));
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            })
+        .whenComplete(
+            (file, error) ->
+                source
+                    .getServer()
+                    .execute(
+                        () -> {
+                          if (error == null) {
+                            source.sendFeedback(
+                                () ->
+                                    Text.translatable(
+                                        "minemotes.profile.started", seconds, file.toString()),
+                                true);
+                          } else if (error.getCause() instanceof IllegalStateException) {
+                            source.sendError(
+                                Text.translatable(
+                                    "minemotes.profile.running",
+                                    String.valueOf(profiler.destination())));
+                          } else {
+                            Throwable cause = error.getCause() != null ? error.getCause() : error;
+                            source.sendError(
+                                Text.translatable(
+                                    "minemotes.profile.failed", String.valueOf(cause.getMessage())));
+                          }
+                        }));
+  }
+
+  private static int stopProfile(ServerCommandSource source, ProfileRecorder profiler) {
+    Path file = profiler.stop();
+    if (file == null) {
+      source.sendError(Text.translatable("minemotes.profile.idle"));
+      return 0;
+    }
+    source.sendFeedback(() -> Text.translatable("minemotes.profile.saved", file.toString()), true);
+    return 1;
+  }
+
+  /** Opens the trace file off the server thread and starts recording at the next opportunity. */
+  private static int startTrace(ServerCommandSource source, EmoteService service, int seconds) {
+    TraceRecorder running = service.tracer();
+    if (running != null) {
+      source.sendError(Text.translatable("minemotes.trace.running", running.file().toString()));
+      return 0;
+    }
+    CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return TraceRecorder.start(
+                    TraceRecorder.defaultDirectory(),
+                    Duration.ofSeconds(seconds),
+                    TraceRecorder.DEFAULT_MAX_BYTES);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            })
+        .whenComplete(
+            (recorder, error) ->
+                source
+                    .getServer()
+                    .execute(
+                        () -> {
+                          if (error != null) {
+                            Throwable cause = error.getCause() != null ? error.getCause() : error;
+                            source.sendError(
+                                Text.translatable(
+                                    "minemotes.trace.failed", String.valueOf(cause.getMessage())));
+                          } else if (!service.startTrace(recorder)) {
+                            // Another admin started one meanwhile.
+                            recorder.close();
+                            source.sendError(
+                                Text.translatable(
+                                    "minemotes.trace.running",
+                                    service.tracer().file().toString()));
+                          } else {
+                            source.sendFeedback(
+                                () ->
+                                    Text.translatable(
+                                        "minemotes.trace.started",
+                                        seconds,
+                                        recorder.file().toString()),
+                                true);
+                          }
+                        }));
+    return 1;
+  }
+
+  private static int stopTrace(ServerCommandSource source, EmoteService service) {
+    TraceRecorder stopped = service.stopTrace();
+    if (stopped == null) {
+      source.sendError(Text.translatable("minemotes.trace.idle"));
+      return 0;
+    }
+    String file = stopped.file().toString();
+    long bytes = stopped.bytes();
+    source.sendFeedback(() -> Text.translatable("minemotes.trace.saved", file, bytes), true);
+    return 1;
+  }
+
+  private static boolean checkAdmin(ServerCommandSource source, ConfigManager configManager) {
+    Config.Permissions permissions = configManager.current().permissions();
+    int level = permissions.fallbackLevel(EmoteType.ADMIN);
+    boolean allowed =
+        source.getEntity() instanceof ServerPlayerEntity player
+            ? Perms.check(player, permissions.admin(), level)
+            : source.hasPermissionLevel(level);
+    if (!allowed) {
+      source.sendError(Text.translatable("commands.generic.unknown"));
+    }
+    return allowed;
+  }
+
+  private static void reportPerf(ServerCommandSource source, EmoteService service) {
+    PerfMonitor.Snapshot snapshot = service.perf().snapshot();
+    long seconds = (System.currentTimeMillis() - snapshot.sinceMillis()) / 1000L;
+    source.sendFeedback(() -> Text.translatable("minemotes.perf.header", seconds), false);
+    for (Map.Entry<PerfMonitor.Stage, LogHistogram> entry : snapshot.timings().entrySet()) {
+      sendTimings(source, entry.getKey().id(), entry.getValue());
+    }
+    source.sendFeedback(() -> Text.translatable("minemotes.perf.phases"), false);
+    for (Map.Entry<CommandTrace.Phase, LogHistogram> entry : snapshot.phases().entrySet()) {
+      if (entry.getValue().count() > 0L) {
+        sendTimings(source, entry.getKey().id(), entry.getValue());
+      }
+    }
+    String active = joinCounts(service.activeCounts(), EmoteType::id);
+    String removals = joinCounts(snapshot.removals(), reason -> reason.name().toLowerCase(Locale.ROOT));
+    source.sendFeedback(() -> Text.translatable("minemotes.perf.active", active), false);
+    source.sendFeedback(() -> Text.translatable("minemotes.perf.removals", removals), false);
+  }
+
+  private static void reportSessions(ServerCommandSource source, EmoteService service) {
+    SessionStats stats = service.sessions().lifetime();
+    long seconds = (System.currentTimeMillis() - stats.sinceMillis()) / 1000L;
+    source.sendFeedback(() -> Text.translatable("minemotes.sessions.header", seconds), false);
+    if (stats.types().isEmpty()) {
+      source.sendFeedback(() -> Text.translatable("minemotes.sessions.empty"), false);
+      return;
+    }
+    for (SessionStats.Lifetime type : stats.types()) {
+      LogHistogram durations = type.durations();
+      String line =
+          String.format(
+              Locale.ROOT,
+              " - %s: %d started, %d ended, %s / %s / %s s, %.1f%% re-toggled, %s",
+              type.type().id(),
+              type.started(),
+              type.ended(),
+              seconds(durations.valueAtPercentile(50.0d)),
+              seconds(durations.valueAtPercentile(90.0d)),
+              seconds(durations.valueAtPercentile(99.0d)),
+              type.retoggleRate() * 100.0d,
+              joinCounts(type.reasons(), reason -> reason.name().toLowerCase(Locale.ROOT)));
+      source.sendFeedback(() -> Text.literal(line), false);
+    }
+  }
+
+  private static String seconds(long millis) {
+    return String.format(Locale.ROOT, "%.1f", millis / 1000.0d);
+  }
+
+  private static void sendTimings(ServerCommandSource source, String name, LogHistogram timings) {
+    String line =
+        String.format(
+            Locale.ROOT,
+            " - %s: %d calls, %s / %s / %s",
+            name,
+            timings.count(),
+            micros(timings.valueAtPercentile(50.0d)),
+            micros(timings.valueAtPercentile(99.0d)),
+            micros(timings.max()));
+    source.sendFeedback(() -> Text.literal(line), false);
+  }
+
+  private static String micros(long nanos) {
+    return String.format(Locale.ROOT, "%.1f", nanos / 1000.0d);
+  }
+
+  private static <K> String joinCounts(
+      Map<K, ? extends Number> counts, Function<K, String> name) {
+    if (counts.isEmpty()) {
+      return "-";
+    }
+    StringJoiner joiner = new StringJoiner(", ");
+    counts.forEach((key, count) -> joiner.add(name.apply(key) + "=" + count));
+    return joiner.toString();
+  }
+
+  private static void reportReload(ServerCommandSource source, ReloadResult result) {
+    if (result.applied()) {
+      source.sendFeedback(() -> Text.translatable("minemotes.reload.ok"), true);
+      if (result.customChanged()) {
+        source.sendFeedback(() -> Text.translatable("minemotes.reload.commands"), true);
+      }
+      return;
+    }
+    source.sendError(Text.translatable("minemotes.reload.failed", result.errors().size()));
+    for (String error : result.errors()) {
+      source.sendError(Text.literal(" - " + error));
+    }
   }
 
   private static int executeCrawl(
       CommandContext<ServerCommandSource> ctx, EmoteService service, Toggle toggle)
       throws CommandSyntaxException {
     ServerPlayerEntity player = ctx.getSource().getPlayerOrThrow();
-    Result result = service.handleCrawl(player, toggle);
-    player.sendMessage(result.message(), false);
+    Result result = FabricEmotes.handleCrawl(service, player, toggle);
+    player.sendMessage(FabricEmotes.text(result.message()), false);
     return result.success() ? 1 : 0;
   }
 
-  private static int executeSeat(CommandContext<ServerCommandSource> ctx, EmoteService service, EmoteType type)
+  private static int executeEmote(
+      CommandContext<ServerCommandSource> ctx, EmoteService service, String name)
       throws CommandSyntaxException {
     ServerPlayerEntity player = ctx.getSource().getPlayerOrThrow();
-    Result result = service.handleSeat(player, type);
-    player.sendMessage(result.message(), false);
+    Result result = FabricEmotes.handleEmote(service, player, name);
+    player.sendMessage(FabricEmotes.text(result.message()), false);
     return result.success() ? 1 : 0;
   }
 }
@@ -17,11 +17,40 @@ public final class Config {
   private final Core core;
   private final Emotes emotes;
   private final Permissions permissions;
+  private final Ledger ledger;
+  private final List<Zone> zones;
+  private final Metrics metrics;
+  private final EmoteRegistry registry;
+  private final ZoneIndex zoneIndex;
 
   public Config(Core core, Emotes emotes, Permissions permissions) {
+    this(core, emotes, permissions, Ledger.defaults());
+  }
+
+  public Config(Core core, Emotes emotes, Permissions permissions, Ledger ledger) {
+    this(core, emotes, permissions, ledger, List.of());
+  }
+
+  public Config(
+      Core core, Emotes emotes, Permissions permissions, Ledger ledger, List<Zone> zones) {
+    this(core, emotes, permissions, ledger, zones, Metrics.defaults());
+  }
+
+  public Config(
+      Core core,
+      Emotes emotes,
+      Permissions permissions,
+      Ledger ledger,
+      List<Zone> zones,
+      Metrics metrics) {
     this.core = Objects.requireNonNull(core, "core");
     this.emotes = Objects.requireNonNull(emotes, "emotes");
     this.permissions = Objects.requireNonNull(permissions, "permissions");
+    this.ledger = Objects.requireNonNull(ledger, "ledger");
+    this.zones = List.copyOf(zones);
+    this.metrics = Objects.requireNonNull(metrics, "metrics");
+    this.registry = EmoteRegistry.compile(core, emotes, permissions);
+    this.zoneIndex = ZoneIndex.build(this.zones);
   }
 
   public static Config defaults() {
@@ -56,7 +85,7 @@ public final class Config {
                 EmoteType.LAY, 0,
                 EmoteType.BELLY, 0,
                 EmoteType.ADMIN, 2));
-    return new Config(core, emotes, permissions);
+    return new Config(core, emotes, permissions, Ledger.defaults());
   }
 
   public Core core() {
@@ -71,16 +100,51 @@ public final class Config {
     return permissions;
   }
 
+  public Ledger ledger() {
+    return ledger;
+  }
+
+  /** Location overlays from the {@code zones} section, in file order. */
+  public List<Zone> zones() {
+    return zones;
+  }
+
+  public Metrics metrics() {
+    return metrics;
+  }
+
+  /** Spatial index over {@link #zones()} for resolving the zone at a block position. */
+  public ZoneIndex zoneIndex() {
+    return zoneIndex;
+  }
+
+  /** Every emote in this config, built-in and custom, compiled into dense int ids. */
+  public EmoteRegistry registry() {
+    return registry;
+  }
+
   public Config withCore(Core newCore) {
-    return new Config(newCore, emotes, permissions);
+    return new Config(newCore, emotes, permissions, ledger, zones, metrics);
   }
 
   public Config withEmotes(Emotes newEmotes) {
-    return new Config(core, newEmotes, permissions);
+    return new Config(core, newEmotes, permissions, ledger, zones, metrics);
   }
 
   public Config withPermissions(Permissions newPerms) {
-    return new Config(core, emotes, newPerms);
+    return new Config(core, emotes, newPerms, ledger, zones, metrics);
+  }
+
+  public Config withLedger(Ledger newLedger) {
+    return new Config(core, emotes, permissions, newLedger, zones, metrics);
+  }
+
+  public Config withZones(List<Zone> newZones) {
+    return new Config(core, emotes, permissions, ledger, newZones, metrics);
+  }
+
+  public Config withMetrics(Metrics newMetrics) {
+    return new Config(core, emotes, permissions, ledger, zones, newMetrics);
   }
 
   public enum ToggleSetting {
@@ -104,6 +168,8 @@ public final class Config {
     private final AllowInWaterConfig allowInWater;
     private final Set<String> disableInWorlds;
     private final boolean cancelOnDanger;
+    private final Duration slowCommandThreshold;
+    private final RateLimit rateLimit;
 
     public Core(
         boolean enabled,
@@ -113,6 +179,48 @@ public final class Config {
         AllowInWaterConfig allowInWater,
         Set<String> disableInWorlds,
         boolean cancelOnDanger) {
+      this(
+          enabled,
+          cooldown,
+          cancelOnDamage,
+          cancelOnMove,
+          allowInWater,
+          disableInWorlds,
+          cancelOnDanger,
+          Duration.ofMillis(50));
+    }
+
+    public Core(
+        boolean enabled,
+        Duration cooldown,
+        CancelConfig cancelOnDamage,
+        CancelConfig cancelOnMove,
+        AllowInWaterConfig allowInWater,
+        Set<String> disableInWorlds,
+        boolean cancelOnDanger,
+        Duration slowCommandThreshold) {
+      this(
+          enabled,
+          cooldown,
+          cancelOnDamage,
+          cancelOnMove,
+          allowInWater,
+          disableInWorlds,
+          cancelOnDanger,
+          slowCommandThreshold,
+          RateLimit.defaults());
+    }
+
+    public Core(
+        boolean enabled,
+        Duration cooldown,
+        CancelConfig cancelOnDamage,
+        CancelConfig cancelOnMove,
+        AllowInWaterConfig allowInWater,
+        Set<String> disableInWorlds,
+        boolean cancelOnDanger,
+        Duration slowCommandThreshold,
+        RateLimit rateLimit) {
       this.enabled = enabled;
       this.cooldown = Objects.requireNonNull(cooldown, "cooldown");
       this.cancelOnDamage = Objects.requireNonNull(cancelOnDamage, "cancelOnDamage");
@@ -120,6 +228,9 @@ public final class Config {
       this.allowInWater = Objects.requireNonNull(allowInWater, "allowInWater");
       this.disableInWorlds = Collections.unmodifiableSet(ImmutableSet.copyOf(disableInWorlds));
       this.cancelOnDanger = cancelOnDanger;
+      this.slowCommandThreshold =
+          Objects.requireNonNull(slowCommandThreshold, "slowCommandThreshold");
+      this.rateLimit = Objects.requireNonNull(rateLimit, "rateLimit");
     }
 
     public boolean enabled() {
@@ -150,34 +261,214 @@ public final class Config {
       return cancelOnDanger;
     }
 
+    /** Emote commands slower than this are logged with their phase timings; zero turns it off. */
+    public Duration slowCommandThreshold() {
+      return slowCommandThreshold;
+    }
+
+    /** Per-player limit on emote commands of every kind, stops included. */
+    public RateLimit rateLimit() {
+      return rateLimit;
+    }
+
     public Core withEnabled(boolean value) {
       return new Core(
-          value, cooldown, cancelOnDamage, cancelOnMove, allowInWater, disableInWorlds, cancelOnDanger);
+          value,
+          cooldown,
+          cancelOnDamage,
+          cancelOnMove,
+          allowInWater,
+          disableInWorlds,
+          cancelOnDanger,
+          slowCommandThreshold,
+          rateLimit);
     }
 
     public Core withCooldown(Duration value) {
       return new Core(
-          enabled, value, cancelOnDamage, cancelOnMove, allowInWater, disableInWorlds, cancelOnDanger);
+          enabled,
+          value,
+          cancelOnDamage,
+          cancelOnMove,
+          allowInWater,
+          disableInWorlds,
+          cancelOnDanger,
+          slowCommandThreshold,
+          rateLimit);
     }
 
     public Core withCancelOnDamage(CancelConfig value) {
-      return new Core(enabled, cooldown, value, cancelOnMove, allowInWater, disableInWorlds, cancelOnDanger);
+      return new Core(
+          enabled,
+          cooldown,
+          value,
+          cancelOnMove,
+          allowInWater,
+          disableInWorlds,
+          cancelOnDanger,
+          slowCommandThreshold,
+          rateLimit);
     }
 
     public Core withCancelOnMove(CancelConfig value) {
-      return new Core(enabled, cooldown, cancelOnDamage, value, allowInWater, disableInWorlds, cancelOnDanger);
+      return new Core(
+          enabled,
+          cooldown,
+          cancelOnDamage,
+          value,
+          allowInWater,
+          disableInWorlds,
+          cancelOnDanger,
+          slowCommandThreshold,
+          rateLimit);
     }
 
     public Core withAllowInWater(AllowInWaterConfig value) {
-      return new Core(enabled, cooldown, cancelOnDamage, cancelOnMove, value, disableInWorlds, cancelOnDanger);
+      return new Core(
+          enabled,
+          cooldown,
+          cancelOnDamage,
+          cancelOnMove,
+          value,
+          disableInWorlds,
+          cancelOnDanger,
+          slowCommandThreshold,
+          rateLimit);
     }
 
     public Core withCancelOnDanger(boolean value) {
-      return new Core(enabled, cooldown, cancelOnDamage, cancelOnMove, allowInWater, disableInWorlds, value);
+      return new Core(
+          enabled,
+          cooldown,
+          cancelOnDamage,
+          cancelOnMove,
+          allowInWater,
+          disableInWorlds,
+          value,
+          slowCommandThreshold,
+          rateLimit);
+    }
+
+    public Core withSlowCommandThreshold(Duration value) {
+      return new Core(
+          enabled,
+          cooldown,
+          cancelOnDamage,
+          cancelOnMove,
+          allowInWater,
+          disableInWorlds,
+          cancelOnDanger,
+          value,
+          rateLimit);
     }
 
     public Core withDisableInWorlds(Set<String> worlds) {
-      return new Core(enabled, cooldown, cancelOnDamage, cancelOnMove, allowInWater, worlds, cancelOnDanger);
+      return new Core(
+          enabled,
+          cooldown,
+          cancelOnDamage,
+          cancelOnMove,
+          allowInWater,
+          worlds,
+          cancelOnDanger,
+          slowCommandThreshold,
+          rateLimit);
+    }
+
+    public Core withRateLimit(RateLimit value) {
+      return new Core(
+          enabled,
+          cooldown,
+          cancelOnDamage,
+          cancelOnMove,
+          allowInWater,
+          disableInWorlds,
+          cancelOnDanger,
+          slowCommandThreshold,
+          value);
+    }
+  }
+
+  /**
+   * Token bucket per player for emote commands: {@code burst} commands at once, then one per {@code
+   * refillInterval}. A player who runs the bucket dry is locked out for {@code penalty}, doubled
+   * for each recent lockout and capped at {@code maxPenalty}. A full bucket forgives a lockout.
+   */
+  public static final class RateLimit {
+    private final boolean enabled;
+    private final int burst;
+    private final Duration refillInterval;
+    private final Duration penalty;
+    private final Duration maxPenalty;
+
+    public RateLimit(
+        boolean enabled,
+        int burst,
+        Duration refillInterval,
+        Duration penalty,
+        Duration maxPenalty) {
+      this.enabled = enabled;
+      this.burst = burst;
+      this.refillInterval = Objects.requireNonNull(refillInterval, "refillInterval");
+      this.penalty = Objects.requireNonNull(penalty, "penalty");
+      this.maxPenalty = Objects.requireNonNull(maxPenalty, "maxPenalty");
+    }
+
+    public static RateLimit defaults() {
+      return new RateLimit(
+          true, 6, Duration.ofMillis(1500), Duration.ofSeconds(5), Duration.ofMinutes(2));
+    }
+
+    /** A limit that lets every command through. */
+    public static RateLimit disabled() {
+      RateLimit defaults = defaults();
+      return new RateLimit(
+          false,
+          defaults.burst,
+          defaults.refillInterval,
+          defaults.penalty,
+          defaults.maxPenalty);
+    }
+
+    public boolean enabled() {
+      return enabled;
+    }
+
+    public int burst() {
+      return burst;
+    }
+
+    public Duration refillInterval() {
+      return refillInterval;
+    }
+
+    /** First lockout for draining the bucket; zero only waits for the next token. */
+    public Duration penalty() {
+      return penalty;
+    }
+
+    public Duration maxPenalty() {
+      return maxPenalty;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof RateLimit other)) {
+        return false;
+      }
+      return enabled == other.enabled
+          && burst == other.burst
+          && refillInterval.equals(other.refillInterval)
+          && penalty.equals(other.penalty)
+          && maxPenalty.equals(other.maxPenalty);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(enabled, burst, refillInterval, penalty, maxPenalty);
     }
   }
 
@@ -264,6 +555,8 @@ public final class Config {
     private final SeatEmoteConfig chair;
     private final SeatEmoteConfig lay;
     private final SeatEmoteConfig belly;
+    private final List<CustomEmote> custom;
+    private final List<String> chairBlockTags;
 
     public Emotes(
         CrawlConfig crawl,
@@ -271,11 +564,42 @@ public final class Config {
         SeatEmoteConfig chair,
         SeatEmoteConfig lay,
         SeatEmoteConfig belly) {
+      this(crawl, sit, chair, lay, belly, List.of());
+    }
+
+    public Emotes(
+        CrawlConfig crawl,
+        SeatEmoteConfig sit,
+        SeatEmoteConfig chair,
+        SeatEmoteConfig lay,
+        SeatEmoteConfig belly,
+        List<CustomEmote> custom) {
+      this(crawl, sit, chair, lay, belly, custom, List.of());
+    }
+
+    public Emotes(
+        CrawlConfig crawl,
+        SeatEmoteConfig sit,
+        SeatEmoteConfig chair,
+        SeatEmoteConfig lay,
+        SeatEmoteConfig belly,
+        List<CustomEmote> custom,
+        List<String> chairBlockTags) {
       this.crawl = Objects.requireNonNull(crawl, "crawl");
       this.sit = Objects.requireNonNull(sit, "sit");
       this.chair = Objects.requireNonNull(chair, "chair");
       this.lay = Objects.requireNonNull(lay, "lay");
       this.belly = Objects.requireNonNull(belly, "belly");
+      this.custom = List.copyOf(custom);
+      this.chairBlockTags = List.copyOf(chairBlockTags);
+    }
+
+    public Emotes withChairBlockTags(List<String> value) {
+      return new Emotes(crawl, sit, chair, lay, belly, custom, value);
+    }
+
+    public Emotes withCustom(List<CustomEmote> value) {
+      return new Emotes(crawl, sit, chair, lay, belly, value, chairBlockTags);
     }
 
     public CrawlConfig crawl() {
@@ -297,6 +621,131 @@ public final class Config {
     public SeatEmoteConfig belly() {
       return belly;
     }
+
+    /** Returns the seat settings for {@code type}, or {@code null} for non-seat emotes. */
+    public SeatEmoteConfig seat(EmoteType type) {
+      return switch (type) {
+        case SIT -> sit;
+        case CHAIR -> chair;
+        case LAY -> lay;
+        case BELLY -> belly;
+        default -> null;
+      };
+    }
+
+    /** Operator-defined emotes from {@code emotes.custom}, in file order. */
+    public List<CustomEmote> custom() {
+      return custom;
+    }
+
+    /**
+     * Block tags, such as {@code minecraft:beds}, whose blocks /chair seats the player on top of.
+     * Stairs and bottom slabs are always seatable.
+     */
+    public List<String> chairBlockTags() {
+      return chairBlockTags;
+    }
+  }
+
+  /**
+   * An emote defined entirely in the config file. It reuses the seat behaviour of its {@code pose}
+   * (sit, chair, lay or belly) with its own placement, cancel rules, permission and messages.
+   * Messages may be translation keys or plain text.
+   */
+  public static final class CustomEmote {
+    private final String id;
+    private final EmoteType pose;
+    private final SeatEmoteConfig seat;
+    private final boolean cancelOnDamage;
+    private final boolean cancelOnMove;
+    private final boolean allowInWater;
+    private final String permission;
+    private final int fallbackLevel;
+    private final String startMessage;
+    private final String stopMessage;
+
+    public CustomEmote(
+        String id,
+        EmoteType pose,
+        SeatEmoteConfig seat,
+        boolean cancelOnDamage,
+        boolean cancelOnMove,
+        boolean allowInWater,
+        String permission,
+        int fallbackLevel,
+        String startMessage,
+        String stopMessage) {
+      this.id = Objects.requireNonNull(id, "id");
+      this.pose = Objects.requireNonNull(pose, "pose");
+      this.seat = Objects.requireNonNull(seat, "seat");
+      this.cancelOnDamage = cancelOnDamage;
+      this.cancelOnMove = cancelOnMove;
+      this.allowInWater = allowInWater;
+      this.permission = Objects.requireNonNull(permission, "permission");
+      this.fallbackLevel = fallbackLevel;
+      this.startMessage = Objects.requireNonNull(startMessage, "startMessage");
+      this.stopMessage = Objects.requireNonNull(stopMessage, "stopMessage");
+    }
+
+    public String id() {
+      return id;
+    }
+
+    public EmoteType pose() {
+      return pose;
+    }
+
+    public SeatEmoteConfig seat() {
+      return seat;
+    }
+
+    public boolean cancelOnDamage() {
+      return cancelOnDamage;
+    }
+
+    public boolean cancelOnMove() {
+      return cancelOnMove;
+    }
+
+    public boolean allowInWater() {
+      return allowInWater;
+    }
+
+    public String permission() {
+      return permission;
+    }
+
+    public int fallbackLevel() {
+      return fallbackLevel;
+    }
+
+    public String startMessage() {
+      return startMessage;
+    }
+
+    public String stopMessage() {
+      return stopMessage;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof CustomEmote other
+          && id.equals(other.id)
+          && pose == other.pose
+          && seat.equals(other.seat)
+          && cancelOnDamage == other.cancelOnDamage
+          && cancelOnMove == other.cancelOnMove
+          && allowInWater == other.allowInWater
+          && permission.equals(other.permission)
+          && fallbackLevel == other.fallbackLevel
+          && startMessage.equals(other.startMessage)
+          && stopMessage.equals(other.stopMessage);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(id, pose, seat, permission, startMessage, stopMessage);
+    }
   }
 
   public static final class CrawlConfig {
@@ -351,6 +800,21 @@ public final class Config {
     public float targetPitch() {
       return targetPitch;
     }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof SeatEmoteConfig other
+          && enabled == other.enabled
+          && Double.compare(offsetX, other.offsetX) == 0
+          && Double.compare(offsetY, other.offsetY) == 0
+          && Double.compare(offsetZ, other.offsetZ) == 0
+          && Float.compare(targetPitch, other.targetPitch) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(enabled, offsetX, offsetY, offsetZ, targetPitch);
+    }
   }
 
   public static final class Permissions {
@@ -408,11 +872,336 @@ public final class Config {
       return admin;
     }
 
+    public String node(EmoteType type) {
+      return switch (type) {
+        case CRAWL -> crawl;
+        case SIT -> sit;
+        case CHAIR -> chair;
+        case LAY -> lay;
+        case BELLY -> belly;
+        case ADMIN -> admin;
+      };
+    }
+
     public int fallbackLevel(EmoteType type) {
       return fallbackLevels.getOrDefault(type, 0);
     }
   }
 
+  /**
+   * An axis-aligned box in one world whose rules replace the global ones for players inside it.
+   * Bounds are inclusive block coordinates. Where zones overlap, the highest {@code priority} wins
+   * and ties go to the zone listed first.
+   */
+  public static final class Zone {
+    private final String name;
+    private final String world;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int maxX;
+    private final int maxY;
+    private final int maxZ;
+    private final int priority;
+    private final Set<String> allowedEmotes;
+    private final Boolean cancelOnDamage;
+    private final Boolean cancelOnMove;
+
+    /**
+     * @param allowedEmotes emote ids usable inside the zone, or {@code null} for all of them
+     * @param cancelOnDamage overrides every emote's cancel-on-damage rule, or {@code null} to keep it
+     * @param cancelOnMove overrides every emote's cancel-on-move rule, or {@code null} to keep it
+     */
+    public Zone(
+        String name,
+        String world,
+        int minX,
+        int minY,
+        int minZ,
+        int maxX,
+        int maxY,
+        int maxZ,
+        int priority,
+        Set<String> allowedEmotes,
+        Boolean cancelOnDamage,
+        Boolean cancelOnMove) {
+      this.name = Objects.requireNonNull(name, "name");
+      this.world = Objects.requireNonNull(world, "world");
+      this.minX = minX;
+      this.minY = minY;
+      this.minZ = minZ;
+      this.maxX = maxX;
+      this.maxY = maxY;
+      this.maxZ = maxZ;
+      this.priority = priority;
+      this.allowedEmotes = allowedEmotes == null ? null : ImmutableSet.copyOf(allowedEmotes);
+      this.cancelOnDamage = cancelOnDamage;
+      this.cancelOnMove = cancelOnMove;
+    }
+
+    public String name() {
+      return name;
+    }
+
+    public String world() {
+      return world;
+    }
+
+    public int minX() {
+      return minX;
+    }
+
+    public int minY() {
+      return minY;
+    }
+
+    public int minZ() {
+      return minZ;
+    }
+
+    public int maxX() {
+      return maxX;
+    }
+
+    public int maxY() {
+      return maxY;
+    }
+
+    public int maxZ() {
+      return maxZ;
+    }
+
+    public int priority() {
+      return priority;
+    }
+
+    /** Emote ids usable inside the zone, or {@code null} when every emote is. */
+    public Set<String> allowedEmotes() {
+      return allowedEmotes;
+    }
+
+    public Boolean cancelOnDamage() {
+      return cancelOnDamage;
+    }
+
+    public Boolean cancelOnMove() {
+      return cancelOnMove;
+    }
+
+    public boolean contains(int x, int y, int z) {
+      return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    public boolean allows(String emote) {
+      return allowedEmotes == null || allowedEmotes.contains(emote);
+    }
+
+    public boolean cancelOnDamage(boolean fallback) {
+      return cancelOnDamage != null ? cancelOnDamage : fallback;
+    }
+
+    public boolean cancelOnMove(boolean fallback) {
+      return cancelOnMove != null ? cancelOnMove : fallback;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Zone other
+          && name.equals(other.name)
+          && world.equals(other.world)
+          && minX == other.minX
+          && minY == other.minY
+          && minZ == other.minZ
+          && maxX == other.maxX
+          && maxY == other.maxY
+          && maxZ == other.maxZ
+          && priority == other.priority
+          && Objects.equals(allowedEmotes, other.allowedEmotes)
+          && Objects.equals(cancelOnDamage, other.cancelOnDamage)
+          && Objects.equals(cancelOnMove, other.cancelOnMove);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(name, world, minX, minY, minZ, maxX, maxY, maxZ, priority);
+    }
+  }
+
+  /** What {@link Ledger} does with a new entry when its queue is full. */
+  public enum OverflowPolicy {
+    DROP_OLDEST("drop_oldest"),
+    DROP_NEWEST("drop_newest"),
+    BLOCK("block");
+
+    private final String id;
+
+    OverflowPolicy(String id) {
+      this.id = id;
+    }
+
+    public String id() {
+      return id;
+    }
+
+    public static OverflowPolicy fromId(String value, OverflowPolicy defaultValue) {
+      for (OverflowPolicy policy : values()) {
+        if (policy.id.equalsIgnoreCase(value)) {
+          return policy;
+        }
+      }
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Buffering of MinCore ledger writes and the local spool behind them. Queue capacity and spool
+   * settings are fixed at startup. A non-zero {@code rollupInterval} replaces per-event rows with
+   * one aggregated row per emote type and window.
+   */
+  public static final class Ledger {
+    private final int queueCapacity;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final OverflowPolicy overflow;
+    private final Duration blockTimeout;
+    private final boolean spoolEnabled;
+    private final int spoolSegmentKb;
+    private final int spoolMaxSegments;
+    private final Duration rollupInterval;
+
+    public Ledger(
+        int queueCapacity,
+        int batchSize,
+        Duration flushInterval,
+        OverflowPolicy overflow,
+        Duration blockTimeout) {
+      this(
+          queueCapacity,
+          batchSize,
+          flushInterval,
+          overflow,
+          blockTimeout,
+          true,
+          1024,
+          64,
+          Duration.ofMinutes(5));
+    }
+
+    public Ledger(
+        int queueCapacity,
+        int batchSize,
+        Duration flushInterval,
+        OverflowPolicy overflow,
+        Duration blockTimeout,
+        boolean spoolEnabled,
+        int spoolSegmentKb,
+        int spoolMaxSegments,
+        Duration rollupInterval) {
+      this.queueCapacity = queueCapacity;
+      this.batchSize = batchSize;
+      this.flushInterval = Objects.requireNonNull(flushInterval, "flushInterval");
+      this.overflow = Objects.requireNonNull(overflow, "overflow");
+      this.blockTimeout = Objects.requireNonNull(blockTimeout, "blockTimeout");
+      this.spoolEnabled = spoolEnabled;
+      this.spoolSegmentKb = spoolSegmentKb;
+      this.spoolMaxSegments = spoolMaxSegments;
+      this.rollupInterval = Objects.requireNonNull(rollupInterval, "rollupInterval");
+    }
+
+    public static Ledger defaults() {
+      return new Ledger(
+          1024, 64, Duration.ofMillis(250), OverflowPolicy.DROP_OLDEST, Duration.ofMillis(5));
+    }
+
+    public int queueCapacity() {
+      return queueCapacity;
+    }
+
+    public int batchSize() {
+      return batchSize;
+    }
+
+    public Duration flushInterval() {
+      return flushInterval;
+    }
+
+    public OverflowPolicy overflow() {
+      return overflow;
+    }
+
+    public Duration blockTimeout() {
+      return blockTimeout;
+    }
+
+    public boolean spoolEnabled() {
+      return spoolEnabled;
+    }
+
+    public int spoolSegmentKb() {
+      return spoolSegmentKb;
+    }
+
+    public int spoolMaxSegments() {
+      return spoolMaxSegments;
+    }
+
+    public Duration rollupInterval() {
+      return rollupInterval;
+    }
+
+    public boolean rollupsEnabled() {
+      return !rollupInterval.isZero();
+    }
+  }
+
+  /**
+   * Opt-in Prometheus scrape endpoint. It binds to loopback by default; expose it further only
+   * behind a firewall, since it is unauthenticated.
+   */
+  public static final class Metrics {
+    private final boolean enabled;
+    private final String host;
+    private final int port;
+
+    public Metrics(boolean enabled, String host, int port) {
+      this.enabled = enabled;
+      this.host = Objects.requireNonNull(host, "host");
+      this.port = port;
+    }
+
+    public static Metrics defaults() {
+      return new Metrics(false, "127.0.0.1", 9464);
+    }
+
+    public boolean enabled() {
+      return enabled;
+    }
+
+    public String host() {
+      return host;
+    }
+
+    public int port() {
+      return port;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Metrics other)) {
+        return false;
+      }
+      return enabled == other.enabled && port == other.port && host.equals(other.host);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(enabled, host, port);
+    }
+  }
+
   public List<String> validationErrors() {
     ConfigValidator validator = new ConfigValidator(this);
     return validator.validate();
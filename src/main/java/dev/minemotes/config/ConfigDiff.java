@@ -0,0 +1,254 @@
+package dev.minemotes.config;
+
+import dev.minemotes.core.EmoteType;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Typed difference between two config snapshots, computed once per reload so listeners can react
+ * to exactly what changed instead of re-reading the whole config.
+ */
+public final class ConfigDiff {
+  private static final EmoteType[] EMOTES = {
+    EmoteType.CRAWL, EmoteType.SIT, EmoteType.CHAIR, EmoteType.LAY, EmoteType.BELLY
+  };
+
+  /** Top-level config sections listeners can subscribe to. */
+  public enum Section {
+    CORE,
+    EMOTES,
+    PERMISSIONS,
+    LEDGER,
+    ZONES,
+    METRICS
+  }
+
+  private final Config previous;
+  private final Config next;
+  private final Set<Section> sections = EnumSet.noneOf(Section.class);
+  private final Set<EmoteType> emotesEnabled = EnumSet.noneOf(EmoteType.class);
+  private final Set<EmoteType> emotesDisabled = EnumSet.noneOf(EmoteType.class);
+  private final Set<EmoteType> placementChanged = EnumSet.noneOf(EmoteType.class);
+  private final Set<EmoteType> cancelRulesChanged = EnumSet.noneOf(EmoteType.class);
+  private final Set<EmoteType> permissionsChanged = EnumSet.noneOf(EmoteType.class);
+  private final Set<String> worldsDisabled = new LinkedHashSet<>();
+  private final Set<String> worldsEnabled = new LinkedHashSet<>();
+  private final boolean enabledChanged;
+  private final boolean cooldownChanged;
+  private final boolean cancelOnDangerChanged;
+  private final boolean slowCommandChanged;
+  private final boolean rateLimitChanged;
+  private final boolean customChanged;
+  private final boolean chairBlockTagsChanged;
+
+  private ConfigDiff(Config previous, Config next) {
+    this.previous = previous;
+    this.next = next;
+    Config.Core before = previous.core();
+    Config.Core after = next.core();
+    this.enabledChanged = before.enabled() != after.enabled();
+    this.cooldownChanged = !before.cooldown().equals(after.cooldown());
+    this.cancelOnDangerChanged = before.cancelOnDanger() != after.cancelOnDanger();
+    this.slowCommandChanged = !before.slowCommandThreshold().equals(after.slowCommandThreshold());
+    this.rateLimitChanged = !before.rateLimit().equals(after.rateLimit());
+    for (String world : after.disableInWorlds()) {
+      if (!before.disableInWorlds().contains(world)) {
+        worldsDisabled.add(world);
+      }
+    }
+    for (String world : before.disableInWorlds()) {
+      if (!after.disableInWorlds().contains(world)) {
+        worldsEnabled.add(world);
+      }
+    }
+    for (EmoteType type : EMOTES) {
+      if (before.cancelOnDamage().enabledFor(type) != after.cancelOnDamage().enabledFor(type)
+          || before.cancelOnMove().enabledFor(type) != after.cancelOnMove().enabledFor(type)
+          || before.allowInWater().allow(type) != after.allowInWater().allow(type)) {
+        cancelRulesChanged.add(type);
+      }
+      boolean wasEnabled = emoteEnabled(previous, type);
+      boolean isEnabled = emoteEnabled(next, type);
+      if (wasEnabled != isEnabled) {
+        (isEnabled ? emotesEnabled : emotesDisabled).add(type);
+      }
+      Config.SeatEmoteConfig a = previous.emotes().seat(type);
+      Config.SeatEmoteConfig b = next.emotes().seat(type);
+      if (a != null
+          && b != null
+          && (a.offsetX() != b.offsetX()
+              || a.offsetY() != b.offsetY()
+              || a.offsetZ() != b.offsetZ()
+              || a.targetPitch() != b.targetPitch())) {
+        placementChanged.add(type);
+      }
+    }
+    boolean waterOnlyChanged =
+        previous.emotes().crawl().waterOnly() != next.emotes().crawl().waterOnly();
+    if (waterOnlyChanged) {
+      cancelRulesChanged.add(EmoteType.CRAWL);
+    }
+    this.customChanged = !previous.emotes().custom().equals(next.emotes().custom());
+    this.chairBlockTagsChanged =
+        !previous.emotes().chairBlockTags().equals(next.emotes().chairBlockTags());
+    Config.Permissions p = previous.permissions();
+    Config.Permissions n = next.permissions();
+    for (EmoteType type : EmoteType.values()) {
+      if (!p.node(type).equals(n.node(type)) || p.fallbackLevel(type) != n.fallbackLevel(type)) {
+        permissionsChanged.add(type);
+      }
+    }
+
+    if (enabledChanged
+        || cooldownChanged
+        || cancelOnDangerChanged
+        || slowCommandChanged
+        || rateLimitChanged
+        || !worldsDisabled.isEmpty()
+        || !worldsEnabled.isEmpty()
+        || !cancelRulesChanged.isEmpty()) {
+      sections.add(Section.CORE);
+    }
+    if (waterOnlyChanged
+        || customChanged
+        || chairBlockTagsChanged
+        || !emotesEnabled.isEmpty()
+        || !emotesDisabled.isEmpty()
+        || !placementChanged.isEmpty()) {
+      sections.add(Section.EMOTES);
+    }
+    if (!permissionsChanged.isEmpty()) {
+      sections.add(Section.PERMISSIONS);
+    }
+    if (ledgerChanged(previous.ledger(), next.ledger())) {
+      sections.add(Section.LEDGER);
+    }
+    if (!previous.zones().equals(next.zones())) {
+      sections.add(Section.ZONES);
+    }
+    if (!previous.metrics().equals(next.metrics())) {
+      sections.add(Section.METRICS);
+    }
+  }
+
+  public static ConfigDiff between(Config previous, Config next) {
+    return new ConfigDiff(
+        Objects.requireNonNull(previous, "previous"), Objects.requireNonNull(next, "next"));
+  }
+
+  public Config previous() {
+    return previous;
+  }
+
+  public Config next() {
+    return next;
+  }
+
+  public boolean isEmpty() {
+    return sections.isEmpty();
+  }
+
+  public Set<Section> sections() {
+    return Collections.unmodifiableSet(sections);
+  }
+
+  public boolean affects(Set<Section> subscribed) {
+    for (Section section : subscribed) {
+      if (sections.contains(section)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Whether {@code core.enabled} flipped. */
+  public boolean enabledChanged() {
+    return enabledChanged;
+  }
+
+  public boolean cooldownChanged() {
+    return cooldownChanged;
+  }
+
+  public boolean cancelOnDangerChanged() {
+    return cancelOnDangerChanged;
+  }
+
+  /** Whether any {@code core.rateLimit} setting changed. */
+  public boolean rateLimitChanged() {
+    return rateLimitChanged;
+  }
+
+  /** Emotes whose {@code enabled} flag went from false to true. */
+  public Set<EmoteType> emotesEnabled() {
+    return Collections.unmodifiableSet(emotesEnabled);
+  }
+
+  /** Emotes whose {@code enabled} flag went from true to false. */
+  public Set<EmoteType> emotesDisabled() {
+    return Collections.unmodifiableSet(emotesDisabled);
+  }
+
+  /** Seat emotes whose offsets or target pitch changed. */
+  public Set<EmoteType> placementChanged() {
+    return Collections.unmodifiableSet(placementChanged);
+  }
+
+  /** Whether any entry under {@code emotes.custom} was added, removed, reordered or edited. */
+  public boolean customChanged() {
+    return customChanged;
+  }
+
+  /** Whether {@code emotes.chair.blockTags} changed, so the seatable block table is stale. */
+  public boolean chairBlockTagsChanged() {
+    return chairBlockTagsChanged;
+  }
+
+  /** Emotes whose cancel-on-damage, cancel-on-move, water or water-only rules changed. */
+  public Set<EmoteType> cancelRulesChanged() {
+    return Collections.unmodifiableSet(cancelRulesChanged);
+  }
+
+  /** Emotes (including {@link EmoteType#ADMIN}) whose permission node or fallback level changed. */
+  public Set<EmoteType> permissionsChanged() {
+    return Collections.unmodifiableSet(permissionsChanged);
+  }
+
+  /** Worlds newly listed in {@code disableInWorlds}. */
+  public Set<String> worldsDisabled() {
+    return Collections.unmodifiableSet(worldsDisabled);
+  }
+
+  /** Worlds removed from {@code disableInWorlds}. */
+  public Set<String> worldsEnabled() {
+    return Collections.unmodifiableSet(worldsEnabled);
+  }
+
+  @Override
+  public String toString() {
+    return "ConfigDiff" + sections;
+  }
+
+  private static boolean emoteEnabled(Config config, EmoteType type) {
+    if (type == EmoteType.CRAWL) {
+      return config.emotes().crawl().enabled();
+    }
+    Config.SeatEmoteConfig seat = config.emotes().seat(type);
+    return seat != null && seat.enabled();
+  }
+
+  private static boolean ledgerChanged(Config.Ledger a, Config.Ledger b) {
+    return a.queueCapacity() != b.queueCapacity()
+        || a.batchSize() != b.batchSize()
+        || !a.flushInterval().equals(b.flushInterval())
+        || a.overflow() != b.overflow()
+        || !a.blockTimeout().equals(b.blockTimeout())
+        || a.spoolEnabled() != b.spoolEnabled()
+        || a.spoolSegmentKb() != b.spoolSegmentKb()
+        || a.spoolMaxSegments() != b.spoolMaxSegments()
+        || !a.rollupInterval().equals(b.rollupInterval());
+  }
+}
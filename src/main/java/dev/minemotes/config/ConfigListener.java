@@ -0,0 +1,7 @@
+package dev.minemotes.config;
+
+/** Receives an applied config snapshot together with what changed since the previous one. */
+@FunctionalInterface
+public interface ConfigListener {
+  void onConfigChanged(Config config, ConfigDiff diff);
+}
@@ -13,6 +13,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -54,8 +55,13 @@ public final class ConfigLoader {
   }
 
   public static Config load(Path path) throws IOException {
+    return parse(Files.readString(path, StandardCharsets.UTF_8), path);
+  }
+
+  /** Parses already-read file contents; {@code source} is only used in error messages. */
+  static Config parse(String content, Path source) throws IOException {
     try {
-      JsonObject json = JANKSON.load(path.toFile());
+      JsonObject json = JANKSON.load(content);
       Config config = fromJson(json, Config.defaults());
       List<String> errors = config.validationErrors();
       if (!errors.isEmpty()) {
@@ -65,8 +71,75 @@ public final class ConfigLoader {
       }
       return config;
     } catch (SyntaxError error) {
-      throw new IOException("Invalid JSON5 in " + path + ": " + error.getCompleteMessage(), error);
+      throw new IOException("Invalid JSON5 in " + source + ": " + error.getCompleteMessage(), error);
+    }
+  }
+
+  /**
+   * Replaces settings that fail validation with their defaults, logging each one. Meant for
+   * startup, where there is no previous config to keep; reloads reject an invalid file instead.
+   * Only sections whose bad values can break the mod are reset: the ledger queue and spool, the
+   * metrics endpoint, the rate limit, the slow command threshold, chair tags, custom emotes and
+   * zones. Other errors are logged by {@link #parse} and the values are used as before.
+   */
+  public static Config withInvalidSectionsReset(Config config) {
+    // Dropping invalid custom emotes can invalidate zones that list them, so check twice.
+    return resetInvalidSections(resetInvalidSections(config));
+  }
+
+  private static Config resetInvalidSections(Config config) {
+    List<String> errors = config.validationErrors();
+    if (errors.isEmpty()) {
+      return config;
+    }
+    Config defaults = Config.defaults();
+    Config result = config;
+    if (hasError(errors, "ledger.")) {
+      result = result.withLedger(defaults.ledger());
+      logReset("ledger");
+    }
+    if (hasError(errors, "metrics.")) {
+      result = result.withMetrics(defaults.metrics());
+      logReset("metrics");
+    }
+    if (hasError(errors, "core.rateLimit.")) {
+      result = result.withCore(result.core().withRateLimit(defaults.core().rateLimit()));
+      logReset("core.rateLimit");
+    }
+    if (hasError(errors, "core.slowCommandMs")) {
+      result =
+          result.withCore(
+              result.core().withSlowCommandThreshold(defaults.core().slowCommandThreshold()));
+      logReset("core.slowCommandMs");
     }
+    if (hasError(errors, "emotes.chair.blockTags")) {
+      result =
+          result.withEmotes(
+              result.emotes().withChairBlockTags(defaults.emotes().chairBlockTags()));
+      logReset("emotes.chair.blockTags");
+    }
+    if (hasError(errors, "emotes.custom.")) {
+      result = result.withEmotes(result.emotes().withCustom(List.of()));
+      logReset("emotes.custom");
+    }
+    if (hasError(errors, "zones")) {
+      result = result.withZones(List.of());
+      logReset("zones");
+    }
+    return result;
+  }
+
+  private static boolean hasError(List<String> errors, String keyPrefix) {
+    for (String error : errors) {
+      if (error.startsWith(keyPrefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void logReset(String section) {
+    LOGGER.warn("(minemotes) {} is invalid; using its defaults until the config is fixed", section);
   }
 
   public static void save(Path path, Config config) throws IOException {
@@ -78,9 +151,12 @@ public final class ConfigLoader {
 
   private static Config fromJson(JsonObject json, Config defaults) {
     Config.Core core = parseCore(json.getObject("core"), defaults.core());
-    Config.Emotes emotes = parseEmotes(json.getObject("emotes"), defaults.emotes());
     Config.Permissions perms = parsePermissions(json.getObject("permissions"), defaults.permissions());
-    return new Config(core, emotes, perms);
+    Config.Emotes emotes = parseEmotes(json.getObject("emotes"), defaults.emotes(), core, perms);
+    Config.Ledger ledger = parseLedger(json.getObject("ledger"), defaults.ledger());
+    List<Config.Zone> zones = parseZones(json.getObject("zones"));
+    Config.Metrics metrics = parseMetrics(json.getObject("metrics"), defaults.metrics());
+    return new Config(core, emotes, perms, ledger, zones, metrics);
   }
 
   private static Config.Core parseCore(JsonObject json, Config.Core defaults) {
@@ -106,6 +182,8 @@ public final class ConfigLoader {
               .collect(Collectors.toCollection(LinkedHashSet::new));
     }
     boolean cancelOnDanger = bool(json, "cancelOnDanger", defaults.cancelOnDanger());
+    double slowCommandMs =
+        number(json, "slowCommandMs", defaults.slowCommandThreshold().toMillis());
     return new Config.Core(
         enabled,
         Duration.ofMillis((long) (cooldownSeconds * 1000.0d)),
@@ -113,7 +191,25 @@ public final class ConfigLoader {
         cancelOnMove,
         allowInWater,
         disableInWorlds,
-        cancelOnDanger);
+        cancelOnDanger,
+        Duration.ofMillis((long) slowCommandMs),
+        parseRateLimit(json.getObject("rateLimit"), defaults.rateLimit()));
+  }
+
+  private static Config.RateLimit parseRateLimit(JsonObject json, Config.RateLimit defaults) {
+    if (json == null) {
+      return defaults;
+    }
+    return new Config.RateLimit(
+        bool(json, "enabled", defaults.enabled()),
+        (int) number(json, "burst", defaults.burst()),
+        seconds(number(json, "refillS", defaults.refillInterval().toMillis() / 1000.0d)),
+        seconds(number(json, "penaltyS", defaults.penalty().toMillis() / 1000.0d)),
+        seconds(number(json, "maxPenaltyS", defaults.maxPenalty().toMillis() / 1000.0d)));
+  }
+
+  private static Duration seconds(double value) {
+    return Duration.ofMillis((long) (value * 1000.0d));
   }
 
   private static Config.CancelConfig parseCancel(JsonObject json, Config.CancelConfig defaults) {
@@ -141,16 +237,65 @@ public final class ConfigLoader {
     return new Config.AllowInWaterConfig(map);
   }
 
-  private static Config.Emotes parseEmotes(JsonObject json, Config.Emotes defaults) {
+  private static Config.Emotes parseEmotes(
+      JsonObject json, Config.Emotes defaults, Config.Core core, Config.Permissions perms) {
     if (json == null) {
       return defaults;
     }
     Config.CrawlConfig crawl = parseCrawl(json.getObject("crawl"), defaults.crawl());
     Config.SeatEmoteConfig sit = parseSeat(json.getObject("sit"), defaults.sit());
-    Config.SeatEmoteConfig chair = parseSeat(json.getObject("chair"), defaults.chair());
+    JsonObject chairJson = json.getObject("chair");
+    Config.SeatEmoteConfig chair = parseSeat(chairJson, defaults.chair());
+    List<String> chairBlockTags = defaults.chairBlockTags();
+    if (chairJson != null && chairJson.get("blockTags") instanceof JsonArray array) {
+      chairBlockTags =
+          array.stream()
+              .map(value -> value instanceof JsonPrimitive primitive ? primitive.asString() : null)
+              .filter(Objects::nonNull)
+              .toList();
+    }
     Config.SeatEmoteConfig lay = parseSeat(json.getObject("lay"), defaults.lay());
     Config.SeatEmoteConfig belly = parseSeat(json.getObject("belly"), defaults.belly());
-    return new Config.Emotes(crawl, sit, chair, lay, belly);
+    Config.Emotes builtins = new Config.Emotes(crawl, sit, chair, lay, belly);
+    List<Config.CustomEmote> custom = new ArrayList<>();
+    JsonObject customJson = json.getObject("custom");
+    if (customJson != null) {
+      for (String id : customJson.keySet()) {
+        JsonObject entry = customJson.getObject(id);
+        if (entry != null) {
+          custom.add(parseCustom(id, entry, builtins, core, perms));
+        }
+      }
+    }
+    return new Config.Emotes(crawl, sit, chair, lay, belly, custom, chairBlockTags);
+  }
+
+  private static Config.CustomEmote parseCustom(
+      String id,
+      JsonObject json,
+      Config.Emotes builtins,
+      Config.Core core,
+      Config.Permissions perms) {
+    String poseId = string(json, "pose", EmoteType.SIT.id());
+    EmoteType pose = EmoteType.fromId(poseId);
+    if (pose == null) {
+      LOGGER.warn("(minemotes) emotes.custom.{} has unknown pose '{}'; using sit", id, poseId);
+      pose = EmoteType.SIT;
+    }
+    // Crawl and admin are rejected by the validator; parse them against sit so loading succeeds.
+    Config.SeatEmoteConfig base = builtins.seat(pose);
+    Config.SeatEmoteConfig seat = parseSeat(json, base != null ? base : builtins.sit());
+    return new Config.CustomEmote(
+        id,
+        pose,
+        seat,
+        bool(json, "cancelOnDamage", core.cancelOnDamage().enabledFor(pose)),
+        bool(json, "cancelOnMove", core.cancelOnMove().enabledFor(pose)),
+        bool(json, "allowInWater", core.allowInWater().allow(pose)),
+        string(json, "permission", "minemotes." + id),
+        (int) number(json, "fallbackOpLevel", perms.fallbackLevel(pose)),
+        string(json, "startMessage", String.valueOf(pose.startKey())),
+        string(json, "stopMessage", String.valueOf(pose.stopKey())));
   }
 
   private static Config.CrawlConfig parseCrawl(JsonObject json, Config.CrawlConfig defaults) {
@@ -195,14 +340,154 @@ public final class ConfigLoader {
     return new Config.Permissions(crawl, sit, chair, lay, belly, admin, fallback);
   }
 
+  private static List<Config.Zone> parseZones(JsonObject json) {
+    if (json == null) {
+      return List.of();
+    }
+    List<Config.Zone> zones = new ArrayList<>();
+    for (String name : json.keySet()) {
+      JsonObject zone = json.getObject(name);
+      if (zone == null) {
+        continue;
+      }
+      int[] min = vector(zone, "min");
+      int[] max = vector(zone, "max");
+      if (min == null || max == null) {
+        LOGGER.warn("(minemotes) zones.{} needs min and max as [x, y, z]; skipping it", name);
+        continue;
+      }
+      Set<String> emotes = null;
+      if (zone.get("emotes") instanceof JsonArray array) {
+        emotes =
+            array.stream()
+                .map(value -> value instanceof JsonPrimitive primitive ? primitive.asString() : null)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+      }
+      zones.add(
+          new Config.Zone(
+              name,
+              string(zone, "world", "minecraft:overworld"),
+              min[0],
+              min[1],
+              min[2],
+              max[0],
+              max[1],
+              max[2],
+              (int) number(zone, "priority", 0),
+              emotes,
+              optionalBool(zone, "cancelOnDamage"),
+              optionalBool(zone, "cancelOnMove")));
+    }
+    return zones;
+  }
+
+  private static int[] vector(JsonObject json, String key) {
+    if (!(json.get(key) instanceof JsonArray array) || array.size() != 3) {
+      return null;
+    }
+    int[] vector = new int[3];
+    for (int i = 0; i < 3; i++) {
+      if (!(array.get(i) instanceof JsonPrimitive primitive)) {
+        return null;
+      }
+      vector[i] = (int) Math.floor(primitive.asDouble(0.0d));
+    }
+    return vector;
+  }
+
+  private static Boolean optionalBool(JsonObject json, String key) {
+    if (json.get(key) instanceof JsonPrimitive primitive) {
+      return primitive.asBoolean(false);
+    }
+    return null;
+  }
+
+  private static Config.Ledger parseLedger(JsonObject json, Config.Ledger defaults) {
+    if (json == null) {
+      return defaults;
+    }
+    int queueCapacity = (int) number(json, "queueCapacity", defaults.queueCapacity());
+    int batchSize = (int) number(json, "batchSize", defaults.batchSize());
+    double flushMs = number(json, "flushIntervalMs", defaults.flushInterval().toMillis());
+    Config.OverflowPolicy overflow =
+        Config.OverflowPolicy.fromId(
+            string(json, "overflow", defaults.overflow().id()), defaults.overflow());
+    double blockMs = number(json, "blockTimeoutMs", defaults.blockTimeout().toMillis());
+    boolean spoolEnabled = bool(json, "spoolEnabled", defaults.spoolEnabled());
+    int spoolSegmentKb = (int) number(json, "spoolSegmentKb", defaults.spoolSegmentKb());
+    int spoolMaxSegments = (int) number(json, "spoolMaxSegments", defaults.spoolMaxSegments());
+    double rollupSeconds =
+        number(json, "rollupIntervalS", defaults.rollupInterval().toSeconds());
+    return new Config.Ledger(
+        queueCapacity,
+        batchSize,
+        Duration.ofMillis((long) flushMs),
+        overflow,
+        Duration.ofMillis((long) blockMs),
+        spoolEnabled,
+        spoolSegmentKb,
+        spoolMaxSegments,
+        Duration.ofMillis((long) (rollupSeconds * 1000.0d)));
+  }
+
+  private static Config.Metrics parseMetrics(JsonObject json, Config.Metrics defaults) {
+    if (json == null) {
+      return defaults;
+    }
+    return new Config.Metrics(
+        bool(json, "enabled", defaults.enabled()),
+        string(json, "host", defaults.host()),
+        (int) number(json, "port", defaults.port()));
+  }
+
   private static JsonObject toJson(Config config) {
     JsonObject root = new JsonObject();
     root.put("core", coreToJson(config.core()));
     root.put("emotes", emotesToJson(config.emotes()));
     root.put("permissions", permissionsToJson(config.permissions()));
+    root.put("ledger", ledgerToJson(config.ledger()));
+    root.put("metrics", metricsToJson(config.metrics()));
+    if (!config.zones().isEmpty()) {
+      JsonObject zones = new JsonObject();
+      for (Config.Zone zone : config.zones()) {
+        zones.put(zone.name(), zoneToJson(zone));
+      }
+      root.put("zones", zones);
+    }
     return root;
   }
 
+  private static JsonObject zoneToJson(Config.Zone zone) {
+    JsonObject json = new JsonObject();
+    json.put("world", new JsonPrimitive(zone.world()));
+    json.put("min", vectorToJson(zone.minX(), zone.minY(), zone.minZ()));
+    json.put("max", vectorToJson(zone.maxX(), zone.maxY(), zone.maxZ()));
+    json.put("priority", new JsonPrimitive(zone.priority()));
+    if (zone.allowedEmotes() != null) {
+      JsonArray emotes = new JsonArray();
+      for (String emote : zone.allowedEmotes()) {
+        emotes.add(new JsonPrimitive(emote));
+      }
+      json.put("emotes", emotes);
+    }
+    if (zone.cancelOnDamage() != null) {
+      json.put("cancelOnDamage", new JsonPrimitive(zone.cancelOnDamage()));
+    }
+    if (zone.cancelOnMove() != null) {
+      json.put("cancelOnMove", new JsonPrimitive(zone.cancelOnMove()));
+    }
+    return json;
+  }
+
+  private static JsonArray vectorToJson(int x, int y, int z) {
+    JsonArray array = new JsonArray();
+    array.add(new JsonPrimitive(x));
+    array.add(new JsonPrimitive(y));
+    array.add(new JsonPrimitive(z));
+    return array;
+  }
+
   private static JsonObject coreToJson(Config.Core core) {
     JsonObject json = new JsonObject();
     json.put("enabled", new JsonPrimitive(core.enabled()));
@@ -216,6 +501,18 @@ public final class ConfigLoader {
     }
     json.put("disableInWorlds", worlds);
     json.put("cancelOnDanger", new JsonPrimitive(core.cancelOnDanger()));
+    json.put("slowCommandMs", new JsonPrimitive(core.slowCommandThreshold().toMillis()));
+    json.put("rateLimit", rateLimitToJson(core.rateLimit()));
+    return json;
+  }
+
+  private static JsonObject rateLimitToJson(Config.RateLimit limit) {
+    JsonObject json = new JsonObject();
+    json.put("enabled", new JsonPrimitive(limit.enabled()));
+    json.put("burst", new JsonPrimitive(limit.burst()));
+    json.put("refillS", new JsonPrimitive(limit.refillInterval().toMillis() / 1000.0d));
+    json.put("penaltyS", new JsonPrimitive(limit.penalty().toMillis() / 1000.0d));
+    json.put("maxPenaltyS", new JsonPrimitive(limit.maxPenalty().toMillis() / 1000.0d));
     return json;
   }
 
@@ -239,9 +536,35 @@ public final class ConfigLoader {
     JsonObject json = new JsonObject();
     json.put("crawl", crawlToJson(emotes.crawl()));
     json.put("sit", seatToJson(emotes.sit()));
-    json.put("chair", seatToJson(emotes.chair()));
+    JsonObject chair = seatToJson(emotes.chair());
+    JsonArray blockTags = new JsonArray();
+    for (String tag : emotes.chairBlockTags()) {
+      blockTags.add(new JsonPrimitive(tag));
+    }
+    chair.put("blockTags", blockTags);
+    json.put("chair", chair);
     json.put("lay", seatToJson(emotes.lay()));
     json.put("belly", seatToJson(emotes.belly()));
+    if (!emotes.custom().isEmpty()) {
+      JsonObject custom = new JsonObject();
+      for (Config.CustomEmote emote : emotes.custom()) {
+        custom.put(emote.id(), customToJson(emote));
+      }
+      json.put("custom", custom);
+    }
+    return json;
+  }
+
+  private static JsonObject customToJson(Config.CustomEmote emote) {
+    JsonObject json = seatToJson(emote.seat());
+    json.put("pose", new JsonPrimitive(emote.pose().id()));
+    json.put("cancelOnDamage", new JsonPrimitive(emote.cancelOnDamage()));
+    json.put("cancelOnMove", new JsonPrimitive(emote.cancelOnMove()));
+    json.put("allowInWater", new JsonPrimitive(emote.allowInWater()));
+    json.put("permission", new JsonPrimitive(emote.permission()));
+    json.put("fallbackOpLevel", new JsonPrimitive(emote.fallbackLevel()));
+    json.put("startMessage", new JsonPrimitive(emote.startMessage()));
+    json.put("stopMessage", new JsonPrimitive(emote.stopMessage()));
     return json;
   }
 
@@ -279,6 +602,28 @@ public final class ConfigLoader {
     return json;
   }
 
+  private static JsonObject ledgerToJson(Config.Ledger ledger) {
+    JsonObject json = new JsonObject();
+    json.put("queueCapacity", new JsonPrimitive(ledger.queueCapacity()));
+    json.put("batchSize", new JsonPrimitive(ledger.batchSize()));
+    json.put("flushIntervalMs", new JsonPrimitive(ledger.flushInterval().toMillis()));
+    json.put("overflow", new JsonPrimitive(ledger.overflow().id()));
+    json.put("blockTimeoutMs", new JsonPrimitive(ledger.blockTimeout().toMillis()));
+    json.put("spoolEnabled", new JsonPrimitive(ledger.spoolEnabled()));
+    json.put("spoolSegmentKb", new JsonPrimitive(ledger.spoolSegmentKb()));
+    json.put("spoolMaxSegments", new JsonPrimitive(ledger.spoolMaxSegments()));
+    json.put("rollupIntervalS", new JsonPrimitive(ledger.rollupInterval().toSeconds()));
+    return json;
+  }
+
+  private static JsonObject metricsToJson(Config.Metrics metrics) {
+    JsonObject json = new JsonObject();
+    json.put("enabled", new JsonPrimitive(metrics.enabled()));
+    json.put("host", new JsonPrimitive(metrics.host()));
+    json.put("port", new JsonPrimitive(metrics.port()));
+    return json;
+  }
+
   private static boolean bool(JsonObject json, String key, boolean defaultValue) {
     if (json == null || !json.containsKey(key)) {
       return defaultValue;
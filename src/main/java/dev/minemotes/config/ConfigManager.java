@@ -1,6 +1,9 @@
 package dev.minemotes.config;
 
+import dev.minemotes.profiling.ConfigReloadEvent;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -8,32 +11,59 @@ import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
- * Loads configuration on start and watches for changes. Reloads are processed on a dedicated
- * executor to avoid blocking the server main thread.
+ * Loads configuration on start and watches for changes. Files are parsed and validated on a
+ * dedicated executor; a valid snapshot is staged and only swapped in, with listeners notified, when
+ * the server thread calls {@link #applyPending()} at the next tick boundary.
+ *
+ * <p>Watcher events are coalesced on the trailing edge, so a burst of writes from an editor save
+ * causes one reload after the file has gone quiet. Reloads whose file bytes hash the same as the
+ * last applied file are skipped before parsing. Snapshots that parse to the same settings are not
+ * republished.
  */
 public final class ConfigManager implements AutoCloseable {
   private static final Logger LOGGER = LogManager.getLogger("minemotes");
-  private static final Duration RELOAD_DEBOUNCE = Duration.ofMillis(200);
+  private static final Duration RELOAD_QUIET_PERIOD = Duration.ofMillis(200);
+  private static final Duration RELOAD_MAX_DELAY = Duration.ofSeconds(2);
 
   private final Path path;
   private final ExecutorService executor;
   private final List<Consumer<Config>> listeners = new CopyOnWriteArrayList<>();
+  private final List<SectionListener> sectionListeners = new CopyOnWriteArrayList<>();
+  private final Object pendingLock = new Object();
+  private final AtomicLong reloadsApplied = new AtomicLong();
+  private final AtomicLong reloadsFailed = new AtomicLong();
+  private final AtomicLong reloadsSkipped = new AtomicLong();
 
   private volatile Config current;
+  private volatile boolean hasPending;
+  private Config pending;
+  private List<CompletableFuture<ReloadResult>> pendingFutures = new ArrayList<>();
+  // Confined to the config executor once start() has returned.
+  private byte[] lastHash;
   private WatchService watchService;
   private WatchKey watchKey;
+  private Thread watcher;
 
   public ConfigManager(Path path) {
     this.path = Objects.requireNonNull(path, "path");
@@ -45,7 +75,12 @@ public final class ConfigManager implements AutoCloseable {
   }
 
   public void start() {
-    this.current = ConfigLoader.loadOrCreate(path);
+    this.current = ConfigLoader.withInvalidSectionsReset(ConfigLoader.loadOrCreate(path));
+    try {
+      this.lastHash = hash(Files.readAllBytes(path));
+    } catch (IOException e) {
+      LOGGER.warn("(minemotes) Unable to hash config file; the next reload will re-parse it", e);
+    }
     try {
       this.watchService = FileSystems.getDefault().newWatchService();
       Path dir = path.getParent();
@@ -57,7 +92,10 @@ public final class ConfigManager implements AutoCloseable {
                 StandardWatchEventKinds.ENTRY_CREATE,
                 StandardWatchEventKinds.ENTRY_MODIFY,
                 StandardWatchEventKinds.ENTRY_DELETE);
-        executor.execute(this::watchLoop);
+        Thread thread = new Thread(this::watchLoop, "MinEmotes-ConfigWatch");
+        thread.setDaemon(true);
+        this.watcher = thread;
+        thread.start();
       }
     } catch (IOException e) {
       LOGGER.warn("(minemotes) Unable to start config watcher", e);
@@ -68,63 +106,212 @@ public final class ConfigManager implements AutoCloseable {
     return current;
   }
 
+  /** Reload outcomes since startup; readable from any thread. */
+  public ReloadStats reloadStats() {
+    return new ReloadStats(reloadsApplied.get(), reloadsFailed.get(), reloadsSkipped.get());
+  }
+
+  /** Registers a listener for every applied snapshot and calls it once with the current one. */
   public void addListener(Consumer<Config> listener) {
     listeners.add(listener);
     listener.accept(current);
   }
 
-  public synchronized void reloadNow() {
+  /** Registers a listener that only runs when a reload changes one of {@code sections}. */
+  public void addListener(Set<ConfigDiff.Section> sections, ConfigListener listener) {
+    sectionListeners.add(
+        new SectionListener(
+            Collections.unmodifiableSet(EnumSet.copyOf(sections)),
+            Objects.requireNonNull(listener, "listener")));
+  }
+
+  /**
+   * Parses and validates the config file off the server thread. The returned future completes once
+   * the new snapshot has been applied by {@link #applyPending()}, or as soon as parsing or
+   * validation fails, in which case the current config stays in place.
+   */
+  public CompletableFuture<ReloadResult> reloadAsync() {
+    CompletableFuture<ReloadResult> result = new CompletableFuture<>();
+    try {
+      executor.execute(() -> parseAndStage(result));
+    } catch (RuntimeException e) {
+      result.complete(ReloadResult.failure(List.of("reload executor unavailable")));
+    }
+    return result;
+  }
+
+  /**
+   * Swaps in the most recently staged snapshot, if any, and notifies listeners. Call from the
+   * server thread at a tick boundary.
+   */
+  public void applyPending() {
+    if (!hasPending) {
+      return;
+    }
+    Config next;
+    List<CompletableFuture<ReloadResult>> futures;
+    synchronized (pendingLock) {
+      next = pending;
+      futures = pendingFutures;
+      pending = null;
+      pendingFutures = new ArrayList<>();
+      hasPending = false;
+    }
+    if (next == null) {
+      return;
+    }
+    ConfigDiff diff = ConfigDiff.between(current, next);
+    this.current = next;
+    reloadsApplied.incrementAndGet();
+    ConfigReloadEvent.emit("applied", diff.sections());
+    notifyListeners(next, diff);
+    if (diff.customChanged()) {
+      LOGGER.info(
+          "(minemotes) custom emotes changed; new or removed commands apply after a restart"
+              + " or /reload");
+    }
+    ReloadResult result = ReloadResult.success(diff.customChanged());
+    for (CompletableFuture<ReloadResult> future : futures) {
+      future.complete(result);
+    }
+  }
+
+  boolean hasPending() {
+    return hasPending;
+  }
+
+  private void parseAndStage(CompletableFuture<ReloadResult> result) {
+    Config next;
+    byte[] hash;
     try {
-      Config next = ConfigLoader.loadOrCreate(path);
-      this.current = next;
-      notifyListeners(next);
-    } catch (RuntimeException ex) {
+      if (Files.notExists(path)) {
+        next = ConfigLoader.loadOrCreate(path);
+        hash = hash(Files.readAllBytes(path));
+      } else {
+        byte[] content = Files.readAllBytes(path);
+        hash = hash(content);
+        if (Arrays.equals(hash, lastHash)) {
+          LOGGER.debug("(minemotes) config file unchanged; skipping reload");
+          settleUnchanged(result);
+          return;
+        }
+        next = ConfigLoader.parse(new String(content, StandardCharsets.UTF_8), path);
+      }
+    } catch (IOException | RuntimeException ex) {
       LOGGER.error("(minemotes) Reload failed", ex);
-      throw ex;
+      reloadsFailed.incrementAndGet();
+      ConfigReloadEvent.emit("failed", ex.getMessage());
+      Throwable cause =
+          ex instanceof UncheckedIOException && ex.getCause() != null ? ex.getCause() : ex;
+      complete(result, ReloadResult.failure(List.of(String.valueOf(cause.getMessage()))));
+      return;
+    }
+    List<String> errors = next.validationErrors();
+    if (!errors.isEmpty()) {
+      LOGGER.warn("(minemotes) keeping previous config; {} validation error(s)", errors.size());
+      reloadsFailed.incrementAndGet();
+      ConfigReloadEvent.emit("failed", errors.get(0));
+      complete(result, ReloadResult.failure(errors));
+      return;
+    }
+    lastHash = hash;
+    synchronized (pendingLock) {
+      Config base = pending != null ? pending : current;
+      if (ConfigDiff.between(base, next).isEmpty()) {
+        LOGGER.debug("(minemotes) config file changed but settings did not; skipping reload");
+        settleUnchangedLocked(result);
+        return;
+      }
+      pending = next;
+      if (result != null) {
+        pendingFutures.add(result);
+      }
+      hasPending = true;
+    }
+  }
+
+  private void settleUnchanged(CompletableFuture<ReloadResult> result) {
+    synchronized (pendingLock) {
+      settleUnchangedLocked(result);
+    }
+  }
+
+  /** Completes a reload that found nothing new, or joins the snapshot already waiting to apply. */
+  private void settleUnchangedLocked(CompletableFuture<ReloadResult> result) {
+    reloadsSkipped.incrementAndGet();
+    ConfigReloadEvent.emit("skipped", "");
+    if (result == null) {
+      return;
+    }
+    if (hasPending) {
+      pendingFutures.add(result);
+    } else {
+      result.complete(ReloadResult.success());
+    }
+  }
+
+  private static byte[] hash(byte[] content) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(content);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 unavailable", e);
+    }
+  }
+
+  private static void complete(CompletableFuture<ReloadResult> future, ReloadResult result) {
+    if (future != null) {
+      future.complete(result);
     }
   }
 
   private void watchLoop() {
-    long lastReload = 0L;
-    while (!Thread.currentThread().isInterrupted()) {
-      try {
+    try {
+      while (true) {
         WatchKey key = watchService.take();
-        boolean relevant = false;
-        for (WatchEvent<?> event : key.pollEvents()) {
-          Path changed = (Path) event.context();
-          if (changed != null && changed.getFileName().equals(path.getFileName())) {
-            relevant = true;
-          }
+        boolean relevant = touchesConfig(key);
+        if (!key.reset()) {
+          break;
         }
-        if (relevant) {
-          long now = System.nanoTime();
-          if (now - lastReload >= RELOAD_DEBOUNCE.toNanos()) {
-            lastReload = now;
-            safeReload();
-          }
+        if (!relevant) {
+          continue;
         }
-        boolean valid = key.reset();
-        if (!valid) {
-          break;
+        // Trailing edge: wait until the file has been quiet for RELOAD_QUIET_PERIOD, but not
+        // longer than RELOAD_MAX_DELAY, so editors that write in several steps reload once.
+        long start = System.nanoTime();
+        long deadline = start + RELOAD_QUIET_PERIOD.toNanos();
+        long latest = start + RELOAD_MAX_DELAY.toNanos();
+        long remaining;
+        while ((remaining = Math.min(deadline, latest) - System.nanoTime()) > 0L) {
+          WatchKey more = watchService.poll(remaining, TimeUnit.NANOSECONDS);
+          if (more == null) {
+            break;
+          }
+          if (touchesConfig(more)) {
+            deadline = System.nanoTime() + RELOAD_QUIET_PERIOD.toNanos();
+          }
+          more.reset();
         }
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        break;
+        executor.execute(() -> parseAndStage(null));
       }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      // ClosedWatchServiceException on shutdown, RejectedExecutionException after close.
     }
   }
 
-  private void safeReload() {
-    try {
-      Config next = ConfigLoader.loadOrCreate(path);
-      this.current = next;
-      notifyListeners(next);
-    } catch (RuntimeException ex) {
-      LOGGER.error("(minemotes) Hot reload failed", ex);
+  private boolean touchesConfig(WatchKey key) {
+    boolean relevant = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      Path changed = (Path) event.context();
+      if (changed != null && changed.getFileName().equals(path.getFileName())) {
+        relevant = true;
+      }
     }
+    return relevant;
   }
 
-  private void notifyListeners(Config config) {
+  private void notifyListeners(Config config, ConfigDiff diff) {
     for (Consumer<Config> listener : listeners) {
       try {
         listener.accept(config);
@@ -132,8 +319,26 @@ public final class ConfigManager implements AutoCloseable {
         LOGGER.warn("(minemotes) listener threw", t);
       }
     }
+    for (SectionListener listener : sectionListeners) {
+      if (!diff.affects(listener.sections())) {
+        continue;
+      }
+      try {
+        listener.listener().onConfigChanged(config, diff);
+      } catch (Throwable t) {
+        LOGGER.warn("(minemotes) listener threw", t);
+      }
+    }
   }
 
+  /**
+   * Reloads that were applied, that failed to parse or validate, and that were dropped because
+   * neither the file nor the settings had changed.
+   */
+  public record ReloadStats(long applied, long failed, long skipped) {}
+
+  private record SectionListener(Set<ConfigDiff.Section> sections, ConfigListener listener) {}
+
   @Override
   public void close() {
     if (watchKey != null) {
@@ -145,11 +350,20 @@ public final class ConfigManager implements AutoCloseable {
       } catch (IOException ignored) {
       }
     }
+    if (watcher != null) {
+      watcher.interrupt();
+    }
     executor.shutdownNow();
     try {
       executor.awaitTermination(500, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
     }
+    synchronized (pendingLock) {
+      for (CompletableFuture<ReloadResult> future : pendingFutures) {
+        future.complete(ReloadResult.failure(List.of("server stopping")));
+      }
+      pendingFutures.clear();
+    }
   }
 }
@@ -3,11 +3,18 @@ package dev.minemotes.config;
 import dev.minemotes.core.EmoteType;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 /** Validates {@link Config} bounds and emits human-readable error messages. */
 final class ConfigValidator {
+  private static final Pattern CUSTOM_ID = Pattern.compile("[a-z0-9_]{1,32}");
+  private static final Set<String> RESERVED_IDS = Set.of("minemotes");
+  private static final Pattern TAG_ID = Pattern.compile("([a-z0-9_.-]+:)?[a-z0-9_./-]+");
+
   private final Config config;
 
   ConfigValidator(Config config) {
@@ -17,6 +24,16 @@ final class ConfigValidator {
   List<String> validate() {
     List<String> errors = new ArrayList<>();
     validateDuration(config.core().cooldown(), "core.cooldownS", 0.0, 60.0, errors);
+    validateRange(
+        "core.slowCommandMs", (int) config.core().slowCommandThreshold().toMillis(), 0, 10_000, errors);
+    Config.RateLimit rateLimit = config.core().rateLimit();
+    validateRange("core.rateLimit.burst", rateLimit.burst(), 1, 100, errors);
+    validateDuration(rateLimit.refillInterval(), "core.rateLimit.refillS", 0.05, 60.0, errors);
+    validateDuration(rateLimit.penalty(), "core.rateLimit.penaltyS", 0.0, 600.0, errors);
+    validateDuration(rateLimit.maxPenalty(), "core.rateLimit.maxPenaltyS", 0.0, 3600.0, errors);
+    if (rateLimit.maxPenalty().compareTo(rateLimit.penalty()) < 0) {
+      errors.add("core.rateLimit.maxPenaltyS must not be below core.rateLimit.penaltyS");
+    }
 
     for (Map.Entry<EmoteType, Boolean> entry : config.core().cancelOnDamage().asMap().entrySet()) {
       if (entry.getKey() == EmoteType.ADMIN) continue;
@@ -37,6 +54,11 @@ final class ConfigValidator {
 
     Config.SeatEmoteConfig chair = config.emotes().chair();
     validateOffset("emotes.chair.offsetY", chair.offsetY(), -4.0, 4.0, errors);
+    for (String tag : config.emotes().chairBlockTags()) {
+      if (!TAG_ID.matcher(tag).matches()) {
+        errors.add("emotes.chair.blockTags: '" + tag + "' is not a tag id like minecraft:beds");
+      }
+    }
 
     Config.SeatEmoteConfig lay = config.emotes().lay();
     validateOffset("emotes.lay.offsetY", lay.offsetY(), -4.0, 4.0, errors);
@@ -46,6 +68,67 @@ final class ConfigValidator {
     validateOffset("emotes.belly.offsetY", belly.offsetY(), -4.0, 4.0, errors);
     validatePitch("emotes.belly.pitchDegrees", belly.targetPitch(), errors);
 
+    Set<String> customIds = new HashSet<>();
+    for (Config.CustomEmote emote : config.emotes().custom()) {
+      String key = "emotes.custom." + emote.id();
+      if (!CUSTOM_ID.matcher(emote.id()).matches()) {
+        errors.add(key + " must be 1-32 lowercase letters, digits or underscores");
+      }
+      if (EmoteType.fromId(emote.id()) != null || RESERVED_IDS.contains(emote.id())) {
+        errors.add(key + " clashes with a built-in command");
+      } else if (!customIds.add(emote.id())) {
+        errors.add(key + " is defined twice");
+      }
+      if (emote.pose() == EmoteType.CRAWL || emote.pose() == EmoteType.ADMIN) {
+        errors.add(key + ".pose must be one of sit, chair, lay, belly");
+      }
+      validateOffset(key + ".offsetY", emote.seat().offsetY(), -4.0, 4.0, errors);
+      validatePitch(key + ".pitchDegrees", emote.seat().targetPitch(), errors);
+      validateRange(key + ".fallbackOpLevel", emote.fallbackLevel(), 0, 4, errors);
+      if (emote.permission().isBlank()) {
+        errors.add(key + ".permission must not be empty");
+      }
+    }
+
+    long zoneChunks = 0L;
+    for (Config.Zone zone : config.zones()) {
+      String key = "zones." + zone.name();
+      if (zone.world().isBlank()) {
+        errors.add(key + ".world must not be empty");
+      }
+      if (zone.minX() > zone.maxX() || zone.minY() > zone.maxY() || zone.minZ() > zone.maxZ()) {
+        errors.add(key + ".min must not exceed max on any axis");
+      }
+      if (zone.allowedEmotes() != null) {
+        for (String emote : zone.allowedEmotes()) {
+          if (config.registry().id(emote) < 0) {
+            errors.add(key + ".emotes lists unknown emote '" + emote + "'");
+          }
+        }
+      }
+      zoneChunks += ZoneIndex.chunkSpan(zone);
+    }
+    if (zoneChunks > ZoneIndex.MAX_INDEXED_CHUNKS) {
+      errors.add("zones cover " + zoneChunks + " chunks; at most " + ZoneIndex.MAX_INDEXED_CHUNKS);
+    }
+
+    Config.Ledger ledger = config.ledger();
+    validateRange("ledger.queueCapacity", ledger.queueCapacity(), 16, 65536, errors);
+    validateRange("ledger.batchSize", ledger.batchSize(), 1, Math.max(1, ledger.queueCapacity()), errors);
+    validateRange("ledger.flushIntervalMs", (int) ledger.flushInterval().toMillis(), 10, 10_000, errors);
+    validateRange("ledger.blockTimeoutMs", (int) ledger.blockTimeout().toMillis(), 0, 50, errors);
+    validateRange("ledger.spoolSegmentKb", ledger.spoolSegmentKb(), 64, 65536, errors);
+    validateRange("ledger.spoolMaxSegments", ledger.spoolMaxSegments(), 1, 4096, errors);
+    if (ledger.rollupsEnabled()) {
+      validateDuration(ledger.rollupInterval(), "ledger.rollupIntervalS", 10, 86_400, errors);
+    }
+
+    Config.Metrics metrics = config.metrics();
+    if (metrics.host().isBlank()) {
+      errors.add("metrics.host must not be empty");
+    }
+    validateRange("metrics.port", metrics.port(), 1, 65535, errors);
+
     return errors;
   }
 
@@ -63,6 +146,12 @@ final class ConfigValidator {
     }
   }
 
+  private static void validateRange(String key, int value, int min, int max, List<String> errors) {
+    if (value < min || value > max) {
+      errors.add(key + " must be between " + min + " and " + max);
+    }
+  }
+
   private static void validatePitch(String key, float value, List<String> errors) {
     if (Float.isNaN(value) || value < -90.0f || value > 90.0f) {
       errors.add(key + " must be within [-90, 90]");
@@ -0,0 +1,202 @@
+package dev.minemotes.config;
+
+import dev.minemotes.core.EmoteType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Every emote of one config snapshot compiled into dense int ids with per-id arrays, so dispatch is
+ * a table lookup rather than a switch over {@link EmoteType}. Built-ins take ids 0 to 4 in {@link
+ * EmoteType} order and custom emotes follow in file order. Ids are only stable within a snapshot;
+ * carry an emote across reloads by {@link #name}.
+ */
+public final class EmoteRegistry {
+  /** Number of built-in emotes; ids below this are built-ins. */
+  public static final int BUILTIN_COUNT = 5;
+
+  private static final EmoteType[] BUILTINS = {
+    EmoteType.CRAWL, EmoteType.SIT, EmoteType.CHAIR, EmoteType.LAY, EmoteType.BELLY
+  };
+
+  private final String[] names;
+  private final EmoteType[] poses;
+  private final boolean[] enabled;
+  private final Config.SeatEmoteConfig[] seats;
+  private final boolean[] cancelOnDamage;
+  private final boolean[] cancelOnMove;
+  private final boolean[] allowInWater;
+  private final String[] permissions;
+  private final int[] fallbackLevels;
+  private final String[] startMessages;
+  private final String[] stopMessages;
+  private final Map<String, Integer> ids;
+
+  private EmoteRegistry(int size) {
+    this.names = new String[size];
+    this.poses = new EmoteType[size];
+    this.enabled = new boolean[size];
+    this.seats = new Config.SeatEmoteConfig[size];
+    this.cancelOnDamage = new boolean[size];
+    this.cancelOnMove = new boolean[size];
+    this.allowInWater = new boolean[size];
+    this.permissions = new String[size];
+    this.fallbackLevels = new int[size];
+    this.startMessages = new String[size];
+    this.stopMessages = new String[size];
+    this.ids = new HashMap<>(size * 2);
+  }
+
+  static EmoteRegistry compile(
+      Config.Core core, Config.Emotes emotes, Config.Permissions permissions) {
+    // Duplicates and clashes with built-in ids are reported by the validator; the first wins here.
+    List<Config.CustomEmote> custom = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    for (Config.CustomEmote emote : emotes.custom()) {
+      if (EmoteType.fromId(emote.id()) == null && seen.add(emote.id())) {
+        custom.add(emote);
+      }
+    }
+    EmoteRegistry registry = new EmoteRegistry(BUILTIN_COUNT + custom.size());
+    for (int id = 0; id < BUILTIN_COUNT; id++) {
+      EmoteType type = BUILTINS[id];
+      Config.SeatEmoteConfig seat = emotes.seat(type);
+      registry.fill(
+          id,
+          type.id(),
+          type,
+          type == EmoteType.CRAWL ? emotes.crawl().enabled() : seat.enabled(),
+          seat,
+          core.cancelOnDamage().enabledFor(type),
+          core.cancelOnMove().enabledFor(type),
+          core.allowInWater().allow(type),
+          permissions.node(type),
+          permissions.fallbackLevel(type),
+          type.startKey(),
+          type.stopKey());
+    }
+    for (int i = 0; i < custom.size(); i++) {
+      Config.CustomEmote emote = custom.get(i);
+      registry.fill(
+          BUILTIN_COUNT + i,
+          emote.id(),
+          emote.pose(),
+          emote.seat().enabled(),
+          emote.seat(),
+          emote.cancelOnDamage(),
+          emote.cancelOnMove(),
+          emote.allowInWater(),
+          emote.permission(),
+          emote.fallbackLevel(),
+          emote.startMessage(),
+          emote.stopMessage());
+    }
+    return registry;
+  }
+
+  private void fill(
+      int id,
+      String name,
+      EmoteType pose,
+      boolean isEnabled,
+      Config.SeatEmoteConfig seat,
+      boolean damage,
+      boolean move,
+      boolean water,
+      String permission,
+      int fallbackLevel,
+      String start,
+      String stop) {
+    names[id] = name;
+    poses[id] = pose;
+    enabled[id] = isEnabled;
+    seats[id] = seat;
+    cancelOnDamage[id] = damage;
+    cancelOnMove[id] = move;
+    allowInWater[id] = water;
+    permissions[id] = permission;
+    fallbackLevels[id] = fallbackLevel;
+    startMessages[id] = start;
+    stopMessages[id] = stop;
+    ids.put(name, id);
+  }
+
+  /** Id of a built-in emote; equal to its ordinal. */
+  public static int id(EmoteType type) {
+    if (type.ordinal() >= BUILTIN_COUNT) {
+      throw new IllegalArgumentException("not an emote: " + type);
+    }
+    return type.ordinal();
+  }
+
+  public int size() {
+    return names.length;
+  }
+
+  /** Returns the id registered under {@code name}, or -1. */
+  public int id(String name) {
+    Integer id = ids.get(name);
+    return id == null ? -1 : id;
+  }
+
+  public List<String> names() {
+    return Collections.unmodifiableList(Arrays.asList(names));
+  }
+
+  public String name(int id) {
+    return names[id];
+  }
+
+  public boolean isBuiltin(int id) {
+    return id < BUILTIN_COUNT;
+  }
+
+  /** The built-in behaviour this emote uses; also the type it is logged and counted under. */
+  public EmoteType pose(int id) {
+    return poses[id];
+  }
+
+  public boolean enabled(int id) {
+    return enabled[id];
+  }
+
+  /** Seat placement, or {@code null} for crawl. */
+  public Config.SeatEmoteConfig seat(int id) {
+    return seats[id];
+  }
+
+  public boolean cancelOnDamage(int id) {
+    return cancelOnDamage[id];
+  }
+
+  public boolean cancelOnMove(int id) {
+    return cancelOnMove[id];
+  }
+
+  public boolean allowInWater(int id) {
+    return allowInWater[id];
+  }
+
+  public String permission(int id) {
+    return permissions[id];
+  }
+
+  public int fallbackLevel(int id) {
+    return fallbackLevels[id];
+  }
+
+  /** Translation key or plain text shown when the emote starts. */
+  public String startMessage(int id) {
+    return startMessages[id];
+  }
+
+  /** Translation key or plain text shown when the emote stops. */
+  public String stopMessage(int id) {
+    return stopMessages[id];
+  }
+}
@@ -0,0 +1,27 @@
+package dev.minemotes.config;
+
+import java.util.List;
+
+/**
+ * Outcome of a config reload. A reload is applied only when the file parsed and passed
+ * validation; otherwise {@code errors} explains why the previous config was kept. {@code
+ * customChanged} flags an applied reload that edited {@code emotes.custom}, whose commands are
+ * only re-registered on a server restart or {@code /reload}.
+ */
+public record ReloadResult(boolean applied, List<String> errors, boolean customChanged) {
+  public ReloadResult {
+    errors = List.copyOf(errors);
+  }
+
+  public static ReloadResult success() {
+    return success(false);
+  }
+
+  public static ReloadResult success(boolean customChanged) {
+    return new ReloadResult(true, List.of(), customChanged);
+  }
+
+  public static ReloadResult failure(List<String> errors) {
+    return new ReloadResult(false, errors, false);
+  }
+}
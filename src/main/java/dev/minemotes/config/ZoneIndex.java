@@ -0,0 +1,138 @@
+package dev.minemotes.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chunk-bucketed grid over {@link Config.Zone}s, one per world. Each chunk column a zone touches
+ * holds that zone, and the buckets are presorted by priority. A world's buckets sit in an
+ * open-addressed table keyed by the packed chunk position, so resolving a position is one probe
+ * plus a scan of the few zones in its chunk, allocates nothing and never walks every zone. Worlds
+ * without zones cost a single miss.
+ */
+public final class ZoneIndex {
+  /** Upper bound on chunk buckets across all zones; the validator rejects configs above it. */
+  public static final long MAX_INDEXED_CHUNKS = 65_536L;
+
+  private static final ZoneIndex EMPTY = new ZoneIndex(Map.of(), 0);
+  private static final Config.Zone[] NO_ZONES = new Config.Zone[0];
+
+  private final Map<String, Buckets> worlds;
+  private final int indexedChunks;
+
+  private ZoneIndex(Map<String, Buckets> worlds, int indexedChunks) {
+    this.worlds = worlds;
+    this.indexedChunks = indexedChunks;
+  }
+
+  static ZoneIndex build(List<Config.Zone> zones) {
+    if (zones.isEmpty()) {
+      return EMPTY;
+    }
+    // Stable sort keeps file order between zones of equal priority.
+    List<Config.Zone> ordered = new ArrayList<>(zones);
+    ordered.sort(Comparator.comparingInt(Config.Zone::priority).reversed());
+    Map<String, Map<Long, List<Config.Zone>>> building = new HashMap<>();
+    long total = 0L;
+    for (Config.Zone zone : ordered) {
+      long span = chunkSpan(zone);
+      if (span <= 0L || total + span > MAX_INDEXED_CHUNKS) {
+        continue;
+      }
+      total += span;
+      Map<Long, List<Config.Zone>> buckets =
+          building.computeIfAbsent(zone.world(), world -> new HashMap<>());
+      for (int cx = zone.minX() >> 4; cx <= zone.maxX() >> 4; cx++) {
+        for (int cz = zone.minZ() >> 4; cz <= zone.maxZ() >> 4; cz++) {
+          buckets.computeIfAbsent(chunkKey(cx, cz), key -> new ArrayList<>(2)).add(zone);
+        }
+      }
+    }
+    Map<String, Buckets> worlds = new HashMap<>();
+    for (Map.Entry<String, Map<Long, List<Config.Zone>>> world : building.entrySet()) {
+      worlds.put(world.getKey(), new Buckets(world.getValue()));
+    }
+    return new ZoneIndex(Collections.unmodifiableMap(worlds), (int) total);
+  }
+
+  /** Number of chunk columns a zone touches, or 0 if its bounds are inverted. */
+  static long chunkSpan(Config.Zone zone) {
+    if (zone.minX() > zone.maxX() || zone.minY() > zone.maxY() || zone.minZ() > zone.maxZ()) {
+      return 0L;
+    }
+    long x = (long) (zone.maxX() >> 4) - (zone.minX() >> 4) + 1L;
+    long z = (long) (zone.maxZ() >> 4) - (zone.minZ() >> 4) + 1L;
+    return x * z;
+  }
+
+  static long chunkKey(int chunkX, int chunkZ) {
+    return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+  }
+
+  public boolean isEmpty() {
+    return worlds.isEmpty();
+  }
+
+  public int indexedChunks() {
+    return indexedChunks;
+  }
+
+  /** Returns the zone that applies at the block position, or {@code null} for the global rules. */
+  public Config.Zone zoneAt(String world, int x, int y, int z) {
+    Buckets buckets = worlds.get(world);
+    if (buckets == null) {
+      return null;
+    }
+    Config.Zone[] candidates = buckets.get(chunkKey(x >> 4, z >> 4));
+    if (candidates == null) {
+      return null;
+    }
+    for (Config.Zone zone : candidates) {
+      if (zone.contains(x, y, z)) {
+        return zone;
+      }
+    }
+    return null;
+  }
+
+  /** Immutable linear-probing table from chunk key to zones, at most half full. */
+  private static final class Buckets {
+    private final long[] keys;
+    private final Config.Zone[][] values;
+
+    Buckets(Map<Long, List<Config.Zone>> buckets) {
+      int capacity = Integer.highestOneBit(Math.max(1, buckets.size()) * 2 - 1) << 1;
+      keys = new long[capacity];
+      values = new Config.Zone[capacity][];
+      int mask = capacity - 1;
+      for (Map.Entry<Long, List<Config.Zone>> bucket : buckets.entrySet()) {
+        long key = bucket.getKey();
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = bucket.getValue().toArray(NO_ZONES);
+      }
+    }
+
+    Config.Zone[] get(long key) {
+      int mask = keys.length - 1;
+      for (int slot = hash(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+        if (keys[slot] == key) {
+          return values[slot];
+        }
+      }
+      return null;
+    }
+
+    private static int hash(long key) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32));
+    }
+  }
+}
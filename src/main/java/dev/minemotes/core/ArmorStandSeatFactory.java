@@ -0,0 +1,76 @@
+package dev.minemotes.core;
+
+import java.lang.reflect.Method;
+import net.minecraft.entity.Entity.RemovalReason;
+import net.minecraft.entity.decoration.ArmorStandEntity;
+import net.minecraft.server.world.ServerWorld;
+
+/** Invisible marker armor stand seats; riders must be {@link FabricPlayerAdapter}s. */
+final class ArmorStandSeatFactory implements SeatManager.SeatFactory {
+  @Override
+  public SeatManager.Seat create(PlayerAdapter player, double x, double y, double z, float yaw) {
+    ServerWorld world = ((FabricPlayerAdapter) player).world();
+    ArmorStandEntity stand = new ArmorStandEntity(world, x, y, z);
+    stand.setInvisible(true);
+    stand.setNoGravity(true);
+    stand.setSilent(true);
+    stand.setInvulnerable(true);
+    stand.refreshPositionAndAngles(x, y, z, yaw, 0.0f);
+    applySeatFlags(stand);
+    return new ArmorStandSeat(world, stand);
+  }
+
+  private static final class ArmorStandSeat implements SeatManager.Seat {
+    private final ServerWorld world;
+    private final ArmorStandEntity stand;
+
+    ArmorStandSeat(ServerWorld world, ArmorStandEntity stand) {
+      this.world = world;
+      this.stand = stand;
+    }
+
+    @Override
+    public boolean spawn() {
+      return world.spawnEntity(stand);
+    }
+
+    @Override
+    public boolean startRiding(PlayerAdapter player) {
+      return ((FabricPlayerAdapter) player).startRiding(stand, true);
+    }
+
+    @Override
+    public void discard() {
+      stand.remove(RemovalReason.DISCARDED);
+    }
+
+    @Override
+    public boolean isRemoved() {
+      return !stand.isAlive() || stand.isRemoved();
+    }
+
+    @Override
+    public int id() {
+      return stand.getId();
+    }
+
+    @Override
+    public void reposition(double x, double y, double z, float yaw) {
+      stand.refreshPositionAndAngles(x, y, z, yaw, stand.getPitch());
+    }
+  }
+
+  private static void applySeatFlags(ArmorStandEntity stand) {
+    invokeBoolean(stand, "setMarker", true);
+    invokeBoolean(stand, "setSmall", true);
+  }
+
+  private static void invokeBoolean(ArmorStandEntity stand, String methodName, boolean value) {
+    try {
+      Method method = ArmorStandEntity.class.getDeclaredMethod(methodName, boolean.class);
+      method.setAccessible(true);
+      method.invoke(stand, value);
+    } catch (ReflectiveOperationException ignored) {
+    }
+  }
+}
@@ -1,301 +1,700 @@
 package dev.minemotes.core;
 
 import dev.minemotes.config.Config;
-import dev.minemotes.perms.Perms;
+import dev.minemotes.config.ConfigDiff;
+import dev.minemotes.config.EmoteRegistry;
+import dev.minemotes.config.ZoneIndex;
+import dev.minemotes.ledger.LedgerEntry;
+import dev.minemotes.ledger.LedgerWriter;
+import dev.minemotes.profiling.EmoteStartEvent;
+import dev.minemotes.profiling.EmoteStopEvent;
+import dev.minemotes.profiling.EmoteTickEvent;
+import dev.minemotes.profiling.PermissionCheckEvent;
+import dev.minemotes.stats.AdmissionStage;
+import dev.minemotes.stats.CommandTrace;
+import dev.minemotes.stats.EmoteCounters;
+import dev.minemotes.stats.PerfMonitor;
+import dev.minemotes.stats.SessionAggregator;
+import dev.minemotes.stats.SessionRollup;
+import dev.minemotes.stats.TransitionLog;
+import dev.minemotes.trace.TraceRecorder;
 import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.function.Supplier;
-import net.minecraft.block.BlockState;
-import net.minecraft.block.StairsBlock;
-import net.minecraft.block.enums.BlockHalf;
-import net.minecraft.entity.EntityPose;
-import net.minecraft.server.MinecraftServer;
-import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.text.Text;
-import net.minecraft.util.hit.BlockHitResult;
-import net.minecraft.util.hit.HitResult;
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.Box;
-import net.minecraft.util.math.Direction;
-import net.minecraft.util.math.Vec3d;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-/** Handles command execution and runtime state for all emotes. */
+/**
+ * Handles command execution and runtime state for all emotes. Everything here works on {@link
+ * PlayerAdapter} and plain values and runs without Minecraft loaded; {@link FabricEmotes} is the
+ * entry point for server players and events.
+ */
 public final class EmoteService {
   private static final Logger LOGGER = LogManager.getLogger("minemotes");
 
   private final Supplier<Config> configSupplier;
   private final SeatManager seatManager;
-  private final MinCoreLedgerBridge ledgerBridge = new MinCoreLedgerBridge();
+  private final LedgerWriter ledger;
+  private final SessionAggregator sessions;
+  private final PerfMonitor perf = new PerfMonitor();
+  private final EmoteCounters counters = new EmoteCounters();
+  private final RateLimiter rateLimiter = new RateLimiter(counters);
+  private final TransitionLog transitions = new TransitionLog();
+  // Server tick being run, stamped on transitions.
+  private volatile long currentTick;
+  // Server tick whose trace states were recorded; the first world tick of a server tick does it.
+  private long begunTick = Long.MIN_VALUE;
+  // Running trace, or null; only touched on the server thread.
+  private TraceRecorder tracer;
+  // Replaced wholesale when tags reload; read by /chair on the server thread.
+  private volatile SeatableBlocks seatableBlocks = SeatableBlocks.EMPTY;
 
   private final Map<UUID, Long> cooldowns = new ConcurrentHashMap<>();
-  private final Set<UUID> crawling = ConcurrentHashMap.newKeySet();
+  private final Map<UUID, PlayerAdapter> crawling = new ConcurrentHashMap<>();
 
   public EmoteService(Supplier<Config> configSupplier, SeatManager seatManager) {
+    this(configSupplier, seatManager, LedgerWriter.forMinCore(Config.Ledger.defaults()));
+  }
+
+  public EmoteService(
+      Supplier<Config> configSupplier, SeatManager seatManager, LedgerWriter ledger) {
     this.configSupplier = Objects.requireNonNull(configSupplier, "configSupplier");
     this.seatManager = Objects.requireNonNull(seatManager, "seatManager");
+    this.ledger = Objects.requireNonNull(ledger, "ledger");
+    this.sessions = new SessionAggregator(System.currentTimeMillis());
+    seatManager.setRemovalListener(this::sessionEnded);
+    seatManager.setPerfMonitor(perf);
   }
 
-  public Result handleCrawl(ServerPlayerEntity player, Toggle toggle) {
-    return handleCrawl(PlayerAdapter.fabric(player), toggle);
+  /** Open sessions and the current rollup window. */
+  public SessionAggregator sessions() {
+    return sessions;
   }
 
-  Result handleCrawl(PlayerAdapter player, Toggle toggle) {
-    Config config = configSupplier.get();
-    if (!config.core().enabled() || !config.emotes().crawl().enabled()) {
-      return Result.error(Text.translatable("minemotes.cmd.disabled"));
+  /** Timings of the tick, the command handlers and seat creation/removal. */
+  public PerfMonitor perf() {
+    return perf;
+  }
+
+  /** The most recent session starts and stops, for post-mortem debugging. */
+  public TransitionLog transitions() {
+    return transitions;
+  }
+
+  /** Installs the block states /chair can seat on; until then it always falls back to /sit. */
+  void seatableBlocks(SeatableBlocks table) {
+    seatableBlocks = table;
+  }
+
+  /** Lifetime counters for the metrics endpoint. */
+  public EmoteCounters counters() {
+    return counters;
+  }
+
+  /** Open seats and crawls per world key. Call from the server thread. */
+  public Map<String, WorldActivity> activeByWorld() {
+    Map<String, WorldActivity> worlds = new HashMap<>();
+    for (PlayerAdapter player : crawling.values()) {
+      worlds.merge(player.worldKey(), new WorldActivity(0, 1), WorldActivity::plus);
     }
-    if (isWorldDisabled(player, config)) {
-      return Result.error(Text.translatable("minemotes.cmd.disabled"));
+    for (Map.Entry<String, Integer> world : seatManager.seatsByWorld().entrySet()) {
+      worlds.merge(world.getKey(), new WorldActivity(world.getValue(), 0), WorldActivity::plus);
     }
-    ServerPlayerEntity entity = player.entity();
-    if (entity != null
-        && !Perms.check(
-            entity, config.permissions().crawl(), config.permissions().fallbackLevel(EmoteType.CRAWL))) {
-      return Result.error(Text.translatable("commands.generic.unknown"));
+    return worlds;
+  }
+
+  /**
+   * Entry counts of the per-player tables, in a fixed order. These should track the online players
+   * that emote; one that keeps growing is a leak.
+   */
+  Map<String, Integer> tableSizes() {
+    Map<String, Integer> sizes = new LinkedHashMap<>();
+    sizes.put("cooldowns", cooldowns.size());
+    sizes.put("rateLimits", rateLimiter.size());
+    sizes.put("crawling", crawling.size());
+    sizes.put("seats", seatManager.sessions().size());
+    sizes.put("seatIndex", seatManager.indexedSeats());
+    sizes.put("seatBlocks", seatManager.occupiedBlocks());
+    sizes.put("suspendedSeats", seatManager.suspendedSeats());
+    sizes.put("openSessions", sessions.openSessions());
+    sizes.put("sessionPlayers", sessions.trackedPlayers());
+    return sizes;
+  }
+
+  /** Ends the seats of a world that is unloading. */
+  void onWorldUnloaded(String world) {
+    seatManager.discardWorld(world, SeatManager.SeatRemovalReason.WORLD_UNLOADED);
+  }
+
+  /** Players currently in each emote pose; custom emotes count under their pose. */
+  public Map<EmoteType, Integer> activeCounts() {
+    Map<EmoteType, Integer> counts = new EnumMap<>(EmoteType.class);
+    if (!crawling.isEmpty()) {
+      counts.put(EmoteType.CRAWL, crawling.size());
+    }
+    for (SeatManager.SeatSession session : seatManager.sessions()) {
+      counts.merge(session.type(), 1, Integer::sum);
+    }
+    return counts;
+  }
+
+  Result handleCrawl(PlayerAdapter player, Toggle toggle) {
+    long start = System.nanoTime();
+    CommandTrace trace = CommandTrace.begin(EmoteType.CRAWL.id());
+    traceState(player, null);
+    Result result = null;
+    try {
+      Result limited = rateLimit(player);
+      result = limited != null ? limited : toggleCrawl(player, toggle);
+      return result;
+    } finally {
+      perf.record(PerfMonitor.Stage.HANDLE_CRAWL, start);
+      finishTrace(trace, player);
+      if (tracer != null) {
+        boolean success = result != null && result.success();
+        tracer.command(player.uuid(), EmoteType.CRAWL.id(), toggle.ordinal(), success);
+      }
     }
+  }
+
+  private Result toggleCrawl(PlayerAdapter player, Toggle toggle) {
+    Config config = configSupplier.get();
     UUID id = player.uuid();
-    boolean currently = crawling.contains(id);
+    boolean currently = crawling.containsKey(id);
     boolean target = switch (toggle) {
       case ENABLE -> true;
       case DISABLE -> false;
       case TOGGLE -> !currently;
     };
+    Message deny = admitCrawl(player, config, target && !currently);
+    if (deny != null) {
+      return Result.error(deny);
+    }
 
     if (target == currently) {
-      return Result.ok(currently ? EmoteType.CRAWL.stopMessage() : EmoteType.CRAWL.startMessage());
+      return Result.ok(
+          Message.of(currently ? EmoteType.CRAWL.stopKey() : EmoteType.CRAWL.startKey()));
     }
 
     if (target) {
-      if (isOnCooldown(player, config.core().cooldown())) {
-        double seconds = remainingCooldownSeconds(player, config.core().cooldown());
-        return Result.error(Text.translatable("minemotes.cmd.cooldown", String.format("%.1f", seconds)));
-      }
-      Optional<Text> deny = validateCrawl(player, config);
-      if (deny.isPresent()) {
-        return Result.error(deny.get());
-      }
-      crawling.add(id);
-      player.setSwimming(true);
-      player.setPose(EntityPose.SWIMMING);
-      ledgerBridge.log(player, EmoteType.CRAWL, "start");
+      crawling.put(id, player);
+      player.setCrawlPose(true);
+      sessionStarted(id, EmoteType.CRAWL);
       markCooldown(player, config.core().cooldown());
-      return Result.ok(EmoteType.CRAWL.startMessage());
+      return Result.ok(Message.of(EmoteType.CRAWL.startKey()));
     } else {
-      crawling.remove(id);
-      player.setSwimming(false);
-      player.setPose(EntityPose.STANDING);
-      ledgerBridge.log(player, EmoteType.CRAWL, "stop");
-      return Result.ok(EmoteType.CRAWL.stopMessage());
+      endCrawl(id, SeatManager.SeatRemovalReason.COMMAND);
+      player.setCrawlPose(false);
+      return Result.ok(Message.of(EmoteType.CRAWL.stopKey()));
     }
   }
 
-  public Result handleSeat(ServerPlayerEntity player, EmoteType type) {
-    return handleSeat(PlayerAdapter.fabric(player), type);
+  /** Runs the emote registered as {@code name}; crawl toggles, seat emotes start or stop. */
+  Result handleEmote(PlayerAdapter player, String name) {
+    EmoteRegistry emotes = configSupplier.get().registry();
+    int emote = emotes.id(name);
+    if (emote < 0) {
+      return Result.error(Message.of("minemotes.cmd.disabled"));
+    }
+    if (emotes.pose(emote) == EmoteType.CRAWL) {
+      return handleCrawl(player, Toggle.TOGGLE);
+    }
+    return handleSeat(player, emote);
   }
 
   Result handleSeat(PlayerAdapter player, EmoteType type) {
-    Config config = configSupplier.get();
-    if (!config.core().enabled()) {
-      return Result.error(Text.translatable("minemotes.cmd.disabled"));
-    }
-    if (isWorldDisabled(player, config)) {
-      return Result.error(Text.translatable("minemotes.cmd.disabled"));
+    return handleSeat(player, EmoteRegistry.id(type));
+  }
+
+  Result handleSeat(PlayerAdapter player, int emote) {
+    long start = System.nanoTime();
+    String name = configSupplier.get().registry().name(emote);
+    CommandTrace trace = CommandTrace.begin(name);
+    traceState(player, null);
+    Result result = null;
+    try {
+      Result limited = rateLimit(player);
+      result = limited != null ? limited : toggleSeat(player, emote);
+      return result;
+    } finally {
+      perf.record(PerfMonitor.Stage.HANDLE_SEAT, start);
+      finishTrace(trace, player);
+      if (tracer != null) {
+        tracer.command(player.uuid(), name, -1, result != null && result.success());
+      }
     }
-    Config.SeatEmoteConfig seatCfg = seatConfig(config, type);
-    if (seatCfg == null || !seatCfg.enabled()) {
-      return Result.error(Text.translatable("minemotes.cmd.disabled"));
+  }
+
+  /**
+   * Takes a token from the player's bucket, or returns the rejection if it is empty. Stopping an
+   * emote costs a token too, since on/off spam is what the limit is for.
+   */
+  private Result rateLimit(PlayerAdapter player) {
+    Config.RateLimit limit = configSupplier.get().core().rateLimit();
+    long wait = rateLimiter.acquire(player.uuid(), System.nanoTime(), limit);
+    if (wait <= 0L) {
+      return null;
     }
-    ServerPlayerEntity entity = player.entity();
-    if (entity == null) {
-      return Result.error(Text.translatable("minemotes.cmd.disabled"));
+    counters.rejected(AdmissionStage.RATE_LIMIT);
+    String seconds = String.format("%.1f", wait / 1e9);
+    return Result.error(Message.of("minemotes.cmd.rate_limited", seconds));
+  }
+
+  /** Aggregates the phases of a finished command and logs it if it was slow. */
+  private void finishTrace(CommandTrace trace, PlayerAdapter player) {
+    if (!trace.end()) {
+      return;
     }
-    if (!Perms.check(entity, permissionFor(type, config), config.permissions().fallbackLevel(type))) {
-      return Result.error(Text.translatable("commands.generic.unknown"));
+    perf.record(trace);
+    Duration threshold = configSupplier.get().core().slowCommandThreshold();
+    if (!threshold.isZero() && trace.totalNanos() >= threshold.toNanos()) {
+      LOGGER.warn(
+          "(minemotes) slow command /{} by {}: {}", trace.command(), player.name(), trace.describe());
     }
+  }
+
+  private Result toggleSeat(PlayerAdapter player, int emote) {
+    Config config = configSupplier.get();
+    EmoteRegistry emotes = config.registry();
     Optional<SeatManager.SeatSession> existing = seatManager.session(player);
-    if (existing.isPresent()) {
-      SeatManager.SeatSession session = existing.get();
-      if (session.type() == type) {
-        seatManager.removeSeat(player, SeatManager.SeatRemovalReason.COMMAND);
-        ledgerBridge.log(player, type, "stop");
-        return Result.ok(type.stopMessage());
+    boolean seated = existing.isPresent();
+    boolean stop = seated && existing.get().emote() == emote;
+    Message deny = admitSeat(player, config, emote, !stop, seated);
+    if (deny != null) {
+      return Result.error(deny);
+    }
+    if (stop) {
+      seatManager.removeSeat(player, SeatManager.SeatRemovalReason.COMMAND);
+      return Result.ok(message(emotes, emote, emotes.stopMessage(emote)));
+    }
+    EmoteType pose = emotes.pose(emote);
+    PlayerAdapter.TargetedBlock chair = null;
+    if (pose == EmoteType.CHAIR) {
+      long placementStart = System.nanoTime();
+      chair = targetChair(player);
+      CommandTrace.phase(CommandTrace.Phase.PLACEMENT, placementStart);
+      if (chair != null) {
+        long block = SeatOccupancy.pack(chair.x(), chair.y(), chair.z());
+        SeatManager.SeatSession occupant = seatManager.occupant(player.worldKey(), block);
+        if (occupant != null && !occupant.playerId().equals(player.uuid())) {
+          Message taken = Message.of("minemotes.cmd.chair_taken");
+          return Result.error(reject(AdmissionStage.CHAIR, taken));
+        }
       }
-      seatManager.removeSeat(player, SeatManager.SeatRemovalReason.REPLACED);
     }
-
-    if (isOnCooldown(player, config.core().cooldown())) {
-      double seconds = remainingCooldownSeconds(player, config.core().cooldown());
-      return Result.error(Text.translatable("minemotes.cmd.cooldown", String.format("%.1f", seconds)));
+    if (seated) {
+      seatManager.removeSeat(player, SeatManager.SeatRemovalReason.REPLACED);
     }
-
-    Optional<Text> deny = validateSeat(player, type, config);
-    if (deny.isPresent()) {
-      return Result.error(deny.get());
+    if (pose == EmoteType.CHAIR && chair == null) {
+      return toggleSeat(player, EmoteRegistry.id(EmoteType.SIT));
     }
 
-    Vec3d overrideOffset = null;
-    Float yawOverride = null;
-    if (type == EmoteType.CHAIR) {
-      Optional<ChairPlacement> placement = computeChairPlacement(player);
-      if (placement.isEmpty()) {
-        return handleSeat(player, EmoteType.SIT);
-      }
-      ChairPlacement chairPlacement = placement.get();
-      overrideOffset = chairPlacement.offset();
-      yawOverride = chairPlacement.yaw();
-    }
+    Config.SeatEmoteConfig seatCfg = emotes.seat(emote);
+    SeatManager.Placement placement = chair == null ? null : chairPlacement(player, chair);
 
-    SeatManager.SeatResult result = seatManager.createSeat(player, type, seatCfg, overrideOffset, yawOverride);
+    SeatManager.SeatResult result =
+        seatManager.createSeat(player, emote, pose, seatCfg, placement);
     if (!result.success()) {
+      counters.seatFailed(result.error());
       LOGGER.warn("(minemotes) failed to spawn seat for {}: {}", player.name(), result.error());
-      return Result.error(Text.translatable("minemotes.cmd.disabled"));
+      return Result.error(Message.of("minemotes.cmd.disabled"));
     }
 
-    ledgerBridge.log(player, type, "start");
+    sessionStarted(player.uuid(), pose);
     markCooldown(player, config.core().cooldown());
-    return Result.ok(type.startMessage());
+    return Result.ok(message(emotes, emote, emotes.startMessage(emote)));
   }
 
-  public void tick(MinecraftServer server) {
-    Config config = configSupplier.get();
-    if (!config.core().enabled()) {
-      for (ServerPlayerEntity entity : server.getPlayerManager().getPlayerList()) {
-        stopAll(PlayerAdapter.fabric(entity), SeatManager.SeatRemovalReason.DISABLED);
+  /**
+   * Runs a whole server tick at once: every world's seats, then the server-wide work. On a server
+   * the two halves come from the world and server tick events instead; this is for tests, the
+   * load simulation and trace replay.
+   */
+  void tick(long serverTick) {
+    for (String world : seatManager.worlds()) {
+      tickWorld(world, serverTick);
+    }
+    tickServer(serverTick);
+  }
+
+  /** Ticks the seats spawned in {@code world}; call from the end of that world's tick. */
+  void tickWorld(String world, long serverTick) {
+    beginTick(serverTick);
+    long start = System.nanoTime();
+    EmoteTickEvent event = new EmoteTickEvent();
+    event.begin();
+    try {
+      // Disabled emotes and worlds are handled once in onConfigChanged, so only active sessions
+      // need to be visited here.
+      Config config = configSupplier.get();
+      EmoteRegistry emotes = config.registry();
+      for (SeatManager.SeatSession session : seatManager.sessions(world)) {
+        tickSeat(session, config, emotes);
+      }
+      seatManager.cleanupOrphans(world);
+    } finally {
+      perf.record(PerfMonitor.Stage.WORLD_TICK, start);
+      event.end();
+      if (event.shouldCommit()) {
+        event.world = world;
+        event.seats = seatManager.sessions(world).size();
+        event.commit();
       }
-      return;
     }
+  }
 
-    for (ServerPlayerEntity entity : server.getPlayerManager().getPlayerList()) {
-      PlayerAdapter player = PlayerAdapter.fabric(entity);
-      if (isWorldDisabled(player, config)) {
-        stopAll(player, SeatManager.SeatRemovalReason.DISABLED);
-        continue;
+  /** Ticks crawls and rollups; call once per server tick, after the worlds have ticked. */
+  void tickServer(long serverTick) {
+    beginTick(serverTick);
+    long start = System.nanoTime();
+    EmoteTickEvent event = new EmoteTickEvent();
+    event.begin();
+    try {
+      Config config = configSupplier.get();
+      long now = System.currentTimeMillis();
+      if (sessions.rollupDue(now, config.ledger().rollupInterval())) {
+        emitRollup(now);
+      }
+      for (PlayerAdapter player : crawling.values()) {
+        tickCrawl(player, config);
       }
-      tickCrawl(player, config);
-      tickSeat(player, config);
+    } finally {
+      perf.record(PerfMonitor.Stage.TICK, start);
+      event.end();
+      if (event.shouldCommit()) {
+        event.world = "";
+        event.crawlers = crawling.size();
+        event.seats = seatManager.sessions().size();
+        event.commit();
+      }
+    }
+  }
+
+  /** Stamps {@code serverTick} on transitions and, once per server tick, records the trace. */
+  private void beginTick(long serverTick) {
+    if (serverTick == begunTick) {
+      return;
     }
-    seatManager.cleanupOrphans();
+    begunTick = serverTick;
+    currentTick = serverTick;
+    if (tracer != null) {
+      recordTick(serverTick);
+    }
+  }
+
+  void onDisconnect(PlayerAdapter player) {
+    traceEvent(player, TraceRecorder.Event.DISCONNECT);
+    endCrawl(player.uuid(), SeatManager.SeatRemovalReason.DISCONNECT);
+    seatManager.removeSeat(player, SeatManager.SeatRemovalReason.DISCONNECT);
+    sessions.forget(player.uuid());
+  }
+
+  void onDeath(PlayerAdapter player) {
+    traceEvent(player, TraceRecorder.Event.DEATH);
+    endCrawl(player.uuid(), SeatManager.SeatRemovalReason.DEATH);
+    seatManager.removeSeat(player, SeatManager.SeatRemovalReason.DEATH);
+  }
+
+  void onWorldChange(PlayerAdapter player) {
+    traceEvent(player, TraceRecorder.Event.WORLD_CHANGE);
+    seatManager.removeSeat(player, SeatManager.SeatRemovalReason.WORLD_CHANGE);
+    endCrawl(player.uuid(), SeatManager.SeatRemovalReason.WORLD_CHANGE);
   }
 
-  public void onDisconnect(ServerPlayerEntity player) {
-    crawling.remove(player.getUuid());
-    seatManager.removeSeat(PlayerAdapter.fabric(player), SeatManager.SeatRemovalReason.DISCONNECT);
+  void onTeleport(PlayerAdapter player) {
+    traceEvent(player, TraceRecorder.Event.TELEPORT);
+    seatManager.removeSeat(player, SeatManager.SeatRemovalReason.TELEPORT);
   }
 
-  public void onDeath(ServerPlayerEntity player) {
-    crawling.remove(player.getUuid());
-    seatManager.removeSeat(PlayerAdapter.fabric(player), SeatManager.SeatRemovalReason.DEATH);
+  /**
+   * Starts recording commands, ticks and player hooks into {@code recorder}. Returns false, leaving
+   * the running trace alone, if one is already recording. Call from the server thread.
+   */
+  public boolean startTrace(TraceRecorder recorder) {
+    if (tracer != null) {
+      return false;
+    }
+    tracer = Objects.requireNonNull(recorder, "recorder");
+    LOGGER.info("(minemotes) recording emote trace to {}", recorder.file());
+    return true;
   }
 
-  public void onWorldChange(ServerPlayerEntity player) {
-    seatManager.removeSeat(PlayerAdapter.fabric(player), SeatManager.SeatRemovalReason.WORLD_CHANGE);
-    crawling.remove(player.getUuid());
+  /** Stops and closes the running trace and returns it, or returns {@code null} if none ran. */
+  public TraceRecorder stopTrace() {
+    TraceRecorder stopped = tracer;
+    if (stopped == null) {
+      return null;
+    }
+    tracer = null;
+    stopped.close();
+    String problem = stopped.problem();
+    if (problem != null) {
+      LOGGER.warn("(minemotes) emote trace {} stopped early: {}", stopped.file(), problem);
+    } else {
+      LOGGER.info(
+          "(minemotes) emote trace written to {} ({} bytes)", stopped.file(), stopped.bytes());
+    }
+    return stopped;
   }
 
-  public void onTeleport(ServerPlayerEntity player) {
-    seatManager.removeSeat(PlayerAdapter.fabric(player), SeatManager.SeatRemovalReason.TELEPORT);
+  /** The running trace, or {@code null}. */
+  public TraceRecorder tracer() {
+    return tracer;
   }
 
-  public void onConfigReload(Config config) {
+  /**
+   * Applies a reloaded config to running sessions: only sessions of emotes or worlds that were
+   * disabled are stopped, and seats whose placement changed are moved.
+   */
+  public void onConfigChanged(Config config, ConfigDiff diff) {
+    if (diff.rateLimitChanged()) {
+      rateLimiter.clear();
+    }
     if (!config.core().enabled()) {
-      // Stop everyone immediately.
-      crawling.clear();
-      seatManager.discardAll();
+      if (diff.enabledChanged()) {
+        stopEverything(SeatManager.SeatRemovalReason.DISABLED);
+      }
+      return;
+    }
+    if (diff.emotesDisabled().contains(EmoteType.CRAWL)) {
+      for (PlayerAdapter player : crawling.values()) {
+        stopCrawl(player, SeatManager.SeatRemovalReason.DISABLED);
+      }
+    }
+    Set<String> worlds = diff.worldsDisabled();
+    if (diff.sections().contains(ConfigDiff.Section.EMOTES) || !worlds.isEmpty()) {
+      // Suspended seats are not rebound; they hold ids of the previous registry.
+      seatManager.dropSuspended(SeatManager.SeatRemovalReason.DISABLED);
+    }
+    if (diff.sections().contains(ConfigDiff.Section.EMOTES)) {
+      rebindSeats(diff.previous().registry(), config.registry());
+    }
+    if (!worlds.isEmpty()) {
+      for (PlayerAdapter player : crawling.values()) {
+        if (worlds.contains(player.worldKey())) {
+          stopCrawl(player, SeatManager.SeatRemovalReason.DISABLED);
+        }
+      }
+      for (SeatManager.SeatSession session : seatManager.sessions()) {
+        if (worlds.contains(session.player().worldKey())) {
+          seatManager.removeSeat(session.player(), SeatManager.SeatRemovalReason.DISABLED);
+        }
+      }
     }
   }
 
-  private void tickCrawl(PlayerAdapter player, Config config) {
-    if (!crawling.contains(player.uuid())) {
+  /**
+   * Moves seat sessions onto the ids of a newly applied registry, stopping those whose emote was
+   * removed or disabled and shifting seats whose placement changed.
+   */
+  private void rebindSeats(EmoteRegistry previous, EmoteRegistry next) {
+    for (SeatManager.SeatSession session : seatManager.sessions()) {
+      int before = session.emote();
+      int after = next.id(previous.name(before));
+      if (after < 0 || !next.enabled(after) || next.pose(after) != session.type()) {
+        seatManager.removeSeat(session.player(), SeatManager.SeatRemovalReason.DISABLED);
+        continue;
+      }
+      session.rebind(after);
+      Config.SeatEmoteConfig from = previous.seat(before);
+      Config.SeatEmoteConfig to = next.seat(after);
+      if (!from.equals(to)) {
+        session.retarget(
+            session.offsetX() + to.offsetX() - from.offsetX(),
+            session.offsetY() + to.offsetY() - from.offsetY(),
+            session.offsetZ() + to.offsetZ() - from.offsetZ(),
+            to.targetPitch());
+      }
+    }
+  }
+
+  /**
+   * Ends every open session on server stop and hands the final rollup window to the ledger, so
+   * call this before closing the {@link LedgerWriter}.
+   */
+  public void shutdown() {
+    stopTrace();
+    stopEverything(SeatManager.SeatRemovalReason.DISCONNECT);
+    if (configSupplier.get().ledger().rollupsEnabled()) {
+      emitRollup(System.currentTimeMillis());
+    }
+  }
+
+  /** Writes the state of every player the coming tick visits, then the tick marker. */
+  private void recordTick(long serverTick) {
+    if (tracer.expired()) {
+      stopTrace();
       return;
     }
-    if (config.core().cancelOnDamage().enabledFor(EmoteType.CRAWL) && player.hurtTime() > 0) {
-      crawling.remove(player.uuid());
-      player.setSwimming(false);
-      player.setPose(EntityPose.STANDING);
+    for (PlayerAdapter player : crawling.values()) {
+      traceState(player, null);
+    }
+    for (SeatManager.SeatSession session : seatManager.sessions()) {
+      traceState(session.player(), session);
+    }
+    tracer.tick(serverTick);
+  }
+
+  /**
+   * Records what the emote logic can read from {@code player}. Pass the player's seat session when
+   * the caller has it; otherwise it is looked up.
+   */
+  private void traceState(PlayerAdapter player, SeatManager.SeatSession session) {
+    TraceRecorder recorder = tracer;
+    if (recorder == null) {
       return;
     }
-    if (!config.emotes().crawl().enabled()) {
-      crawling.remove(player.uuid());
+    if (session == null) {
+      session = seatManager.session(player).orElse(null);
+    }
+    int flags = 0;
+    flags |= player.isOnGround() ? TraceRecorder.ON_GROUND : 0;
+    flags |= player.isTouchingWater() ? TraceRecorder.TOUCHING_WATER : 0;
+    flags |= player.isFlying() ? TraceRecorder.FLYING : 0;
+    flags |= player.isSpectator() ? TraceRecorder.SPECTATOR : 0;
+    flags |= player.isSleeping() ? TraceRecorder.SLEEPING : 0;
+    flags |= player.isDead() ? TraceRecorder.DEAD : 0;
+    flags |= player.isRemoved() ? TraceRecorder.REMOVED : 0;
+    flags |= player.hasVehicle() ? TraceRecorder.HAS_VEHICLE : 0;
+    if (session != null) {
+      boolean riding = player.hasVehicle() && player.vehicleId() == session.seat().id();
+      flags |= riding ? TraceRecorder.RIDING_SEAT : 0;
+      flags |= session.seat().isRemoved() ? TraceRecorder.SEAT_REMOVED : 0;
+    }
+    // Head room costs a collision query, and only crawlers are checked for it.
+    if (crawling.containsKey(player.uuid()) && isSuffocating(player)) {
+      flags |= TraceRecorder.HEAD_BLOCKED;
+    }
+    recorder.state(
+        player.uuid(),
+        flags,
+        player.hurtTime(),
+        player.worldKey(),
+        player.x(),
+        player.y(),
+        player.z(),
+        player.yaw());
+  }
+
+  private void traceEvent(PlayerAdapter player, TraceRecorder.Event event) {
+    if (tracer != null) {
+      traceState(player, null);
+      tracer.event(player.uuid(), event);
+    }
+  }
+
+  private void tickCrawl(PlayerAdapter player, Config config) {
+    Config.Zone zone = zoneAt(player, config);
+    boolean cancelOnDamage = config.core().cancelOnDamage().enabledFor(EmoteType.CRAWL);
+    if (zone != null) {
+      if (!zone.allows(EmoteType.CRAWL.id())) {
+        stopCrawl(player, SeatManager.SeatRemovalReason.DISABLED);
+        return;
+      }
+      cancelOnDamage = zone.cancelOnDamage(cancelOnDamage);
+    }
+    if (cancelOnDamage && player.hurtTime() > 0) {
+      endCrawl(player.uuid(), SeatManager.SeatRemovalReason.DAMAGE);
+      player.setCrawlPose(false);
       return;
     }
     if (player.isRemoved() || player.isSpectator() || player.isDead()) {
-      crawling.remove(player.uuid());
+      endCrawl(player.uuid(), SeatManager.SeatRemovalReason.DEATH);
       return;
     }
     if (config.emotes().crawl().waterOnly() && !player.isTouchingWater()) {
-      crawling.remove(player.uuid());
-      player.setSwimming(false);
-      player.setPose(EntityPose.STANDING);
+      endCrawl(player.uuid(), SeatManager.SeatRemovalReason.MOVE);
+      player.setCrawlPose(false);
       return;
     }
     if (!player.isOnGround() && player.isFlying()) {
-      crawling.remove(player.uuid());
+      endCrawl(player.uuid(), SeatManager.SeatRemovalReason.MOVE);
       return;
     }
     if (player.hasVehicle()) {
-      crawling.remove(player.uuid());
-      player.setSwimming(false);
-      player.setPose(EntityPose.STANDING);
+      endCrawl(player.uuid(), SeatManager.SeatRemovalReason.MOVE);
+      player.setCrawlPose(false);
       return;
     }
     if (config.core().cancelOnDanger() && isSuffocating(player)) {
-      crawling.remove(player.uuid());
-      player.setSwimming(false);
-      player.setPose(EntityPose.STANDING);
+      endCrawl(player.uuid(), SeatManager.SeatRemovalReason.DAMAGE);
+      player.setCrawlPose(false);
+      return;
+    }
+    player.setCrawlPose(true);
+  }
+
+  private void tickSeat(SeatManager.SeatSession session, Config config, EmoteRegistry emotes) {
+    PlayerAdapter player = session.player();
+    int emote = session.emote();
+    boolean cancelOnMove = emotes.cancelOnMove(emote);
+    boolean cancelOnDamage = emotes.cancelOnDamage(emote);
+    Config.Zone zone = zoneAt(player, config);
+    if (zone != null) {
+      if (!zone.allows(emotes.name(emote))) {
+        seatManager.removeSeat(player, SeatManager.SeatRemovalReason.DISABLED);
+        return;
+      }
+      cancelOnMove = zone.cancelOnMove(cancelOnMove);
+      cancelOnDamage = zone.cancelOnDamage(cancelOnDamage);
+    }
+    if (!player.hasVehicle() || player.vehicleId() != session.seat().id()) {
+      seatManager.removeSeat(player, SeatManager.SeatRemovalReason.UNKNOWN);
+      return;
+    }
+    if (player.isRemoved() || player.isDead()) {
+      seatManager.removeSeat(player, SeatManager.SeatRemovalReason.DEATH);
+      return;
+    }
+    if (session.block() != SeatOccupancy.NONE && !chairStillStands(player, session.block())) {
+      seatManager.removeSeat(player, SeatManager.SeatRemovalReason.BLOCK_BROKEN);
+      return;
+    }
+    if (!emotes.allowInWater(emote) && player.isTouchingWater()) {
+      seatManager.removeSeat(player, SeatManager.SeatRemovalReason.MOVE);
       return;
     }
-    player.setSwimming(true);
-    player.setPose(EntityPose.SWIMMING);
-  }
-
-  private void tickSeat(PlayerAdapter player, Config config) {
-    seatManager
-        .session(player)
-        .ifPresent(
-            session -> {
-              if (!seatEnabled(session.type(), config)) {
-                seatManager.removeSeat(player, SeatManager.SeatRemovalReason.DISABLED);
-                return;
-              }
-              if (!player.hasVehicle() || player.vehicleId() != session.seat().id()) {
-                seatManager.removeSeat(player, SeatManager.SeatRemovalReason.UNKNOWN);
-                return;
-              }
-              if (player.isRemoved() || player.isDead()) {
-                seatManager.removeSeat(player, SeatManager.SeatRemovalReason.DEATH);
-                return;
-              }
-              if (!config.core().allowInWater().allow(session.type()) && player.isTouchingWater()) {
-                seatManager.removeSeat(player, SeatManager.SeatRemovalReason.MOVE);
-                return;
-              }
-              if (player.isFlying()) {
-                seatManager.removeSeat(player, SeatManager.SeatRemovalReason.MOVE);
-                return;
-              }
-              Vec3d currentPos = player.position();
-              if (config.core().cancelOnMove().enabledFor(session.type())) {
-                Vec3d last = session.lastPlayerPos();
-                if (last != null && last.squaredDistanceTo(currentPos) > 0.01) {
-                  seatManager.removeSeat(player, SeatManager.SeatRemovalReason.MOVE);
-                  return;
-                }
-              }
-              session.updateLastPos(currentPos);
-              Vec3d seatPos = currentPos.add(session.offset());
-              session.seat().reposition(seatPos, player.yaw());
-              adjustPitch(player, session.targetPitch());
-              if (config.core().cancelOnDamage().enabledFor(session.type()) && player.hurtTime() > 0) {
-                seatManager.removeSeat(player, SeatManager.SeatRemovalReason.DAMAGE);
-              }
-            });
+    if (player.isFlying()) {
+      seatManager.removeSeat(player, SeatManager.SeatRemovalReason.MOVE);
+      return;
+    }
+    double x = player.x();
+    double y = player.y();
+    double z = player.z();
+    if (cancelOnMove && session.squaredDistanceMoved(x, y, z) > 0.01) {
+      seatManager.removeSeat(player, SeatManager.SeatRemovalReason.MOVE);
+      return;
+    }
+    session.updateLastPos(x, y, z);
+    session
+        .seat()
+        .reposition(
+            x + session.offsetX(), y + session.offsetY(), z + session.offsetZ(), player.yaw());
+    adjustPitch(player, session.targetPitch());
+    if (cancelOnDamage && player.hurtTime() > 0) {
+      seatManager.removeSeat(player, SeatManager.SeatRemovalReason.DAMAGE);
+    }
+  }
+
+  /**
+   * Catches chair blocks that vanished without a player breaking them, such as by explosions,
+   * pistons, fluids, {@code /setblock} or other mods.
+   */
+  private boolean chairStillStands(PlayerAdapter player, long block) {
+    int x = SeatOccupancy.unpackX(block);
+    int y = SeatOccupancy.unpackY(block);
+    int z = SeatOccupancy.unpackZ(block);
+    return seatableBlocks.seatable(player.blockStateAt(x, y, z));
   }
 
   private void adjustPitch(PlayerAdapter player, float target) {
@@ -305,61 +704,146 @@ public final class EmoteService {
     player.setPitch(current + step);
   }
 
-  private Optional<Text> validateCrawl(PlayerAdapter player, Config config) {
+  /**
+   * Runs the admission checks for a crawl command in {@link AdmissionStage} order and returns why
+   * it was refused, or {@code null}. Cooldown and player state only guard a {@code start}.
+   */
+  private Message admitCrawl(PlayerAdapter player, Config config, boolean start) {
+    if (!config.core().enabled() || !config.emotes().crawl().enabled()) {
+      return reject(AdmissionStage.ENABLED, Message.of("minemotes.cmd.disabled"));
+    }
+    if (isWorldDisabled(player, config)) {
+      return reject(AdmissionStage.WORLD, Message.of("minemotes.cmd.disabled"));
+    }
+    if (start) {
+      Message cooling = cooldownRejection(player, config.core().cooldown());
+      if (cooling != null) {
+        return cooling;
+      }
+      Optional<Message> invalid = validateCrawl(player, config);
+      if (invalid.isPresent()) {
+        return reject(AdmissionStage.STATE, invalid.get());
+      }
+    }
+    long zoneStart = System.nanoTime();
+    Config.Zone zone = zoneAt(player, config);
+    CommandTrace.phase(CommandTrace.Phase.ZONE, zoneStart);
+    if (zone != null && !zone.allows(EmoteType.CRAWL.id())) {
+      return reject(AdmissionStage.ZONE, Message.of("minemotes.cmd.zone"));
+    }
+    Config.Permissions permissions = config.permissions();
+    if (!checkPermission(
+        player, permissions.crawl(), permissions.fallbackLevel(EmoteType.CRAWL))) {
+      return reject(AdmissionStage.PERMISSION, Message.of("commands.generic.unknown"));
+    }
+    return null;
+  }
+
+  /**
+   * Runs the admission checks for a seat emote in {@link AdmissionStage} order and returns why it
+   * was refused, or {@code null}. Cooldown and player state only guard a {@code start}; the seat a
+   * {@code seated} player is about to leave does not count as riding something.
+   */
+  private Message admitSeat(
+      PlayerAdapter player, Config config, int emote, boolean start, boolean seated) {
+    EmoteRegistry emotes = config.registry();
+    if (!config.core().enabled() || emotes.seat(emote) == null || !emotes.enabled(emote)) {
+      return reject(AdmissionStage.ENABLED, Message.of("minemotes.cmd.disabled"));
+    }
+    if (isWorldDisabled(player, config)) {
+      return reject(AdmissionStage.WORLD, Message.of("minemotes.cmd.disabled"));
+    }
+    if (start) {
+      Message cooling = cooldownRejection(player, config.core().cooldown());
+      if (cooling != null) {
+        return cooling;
+      }
+      Optional<Message> invalid = validateSeat(player, emotes, emote, seated);
+      if (invalid.isPresent()) {
+        return reject(AdmissionStage.STATE, invalid.get());
+      }
+    }
+    long zoneStart = System.nanoTime();
+    Config.Zone zone = zoneAt(player, config);
+    CommandTrace.phase(CommandTrace.Phase.ZONE, zoneStart);
+    if (zone != null && !zone.allows(emotes.name(emote))) {
+      return reject(AdmissionStage.ZONE, Message.of("minemotes.cmd.zone"));
+    }
+    if (!checkPermission(player, emotes.permission(emote), emotes.fallbackLevel(emote))) {
+      return reject(AdmissionStage.PERMISSION, Message.of("commands.generic.unknown"));
+    }
+    return null;
+  }
+
+  private Message reject(AdmissionStage stage, Message message) {
+    counters.rejected(stage);
+    return message;
+  }
+
+  private Message cooldownRejection(PlayerAdapter player, Duration cooldown) {
+    if (!isOnCooldown(player, cooldown)) {
+      return null;
+    }
+    String seconds = String.format("%.1f", remainingCooldownSeconds(player, cooldown));
+    return reject(AdmissionStage.COOLDOWN, Message.of("minemotes.cmd.cooldown", seconds));
+  }
+
+  private Optional<Message> validateCrawl(PlayerAdapter player, Config config) {
     if (player.isSpectator() || player.isRemoved()) {
-      return Optional.of(Text.translatable("minemotes.cmd.disabled"));
+      return Optional.of(Message.of("minemotes.cmd.disabled"));
     }
     if (player.isFlying()) {
-      return Optional.of(Text.translatable("minemotes.cmd.disabled"));
+      return Optional.of(Message.of("minemotes.cmd.disabled"));
     }
     if (player.hasVehicle()) {
-      return Optional.of(Text.translatable("minemotes.cmd.disabled"));
+      return Optional.of(Message.of("minemotes.cmd.disabled"));
     }
     if (config.emotes().crawl().waterOnly() && !player.isTouchingWater()) {
-      return Optional.of(Text.translatable("minemotes.cmd.disabled"));
+      return Optional.of(Message.of("minemotes.cmd.disabled"));
     }
     return Optional.empty();
   }
 
-  private Optional<Text> validateSeat(PlayerAdapter player, EmoteType type, Config config) {
+  private Optional<Message> validateSeat(
+      PlayerAdapter player, EmoteRegistry emotes, int emote, boolean seated) {
     if (player.isSpectator() || player.isRemoved()) {
-      return Optional.of(Text.translatable("minemotes.cmd.disabled"));
+      return Optional.of(Message.of("minemotes.cmd.disabled"));
     }
     if (player.isFlying() || player.isSleeping()) {
-      return Optional.of(Text.translatable("minemotes.cmd.disabled"));
+      return Optional.of(Message.of("minemotes.cmd.disabled"));
     }
-    if (player.hasVehicle()) {
-      return Optional.of(Text.translatable("minemotes.cmd.disabled"));
+    if (player.hasVehicle() && !seated) {
+      return Optional.of(Message.of("minemotes.cmd.disabled"));
     }
-    if (!config.core().allowInWater().allow(type) && player.isTouchingWater()) {
-      return Optional.of(Text.translatable("minemotes.cmd.disabled"));
+    if (!emotes.allowInWater(emote) && player.isTouchingWater()) {
+      return Optional.of(Message.of("minemotes.cmd.disabled"));
     }
     return Optional.empty();
   }
 
-  private boolean seatEnabled(EmoteType type, Config config) {
-    Config.SeatEmoteConfig cfg = seatConfig(config, type);
-    return cfg != null && cfg.enabled();
-  }
-
-  private Config.SeatEmoteConfig seatConfig(Config config, EmoteType type) {
-    return switch (type) {
-      case SIT -> config.emotes().sit();
-      case CHAIR -> config.emotes().chair();
-      case LAY -> config.emotes().lay();
-      case BELLY -> config.emotes().belly();
-      default -> null;
-    };
+  /** Built-in messages are translation keys; custom ones may also be plain text. */
+  private static Message message(EmoteRegistry emotes, int emote, String message) {
+    return emotes.isBuiltin(emote) ? Message.of(message) : Message.withFallback(message, message);
   }
 
-  private String permissionFor(EmoteType type, Config config) {
-    return switch (type) {
-      case SIT -> config.permissions().sit();
-      case CHAIR -> config.permissions().chair();
-      case LAY -> config.permissions().lay();
-      case BELLY -> config.permissions().belly();
-      default -> config.permissions().crawl();
-    };
+  private boolean checkPermission(PlayerAdapter player, String node, int fallbackLevel) {
+    long start = System.nanoTime();
+    PermissionCheckEvent event = new PermissionCheckEvent();
+    event.begin();
+    boolean allowed = false;
+    try {
+      allowed = player.hasPermission(node, fallbackLevel);
+      return allowed;
+    } finally {
+      counters.permissionChecked(start);
+      CommandTrace.phase(CommandTrace.Phase.PERMISSION, start);
+      event.end();
+      if (event.shouldCommit()) {
+        event.node = node;
+        event.allowed = allowed;
+        event.commit();
+      }
+    }
   }
 
   private boolean isOnCooldown(PlayerAdapter player, Duration cooldown) {
@@ -384,50 +868,123 @@ public final class EmoteService {
     return config.core().disableInWorlds().contains(player.worldKey());
   }
 
-  private void stopAll(PlayerAdapter player, SeatManager.SeatRemovalReason reason) {
-    crawling.remove(player.uuid());
-    seatManager.removeSeat(player, reason);
-    player.setSwimming(false);
-    player.setPose(EntityPose.STANDING);
+  private static Config.Zone zoneAt(PlayerAdapter player, Config config) {
+    ZoneIndex zones = config.zoneIndex();
+    if (zones.isEmpty()) {
+      return null;
+    }
+    return zones.zoneAt(
+        player.worldKey(),
+        (int) Math.floor(player.x()),
+        (int) Math.floor(player.y()),
+        (int) Math.floor(player.z()));
   }
 
-  private boolean isSuffocating(PlayerAdapter player) {
-    Box box = player.boundingBox().offset(0, 0.2, 0);
-    return !player.isSpaceEmpty(box);
+  private void sessionStarted(UUID playerId, EmoteType type) {
+    sessions.started(
+        playerId, type, System.currentTimeMillis(), configSupplier.get().core().cooldown());
+    transitions.started(playerId, type, currentTick);
+    EmoteStartEvent.emit(playerId, type);
+    if (!configSupplier.get().ledger().rollupsEnabled()) {
+      long start = System.nanoTime();
+      ledger.submit(playerId, type, LedgerEntry.Action.START);
+      CommandTrace.phase(CommandTrace.Phase.LEDGER, start);
+    }
   }
 
-  private Optional<ChairPlacement> computeChairPlacement(PlayerAdapter player) {
-    ServerPlayerEntity entity = player.entity();
-    if (entity == null) {
-      return Optional.empty();
+  private void sessionEnded(UUID playerId, EmoteType type, SeatManager.SeatRemovalReason reason) {
+    perf.removed(reason);
+    counters.removed(reason);
+    transitions.stopped(playerId, type, reason, currentTick);
+    EmoteStopEvent.emit(playerId, type, reason);
+    if (sessions.ended(playerId, type, reason, System.currentTimeMillis())
+        && !configSupplier.get().ledger().rollupsEnabled()) {
+      long start = System.nanoTime();
+      ledger.submitStop(playerId, type, reason);
+      CommandTrace.phase(CommandTrace.Phase.LEDGER, start);
     }
-    HitResult hit = entity.raycast(5.0d, 0.0f, false);
-    if (!(hit instanceof BlockHitResult blockHit)) {
-      return Optional.empty();
+  }
+
+  private void endCrawl(UUID playerId, SeatManager.SeatRemovalReason reason) {
+    if (crawling.remove(playerId) != null) {
+      sessionEnded(playerId, EmoteType.CRAWL, reason);
     }
-    BlockPos pos = blockHit.getBlockPos();
-    BlockState state = entity.getWorld().getBlockState(pos);
-    if (!(state.getBlock() instanceof StairsBlock)) {
-      return Optional.empty();
+  }
+
+  private void stopCrawl(PlayerAdapter player, SeatManager.SeatRemovalReason reason) {
+    endCrawl(player.uuid(), reason);
+    player.setCrawlPose(false);
+  }
+
+  private void stopEverything(SeatManager.SeatRemovalReason reason) {
+    for (PlayerAdapter player : crawling.values()) {
+      stopCrawl(player, reason);
     }
-    Direction facing = state.get(StairsBlock.FACING);
-    BlockHalf half = state.get(StairsBlock.HALF);
-    double topY = pos.getY() + (half == BlockHalf.TOP ? 1.0d : 0.5d);
-    Vec3d base = new Vec3d(pos.getX() + 0.5d, topY, pos.getZ() + 0.5d);
-    Vec3d offset = base.subtract(player.position());
-    return Optional.of(new ChairPlacement(offset, yawFor(facing)));
+    seatManager.discardAll(reason);
   }
 
-  private record ChairPlacement(Vec3d offset, float yaw) {}
+  private void emitRollup(long now) {
+    SessionRollup rollup = sessions.rollup(now);
+    if (!rollup.isEmpty()) {
+      ledger.submitRollup(rollup);
+    }
+  }
 
-  private static float yawFor(Direction direction) {
-    return switch (direction) {
-      case NORTH -> 180.0f;
-      case SOUTH -> 0.0f;
-      case WEST -> 90.0f;
-      case EAST -> 270.0f;
-      default -> 0.0f;
-    };
+  private boolean isSuffocating(PlayerAdapter player) {
+    return !player.isSpaceEmpty(0.2d);
+  }
+
+  /** The seatable block the player looks at, or {@code null} if /chair should fall back to /sit. */
+  private PlayerAdapter.TargetedBlock targetChair(PlayerAdapter player) {
+    PlayerAdapter.TargetedBlock block = player.targetedBlock(5.0d);
+    return block != null && seatableBlocks.seatable(block.stateId()) ? block : null;
+  }
+
+  /**
+   * Centres the seat on {@code block}, on its seat surface and facing the way the block dictates.
+   * Blocks without a facing, like slabs, face the way a neighbour on the same bench does, or
+   * failing that the way the player looks.
+   */
+  private SeatManager.Placement chairPlacement(
+      PlayerAdapter player, PlayerAdapter.TargetedBlock block) {
+    SeatableBlocks table = seatableBlocks;
+    long packed = SeatOccupancy.pack(block.x(), block.y(), block.z());
+    float yaw = table.yaw(block.stateId());
+    if (Float.isNaN(yaw)) {
+      List<SeatManager.SeatSession> bench = seatManager.neighbours(player.worldKey(), packed);
+      yaw = bench.isEmpty() ? player.yaw() : bench.get(0).yaw();
+    }
+    return new SeatManager.Placement(
+        block.x() + 0.5d - player.x(),
+        block.y() + table.height(block.stateId()) - player.y(),
+        block.z() + 0.5d - player.z(),
+        yaw,
+        packed);
+  }
+
+  /** Stands up whoever sits on the block at the given position, which was just broken. */
+  void onBlockBroken(String world, int x, int y, int z) {
+    seatManager.releaseBlock(
+        world, SeatOccupancy.pack(x, y, z), SeatManager.SeatRemovalReason.BLOCK_BROKEN);
+  }
+
+  /** Suspends the seats in a chunk that is unloading, so they are neither saved nor ticked. */
+  void onChunkUnloaded(String world, int chunkX, int chunkZ) {
+    seatManager.suspendChunk(world, chunkX, chunkZ);
+  }
+
+  /**
+   * Puts riders back on the seats suspended in a chunk that has loaded again, looking owners up
+   * through {@code players}; seats whose owner is gone or has moved away end instead.
+   */
+  void onChunkLoaded(
+      String world, int chunkX, int chunkZ, Function<UUID, PlayerAdapter> players) {
+    seatManager.restoreChunk(world, chunkX, chunkZ, players);
+  }
+
+  /** Seats waiting for their chunk to load again; chunk loads have nothing to do while zero. */
+  int suspendedSeats() {
+    return seatManager.suspendedSeats();
   }
 
   public enum Toggle {
@@ -444,13 +1001,38 @@ public final class EmoteService {
     }
   }
 
-  public record Result(boolean success, Text message) {
-    public static Result ok(Text message) {
+  /** Open seats and crawls in one world. */
+  public record WorldActivity(int seats, int crawlers) {
+    WorldActivity plus(WorldActivity other) {
+      return new WorldActivity(seats + other.seats, crawlers + other.crawlers);
+    }
+  }
+
+  public record Result(boolean success, Message message) {
+    public static Result ok(Message message) {
       return new Result(true, message);
     }
 
-    public static Result error(Text message) {
+    public static Result error(Message message) {
       return new Result(false, message);
     }
   }
+
+  /**
+   * A chat message as a translation key, an optional argument and, for custom emote messages, the
+   * text to show when the key has no translation. {@link FabricEmotes#text} renders it.
+   */
+  public record Message(String key, String argument, String fallback) {
+    public static Message of(String key) {
+      return new Message(key, null, null);
+    }
+
+    public static Message of(String key, String argument) {
+      return new Message(key, argument, null);
+    }
+
+    public static Message withFallback(String key, String fallback) {
+      return new Message(key, null, fallback);
+    }
+  }
 }
@@ -1,45 +1,48 @@
 package dev.minemotes.core;
 
-import net.minecraft.text.Text;
-
-/** Types of emotes supported by MinEmotes. */
+/**
+ * Built-in emotes and the poses custom emotes can reuse. For the five built-ins the ordinal is also
+ * the emote's id in {@link dev.minemotes.config.EmoteRegistry}.
+ */
 public enum EmoteType {
-  CRAWL("crawl"),
-  SIT("sit"),
-  CHAIR("chair"),
-  LAY("lay"),
-  BELLY("belly"),
-  ADMIN("admin");
+  CRAWL("crawl", "minemotes.crawl.on", "minemotes.crawl.off"),
+  SIT("sit", "minemotes.sit.start", "minemotes.sit.stop"),
+  CHAIR("chair", "minemotes.chair.start", "minemotes.chair.stop"),
+  LAY("lay", "minemotes.lay.start", "minemotes.lay.stop"),
+  BELLY("belly", "minemotes.belly.start", "minemotes.belly.stop"),
+  ADMIN("admin", null, null);
 
   private final String id;
+  private final String startKey;
+  private final String stopKey;
 
-  EmoteType(String id) {
+  EmoteType(String id, String startKey, String stopKey) {
     this.id = id;
+    this.startKey = startKey;
+    this.stopKey = stopKey;
   }
 
   public String id() {
     return id;
   }
 
-  public Text startMessage() {
-    return switch (this) {
-      case CRAWL -> Text.translatable("minemotes.crawl.on");
-      case SIT -> Text.translatable("minemotes.sit.start");
-      case CHAIR -> Text.translatable("minemotes.chair.start");
-      case LAY -> Text.translatable("minemotes.lay.start");
-      case BELLY -> Text.translatable("minemotes.belly.start");
-      case ADMIN -> Text.empty();
-    };
+  /** Translation key of the start message, or {@code null} for {@link #ADMIN}. */
+  public String startKey() {
+    return startKey;
+  }
+
+  /** Translation key of the stop message, or {@code null} for {@link #ADMIN}. */
+  public String stopKey() {
+    return stopKey;
   }
 
-  public Text stopMessage() {
-    return switch (this) {
-      case CRAWL -> Text.translatable("minemotes.crawl.off");
-      case SIT -> Text.translatable("minemotes.sit.stop");
-      case CHAIR -> Text.translatable("minemotes.chair.stop");
-      case LAY -> Text.translatable("minemotes.lay.stop");
-      case BELLY -> Text.translatable("minemotes.belly.stop");
-      case ADMIN -> Text.empty();
-    };
+  /** Returns the type whose {@link #id()} is {@code id}, or {@code null}. */
+  public static EmoteType fromId(String id) {
+    for (EmoteType type : values()) {
+      if (type.id.equals(id)) {
+        return type;
+      }
+    }
+    return null;
   }
 }
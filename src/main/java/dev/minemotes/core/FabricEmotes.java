@@ -0,0 +1,113 @@
+package dev.minemotes.core;
+
+import java.util.List;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+
+/**
+ * Fabric side of {@link EmoteService}: wraps server players in a {@link FabricPlayerAdapter},
+ * renders {@link EmoteService.Message}s as {@link Text}, builds the armor stand {@link
+ * SeatManager} and scans block states for /chair. Nothing else in the core refers to Minecraft
+ * classes.
+ */
+public final class FabricEmotes {
+  private FabricEmotes() {}
+
+  /** A seat manager that spawns marker armor stands in the rider's world. */
+  public static SeatManager seatManager() {
+    return new SeatManager(new ArmorStandSeatFactory());
+  }
+
+  /**
+   * Rebuilds the table of block states /chair can seat on. Call once tags are bound, i.e. from
+   * server start or a data pack reload, and when {@code emotes.chair.blockTags} changes.
+   */
+  public static void refreshSeatableBlocks(EmoteService service, List<String> blockTags) {
+    service.seatableBlocks(SeatableBlockScanner.scan(blockTags));
+  }
+
+  public static EmoteService.Result handleCrawl(
+      EmoteService service, ServerPlayerEntity player, EmoteService.Toggle toggle) {
+    return service.handleCrawl(new FabricPlayerAdapter(player), toggle);
+  }
+
+  /** Runs the emote registered as {@code name}; crawl toggles, seat emotes start or stop. */
+  public static EmoteService.Result handleEmote(
+      EmoteService service, ServerPlayerEntity player, String name) {
+    return service.handleEmote(new FabricPlayerAdapter(player), name);
+  }
+
+  /** Ticks the seats in {@code world}; register on {@code END_WORLD_TICK}. */
+  public static void tickWorld(EmoteService service, ServerWorld world) {
+    service.tickWorld(world.getRegistryKey().getValue().toString(), world.getServer().getTicks());
+  }
+
+  /** Ticks crawls and rollups; register on {@code END_SERVER_TICK}, after the worlds. */
+  public static void tick(EmoteService service, MinecraftServer server) {
+    service.tickServer(server.getTicks());
+  }
+
+  /** Ends the seats in {@code world}; register on world unload. */
+  public static void onWorldUnload(EmoteService service, ServerWorld world) {
+    service.onWorldUnloaded(world.getRegistryKey().getValue().toString());
+  }
+
+  public static void onDisconnect(EmoteService service, ServerPlayerEntity player) {
+    service.onDisconnect(new FabricPlayerAdapter(player));
+  }
+
+  public static void onDeath(EmoteService service, ServerPlayerEntity player) {
+    service.onDeath(new FabricPlayerAdapter(player));
+  }
+
+  public static void onWorldChange(EmoteService service, ServerPlayerEntity player) {
+    service.onWorldChange(new FabricPlayerAdapter(player));
+  }
+
+  public static void onTeleport(EmoteService service, ServerPlayerEntity player) {
+    service.onTeleport(new FabricPlayerAdapter(player));
+  }
+
+  /** Stands up whoever sits on the block at {@code pos}; call once the block has been broken. */
+  public static void onBlockBroken(EmoteService service, World world, BlockPos pos) {
+    service.onBlockBroken(
+        world.getRegistryKey().getValue().toString(), pos.getX(), pos.getY(), pos.getZ());
+  }
+
+  /** Suspends the seats in {@code chunk}; call as the chunk unloads. */
+  public static void onChunkUnload(EmoteService service, ServerWorld world, WorldChunk chunk) {
+    ChunkPos pos = chunk.getPos();
+    service.onChunkUnloaded(world.getRegistryKey().getValue().toString(), pos.x, pos.z);
+  }
+
+  /** Restores the seats suspended in {@code chunk} for riders still online and nearby. */
+  public static void onChunkLoad(EmoteService service, ServerWorld world, WorldChunk chunk) {
+    if (service.suspendedSeats() == 0) {
+      return;
+    }
+    ChunkPos pos = chunk.getPos();
+    service.onChunkLoaded(
+        world.getRegistryKey().getValue().toString(),
+        pos.x,
+        pos.z,
+        uuid -> {
+          ServerPlayerEntity player = world.getServer().getPlayerManager().getPlayer(uuid);
+          return player == null ? null : new FabricPlayerAdapter(player);
+        });
+  }
+
+  public static Text text(EmoteService.Message message) {
+    if (message.fallback() != null) {
+      return Text.translatableWithFallback(message.key(), message.fallback());
+    }
+    return message.argument() == null
+        ? Text.translatable(message.key())
+        : Text.translatable(message.key(), message.argument());
+  }
+}
@@ -0,0 +1,166 @@
+package dev.minemotes.core;
+
+import dev.minemotes.perms.Perms;
+import java.util.UUID;
+import net.minecraft.block.Block;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityPose;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.hit.BlockHitResult;
+import net.minecraft.util.hit.HitResult;
+import net.minecraft.util.math.BlockPos;
+
+/** {@link PlayerAdapter} over a live {@link ServerPlayerEntity}. */
+final class FabricPlayerAdapter implements PlayerAdapter {
+  private final ServerPlayerEntity player;
+
+  FabricPlayerAdapter(ServerPlayerEntity player) {
+    this.player = player;
+  }
+
+  @Override
+  public UUID uuid() {
+    return player.getUuid();
+  }
+
+  @Override
+  public String uuidString() {
+    return player.getUuidAsString();
+  }
+
+  @Override
+  public String name() {
+    return player.getName().getString();
+  }
+
+  @Override
+  public boolean isSpectator() {
+    return player.isSpectator();
+  }
+
+  @Override
+  public boolean isRemoved() {
+    return player.isRemoved();
+  }
+
+  @Override
+  public boolean isDead() {
+    return player.isDead();
+  }
+
+  @Override
+  public boolean isSleeping() {
+    return player.isSleeping();
+  }
+
+  @Override
+  public boolean isTouchingWater() {
+    return player.isTouchingWater();
+  }
+
+  @Override
+  public boolean hasVehicle() {
+    return player.hasVehicle();
+  }
+
+  @Override
+  public int vehicleId() {
+    return player.hasVehicle() && player.getVehicle() != null ? player.getVehicle().getId() : -1;
+  }
+
+  @Override
+  public boolean isOnGround() {
+    return player.isOnGround();
+  }
+
+  @Override
+  public boolean isFlying() {
+    return player.getAbilities().flying;
+  }
+
+  @Override
+  public int hurtTime() {
+    return player.hurtTime;
+  }
+
+  boolean startRiding(Entity seat, boolean force) {
+    return player.startRiding(seat, force);
+  }
+
+  @Override
+  public void stopRiding() {
+    player.stopRiding();
+  }
+
+  @Override
+  public double x() {
+    return player.getX();
+  }
+
+  @Override
+  public double y() {
+    return player.getY();
+  }
+
+  @Override
+  public double z() {
+    return player.getZ();
+  }
+
+  @Override
+  public float yaw() {
+    return player.getYaw();
+  }
+
+  @Override
+  public float pitch() {
+    return player.getPitch();
+  }
+
+  @Override
+  public void setPitch(float pitch) {
+    player.setPitch(pitch);
+  }
+
+  @Override
+  public void setCrawlPose(boolean crawling) {
+    player.setSwimming(crawling);
+    player.setPose(crawling ? EntityPose.SWIMMING : EntityPose.STANDING);
+  }
+
+  @Override
+  public boolean isSpaceEmpty(double lift) {
+    return player.getWorld().isSpaceEmpty(player, player.getBoundingBox().offset(0, lift, 0));
+  }
+
+  @Override
+  public boolean hasPermission(String node, int fallbackLevel) {
+    return Perms.check(player, node, fallbackLevel);
+  }
+
+  @Override
+  public TargetedBlock targetedBlock(double reach) {
+    HitResult hit = player.raycast(reach, 0.0f, false);
+    if (!(hit instanceof BlockHitResult blockHit) || hit.getType() == HitResult.Type.MISS) {
+      return null;
+    }
+    BlockPos pos = blockHit.getBlockPos();
+    int stateId = Block.getRawIdFromState(player.getWorld().getBlockState(pos));
+    return new TargetedBlock(pos.getX(), pos.getY(), pos.getZ(), stateId);
+  }
+
+  @Override
+  public int blockStateAt(int x, int y, int z) {
+    return Block.getRawIdFromState(player.getWorld().getBlockState(new BlockPos(x, y, z)));
+  }
+
+  @Override
+  public String worldKey() {
+    return player.getWorld().getRegistryKey().getValue().toString();
+  }
+
+  ServerWorld world() {
+    return (ServerWorld) player.getWorld();
+  }
+}
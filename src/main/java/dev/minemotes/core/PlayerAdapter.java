@@ -1,14 +1,11 @@
 package dev.minemotes.core;
 
 import java.util.UUID;
-import net.minecraft.entity.Entity;
-import net.minecraft.entity.EntityPose;
-import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.server.world.ServerWorld;
-import net.minecraft.util.math.Box;
-import net.minecraft.util.math.Vec3d;
-
-/** Abstraction around {@link ServerPlayerEntity} for easier testing. */
+
+/**
+ * What the emote logic reads from and does to a player, in plain Java types so the core runs
+ * without Minecraft on the class path. {@link FabricPlayerAdapter} backs it with a server player.
+ */
 interface PlayerAdapter {
   UUID uuid();
 
@@ -36,11 +33,13 @@ interface PlayerAdapter {
 
   int hurtTime();
 
-  boolean startRiding(Entity seat, boolean force);
-
   void stopRiding();
 
-  Vec3d position();
+  double x();
+
+  double y();
+
+  double z();
 
   float yaw();
 
@@ -48,159 +47,23 @@ interface PlayerAdapter {
 
   void setPitch(float pitch);
 
-  void setSwimming(boolean swimming);
+  /** Puts the player into the swimming pose on land, or back to standing. */
+  void setCrawlPose(boolean crawling);
 
-  void setPose(EntityPose pose);
+  /** Whether the player's bounding box, raised by {@code lift} blocks, collides with nothing. */
+  boolean isSpaceEmpty(double lift);
 
-  Box boundingBox();
+  /** Whether the player may use the permission node, falling back to an op level. */
+  boolean hasPermission(String node, int fallbackLevel);
 
-  boolean isSpaceEmpty(Box box);
+  /** The block the player looks at within {@code reach} blocks, or {@code null}. */
+  TargetedBlock targetedBlock(double reach);
 
-  String worldKey();
+  /** The raw id of the block state at a position in the player's world. */
+  int blockStateAt(int x, int y, int z);
 
-  ServerWorld world();
-
-  ServerPlayerEntity entity();
-
-  static PlayerAdapter fabric(ServerPlayerEntity player) {
-    return new FabricPlayerAdapter(player);
-  }
-}
+  String worldKey();
 
-final class FabricPlayerAdapter implements PlayerAdapter {
-  private final ServerPlayerEntity player;
-
-  FabricPlayerAdapter(ServerPlayerEntity player) {
-    this.player = player;
-  }
-
-  @Override
-  public UUID uuid() {
-    return player.getUuid();
-  }
-
-  @Override
-  public String uuidString() {
-    return player.getUuidAsString();
-  }
-
-  @Override
-  public String name() {
-    return player.getName().getString();
-  }
-
-  @Override
-  public boolean isSpectator() {
-    return player.isSpectator();
-  }
-
-  @Override
-  public boolean isRemoved() {
-    return player.isRemoved();
-  }
-
-  @Override
-  public boolean isDead() {
-    return player.isDead();
-  }
-
-  @Override
-  public boolean isSleeping() {
-    return player.isSleeping();
-  }
-
-  @Override
-  public boolean isTouchingWater() {
-    return player.isTouchingWater();
-  }
-
-  @Override
-  public boolean hasVehicle() {
-    return player.hasVehicle();
-  }
-
-  @Override
-  public int vehicleId() {
-    return player.hasVehicle() && player.getVehicle() != null ? player.getVehicle().getId() : -1;
-  }
-
-  @Override
-  public boolean isOnGround() {
-    return player.isOnGround();
-  }
-
-  @Override
-  public boolean isFlying() {
-    return player.getAbilities().flying;
-  }
-
-  @Override
-  public int hurtTime() {
-    return player.hurtTime;
-  }
-
-  @Override
-  public boolean startRiding(Entity seat, boolean force) {
-    return player.startRiding(seat, force);
-  }
-
-  @Override
-  public void stopRiding() {
-    player.stopRiding();
-  }
-
-  @Override
-  public Vec3d position() {
-    return player.getPos();
-  }
-
-  @Override
-  public float yaw() {
-    return player.getYaw();
-  }
-
-  @Override
-  public float pitch() {
-    return player.getPitch();
-  }
-
-  @Override
-  public void setPitch(float pitch) {
-    player.setPitch(pitch);
-  }
-
-  @Override
-  public void setSwimming(boolean swimming) {
-    player.setSwimming(swimming);
-  }
-
-  @Override
-  public void setPose(EntityPose pose) {
-    player.setPose(pose);
-  }
-
-  @Override
-  public Box boundingBox() {
-    return player.getBoundingBox();
-  }
-
-  @Override
-  public boolean isSpaceEmpty(Box box) {
-    return player.getWorld().isSpaceEmpty(player, box);
-  }
-
-  @Override
-  public String worldKey() {
-    return player.getWorld().getRegistryKey().getValue().toString();
-  }
-
-  @Override
-  public ServerWorld world() {
-    return (ServerWorld) player.getWorld();
-  }
-
-  @Override
-  public ServerPlayerEntity entity() {
-    return player;
-  }
+  /** A block position and the raw id of the block state there. */
+  record TargetedBlock(int x, int y, int z, int stateId) {}
 }
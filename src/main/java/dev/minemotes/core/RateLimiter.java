@@ -0,0 +1,179 @@
+package dev.minemotes.core;
+
+import dev.minemotes.config.Config;
+import dev.minemotes.stats.EmoteCounters;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Per-player token buckets for emote commands, with lockouts that double while a player keeps
+ * draining theirs. State lives in parallel primitive arrays behind an open-addressed table keyed by
+ * the two halves of the UUID, so a check allocates nothing. Only touched on the server thread.
+ *
+ * <p>A bucket is stored as the instant it is full again. Taking a token pushes that instant one
+ * refill interval later, and the bucket is empty once the instant is a whole burst ahead of now.
+ * A lockout holds the bucket back so that only one token is waiting when it ends; otherwise a long
+ * lockout would refill the bucket and forgive the very strike that caused it.
+ * Entries outlive disconnects, so rejoining does not refill the bucket; they are dropped when the
+ * table fills up and the bucket has refilled, the lockout is over and every strike is forgiven.
+ */
+final class RateLimiter {
+  private static final int INITIAL_CAPACITY = 64;
+  // Further strikes cannot lengthen a lockout that has long hit maxPenalty.
+  private static final int MAX_STRIKES = 32;
+
+  private final EmoteCounters counters;
+  private long[] most = new long[INITIAL_CAPACITY];
+  private long[] least = new long[INITIAL_CAPACITY];
+  private boolean[] used = new boolean[INITIAL_CAPACITY];
+  private long[] fullAt = new long[INITIAL_CAPACITY];
+  private long[] blockedUntil = new long[INITIAL_CAPACITY];
+  private int[] strikes = new int[INITIAL_CAPACITY];
+  private int size;
+
+  RateLimiter(EmoteCounters counters) {
+    this.counters = counters;
+  }
+
+  /**
+   * Takes a token for {@code player} at {@code now}, from {@link System#nanoTime()}. Returns 0 if
+   * the command may run, otherwise how many nanoseconds the player has to wait. Finding the bucket
+   * empty is a strike and locks the player out for {@code penalty}, doubled for every strike still
+   * on record and capped at {@code maxPenalty}. The bucket sitting full forgives one strike, and
+   * one more per further refill time spent idle.
+   */
+  long acquire(UUID player, long now, Config.RateLimit limit) {
+    if (!limit.enabled()) {
+      return 0L;
+    }
+    long interval = limit.refillInterval().toNanos();
+    long window = interval * limit.burst();
+    int slot = slot(player.getMostSignificantBits(), player.getLeastSignificantBits(), now, window);
+    long blocked = blockedUntil[slot] - now;
+    if (blocked > 0L) {
+      return blocked;
+    }
+    long full = fullAt[slot];
+    if (full - now <= 0L) {
+      if (strikes[slot] > 0) {
+        long forgiven = 1L + (now - full) / window;
+        strikes[slot] = (int) Math.max(0L, strikes[slot] - forgiven);
+      }
+      full = now;
+    }
+    long next = full + interval;
+    if (next - now <= window) {
+      fullAt[slot] = next;
+      return 0L;
+    }
+    int strike = Math.min(strikes[slot] + 1, MAX_STRIKES);
+    strikes[slot] = strike;
+    long lockout = lockout(strike, limit);
+    long wait = Math.max(lockout, next - window - now);
+    blockedUntil[slot] = now + wait;
+    fullAt[slot] = now + wait + window - interval;
+    if (lockout > 0L) {
+      counters.rateLimitPenalized();
+    }
+    return wait;
+  }
+
+  /** Players with a bucket; includes idle ones until the table next fills up. */
+  int size() {
+    return size;
+  }
+
+  /** Forgets every bucket and lockout, e.g. after the limits were reloaded. */
+  void clear() {
+    Arrays.fill(used, false);
+    size = 0;
+  }
+
+  private static long lockout(int strike, Config.RateLimit limit) {
+    long max = limit.maxPenalty().toNanos();
+    long lockout = limit.penalty().toNanos();
+    for (int i = 1; i < strike && lockout < max; i++) {
+      lockout <<= 1;
+    }
+    return Math.min(lockout, max);
+  }
+
+  private int slot(long msb, long lsb, long now, long window) {
+    int mask = used.length - 1;
+    int slot = hash(msb, lsb) & mask;
+    while (used[slot]) {
+      if (most[slot] == msb && least[slot] == lsb) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    if ((size + 1) * 4 > used.length * 3) {
+      rebuild(now, window);
+      return slot(msb, lsb, now, window);
+    }
+    used[slot] = true;
+    most[slot] = msb;
+    least[slot] = lsb;
+    fullAt[slot] = now;
+    blockedUntil[slot] = now;
+    strikes[slot] = 0;
+    size++;
+    return slot;
+  }
+
+  /** Drops buckets with nothing left to remember and doubles the table if it is still half full. */
+  private void rebuild(long now, long window) {
+    long[] oldMost = most;
+    long[] oldLeast = least;
+    boolean[] oldUsed = used;
+    long[] oldFullAt = fullAt;
+    long[] oldBlocked = blockedUntil;
+    int[] oldStrikes = strikes;
+    int live = 0;
+    for (int i = 0; i < oldUsed.length; i++) {
+      if (oldUsed[i] && !idle(oldFullAt[i], oldBlocked[i], oldStrikes[i], now, window)) {
+        live++;
+      }
+    }
+    int capacity = oldUsed.length;
+    while (live * 2 >= capacity) {
+      capacity <<= 1;
+    }
+    most = new long[capacity];
+    least = new long[capacity];
+    used = new boolean[capacity];
+    fullAt = new long[capacity];
+    blockedUntil = new long[capacity];
+    strikes = new int[capacity];
+    size = 0;
+    int mask = capacity - 1;
+    for (int i = 0; i < oldUsed.length; i++) {
+      if (!oldUsed[i] || idle(oldFullAt[i], oldBlocked[i], oldStrikes[i], now, window)) {
+        continue;
+      }
+      int slot = hash(oldMost[i], oldLeast[i]) & mask;
+      while (used[slot]) {
+        slot = (slot + 1) & mask;
+      }
+      used[slot] = true;
+      most[slot] = oldMost[i];
+      least[slot] = oldLeast[i];
+      fullAt[slot] = oldFullAt[i];
+      blockedUntil[slot] = oldBlocked[i];
+      strikes[slot] = oldStrikes[i];
+      size++;
+    }
+  }
+
+  private static boolean idle(long fullAt, long blockedUntil, int strikes, long now, long window) {
+    if (fullAt - now > 0L || blockedUntil - now > 0L) {
+      return false;
+    }
+    return strikes == 0 || 1L + (now - fullAt) / window >= strikes;
+  }
+
+  private static int hash(long msb, long lsb) {
+    long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+}
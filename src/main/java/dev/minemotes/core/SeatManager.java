@@ -1,83 +1,336 @@
 package dev.minemotes.core;
 
 import dev.minemotes.config.Config;
-import java.lang.reflect.Method;
+import dev.minemotes.config.EmoteRegistry;
+import dev.minemotes.profiling.SeatDiscardEvent;
+import dev.minemotes.profiling.SeatSpawnEvent;
+import dev.minemotes.stats.CommandTrace;
+import dev.minemotes.stats.PerfMonitor;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import net.minecraft.entity.Entity;
-import net.minecraft.entity.Entity.RemovalReason;
-import net.minecraft.entity.decoration.ArmorStandEntity;
-import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.server.world.ServerWorld;
-import net.minecraft.util.math.Vec3d;
+import java.util.function.Function;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-/** Manages invisible marker seats for sit/lay/belly emotes. */
+/**
+ * Manages the seats of sit/lay/belly emotes. Seats come from a {@link SeatFactory}, which is the
+ * only part that touches entities. Sessions are sharded by the world they were spawned in, so each
+ * world's seats can be ticked from that world's tick and dropped with it. Seats in a chunk that
+ * unloads are suspended: the entity goes away and the session is kept in a few fields until the
+ * chunk loads again.
+ */
 public final class SeatManager {
   private static final Logger LOGGER = LogManager.getLogger("minemotes");
+  /** How far, squared, a rider may be from a suspended seat and still be put back on it. */
+  private static final double RESTORE_RANGE_SQ = 4.0;
 
+  // Every open seat by owner, whatever world it is in; the shards hold the same sessions by world.
   private final Map<UUID, SeatSession> seats = new ConcurrentHashMap<>();
   private final Map<Integer, UUID> seatByEntityId = new ConcurrentHashMap<>();
+  private final Map<String, Shard> shards = new ConcurrentHashMap<>();
+  // Server thread only.
+  private final SeatOccupancy occupancy = new SeatOccupancy();
+  private final Map<UUID, SuspendedSeat> suspended = new HashMap<>();
   private final SeatFactory seatFactory;
-
-  public SeatManager() {
-    this(new ArmorStandSeatFactory());
-  }
+  private volatile RemovalListener removalListener = (playerId, type, reason) -> {};
+  private volatile PerfMonitor perf = new PerfMonitor();
 
   SeatManager(SeatFactory seatFactory) {
     this.seatFactory = seatFactory;
   }
 
-  public Optional<SeatSession> session(ServerPlayerEntity player) {
-    return session(PlayerAdapter.fabric(player));
+  /** Sets the listener told about every seat that goes away, whatever removed it. */
+  public void setRemovalListener(RemovalListener listener) {
+    this.removalListener = Objects.requireNonNull(listener, "listener");
+  }
+
+  /** Sets the monitor that seat creation and removal timings are recorded into. */
+  public void setPerfMonitor(PerfMonitor monitor) {
+    this.perf = Objects.requireNonNull(monitor, "monitor");
   }
 
   Optional<SeatSession> session(PlayerAdapter player) {
     return Optional.ofNullable(seats.get(player.uuid()));
   }
 
-  public SeatResult createSeat(ServerPlayerEntity player, EmoteType type, Config.SeatEmoteConfig cfg) {
-    return createSeat(PlayerAdapter.fabric(player), type, cfg);
+  /** The seat resting on the packed {@code block} position in {@code world}, or {@code null}. */
+  SeatSession occupant(String world, long block) {
+    return occupancy.occupant(world, block);
+  }
+
+  /** Seats on the blocks beside {@code block} at the same height, e.g. along a bench. */
+  List<SeatSession> neighbours(String world, long block) {
+    return occupancy.neighbours(world, block);
+  }
+
+  /** Removes the seat resting on {@code block}, e.g. because the block is gone. */
+  boolean releaseBlock(String world, long block, SeatRemovalReason reason) {
+    SeatSession session = occupancy.occupant(world, block);
+    if (session == null) {
+      return false;
+    }
+    removeSeat(session.seat().id(), reason);
+    return true;
+  }
+
+  /** Blocks with a seat on them, across all worlds. */
+  int occupiedBlocks() {
+    return occupancy.size();
+  }
+
+  /**
+   * Suspends the seats resting in chunk ({@code chunkX}, {@code chunkZ}) of {@code world}, which
+   * is unloading. Their entities are discarded so they are not saved with the chunk, and the
+   * sessions stop being ticked until {@link #restoreChunk} brings them back. Returns how many
+   * seats were suspended.
+   */
+  int suspendChunk(String world, int chunkX, int chunkZ) {
+    Shard shard = shards.get(world);
+    if (shard == null) {
+      return 0;
+    }
+    List<SeatSession> here = shard.byChunk.remove(chunk(chunkX, chunkZ));
+    if (here == null) {
+      return 0;
+    }
+    for (SeatSession session : here) {
+      seats.remove(session.playerId());
+      shard.seats.remove(session.playerId());
+      seatByEntityId.remove(session.seat().id());
+      if (session.block() != SeatOccupancy.NONE) {
+        occupancy.release(world, session.block(), session);
+      }
+      session.seat().discard();
+      suspended.put(session.playerId(), new SuspendedSeat(session));
+    }
+    LOGGER.debug(
+        "(minemotes) suspended {} seat(s) in unloading chunk {},{} of {}",
+        here.size(),
+        chunkX,
+        chunkZ,
+        world);
+    return here.size();
+  }
+
+  /**
+   * Respawns the seats suspended in chunk ({@code chunkX}, {@code chunkZ}) of {@code world}, which
+   * has loaded again. A seat whose owner is not found by {@code players}, has left, or is riding
+   * something else is dropped with {@link SeatRemovalReason#CHUNK_UNLOADED}. Returns how many
+   * seats were restored.
+   */
+  int restoreChunk(
+      String world, int chunkX, int chunkZ, Function<UUID, PlayerAdapter> players) {
+    if (suspended.isEmpty()) {
+      return 0;
+    }
+    long chunk = chunk(chunkX, chunkZ);
+    int restored = 0;
+    Iterator<Map.Entry<UUID, SuspendedSeat>> it = suspended.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<UUID, SuspendedSeat> entry = it.next();
+      SuspendedSeat parked = entry.getValue();
+      if (parked.chunk() != chunk || !parked.world().equals(world)) {
+        continue;
+      }
+      it.remove();
+      if (resume(players.apply(entry.getKey()), parked)) {
+        restored++;
+      } else {
+        discarded(world, entry.getKey(), parked.type(), SeatRemovalReason.CHUNK_UNLOADED);
+      }
+    }
+    return restored;
+  }
+
+  /** Ends every suspended seat, e.g. when the emote ids they hold may no longer be valid. */
+  void dropSuspended(SeatRemovalReason reason) {
+    for (Map.Entry<UUID, SuspendedSeat> entry : suspended.entrySet()) {
+      discarded(entry.getValue().world(), entry.getKey(), entry.getValue().type(), reason);
+    }
+    suspended.clear();
+  }
+
+  /** Seats waiting for their chunk to load again. */
+  int suspendedSeats() {
+    return suspended.size();
+  }
+
+  /** Live view of the active seats; removing seats while iterating it is safe. */
+  public Collection<SeatSession> sessions() {
+    return Collections.unmodifiableCollection(seats.values());
+  }
+
+  /**
+   * Live view of the active seats spawned in {@code world}; removing seats while iterating it is
+   * safe.
+   */
+  public Collection<SeatSession> sessions(String world) {
+    Shard shard = shards.get(world);
+    return shard == null ? List.of() : Collections.unmodifiableCollection(shard.seats.values());
+  }
+
+  /** Worlds that have had a seat since they loaded, including those whose seats all ended. */
+  public Collection<String> worlds() {
+    return Collections.unmodifiableCollection(shards.keySet());
+  }
+
+  /** Open seats per world they were spawned in; worlds whose seats all ended report zero. */
+  public Map<String, Integer> seatsByWorld() {
+    Map<String, Integer> counts = new HashMap<>();
+    for (Map.Entry<String, Shard> shard : shards.entrySet()) {
+      counts.put(shard.getKey(), shard.getValue().seats.size());
+    }
+    return counts;
+  }
+
+  /**
+   * Ends every seat spawned in {@code world}, suspended ones included, e.g. because the world is
+   * unloading. Only that world's seats are visited.
+   */
+  int discardWorld(String world, SeatRemovalReason reason) {
+    Shard shard = shards.remove(world);
+    int discarded = 0;
+    if (shard != null) {
+      for (SeatSession session : shard.seats.values()) {
+        seats.remove(session.playerId(), session);
+        seatByEntityId.remove(session.seat().id());
+        session.seat().discard();
+        session.player().stopRiding();
+        discarded(session, reason);
+        discarded++;
+      }
+    }
+    occupancy.clear(world);
+    Iterator<Map.Entry<UUID, SuspendedSeat>> it = suspended.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<UUID, SuspendedSeat> entry = it.next();
+      if (entry.getValue().world().equals(world)) {
+        it.remove();
+        discarded(world, entry.getKey(), entry.getValue().type(), reason);
+        discarded++;
+      }
+    }
+    return discarded;
   }
 
   SeatResult createSeat(PlayerAdapter player, EmoteType type, Config.SeatEmoteConfig cfg) {
-    return createSeat(player, type, cfg, null, null);
+    return createSeat(player, type, cfg, null);
   }
 
+  SeatResult createSeat(
+      PlayerAdapter player, EmoteType type, Config.SeatEmoteConfig cfg, Placement placement) {
+    return createSeat(player, EmoteRegistry.id(type), type, cfg, placement);
+  }
+
+  /**
+   * Spawns a seat under {@code player} at the emote's configured offset, shifted and turned by
+   * {@code placement} when it is not {@code null}.
+   */
   SeatResult createSeat(
       PlayerAdapter player,
+      int emote,
       EmoteType type,
       Config.SeatEmoteConfig cfg,
-      Vec3d overrideOffset,
-      Float yawOverride) {
+      Placement placement) {
+    long start = System.nanoTime();
+    SeatSpawnEvent event = new SeatSpawnEvent();
+    event.begin();
+    SeatResult result = null;
+    try {
+      result = spawnSeat(player, emote, type, cfg, placement);
+      return result;
+    } finally {
+      perf.record(PerfMonitor.Stage.CREATE_SEAT, start);
+      event.end();
+      if (event.shouldCommit()) {
+        event.world = player.worldKey();
+        event.emote = type.id();
+        event.error = result == null ? "exception" : result.success() ? "" : result.error();
+        event.commit();
+      }
+    }
+  }
+
+  private SeatResult spawnSeat(
+      PlayerAdapter player,
+      int emote,
+      EmoteType type,
+      Config.SeatEmoteConfig cfg,
+      Placement placement) {
     Objects.requireNonNull(player, "player");
     Objects.requireNonNull(cfg, "cfg");
 
     removeSeat(player, SeatRemovalReason.REPLACED);
 
-    Vec3d offset = new Vec3d(cfg.offsetX(), cfg.offsetY(), cfg.offsetZ());
-    if (overrideOffset != null) {
-      offset = offset.add(overrideOffset);
+    double offsetX = cfg.offsetX();
+    double offsetY = cfg.offsetY();
+    double offsetZ = cfg.offsetZ();
+    float yaw = player.yaw();
+    long block = SeatOccupancy.NONE;
+    if (placement != null) {
+      offsetX += placement.offsetX();
+      offsetY += placement.offsetY();
+      offsetZ += placement.offsetZ();
+      yaw = placement.yaw();
+      block = placement.block();
     }
-    float yaw = yawOverride != null ? yawOverride : player.yaw();
-    Vec3d spawnPos = player.position().add(offset);
+    return mount(
+        player,
+        emote,
+        type,
+        block,
+        yaw,
+        offsetX,
+        offsetY,
+        offsetZ,
+        cfg.targetPitch(),
+        player.x(),
+        player.y(),
+        player.z());
+  }
 
-    Seat seat = seatFactory.create(player, spawnPos, yaw);
+  /** Spawns a seat at the given rider position plus offset, mounts the player and records it. */
+  private SeatResult mount(
+      PlayerAdapter player,
+      int emote,
+      EmoteType type,
+      long block,
+      float yaw,
+      double offsetX,
+      double offsetY,
+      double offsetZ,
+      float targetPitch,
+      double x,
+      double y,
+      double z) {
+    long spawnStart = System.nanoTime();
+    Seat seat = seatFactory.create(player, x + offsetX, y + offsetY, z + offsetZ, yaw);
     if (seat == null) {
+      CommandTrace.phase(CommandTrace.Phase.SPAWN, spawnStart);
       return SeatResult.failure("seat.create");
     }
 
-    if (!seat.spawn()) {
+    boolean spawned = seat.spawn();
+    CommandTrace.phase(CommandTrace.Phase.SPAWN, spawnStart);
+    if (!spawned) {
       seat.discard();
       return SeatResult.failure("seat.spawn");
     }
 
-    if (!seat.startRiding(player)) {
+    long rideStart = System.nanoTime();
+    boolean riding = seat.startRiding(player);
+    CommandTrace.phase(CommandTrace.Phase.RIDE, rideStart);
+    if (!riding) {
       seat.discard();
       return SeatResult.failure("seat.ride");
     }
@@ -86,48 +339,109 @@ public final class SeatManager {
         new SeatSession(
             player.uuid(),
             player,
+            emote,
             type,
             seat,
-            offset,
-            cfg.targetPitch(),
-            player.position());
+            player.worldKey(),
+            block,
+            yaw,
+            offsetX,
+            offsetY,
+            offsetZ,
+            targetPitch,
+            x,
+            y,
+            z);
     seats.put(player.uuid(), session);
     seatByEntityId.put(seat.id(), player.uuid());
+    if (block != SeatOccupancy.NONE) {
+      occupancy.claim(session.world(), block, session);
+    }
+    shards.computeIfAbsent(session.world(), key -> new Shard()).add(session);
     return SeatResult.success(session);
   }
 
-  public void removeSeat(ServerPlayerEntity player, SeatRemovalReason reason) {
-    removeSeat(PlayerAdapter.fabric(player), reason);
+  /** Puts {@code player} back on a seat suspended with its chunk, if they are still next to it. */
+  private boolean resume(PlayerAdapter player, SuspendedSeat parked) {
+    if (player == null
+        || player.isRemoved()
+        || player.isDead()
+        || player.hasVehicle()
+        || !parked.world().equals(player.worldKey())
+        || seats.containsKey(player.uuid())) {
+      return false;
+    }
+    double dx = player.x() - parked.x();
+    double dy = player.y() - parked.y();
+    double dz = player.z() - parked.z();
+    if (dx * dx + dy * dy + dz * dz > RESTORE_RANGE_SQ) {
+      return false;
+    }
+    if (parked.block() != SeatOccupancy.NONE
+        && occupancy.occupant(parked.world(), parked.block()) != null) {
+      return false;
+    }
+    return mount(
+            player,
+            parked.emote(),
+            parked.type(),
+            parked.block(),
+            parked.yaw(),
+            parked.offsetX(),
+            parked.offsetY(),
+            parked.offsetZ(),
+            parked.targetPitch(),
+            parked.x(),
+            parked.y(),
+            parked.z())
+        .success();
   }
 
   void removeSeat(PlayerAdapter player, SeatRemovalReason reason) {
     if (player == null) {
       return;
     }
+    long start = System.nanoTime();
+    SuspendedSeat parked = suspended.remove(player.uuid());
+    if (parked != null) {
+      discarded(parked.world(), player.uuid(), parked.type(), reason);
+    }
     SeatSession session = seats.remove(player.uuid());
     if (session != null) {
       seatByEntityId.remove(session.seat().id());
+      unlink(session);
       session.seat().discard();
       if (player.hasVehicle()) {
         player.stopRiding();
       }
       LOGGER.debug("(minemotes) seat removed: {} ({})", player.name(), reason);
+      discarded(session, reason);
+      perf.record(PerfMonitor.Stage.REMOVE_SEAT, start);
     }
   }
 
   public void removeSeat(int entityId, SeatRemovalReason reason) {
+    long start = System.nanoTime();
     UUID owner = seatByEntityId.remove(entityId);
     if (owner == null) {
       return;
     }
     SeatSession session = seats.remove(owner);
     if (session != null) {
+      unlink(session);
       session.seat().discard();
       session.player().stopRiding();
       LOGGER.debug("(minemotes) seat entity {} removed ({})", entityId, reason);
+      discarded(session, reason);
+      perf.record(PerfMonitor.Stage.REMOVE_SEAT, start);
     }
   }
 
+  /** Entries in the seat entity id index; equal to the open seats unless the two drifted apart. */
+  int indexedSeats() {
+    return seatByEntityId.size();
+  }
+
   public void cleanupOrphans() {
     for (SeatSession session : seats.values()) {
       if (session.seat().isRemoved()) {
@@ -136,14 +450,59 @@ public final class SeatManager {
     }
   }
 
-  public void discardAll() {
+  /** {@link #cleanupOrphans()} for the seats spawned in {@code world} only. */
+  public void cleanupOrphans(String world) {
+    for (SeatSession session : sessions(world)) {
+      if (session.seat().isRemoved()) {
+        removeSeat(session.seat().id(), SeatRemovalReason.ORPHANED);
+      }
+    }
+  }
+
+  public void discardAll(SeatRemovalReason reason) {
     Collection<SeatSession> copy = seats.values();
     for (SeatSession session : copy) {
       session.seat().discard();
       session.player().stopRiding();
+      discarded(session, reason);
     }
+    dropSuspended(reason);
     seats.clear();
     seatByEntityId.clear();
+    shards.clear();
+    occupancy.clear();
+  }
+
+  /** Drops {@code session} from its world's shard and the block index. */
+  private void unlink(SeatSession session) {
+    if (session.block() != SeatOccupancy.NONE) {
+      occupancy.release(session.world(), session.block(), session);
+    }
+    Shard shard = shards.get(session.world());
+    if (shard != null) {
+      shard.remove(session);
+    }
+  }
+
+  private void discarded(SeatSession session, SeatRemovalReason reason) {
+    discarded(session.player().worldKey(), session.playerId(), session.type(), reason);
+  }
+
+  private void discarded(
+      String world, UUID playerId, EmoteType type, SeatRemovalReason reason) {
+    SeatDiscardEvent event = new SeatDiscardEvent();
+    if (event.isEnabled()) {
+      event.world = world;
+      event.emote = type.id();
+      event.reason = reason.name().toLowerCase(Locale.ROOT);
+      event.commit();
+    }
+    removalListener.seatRemoved(playerId, type, reason);
+  }
+
+  /** Packs chunk coordinates the same way as {@code ChunkPos.toLong}. */
+  static long chunk(int chunkX, int chunkZ) {
+    return (chunkX & 0xFFFFFFFFL) | ((chunkZ & 0xFFFFFFFFL) << 32);
   }
 
   public enum SeatRemovalReason {
@@ -157,9 +516,75 @@ public final class SeatManager {
     DISABLED,
     REPLACED,
     ORPHANED,
+    BLOCK_BROKEN,
+    CHUNK_UNLOADED,
+    WORLD_UNLOADED,
     UNKNOWN
   }
 
+  /** The seats spawned in one world, by owner and by the chunk they were spawned in. */
+  private static final class Shard {
+    private final Map<UUID, SeatSession> seats = new ConcurrentHashMap<>();
+    // Only touched by the thread that ticks the world.
+    private final Map<Long, List<SeatSession>> byChunk = new HashMap<>();
+
+    void add(SeatSession session) {
+      seats.put(session.playerId(), session);
+      byChunk.computeIfAbsent(session.chunk(), key -> new ArrayList<>(2)).add(session);
+    }
+
+    void remove(SeatSession session) {
+      seats.remove(session.playerId(), session);
+      List<SeatSession> here = byChunk.get(session.chunk());
+      if (here != null && here.remove(session) && here.isEmpty()) {
+        byChunk.remove(session.chunk());
+      }
+    }
+  }
+
+  /**
+   * Where a seat goes relative to its emote's configured offset, e.g. on a targeted stair, and the
+   * packed position of the block it rests on, or {@link SeatOccupancy#NONE}.
+   */
+  record Placement(double offsetX, double offsetY, double offsetZ, float yaw, long block) {
+    Placement(double offsetX, double offsetY, double offsetZ, float yaw) {
+      this(offsetX, offsetY, offsetZ, yaw, SeatOccupancy.NONE);
+    }
+  }
+
+  /** What is left of a session while its chunk is unloaded; the owner is the map key. */
+  private record SuspendedSeat(
+      String world,
+      long chunk,
+      int emote,
+      EmoteType type,
+      long block,
+      float yaw,
+      double offsetX,
+      double offsetY,
+      double offsetZ,
+      float targetPitch,
+      double x,
+      double y,
+      double z) {
+    SuspendedSeat(SeatSession session) {
+      this(
+          session.world,
+          session.chunk,
+          session.emote,
+          session.type,
+          session.block,
+          session.yaw,
+          session.offsetX,
+          session.offsetY,
+          session.offsetZ,
+          session.targetPitch,
+          session.lastX,
+          session.lastY,
+          session.lastZ);
+    }
+  }
+
   public record SeatResult(boolean success, String error, SeatSession session) {
     public static SeatResult success(SeatSession session) {
       return new SeatResult(true, null, session);
@@ -174,36 +599,70 @@ public final class SeatManager {
     private final UUID playerId;
     private final PlayerAdapter player;
     private final EmoteType type;
+    private int emote;
     private final Seat seat;
-    private final Vec3d offset;
-    private final float targetPitch;
-    private Vec3d lastPlayerPos;
+    private final String world;
+    private final long block;
+    private final long chunk;
+    private final float yaw;
+    private double offsetX;
+    private double offsetY;
+    private double offsetZ;
+    private float targetPitch;
+    private double lastX;
+    private double lastY;
+    private double lastZ;
 
     SeatSession(
         UUID playerId,
         PlayerAdapter player,
+        int emote,
         EmoteType type,
         Seat seat,
-        Vec3d offset,
+        String world,
+        long block,
+        float yaw,
+        double offsetX,
+        double offsetY,
+        double offsetZ,
         float targetPitch,
-        Vec3d lastPlayerPos) {
+        double lastX,
+        double lastY,
+        double lastZ) {
       this.playerId = playerId;
       this.player = player;
+      this.emote = emote;
       this.type = type;
       this.seat = seat;
-      this.offset = offset;
+      this.world = world;
+      this.block = block;
+      this.chunk =
+          SeatManager.chunk(
+              (int) Math.floor(lastX + offsetX) >> 4, (int) Math.floor(lastZ + offsetZ) >> 4);
+      this.yaw = yaw;
+      this.offsetX = offsetX;
+      this.offsetY = offsetY;
+      this.offsetZ = offsetZ;
       this.targetPitch = targetPitch;
-      this.lastPlayerPos = lastPlayerPos;
+      this.lastX = lastX;
+      this.lastY = lastY;
+      this.lastZ = lastZ;
     }
 
     public UUID playerId() {
       return playerId;
     }
 
-    public PlayerAdapter player() {
+    PlayerAdapter player() {
       return player;
     }
 
+    /** Id of the emote in the current config's {@link EmoteRegistry}. */
+    public int emote() {
+      return emote;
+    }
+
+    /** The pose this seat uses; custom emotes are logged and counted under it. */
     public EmoteType type() {
       return type;
     }
@@ -212,107 +671,90 @@ public final class SeatManager {
       return seat;
     }
 
-    public Vec3d offset() {
-      return offset;
+    /** World the seat was spawned in. */
+    public String world() {
+      return world;
     }
 
-    public float targetPitch() {
-      return targetPitch;
+    /** Packed position of the block the seat rests on, or {@link SeatOccupancy#NONE}. */
+    long block() {
+      return block;
     }
 
-    public Vec3d lastPlayerPos() {
-      return lastPlayerPos;
+    /** Packed position of the chunk the seat was spawned in. */
+    long chunk() {
+      return chunk;
     }
 
-    public void updateLastPos(Vec3d pos) {
-      this.lastPlayerPos = pos;
+    /** Yaw the seat was spawned facing. */
+    public float yaw() {
+      return yaw;
     }
-  }
-
-  interface SeatFactory {
-    Seat create(PlayerAdapter player, Vec3d position, float yaw);
-  }
 
-  interface Seat {
-    boolean spawn();
-
-    boolean startRiding(PlayerAdapter player);
-
-    void discard();
-
-    boolean isRemoved();
-
-    int id();
-
-    void reposition(Vec3d pos, float yaw);
-  }
-
-  private static final class ArmorStandSeatFactory implements SeatFactory {
-    @Override
-    public Seat create(PlayerAdapter player, Vec3d position, float yaw) {
-      ServerWorld world = player.world();
-      ArmorStandEntity stand = new ArmorStandEntity(world, position.x, position.y, position.z);
-      stand.setInvisible(true);
-      stand.setNoGravity(true);
-      stand.setSilent(true);
-      stand.setInvulnerable(true);
-      stand.refreshPositionAndAngles(position.x, position.y, position.z, yaw, 0.0f);
-      applySeatFlags(stand);
-      return new ArmorStandSeat(world, stand);
+    /** Seat position relative to the rider. */
+    public double offsetX() {
+      return offsetX;
     }
-  }
 
-  private static final class ArmorStandSeat implements Seat {
-    private final ServerWorld world;
-    private final ArmorStandEntity stand;
-
-    ArmorStandSeat(ServerWorld world, ArmorStandEntity stand) {
-      this.world = world;
-      this.stand = stand;
+    public double offsetY() {
+      return offsetY;
     }
 
-    @Override
-    public boolean spawn() {
-      return world.spawnEntity(stand);
+    public double offsetZ() {
+      return offsetZ;
     }
 
-    @Override
-    public boolean startRiding(PlayerAdapter player) {
-      return player.startRiding(stand, true);
+    public float targetPitch() {
+      return targetPitch;
     }
 
-    @Override
-    public void discard() {
-      stand.remove(RemovalReason.DISCARDED);
+    /** Squared distance from where the rider was when last ticked. */
+    public double squaredDistanceMoved(double x, double y, double z) {
+      double dx = x - lastX;
+      double dy = y - lastY;
+      double dz = z - lastZ;
+      return dx * dx + dy * dy + dz * dz;
     }
 
-    @Override
-    public boolean isRemoved() {
-      return !stand.isAlive() || stand.isRemoved();
+    public void updateLastPos(double x, double y, double z) {
+      this.lastX = x;
+      this.lastY = y;
+      this.lastZ = z;
     }
 
-    @Override
-    public int id() {
-      return stand.getId();
+    /** Points the session at the emote's id in a newly applied registry. */
+    public void rebind(int emote) {
+      this.emote = emote;
     }
 
-    @Override
-    public void reposition(Vec3d pos, float yaw) {
-      stand.refreshPositionAndAngles(pos.x, pos.y, pos.z, yaw, stand.getPitch());
+    /** Moves the seat relative to its rider from the next tick on, e.g. after a config reload. */
+    public void retarget(double offsetX, double offsetY, double offsetZ, float targetPitch) {
+      this.offsetX = offsetX;
+      this.offsetY = offsetY;
+      this.offsetZ = offsetZ;
+      this.targetPitch = targetPitch;
     }
   }
 
-  private static void applySeatFlags(ArmorStandEntity stand) {
-    invokeBoolean(stand, "setMarker", true);
-    invokeBoolean(stand, "setSmall", true);
+  public interface RemovalListener {
+    void seatRemoved(UUID playerId, EmoteType type, SeatRemovalReason reason);
   }
 
-  private static void invokeBoolean(ArmorStandEntity stand, String methodName, boolean value) {
-    try {
-      Method method = ArmorStandEntity.class.getDeclaredMethod(methodName, boolean.class);
-      method.setAccessible(true);
-      method.invoke(stand, value);
-    } catch (ReflectiveOperationException ignored) {
-    }
+  interface SeatFactory {
+    Seat create(PlayerAdapter player, double x, double y, double z, float yaw);
+  }
+
+  interface Seat {
+    boolean spawn();
+
+    boolean startRiding(PlayerAdapter player);
+
+    void discard();
+
+    boolean isRemoved();
+
+    int id();
+
+    void reposition(double x, double y, double z, float yaw);
   }
 }
@@ -0,0 +1,191 @@
+package dev.minemotes.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which seat rests on which block, per world. Blocks are keyed by their position packed into a
+ * long the same way as {@code BlockPos.asLong}, in an open-addressed table per world, so checking
+ * whether a chair is taken costs one hash probe and allocates nothing. Only seats anchored to a
+ * block, i.e. /chair seats, are indexed. Only touched on the server thread.
+ */
+final class SeatOccupancy {
+  /** Packed position for seats that do not rest on a particular block; outside any world border. */
+  static final long NONE = Long.MIN_VALUE;
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int X_BITS = 26;
+  private static final int Z_BITS = 26;
+  private static final int Y_BITS = 12;
+  private static final long X_MASK = (1L << X_BITS) - 1L;
+  private static final long Y_MASK = (1L << Y_BITS) - 1L;
+  private static final long Z_MASK = (1L << Z_BITS) - 1L;
+  private static final int X_SHIFT = Y_BITS + Z_BITS;
+  private static final int Z_SHIFT = Y_BITS;
+  private static final int[][] HORIZONTAL = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+  private final Map<String, Table> worlds = new HashMap<>();
+  private int size;
+
+  static long pack(int x, int y, int z) {
+    return ((x & X_MASK) << X_SHIFT) | ((z & Z_MASK) << Z_SHIFT) | (y & Y_MASK);
+  }
+
+  static int unpackX(long packed) {
+    return (int) (packed << (64 - X_SHIFT - X_BITS) >> (64 - X_BITS));
+  }
+
+  static int unpackY(long packed) {
+    return (int) (packed << (64 - Y_BITS) >> (64 - Y_BITS));
+  }
+
+  static int unpackZ(long packed) {
+    return (int) (packed << (64 - Z_SHIFT - Z_BITS) >> (64 - Z_BITS));
+  }
+
+  /** The seat on {@code block} in {@code world}, or {@code null} if it is free. */
+  SeatManager.SeatSession occupant(String world, long block) {
+    Table table = worlds.get(world);
+    return table == null ? null : table.get(block);
+  }
+
+  /** Records {@code session} as sitting on {@code block}; the block must be free. */
+  void claim(String world, long block, SeatManager.SeatSession session) {
+    if (worlds.computeIfAbsent(world, key -> new Table()).put(block, session)) {
+      size++;
+    }
+  }
+
+  /** Frees {@code block} if {@code session} is the one sitting on it. */
+  void release(String world, long block, SeatManager.SeatSession session) {
+    Table table = worlds.get(world);
+    if (table != null && table.remove(block, session)) {
+      size--;
+      if (table.size == 0) {
+        worlds.remove(world);
+      }
+    }
+  }
+
+  /** Seats on the four blocks beside {@code block} at the same height, e.g. along a bench. */
+  List<SeatManager.SeatSession> neighbours(String world, long block) {
+    Table table = worlds.get(world);
+    if (table == null) {
+      return List.of();
+    }
+    int x = unpackX(block);
+    int y = unpackY(block);
+    int z = unpackZ(block);
+    List<SeatManager.SeatSession> found = new ArrayList<>(4);
+    for (int[] offset : HORIZONTAL) {
+      SeatManager.SeatSession session = table.get(pack(x + offset[0], y, z + offset[1]));
+      if (session != null) {
+        found.add(session);
+      }
+    }
+    return found;
+  }
+
+  /** Occupied blocks across all worlds. */
+  int size() {
+    return size;
+  }
+
+  void clear() {
+    worlds.clear();
+    size = 0;
+  }
+
+  /** Forgets every seat in {@code world}, e.g. because it unloaded. */
+  void clear(String world) {
+    Table table = worlds.remove(world);
+    if (table != null) {
+      size -= table.size;
+    }
+  }
+
+  /** Linear probing with backward-shift deletion, so lookups never wade through tombstones. */
+  private static final class Table {
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private SeatManager.SeatSession[] values = new SeatManager.SeatSession[INITIAL_CAPACITY];
+    private int size;
+
+    SeatManager.SeatSession get(long key) {
+      int mask = keys.length - 1;
+      for (int slot = hash(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+        if (keys[slot] == key) {
+          return values[slot];
+        }
+      }
+      return null;
+    }
+
+    /** Returns whether {@code key} was new. */
+    boolean put(long key, SeatManager.SeatSession value) {
+      int mask = keys.length - 1;
+      int slot = hash(key) & mask;
+      while (values[slot] != null) {
+        if (keys[slot] == key) {
+          values[slot] = value;
+          return false;
+        }
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = key;
+      values[slot] = value;
+      if (++size * 4 > keys.length * 3) {
+        grow();
+      }
+      return true;
+    }
+
+    boolean remove(long key, SeatManager.SeatSession value) {
+      int mask = keys.length - 1;
+      int slot = hash(key) & mask;
+      while (values[slot] != null && keys[slot] != key) {
+        slot = (slot + 1) & mask;
+      }
+      if (values[slot] != value) {
+        return false;
+      }
+      values[slot] = null;
+      size--;
+      // Pull later entries of the probe run back into the hole.
+      for (int next = (slot + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+        int home = hash(keys[next]) & mask;
+        if (((next - home) & mask) >= ((next - slot) & mask)) {
+          keys[slot] = keys[next];
+          values[slot] = values[next];
+          values[next] = null;
+          slot = next;
+        }
+      }
+      return true;
+    }
+
+    private void grow() {
+      long[] oldKeys = keys;
+      SeatManager.SeatSession[] oldValues = values;
+      keys = new long[oldKeys.length * 2];
+      values = new SeatManager.SeatSession[oldKeys.length * 2];
+      int mask = keys.length - 1;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldValues[i] != null) {
+          int slot = hash(oldKeys[i]) & mask;
+          while (values[slot] != null) {
+            slot = (slot + 1) & mask;
+          }
+          keys[slot] = oldKeys[i];
+          values[slot] = oldValues[i];
+        }
+      }
+    }
+
+    private static int hash(long key) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32));
+    }
+  }
+}
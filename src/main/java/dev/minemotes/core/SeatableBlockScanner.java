@@ -0,0 +1,79 @@
+package dev.minemotes.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.SlabBlock;
+import net.minecraft.block.StairsBlock;
+import net.minecraft.block.enums.BlockHalf;
+import net.minecraft.block.enums.SlabType;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.shape.VoxelShape;
+import net.minecraft.world.EmptyBlockView;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Builds {@link SeatableBlocks} from every registered block state: stairs face down their steps,
+ * bottom slabs seat at half height, and blocks in the configured tags seat on top of their
+ * collision shape. Tags are only bound once the server has loaded its data packs.
+ */
+final class SeatableBlockScanner {
+  private static final Logger LOGGER = LogManager.getLogger("minemotes");
+
+  private SeatableBlockScanner() {}
+
+  static SeatableBlocks scan(List<String> tagIds) {
+    List<TagKey<Block>> tags = new ArrayList<>(tagIds.size());
+    for (String id : tagIds) {
+      Identifier parsed = Identifier.tryParse(id);
+      if (parsed == null) {
+        LOGGER.warn("(minemotes) ignoring chair block tag {}: not an identifier", id);
+        continue;
+      }
+      tags.add(TagKey.of(RegistryKeys.BLOCK, parsed));
+    }
+    SeatableBlocks table = new SeatableBlocks(Block.STATE_IDS.size());
+    for (BlockState state : Block.STATE_IDS) {
+      int id = Block.getRawIdFromState(state);
+      if (state.getBlock() instanceof StairsBlock) {
+        float height = state.get(StairsBlock.HALF) == BlockHalf.TOP ? 1.0f : 0.5f;
+        table.set(id, height, yawFor(state.get(StairsBlock.FACING)));
+      } else if (state.getBlock() instanceof SlabBlock
+          && state.get(SlabBlock.TYPE) == SlabType.BOTTOM) {
+        table.set(id, 0.5f, Float.NaN);
+      } else if (inAny(state, tags)) {
+        VoxelShape shape = state.getCollisionShape(EmptyBlockView.INSTANCE, BlockPos.ORIGIN);
+        float height = shape.isEmpty() ? 0.0f : (float) shape.getMax(Direction.Axis.Y);
+        table.set(id, height, Float.NaN);
+      }
+    }
+    LOGGER.info(
+        "(minemotes) {} of {} block states are seatable", table.count(), Block.STATE_IDS.size());
+    return table;
+  }
+
+  private static boolean inAny(BlockState state, List<TagKey<Block>> tags) {
+    for (TagKey<Block> tag : tags) {
+      if (state.isIn(tag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static float yawFor(Direction direction) {
+    return switch (direction) {
+      case NORTH -> 180.0f;
+      case SOUTH -> 0.0f;
+      case WEST -> 90.0f;
+      case EAST -> 270.0f;
+      default -> 0.0f;
+    };
+  }
+}
@@ -0,0 +1,51 @@
+package dev.minemotes.core;
+
+import java.util.Arrays;
+
+/**
+ * Which block states /chair can seat a player on, indexed by raw block state id. Each seatable
+ * state stores how far above the block's base the seat surface is and the yaw the seat faces, or
+ * {@code NaN} for blocks with no facing, where the rider keeps looking the way they were. Built
+ * once per server start or tag reload by {@link SeatableBlockScanner} and never modified after.
+ */
+final class SeatableBlocks {
+  static final SeatableBlocks EMPTY = new SeatableBlocks(0);
+
+  private final float[] heights;
+  private final float[] yaws;
+  private int count;
+
+  SeatableBlocks(int states) {
+    heights = new float[states];
+    yaws = new float[states];
+    Arrays.fill(heights, Float.NaN);
+  }
+
+  /** Marks {@code stateId} seatable; only called while the table is being built. */
+  void set(int stateId, float height, float yaw) {
+    if (Float.isNaN(heights[stateId])) {
+      count++;
+    }
+    heights[stateId] = height;
+    yaws[stateId] = yaw;
+  }
+
+  boolean seatable(int stateId) {
+    return stateId >= 0 && stateId < heights.length && !Float.isNaN(heights[stateId]);
+  }
+
+  /** Height of the seat surface above the block's base; only meaningful if {@link #seatable}. */
+  float height(int stateId) {
+    return heights[stateId];
+  }
+
+  /** Yaw of a seat on the block, or {@code NaN} to keep the rider's. */
+  float yaw(int stateId) {
+    return yaws[stateId];
+  }
+
+  /** Number of seatable states. */
+  int count() {
+    return count;
+  }
+}
@@ -0,0 +1,83 @@
+package dev.minemotes.ledger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer/multi-consumer queue (Vyukov array queue). Each slot carries a
+ * sequence number that tells producers and consumers whether it is free for the current lap, so
+ * {@link #offer} and {@link #poll} only ever CAS a single cursor.
+ */
+final class BoundedMpmcQueue<E> {
+  private final int capacity;
+  private final int mask;
+  private final AtomicReferenceArray<E> buffer;
+  private final AtomicLongArray sequences;
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong head = new AtomicLong();
+
+  BoundedMpmcQueue(int requestedCapacity) {
+    int size = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+    this.capacity = size;
+    this.mask = size - 1;
+    this.buffer = new AtomicReferenceArray<>(size);
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  int capacity() {
+    return capacity;
+  }
+
+  /** Returns {@code false} without blocking when the queue is full. */
+  boolean offer(E element) {
+    long pos = tail.get();
+    while (true) {
+      int index = (int) (pos & mask);
+      long diff = sequences.get(index) - pos;
+      if (diff == 0) {
+        if (tail.compareAndSet(pos, pos + 1)) {
+          buffer.set(index, element);
+          sequences.set(index, pos + 1);
+          return true;
+        }
+        pos = tail.get();
+      } else if (diff < 0) {
+        return false;
+      } else {
+        pos = tail.get();
+      }
+    }
+  }
+
+  /** Returns {@code null} without blocking when the queue is empty. */
+  E poll() {
+    long pos = head.get();
+    while (true) {
+      int index = (int) (pos & mask);
+      long diff = sequences.get(index) - (pos + 1);
+      if (diff == 0) {
+        if (head.compareAndSet(pos, pos + 1)) {
+          E element = buffer.get(index);
+          buffer.set(index, null);
+          sequences.set(index, pos + capacity);
+          return element;
+        }
+        pos = head.get();
+      } else if (diff < 0) {
+        return null;
+      } else {
+        pos = head.get();
+      }
+    }
+  }
+
+  /** Approximate number of queued elements; exact when no producer or consumer is active. */
+  int size() {
+    long size = tail.get() - head.get();
+    return (int) Math.max(0L, Math.min(capacity, size));
+  }
+}
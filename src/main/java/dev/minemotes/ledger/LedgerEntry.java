@@ -0,0 +1,33 @@
+package dev.minemotes.ledger;
+
+import dev.minemotes.core.EmoteType;
+import java.util.UUID;
+
+/**
+ * One ledger row waiting to be written to the MinCore ledger. For {@link Action#STOP} {@code
+ * detail} is the removal reason id, for {@link Action#ROLLUP} it is the complete JSON payload and
+ * {@code playerId} is {@code null}.
+ */
+public record LedgerEntry(
+    long timestampMillis, UUID playerId, EmoteType type, Action action, String detail) {
+
+  public LedgerEntry(long timestampMillis, UUID playerId, EmoteType type, Action action) {
+    this(timestampMillis, playerId, type, action, null);
+  }
+
+  public enum Action {
+    START("start"),
+    STOP("stop"),
+    ROLLUP("rollup");
+
+    private final String id;
+
+    Action(String id) {
+      this.id = id;
+    }
+
+    public String id() {
+      return id;
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package dev.minemotes.ledger;
+
+import dev.minemotes.core.EmoteType;
+import dev.minemotes.stats.SessionRollup;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Encodes ledger {@code reason} strings and JSON payloads. Everything that does not vary per event
+ * is escaped once up front; per-event work is a handful of appends into a reused buffer, so an
+ * encoder must only be used by one thread at a time.
+ */
+final class LedgerPayloadEncoder {
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  private static final String PLAYER_PREFIX = "{\"player\":\"";
+  private static final char LINE_SEPARATOR = (char) 0x2028;
+  private static final char PARAGRAPH_SEPARATOR = (char) 0x2029;
+
+  private final String[] reasons;
+  private final String[] rollupReasons;
+  private final String[] stateFields;
+  private final StringBuilder buffer = new StringBuilder(96);
+
+  LedgerPayloadEncoder() {
+    EmoteType[] types = EmoteType.values();
+    this.reasons = new String[types.length];
+    this.rollupReasons = new String[types.length];
+    for (EmoteType type : types) {
+      reasons[type.ordinal()] = "emote:" + type.id();
+      rollupReasons[type.ordinal()] = "emote-rollup:" + type.id();
+    }
+    LedgerEntry.Action[] actions = LedgerEntry.Action.values();
+    this.stateFields = new String[actions.length];
+    for (LedgerEntry.Action action : actions) {
+      StringBuilder field = new StringBuilder("\",\"state\":\"");
+      appendEscaped(field, action.id());
+      stateFields[action.ordinal()] = field.append("\",\"ts\":").toString();
+    }
+  }
+
+  String reason(EmoteType type) {
+    return reasons[type.ordinal()];
+  }
+
+  String reason(LedgerEntry entry) {
+    String[] table = entry.action() == LedgerEntry.Action.ROLLUP ? rollupReasons : reasons;
+    return table[entry.type().ordinal()];
+  }
+
+  /**
+   * Returns {@code {"player":"<uuid>","state":"<action>","ts":<millis>}}, with a trailing {@code
+   * "reason"} field when the entry carries one. Rollup entries already hold their payload.
+   */
+  String payload(LedgerEntry entry) {
+    if (entry.action() == LedgerEntry.Action.ROLLUP) {
+      return entry.detail();
+    }
+    StringBuilder out = buffer;
+    out.setLength(0);
+    out.append(PLAYER_PREFIX);
+    appendUuid(out, entry.playerId());
+    out.append(stateFields[entry.action().ordinal()]);
+    out.append(entry.timestampMillis());
+    if (entry.detail() != null) {
+      out.append(",\"reason\":\"");
+      appendEscaped(out, entry.detail());
+      out.append('"');
+    }
+    out.append('}');
+    return out.toString();
+  }
+
+  /**
+   * Builds the payload of one rollup row: the window, start/stop counts, duration percentiles in
+   * milliseconds and the most common removal reasons.
+   */
+  static String rollupPayload(SessionRollup rollup, SessionRollup.TypeStats stats) {
+    StringBuilder out = new StringBuilder(192);
+    out.append("{\"type\":\"");
+    appendEscaped(out, stats.type().id());
+    out.append("\",\"from\":").append(rollup.windowStartMillis());
+    out.append(",\"to\":").append(rollup.windowEndMillis());
+    out.append(",\"started\":").append(stats.started());
+    out.append(",\"ended\":").append(stats.ended());
+    out.append(",\"p50Ms\":").append(stats.p50Millis());
+    out.append(",\"p90Ms\":").append(stats.p90Millis());
+    out.append(",\"p99Ms\":").append(stats.p99Millis());
+    out.append(",\"maxMs\":").append(stats.maxMillis());
+    out.append(",\"reasons\":{");
+    boolean first = true;
+    for (SessionRollup.ReasonCount reason : stats.topReasons()) {
+      if (!first) {
+        out.append(',');
+      }
+      first = false;
+      out.append('"');
+      appendEscaped(out, reasonId(reason.reason()));
+      out.append("\":").append(reason.count());
+    }
+    return out.append("}}").toString();
+  }
+
+  static String reasonId(Enum<?> reason) {
+    return reason.name().toLowerCase(Locale.ROOT);
+  }
+
+  /** Appends {@code value} as the body of a JSON string literal. */
+  static void appendEscaped(StringBuilder out, CharSequence value) {
+    for (int i = 0, n = value.length(); i < n; i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"' -> out.append("\\\"");
+        case '\\' -> out.append("\\\\");
+        case '\n' -> out.append("\\n");
+        case '\r' -> out.append("\\r");
+        case '\t' -> out.append("\\t");
+        case '\b' -> out.append("\\b");
+        case '\f' -> out.append("\\f");
+        default -> {
+          if (c < 0x20 || c == LINE_SEPARATOR || c == PARAGRAPH_SEPARATOR) {
+            out.append("\\u");
+            appendHex(out, c, 4);
+          } else {
+            out.append(c);
+          }
+        }
+      }
+    }
+  }
+
+  /** Appends the canonical {@link UUID#toString()} form without allocating. */
+  static void appendUuid(StringBuilder out, UUID id) {
+    long msb = id.getMostSignificantBits();
+    long lsb = id.getLeastSignificantBits();
+    appendHex(out, msb >>> 32, 8);
+    out.append('-');
+    appendHex(out, msb >>> 16, 4);
+    out.append('-');
+    appendHex(out, msb, 4);
+    out.append('-');
+    appendHex(out, lsb >>> 48, 4);
+    out.append('-');
+    appendHex(out, lsb, 12);
+  }
+
+  private static void appendHex(StringBuilder out, long value, int digits) {
+    for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+      out.append(HEX[(int) ((value >>> shift) & 0xF)]);
+    }
+  }
+}
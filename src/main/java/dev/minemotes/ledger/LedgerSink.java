@@ -0,0 +1,24 @@
+package dev.minemotes.ledger;
+
+import java.util.List;
+
+/** Destination for batches drained by {@link LedgerWriter}. */
+interface LedgerSink extends AutoCloseable {
+  /**
+   * Writes a batch of entries and returns how many were accepted, counting from the front of the
+   * batch. Called from one thread at a time; the list is reused after the call returns and must
+   * not be retained.
+   */
+  int write(List<LedgerEntry> batch);
+
+  /** Called by the drainer on every flush interval, including when nothing was queued. */
+  default void poll() {}
+
+  /** Entries accepted by this sink that have not reached their final destination yet. */
+  default long backlog() {
+    return 0L;
+  }
+
+  @Override
+  default void close() {}
+}
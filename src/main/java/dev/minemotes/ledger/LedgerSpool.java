@@ -0,0 +1,377 @@
+package dev.minemotes.ledger;
+
+import dev.minemotes.core.EmoteType;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Append-only, memory-mapped spool of ledger entries. Entries are stored as records in segment
+ * files that roll once full; each segment header tracks how many of its records have been replayed
+ * into MinCore. Not thread-safe: {@link LedgerWriter} drives it under its drain lock.
+ *
+ * <p>Segment layout: a 32-byte header ({@code int magic, short version, short recordBytes, long
+ * replayed}) followed by records of {@code long timestampMillis, long uuidMsb, long uuidLsb, short
+ * emote, byte action, byte flags, unsigned short detailLength, 1 reserved byte, byte marker}, then
+ * {@code detailLength} UTF-8 bytes padded to a multiple of 8. The marker is written last so a torn
+ * record reads as the end of the segment.
+ *
+ * <p>A mapping cannot be released before it is garbage collected, and some platforms refuse to
+ * delete a mapped file, so retired segments are first marked fully replayed. A segment whose
+ * deletion failed is then reopened on the next start as audit history and never replayed again.
+ */
+final class LedgerSpool implements AutoCloseable {
+  private static final Logger LOGGER = LogManager.getLogger("minemotes");
+  static final int HEADER_BYTES = 32;
+  static final int RECORD_BYTES = 32;
+  private static final int MAGIC = 0x4D455350;
+  private static final short VERSION = 2;
+  private static final int REPLAYED_OFFSET = 8;
+  private static final int FLAGS_OFFSET = 27;
+  private static final int DETAIL_LENGTH_OFFSET = 28;
+  private static final int MARKER_OFFSET = 31;
+  private static final byte NO_PLAYER = 0x01;
+  private static final int MAX_DETAIL_BYTES = 0xFFFF;
+  private static final byte COMMITTED = 0x5A;
+  private static final String PREFIX = "ledger-";
+  private static final String SUFFIX = ".seg";
+
+  private final Path directory;
+  private final int segmentBytes;
+  private final int maxSegments;
+  private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+  private long nextSequence;
+  private long discarded;
+
+  LedgerSpool(Path directory, int segmentBytes, int maxSegments) throws IOException {
+    this.directory = directory;
+    this.segmentBytes = Math.max(HEADER_BYTES + RECORD_BYTES, segmentBytes);
+    this.maxSegments = Math.max(1, maxSegments);
+    Files.createDirectories(directory);
+    openExisting();
+  }
+
+  /** Appends the batch and returns how many entries were stored before any failure. */
+  int append(List<LedgerEntry> batch) throws IOException {
+    for (int i = 0, n = batch.size(); i < n; i++) {
+      LedgerEntry entry = batch.get(i);
+      byte[] detail =
+          entry.detail() == null ? null : entry.detail().getBytes(StandardCharsets.UTF_8);
+      Segment tail;
+      try {
+        tail = writableSegment(recordBytes(detail));
+      } catch (IOException e) {
+        if (i == 0) {
+          throw e;
+        }
+        LOGGER.warn("(minemotes) ledger spool roll failed", e);
+        return i;
+      }
+      tail.append(entry, detail);
+    }
+    return batch.size();
+  }
+
+  /**
+   * Decodes up to {@code max} records that have not been replayed yet, oldest first, from a single
+   * segment. Pass the number actually delivered to {@link #markReplayed}.
+   */
+  int readPending(int max, List<LedgerEntry> out) {
+    for (Segment segment : segments) {
+      int pending = segment.pending();
+      if (pending == 0) {
+        continue;
+      }
+      int count = Math.min(max, pending);
+      int position = segment.replayPosition;
+      for (int i = 0; i < count; i++) {
+        out.add(segment.read(position));
+        position = segment.next(position);
+      }
+      return count;
+    }
+    return 0;
+  }
+
+  /** Advances the replay cursor of the segment last returned by {@link #readPending}. */
+  void markReplayed(int count) {
+    if (count <= 0) {
+      return;
+    }
+    for (Segment segment : segments) {
+      if (segment.pending() > 0) {
+        segment.advance(Math.min(count, segment.pending()));
+        return;
+      }
+    }
+  }
+
+  long pending() {
+    long total = 0L;
+    for (Segment segment : segments) {
+      total += segment.pending();
+    }
+    return total;
+  }
+
+  /** Records dropped by retention before they could be replayed. */
+  long discarded() {
+    return discarded;
+  }
+
+  int segmentCount() {
+    return segments.size();
+  }
+
+  @Override
+  public void close() {
+    Segment tail = segments.peekLast();
+    if (tail != null) {
+      tail.buffer.force();
+    }
+  }
+
+  private Segment writableSegment(int recordBytes) throws IOException {
+    if (recordBytes > segmentBytes - HEADER_BYTES) {
+      throw new IOException("Ledger entry of " + recordBytes + " bytes exceeds the segment size");
+    }
+    Segment tail = segments.peekLast();
+    if (tail != null && tail.remaining() >= recordBytes) {
+      return tail;
+    }
+    if (tail != null) {
+      tail.buffer.force();
+    }
+    Segment created = Segment.create(directory.resolve(fileName(nextSequence++)), segmentBytes);
+    segments.addLast(created);
+    enforceRetention();
+    return created;
+  }
+
+  private void enforceRetention() {
+    while (segments.size() > maxSegments) {
+      Segment oldest = segments.removeFirst();
+      int lost = oldest.pending();
+      if (lost > 0) {
+        discarded += lost;
+        LOGGER.warn(
+            "(minemotes) ledger spool full; discarding {} entries never replayed to MinCore", lost);
+      }
+      discard(oldest);
+    }
+  }
+
+  /** Retires a segment dropped from the deque and deletes its file if the platform allows. */
+  private static void discard(Segment segment) {
+    segment.retire();
+    try {
+      Files.deleteIfExists(segment.path);
+    } catch (IOException e) {
+      LOGGER.warn("(minemotes) failed to delete ledger spool segment {}", segment.path, e);
+    }
+  }
+
+  private void openExisting() throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+      for (Path file : stream) {
+        files.add(file);
+      }
+    }
+    files.sort(null);
+    for (Path file : files) {
+      long sequence = sequenceOf(file);
+      if (sequence < 0) {
+        continue;
+      }
+      try {
+        segments.addLast(Segment.open(file));
+        nextSequence = Math.max(nextSequence, sequence + 1);
+      } catch (IOException e) {
+        LOGGER.warn("(minemotes) skipping unreadable ledger spool segment {}", file, e);
+      }
+    }
+    // Fully replayed segments other than the tail only serve as audit history.
+    Iterator<Segment> it = segments.iterator();
+    while (segments.size() > maxSegments && it.hasNext()) {
+      Segment segment = it.next();
+      if (segment.pending() == 0) {
+        it.remove();
+        discard(segment);
+      }
+    }
+    enforceRetention();
+  }
+
+  private static int recordBytes(byte[] detail) throws IOException {
+    if (detail == null) {
+      return RECORD_BYTES;
+    }
+    if (detail.length > MAX_DETAIL_BYTES) {
+      throw new IOException("Ledger entry detail of " + detail.length + " bytes is too large");
+    }
+    return RECORD_BYTES + ((detail.length + 7) & ~7);
+  }
+
+  private static String fileName(long sequence) {
+    return PREFIX + String.format("%016x", sequence) + SUFFIX;
+  }
+
+  private static long sequenceOf(Path file) {
+    String name = file.getFileName().toString();
+    String hex = name.substring(PREFIX.length(), name.length() - SUFFIX.length());
+    try {
+      return Long.parseUnsignedLong(hex, 16);
+    } catch (NumberFormatException e) {
+      return -1L;
+    }
+  }
+
+  private static final class Segment {
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private int writePosition;
+    private int written;
+    private int replayPosition;
+    private long replayed;
+
+    private Segment(Path path, MappedByteBuffer buffer, int capacity) {
+      this.path = path;
+      this.buffer = buffer;
+      this.capacity = capacity;
+      this.writePosition = HEADER_BYTES;
+      this.replayPosition = HEADER_BYTES;
+    }
+
+    static Segment create(Path path, int segmentBytes) throws IOException {
+      try (FileChannel channel =
+          FileChannel.open(
+              path,
+              StandardOpenOption.CREATE_NEW,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE)) {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, VERSION);
+        buffer.putShort(6, (short) RECORD_BYTES);
+        buffer.putLong(REPLAYED_OFFSET, 0L);
+        return new Segment(path, buffer, segmentBytes);
+      }
+    }
+
+    static Segment open(Path path) throws IOException {
+      try (FileChannel channel =
+          FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        long size = channel.size();
+        if (size < HEADER_BYTES + RECORD_BYTES || size > Integer.MAX_VALUE) {
+          throw new IOException("Unexpected ledger spool segment size " + size);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (buffer.getInt(0) != MAGIC
+            || buffer.getShort(4) != VERSION
+            || buffer.getShort(6) != RECORD_BYTES) {
+          throw new IOException("Unrecognised ledger spool segment header");
+        }
+        Segment segment = new Segment(path, buffer, (int) size);
+        while (segment.remaining() >= RECORD_BYTES
+            && buffer.get(segment.writePosition + MARKER_OFFSET) == COMMITTED) {
+          int next = segment.next(segment.writePosition);
+          if (next > segment.capacity) {
+            break;
+          }
+          segment.writePosition = next;
+          segment.written++;
+        }
+        long replayed = Math.max(0L, Math.min(buffer.getLong(REPLAYED_OFFSET), segment.written));
+        for (long i = 0; i < replayed; i++) {
+          segment.replayPosition = segment.next(segment.replayPosition);
+        }
+        segment.replayed = replayed;
+        return segment;
+      }
+    }
+
+    int remaining() {
+      return capacity - writePosition;
+    }
+
+    int pending() {
+      return (int) (written - replayed);
+    }
+
+    void append(LedgerEntry entry, byte[] detail) {
+      int base = writePosition;
+      UUID playerId = entry.playerId();
+      buffer.putLong(base, entry.timestampMillis());
+      buffer.putLong(base + 8, playerId == null ? 0L : playerId.getMostSignificantBits());
+      buffer.putLong(base + 16, playerId == null ? 0L : playerId.getLeastSignificantBits());
+      buffer.putShort(base + 24, (short) entry.type().ordinal());
+      buffer.put(base + 26, (byte) entry.action().ordinal());
+      buffer.put(base + FLAGS_OFFSET, playerId == null ? NO_PLAYER : 0);
+      buffer.putShort(base + DETAIL_LENGTH_OFFSET, (short) (detail == null ? 0 : detail.length));
+      if (detail != null) {
+        buffer.put(base + RECORD_BYTES, detail);
+      }
+      buffer.put(base + MARKER_OFFSET, COMMITTED);
+      writePosition = next(base);
+      written++;
+    }
+
+    LedgerEntry read(int position) {
+      EmoteType[] types = EmoteType.values();
+      LedgerEntry.Action[] actions = LedgerEntry.Action.values();
+      int type = Math.floorMod(buffer.getShort(position + 24), types.length);
+      int action = Math.floorMod(buffer.get(position + 26), actions.length);
+      UUID playerId =
+          (buffer.get(position + FLAGS_OFFSET) & NO_PLAYER) != 0
+              ? null
+              : new UUID(buffer.getLong(position + 8), buffer.getLong(position + 16));
+      int length = detailLength(position);
+      String detail = null;
+      if (length > 0) {
+        byte[] bytes = new byte[length];
+        buffer.get(position + RECORD_BYTES, bytes);
+        detail = new String(bytes, StandardCharsets.UTF_8);
+      }
+      return new LedgerEntry(
+          buffer.getLong(position), playerId, types[type], actions[action], detail);
+    }
+
+    int next(int position) {
+      return position + RECORD_BYTES + ((detailLength(position) + 7) & ~7);
+    }
+
+    void advance(int count) {
+      for (int i = 0; i < count; i++) {
+        replayPosition = next(replayPosition);
+      }
+      replayed += count;
+      buffer.putLong(REPLAYED_OFFSET, replayed);
+    }
+
+    /** Tombstones the segment so it is never replayed, even if its file outlives the delete. */
+    void retire() {
+      replayPosition = writePosition;
+      replayed = written;
+      buffer.putLong(REPLAYED_OFFSET, replayed);
+      buffer.force();
+    }
+
+    private int detailLength(int position) {
+      return Short.toUnsignedInt(buffer.getShort(position + DETAIL_LENGTH_OFFSET));
+    }
+  }
+}
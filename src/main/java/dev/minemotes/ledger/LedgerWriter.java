@@ -0,0 +1,287 @@
+package dev.minemotes.ledger;
+
+import dev.minemotes.config.Config;
+import dev.minemotes.core.EmoteType;
+import dev.minemotes.core.SeatManager.SeatRemovalReason;
+import dev.minemotes.stats.SessionRollup;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import net.fabricmc.loader.api.FabricLoader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Queues ledger entries on the server thread and writes them in batches from a background
+ * drainer, so a slow ledger backend never stalls the tick. {@link #close()} drains everything
+ * still buffered before returning.
+ */
+public final class LedgerWriter implements AutoCloseable {
+  private static final Logger LOGGER = LogManager.getLogger("minemotes");
+  private static final long MAX_BLOCK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+  private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+  // Floor for the drainer's park, so a zero or negative flush interval cannot make it spin.
+  private static final long MIN_FLUSH_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final LedgerSink sink;
+  private final BoundedMpmcQueue<LedgerEntry> queue;
+  private final Object drainLock = new Object();
+  private final List<LedgerEntry> batch = new ArrayList<>();
+
+  private final LongAdder submitted = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final AtomicLong written = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong flushes = new AtomicLong();
+  private final AtomicLong lastFlushNanos = new AtomicLong();
+  private final AtomicLong maxFlushNanos = new AtomicLong();
+  private final AtomicLong totalFlushNanos = new AtomicLong();
+
+  private volatile Config.Ledger settings;
+  private volatile boolean running;
+  private volatile Thread drainer;
+
+  LedgerWriter(LedgerSink sink, Config.Ledger settings) {
+    this.sink = Objects.requireNonNull(sink, "sink");
+    this.settings = Objects.requireNonNull(settings, "settings");
+    this.queue = new BoundedMpmcQueue<>(settings.queueCapacity());
+  }
+
+  /** Creates a writer backed by MinCore's ledger; entries are discarded if MinCore is absent. */
+  public static LedgerWriter forMinCore(Config.Ledger settings) {
+    return new LedgerWriter(new MinCoreLedgerBridge(), settings);
+  }
+
+  /**
+   * Creates a writer that records every entry in a local spool under {@code spoolDirectory} and
+   * replays it into MinCore's ledger whenever MinCore accepts writes. Falls back to writing to
+   * MinCore directly if the spool is disabled or cannot be opened.
+   */
+  public static LedgerWriter forMinCore(Config.Ledger settings, Path spoolDirectory) {
+    MinCoreLedgerBridge bridge = new MinCoreLedgerBridge();
+    if (!settings.spoolEnabled()) {
+      return new LedgerWriter(bridge, settings);
+    }
+    try {
+      LedgerSpool spool =
+          new LedgerSpool(
+              spoolDirectory, settings.spoolSegmentKb() * 1024, settings.spoolMaxSegments());
+      return new LedgerWriter(new SpoolingLedgerSink(spool, bridge), settings);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("(minemotes) unable to open ledger spool at {}", spoolDirectory, e);
+      return new LedgerWriter(bridge, settings);
+    }
+  }
+
+  public static Path defaultSpoolDirectory() {
+    return FabricLoader.getInstance().getConfigDir().resolve("minemotes").resolve("ledger-spool");
+  }
+
+  public synchronized void start() {
+    if (drainer != null) {
+      return;
+    }
+    running = true;
+    Thread thread = new Thread(this::drainLoop, "MinEmotes-Ledger");
+    thread.setDaemon(true);
+    drainer = thread;
+    thread.start();
+  }
+
+  /** Applies reloaded settings. The queue capacity only changes on restart. */
+  public void applySettings(Config.Ledger next) {
+    Objects.requireNonNull(next, "next");
+    if (next.queueCapacity() != settings.queueCapacity()) {
+      LOGGER.info("(minemotes) ledger.queueCapacity change takes effect after a restart");
+    }
+    this.settings = next;
+  }
+
+  public void submit(UUID playerId, EmoteType type, LedgerEntry.Action action) {
+    submit(new LedgerEntry(System.currentTimeMillis(), playerId, type, action));
+  }
+
+  /** Submits a stop row that records why the session ended. */
+  public void submitStop(UUID playerId, EmoteType type, SeatRemovalReason reason) {
+    submit(
+        new LedgerEntry(
+            System.currentTimeMillis(),
+            playerId,
+            type,
+            LedgerEntry.Action.STOP,
+            LedgerPayloadEncoder.reasonId(reason)));
+  }
+
+  /** Submits one rollup row per emote type active in the window. */
+  public void submitRollup(SessionRollup rollup) {
+    for (SessionRollup.TypeStats stats : rollup.types()) {
+      submit(
+          new LedgerEntry(
+              rollup.windowEndMillis(),
+              null,
+              stats.type(),
+              LedgerEntry.Action.ROLLUP,
+              LedgerPayloadEncoder.rollupPayload(rollup, stats)));
+    }
+  }
+
+  private void submit(LedgerEntry entry) {
+    submitted.increment();
+    Config.Ledger current = settings;
+    if (queue.offer(entry)) {
+      if (queue.size() >= current.batchSize()) {
+        wakeDrainer();
+      }
+      return;
+    }
+    switch (current.overflow()) {
+      case DROP_NEWEST -> dropped.increment();
+      case DROP_OLDEST -> offerDroppingOldest(entry);
+      case BLOCK -> offerBlocking(entry, current.blockTimeout().toNanos());
+    }
+  }
+
+  /** Writes everything queued so far on the calling thread. */
+  public void flush() {
+    drain(Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void close() {
+    running = false;
+    Thread thread = drainer;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+      try {
+        thread.join(TimeUnit.SECONDS.toMillis(2));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      drainer = null;
+    }
+    flush();
+    synchronized (drainLock) {
+      sink.close();
+    }
+  }
+
+  public Metrics metrics() {
+    return new Metrics(
+        queue.size(),
+        queue.capacity(),
+        submitted.sum(),
+        written.get(),
+        dropped.sum(),
+        failed.get(),
+        flushes.get(),
+        lastFlushNanos.get(),
+        maxFlushNanos.get(),
+        totalFlushNanos.get(),
+        sink.backlog());
+  }
+
+  private void offerDroppingOldest(LedgerEntry entry) {
+    for (int attempt = 0; attempt < 4; attempt++) {
+      if (queue.poll() != null) {
+        dropped.increment();
+      }
+      if (queue.offer(entry)) {
+        return;
+      }
+    }
+    dropped.increment();
+  }
+
+  private void offerBlocking(LedgerEntry entry, long timeoutNanos) {
+    long deadline = System.nanoTime() + Math.min(timeoutNanos, MAX_BLOCK_NANOS);
+    wakeDrainer();
+    while (System.nanoTime() < deadline) {
+      LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+      if (queue.offer(entry)) {
+        return;
+      }
+    }
+    dropped.increment();
+  }
+
+  private void wakeDrainer() {
+    Thread thread = drainer;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  private void drainLoop() {
+    while (running) {
+      LockSupport.parkNanos(
+          this, Math.max(MIN_FLUSH_PARK_NANOS, settings.flushInterval().toNanos()));
+      try {
+        drain(Integer.MAX_VALUE);
+      } catch (Throwable t) {
+        LOGGER.warn("(minemotes) ledger drainer failed", t);
+      }
+    }
+  }
+
+  private void drain(int maxBatches) {
+    synchronized (drainLock) {
+      int batchSize = Math.max(1, settings.batchSize());
+      for (int round = 0; round < maxBatches; round++) {
+        LedgerEntry entry;
+        while (batch.size() < batchSize && (entry = queue.poll()) != null) {
+          batch.add(entry);
+        }
+        if (batch.isEmpty()) {
+          if (round == 0) {
+            sink.poll();
+          }
+          return;
+        }
+        writeBatch();
+      }
+    }
+  }
+
+  private void writeBatch() {
+    long start = System.nanoTime();
+    try {
+      int accepted = sink.write(batch);
+      written.addAndGet(accepted);
+      failed.addAndGet(batch.size() - accepted);
+    } catch (RuntimeException e) {
+      failed.addAndGet(batch.size());
+      LOGGER.warn("(minemotes) ledger batch of {} entries failed", batch.size(), e);
+    } finally {
+      batch.clear();
+    }
+    long elapsed = System.nanoTime() - start;
+    flushes.incrementAndGet();
+    lastFlushNanos.set(elapsed);
+    totalFlushNanos.addAndGet(elapsed);
+    maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+  }
+
+  /**
+   * Point-in-time counters; flush latencies cover {@link LedgerSink#write} calls and {@code
+   * backlog} counts spooled entries not yet replayed into MinCore.
+   */
+  public record Metrics(
+      int queueDepth,
+      int queueCapacity,
+      long submitted,
+      long written,
+      long dropped,
+      long failed,
+      long flushes,
+      long lastFlushNanos,
+      long maxFlushNanos,
+      long totalFlushNanos,
+      long backlog) {}
+}
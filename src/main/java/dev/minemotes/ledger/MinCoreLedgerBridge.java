@@ -0,0 +1,109 @@
+package dev.minemotes.ledger;
+
+import dev.minemotes.MinEmotesMod;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.UUID;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/** MethodHandle bridge into MinCore's ledger API, resolved once at construction. */
+final class MinCoreLedgerBridge implements LedgerSink {
+  private static final Logger LOGGER = LogManager.getLogger("minemotes");
+  private static final String LEDGER_CLASS = "dev.mincore.api.Ledger";
+  private static final String MINCORE_API_CLASS = "dev.mincore.api.MinCoreApi";
+  private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class);
+  private static final MethodType LOG_TYPE =
+      MethodType.methodType(
+          void.class,
+          Object.class,
+          String.class,
+          String.class,
+          UUID.class,
+          UUID.class,
+          long.class,
+          String.class,
+          boolean.class,
+          String.class,
+          String.class,
+          String.class,
+          String.class);
+
+  private final MethodHandle ledgerAccessor;
+  private final MethodHandle logHandle;
+  private final LedgerPayloadEncoder encoder = new LedgerPayloadEncoder();
+
+  MinCoreLedgerBridge() {
+    MethodHandle accessor = null;
+    MethodHandle log = null;
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      Class<?> api = Class.forName(MINCORE_API_CLASS);
+      accessor = lookup.unreflect(api.getMethod("ledger")).asType(ACCESSOR_TYPE);
+      Class<?> ledgerClass = Class.forName(LEDGER_CLASS);
+      log =
+          lookup
+              .unreflect(
+                  ledgerClass.getMethod(
+                      "log",
+                      String.class,
+                      String.class,
+                      UUID.class,
+                      UUID.class,
+                      long.class,
+                      String.class,
+                      boolean.class,
+                      String.class,
+                      String.class,
+                      String.class,
+                      String.class))
+              .asType(LOG_TYPE);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      LOGGER.debug("(minemotes) MinCore ledger API unavailable", e);
+      accessor = null;
+      log = null;
+    }
+    this.ledgerAccessor = accessor;
+    this.logHandle = log;
+  }
+
+  /** Whether MinCore's ledger API was found; {@link #write} may still see no ledger yet. */
+  boolean available() {
+    return ledgerAccessor != null && logHandle != null;
+  }
+
+  @Override
+  public int write(List<LedgerEntry> batch) {
+    if (!available()) {
+      return 0;
+    }
+    int i = 0;
+    try {
+      Object ledger = (Object) ledgerAccessor.invokeExact();
+      if (ledger == null) {
+        return 0;
+      }
+      for (int n = batch.size(); i < n; i++) {
+        LedgerEntry entry = batch.get(i);
+        logHandle.invokeExact(
+            ledger,
+            MinEmotesMod.MODID,
+            entry.type().id(),
+            entry.playerId(),
+            (UUID) null,
+            0L,
+            encoder.reason(entry),
+            true,
+            (String) null,
+            (String) null,
+            (String) null,
+            encoder.payload(entry));
+      }
+    } catch (Throwable t) {
+      LOGGER.debug("(minemotes) Failed to log to MinCore ledger", t);
+    }
+    return i;
+  }
+}
@@ -0,0 +1,80 @@
+package dev.minemotes.ledger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Records every batch in the local {@link LedgerSpool} first, then replays whatever the spool
+ * holds into the downstream ledger for as long as it accepts entries. If MinCore is missing or
+ * not ready, entries stay in the spool and are replayed on a later flush.
+ */
+final class SpoolingLedgerSink implements LedgerSink {
+  private static final Logger LOGGER = LogManager.getLogger("minemotes");
+  private static final int REPLAY_BATCH = 256;
+
+  private final LedgerSpool spool;
+  private final LedgerSink downstream;
+  private final List<LedgerEntry> replay = new ArrayList<>(REPLAY_BATCH);
+  private boolean appendWarned;
+
+  SpoolingLedgerSink(LedgerSpool spool, LedgerSink downstream) {
+    this.spool = spool;
+    this.downstream = downstream;
+  }
+
+  @Override
+  public int write(List<LedgerEntry> batch) {
+    int spooled;
+    try {
+      spooled = spool.append(batch);
+    } catch (IOException | RuntimeException e) {
+      if (!appendWarned) {
+        appendWarned = true;
+        LOGGER.warn("(minemotes) ledger spool append failed; writing to MinCore directly", e);
+      }
+      spooled = 0;
+    }
+    if (spooled < batch.size()) {
+      replayPending();
+      return spooled + downstream.write(batch.subList(spooled, batch.size()));
+    }
+    replayPending();
+    return batch.size();
+  }
+
+  @Override
+  public void poll() {
+    replayPending();
+  }
+
+  @Override
+  public long backlog() {
+    return spool.pending();
+  }
+
+  @Override
+  public void close() {
+    replayPending();
+    spool.close();
+    downstream.close();
+  }
+
+  private void replayPending() {
+    while (true) {
+      replay.clear();
+      int read = spool.readPending(REPLAY_BATCH, replay);
+      if (read == 0) {
+        return;
+      }
+      int accepted = downstream.write(replay);
+      spool.markReplayed(accepted);
+      if (accepted < read) {
+        replay.clear();
+        return;
+      }
+    }
+  }
+}
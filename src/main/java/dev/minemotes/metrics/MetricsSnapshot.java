@@ -0,0 +1,62 @@
+package dev.minemotes.metrics;
+
+import dev.minemotes.config.ConfigManager;
+import dev.minemotes.core.EmoteService;
+import dev.minemotes.core.SeatManager.SeatRemovalReason;
+import dev.minemotes.ledger.LedgerWriter;
+import dev.minemotes.stats.AdmissionStage;
+import dev.minemotes.stats.EmoteCounters;
+import dev.minemotes.stats.LogHistogram;
+import dev.minemotes.stats.SessionStats;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Everything the scrape endpoint reports, gathered in one pass on the server thread. Instances are
+ * immutable, so the exporter can hand the latest one to any number of concurrent scrapes.
+ */
+public record MetricsSnapshot(
+    long takenMillis,
+    Map<String, EmoteService.WorldActivity> active,
+    Map<SeatRemovalReason, Long> removals,
+    Map<String, Long> seatFailures,
+    Map<AdmissionStage, Long> rejections,
+    long rateLimitPenalties,
+    LogHistogram permissionChecks,
+    SessionStats sessions,
+    LedgerWriter.Metrics ledger,
+    ConfigManager.ReloadStats reloads) {
+
+  /** Reads the current counters. Call from the server thread; world activity is not thread-safe. */
+  public static MetricsSnapshot collect(
+      EmoteService service, LedgerWriter ledger, ConfigManager configManager) {
+    EmoteCounters counters = service.counters();
+    Map<SeatRemovalReason, Long> removals = new EnumMap<>(SeatRemovalReason.class);
+    for (SeatRemovalReason reason : SeatRemovalReason.values()) {
+      removals.put(reason, counters.removals(reason));
+    }
+    Map<String, Long> failures = new LinkedHashMap<>();
+    for (String code : EmoteCounters.SEAT_FAILURES) {
+      failures.put(code, counters.seatFailures(code));
+    }
+    failures.put("other", counters.seatFailures("other"));
+    Map<AdmissionStage, Long> rejections = new EnumMap<>(AdmissionStage.class);
+    for (AdmissionStage stage : AdmissionStage.values()) {
+      rejections.put(stage, counters.rejections(stage));
+    }
+    return new MetricsSnapshot(
+        System.currentTimeMillis(),
+        Collections.unmodifiableMap(new TreeMap<>(service.activeByWorld())),
+        Collections.unmodifiableMap(removals),
+        Collections.unmodifiableMap(failures),
+        Collections.unmodifiableMap(rejections),
+        counters.rateLimitPenalties(),
+        counters.permissionChecks(),
+        service.sessions().lifetime(),
+        ledger.metrics(),
+        configManager.reloadStats());
+  }
+}
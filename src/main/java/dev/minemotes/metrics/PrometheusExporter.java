@@ -0,0 +1,268 @@
+package dev.minemotes.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.minemotes.config.Config;
+import dev.minemotes.core.EmoteService;
+import dev.minemotes.core.SeatManager.SeatRemovalReason;
+import dev.minemotes.ledger.LedgerWriter;
+import dev.minemotes.stats.AdmissionStage;
+import dev.minemotes.stats.LogHistogram;
+import dev.minemotes.stats.SessionStats;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Serves the latest {@link MetricsSnapshot} in the Prometheus text exposition format on {@code
+ * /metrics}. Scrapes are handled on the exporter's own thread and only read the snapshot last
+ * passed to {@link #publish}, so they never wait on or call into the server thread.
+ */
+public final class PrometheusExporter implements AutoCloseable {
+  private static final Logger LOGGER = LogManager.getLogger("minemotes");
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  private static final double[] QUANTILES = {0.5d, 0.9d, 0.99d};
+
+  private volatile MetricsSnapshot snapshot;
+  private Config.Metrics settings;
+  private HttpServer server;
+  private ExecutorService executor;
+
+  /** Starts, stops or rebinds the endpoint to match {@code metrics}. */
+  public synchronized void apply(Config.Metrics metrics) {
+    if (metrics.equals(settings) && (server != null) == metrics.enabled()) {
+      return;
+    }
+    stop();
+    settings = metrics;
+    if (!metrics.enabled()) {
+      return;
+    }
+    try {
+      HttpServer http = HttpServer.create(new InetSocketAddress(metrics.host(), metrics.port()), 0);
+      ExecutorService pool =
+          Executors.newSingleThreadExecutor(
+              r -> {
+                Thread thread = new Thread(r, "MinEmotes-Metrics");
+                thread.setDaemon(true);
+                return thread;
+              });
+      http.createContext("/metrics", this::handle);
+      http.setExecutor(pool);
+      http.start();
+      server = http;
+      executor = pool;
+      LOGGER.info(
+          "(minemotes) metrics endpoint listening on http://{}:{}/metrics",
+          metrics.host(),
+          metrics.port());
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn(
+          "(minemotes) unable to bind metrics endpoint to {}:{}", metrics.host(), metrics.port(), e);
+    }
+  }
+
+  /** Whether the endpoint is serving; callers skip collecting snapshots otherwise. */
+  public synchronized boolean running() {
+    return server != null;
+  }
+
+  /** Replaces the snapshot served to subsequent scrapes. */
+  public void publish(MetricsSnapshot next) {
+    this.snapshot = next;
+  }
+
+  @Override
+  public synchronized void close() {
+    stop();
+    settings = null;
+  }
+
+  private void stop() {
+    if (server != null) {
+      server.stop(0);
+      server = null;
+    }
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+    snapshot = null;
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      String method = exchange.getRequestMethod();
+      if (!"GET".equals(method) && !"HEAD".equals(method)) {
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      MetricsSnapshot current = snapshot;
+      if (current == null) {
+        exchange.sendResponseHeaders(503, -1);
+        return;
+      }
+      byte[] body = render(current).getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+      if ("HEAD".equals(method)) {
+        exchange.sendResponseHeaders(200, -1);
+        return;
+      }
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    }
+  }
+
+  static String render(MetricsSnapshot snapshot) {
+    StringBuilder out = new StringBuilder(4096);
+    header(out, "minemotes_active_seats", "gauge", "Open seat emotes per world.");
+    for (Map.Entry<String, EmoteService.WorldActivity> world : snapshot.active().entrySet()) {
+      sample(out, "minemotes_active_seats", "world", world.getKey(), world.getValue().seats());
+    }
+    header(out, "minemotes_active_crawlers", "gauge", "Players crawling per world.");
+    for (Map.Entry<String, EmoteService.WorldActivity> world : snapshot.active().entrySet()) {
+      sample(out, "minemotes_active_crawlers", "world", world.getKey(), world.getValue().crawlers());
+    }
+    header(
+        out, "minemotes_session_removals_total", "counter", "Seats and crawls ended, by reason.");
+    for (Map.Entry<SeatRemovalReason, Long> removal : snapshot.removals().entrySet()) {
+      sample(
+          out,
+          "minemotes_session_removals_total",
+          "reason",
+          removal.getKey().name().toLowerCase(Locale.ROOT),
+          removal.getValue());
+    }
+    header(out, "minemotes_seat_failures_total", "counter", "Seats that failed to spawn, by step.");
+    for (Map.Entry<String, Long> failure : snapshot.seatFailures().entrySet()) {
+      sample(out, "minemotes_seat_failures_total", "error", failure.getKey(), failure.getValue());
+    }
+    header(
+        out,
+        "minemotes_command_rejections_total",
+        "counter",
+        "Emote commands refused before running, by the admission check that refused them.");
+    for (Map.Entry<AdmissionStage, Long> rejection : snapshot.rejections().entrySet()) {
+      sample(
+          out,
+          "minemotes_command_rejections_total",
+          "stage",
+          rejection.getKey().id(),
+          rejection.getValue());
+    }
+    header(
+        out,
+        "minemotes_rate_limit_penalties_total",
+        "counter",
+        "Lockouts handed to players who drained their rate limit bucket.");
+    sample(out, "minemotes_rate_limit_penalties_total", snapshot.rateLimitPenalties());
+    summary(
+        out,
+        "minemotes_permission_check_seconds",
+        "Latency of emote permission checks.",
+        snapshot.permissionChecks());
+    renderSessions(out, snapshot.sessions());
+    LedgerWriter.Metrics ledger = snapshot.ledger();
+    header(out, "minemotes_ledger_queue_depth", "gauge", "Ledger entries waiting to be written.");
+    sample(out, "minemotes_ledger_queue_depth", ledger.queueDepth());
+    header(out, "minemotes_ledger_queue_capacity", "gauge", "Ledger queue capacity.");
+    sample(out, "minemotes_ledger_queue_capacity", ledger.queueCapacity());
+    header(out, "minemotes_ledger_dropped_total", "counter", "Ledger entries dropped on overflow.");
+    sample(out, "minemotes_ledger_dropped_total", ledger.dropped());
+    header(out, "minemotes_ledger_spool_backlog", "gauge", "Spooled entries not yet replayed.");
+    sample(out, "minemotes_ledger_spool_backlog", ledger.backlog());
+    header(out, "minemotes_config_reloads_total", "counter", "Config reloads, by outcome.");
+    sample(out, "minemotes_config_reloads_total", "result", "applied", snapshot.reloads().applied());
+    sample(out, "minemotes_config_reloads_total", "result", "failed", snapshot.reloads().failed());
+    sample(out, "minemotes_config_reloads_total", "result", "skipped", snapshot.reloads().skipped());
+    header(
+        out,
+        "minemotes_snapshot_timestamp_seconds",
+        "gauge",
+        "When these values were collected on the server thread.");
+    out.append("minemotes_snapshot_timestamp_seconds ")
+        .append(snapshot.takenMillis() / 1000.0d)
+        .append('\n');
+    return out.toString();
+  }
+
+  private static void renderSessions(StringBuilder out, SessionStats sessions) {
+    header(out, "minemotes_session_starts_total", "counter", "Emote sessions started, by emote.");
+    for (SessionStats.Lifetime type : sessions.types()) {
+      sample(out, "minemotes_session_starts_total", "emote", type.type().id(), type.started());
+    }
+    header(
+        out,
+        "minemotes_session_retoggles_total",
+        "counter",
+        "Starts within the cooldown of the same player's previous stop of that emote.");
+    for (SessionStats.Lifetime type : sessions.types()) {
+      sample(out, "minemotes_session_retoggles_total", "emote", type.type().id(), type.retoggles());
+    }
+    header(out, "minemotes_session_duration_seconds", "summary", "Length of ended sessions.");
+    for (SessionStats.Lifetime type : sessions.types()) {
+      quantiles(out, "minemotes_session_duration_seconds", type.type().id(), type.durations(), 1e3d);
+    }
+  }
+
+  private static void summary(StringBuilder out, String name, String help, LogHistogram nanos) {
+    header(out, name, "summary", help);
+    quantiles(out, name, null, nanos, 1e9d);
+  }
+
+  /** Writes a summary's samples; {@code perSecond} converts recorded units to seconds. */
+  private static void quantiles(
+      StringBuilder out, String name, String emote, LogHistogram values, double perSecond) {
+    String labels = emote == null ? "" : "emote=\"" + emote + "\",";
+    for (double quantile : QUANTILES) {
+      out.append(name)
+          .append('{')
+          .append(labels)
+          .append("quantile=\"")
+          .append(quantile)
+          .append("\"} ")
+          .append(values.valueAtPercentile(quantile * 100.0d) / perSecond)
+          .append('\n');
+    }
+    String suffix = emote == null ? " " : "{emote=\"" + emote + "\"} ";
+    out.append(name).append("_sum").append(suffix).append(values.sum() / perSecond).append('\n');
+    out.append(name).append("_count").append(suffix).append(values.count()).append('\n');
+  }
+
+  private static void header(StringBuilder out, String name, String type, String help) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void sample(StringBuilder out, String name, long value) {
+    out.append(name).append(' ').append(value).append('\n');
+  }
+
+  private static void sample(
+      StringBuilder out, String name, String label, String labelValue, long value) {
+    out.append(name).append('{').append(label).append("=\"");
+    escape(out, labelValue);
+    out.append("\"} ").append(value).append('\n');
+  }
+
+  private static void escape(StringBuilder out, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\\' -> out.append("\\\\");
+        case '"' -> out.append("\\\"");
+        case '\n' -> out.append("\\n");
+        default -> out.append(c);
+      }
+    }
+  }
+}
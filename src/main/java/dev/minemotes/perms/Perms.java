@@ -6,6 +6,7 @@ import java.lang.invoke.MethodType;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
+import net.minecraft.entity.Entity;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import org.apache.logging.log4j.LogManager;
@@ -73,7 +74,7 @@ public final class Perms {
             Class.forName("me.lucko.fabric.api.permissions.v0.Permissions", false, Perms.class.getClassLoader());
         return (boolean)
             permissions
-                .getMethod("check", ServerPlayerEntity.class, String.class, int.class)
+                .getMethod("check", Entity.class, String.class, int.class)
                 .invoke(null, player, node, opLevelFallback);
       } catch (ReflectiveOperationException | NoClassDefFoundError e) {
         if (FABRIC_WARNED.compareAndSet(false, true)) {
@@ -111,7 +112,7 @@ public final class Perms {
             Class.forName("me.lucko.fabric.api.permissions.v0.Permissions", false, Perms.class.getClassLoader());
         return (boolean)
             permissions
-                .getMethod("check", ServerPlayerEntity.class, String.class, int.class)
+                .getMethod("check", Entity.class, String.class, int.class)
                 .invoke(null, player, node, opLevelFallback);
       } catch (ReflectiveOperationException | NoClassDefFoundError e) {
         if (FABRIC_WARNED.compareAndSet(false, true)) {
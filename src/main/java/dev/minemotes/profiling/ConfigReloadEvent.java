@@ -0,0 +1,31 @@
+package dev.minemotes.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("minemotes.ConfigReload")
+@Label("Config Reload")
+@Category("MinEmotes")
+@StackTrace(false)
+public final class ConfigReloadEvent extends jdk.jfr.Event {
+  @Label("Result")
+  @Description("applied, failed or skipped")
+  String result;
+
+  @Label("Detail")
+  @Description("Changed sections when applied, the first error when failed")
+  String detail;
+
+  /** Records a reload outcome; {@code detail} is only turned into a string while recording. */
+  public static void emit(String result, Object detail) {
+    ConfigReloadEvent event = new ConfigReloadEvent();
+    if (event.isEnabled()) {
+      event.result = result;
+      event.detail = String.valueOf(detail);
+      event.commit();
+    }
+  }
+}
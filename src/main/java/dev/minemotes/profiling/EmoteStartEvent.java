@@ -0,0 +1,29 @@
+package dev.minemotes.profiling;
+
+import dev.minemotes.core.EmoteType;
+import java.util.UUID;
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("minemotes.EmoteStart")
+@Label("Emote Start")
+@Category("MinEmotes")
+@StackTrace(false)
+public final class EmoteStartEvent extends jdk.jfr.Event {
+  @Label("Player")
+  String player;
+
+  @Label("Emote")
+  String emote;
+
+  public static void emit(UUID player, EmoteType emote) {
+    EmoteStartEvent event = new EmoteStartEvent();
+    if (event.isEnabled()) {
+      event.player = player.toString();
+      event.emote = emote.id();
+      event.commit();
+    }
+  }
+}
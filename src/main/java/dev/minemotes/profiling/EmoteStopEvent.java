@@ -0,0 +1,35 @@
+package dev.minemotes.profiling;
+
+import dev.minemotes.core.EmoteType;
+import dev.minemotes.core.SeatManager.SeatRemovalReason;
+import java.util.Locale;
+import java.util.UUID;
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("minemotes.EmoteStop")
+@Label("Emote Stop")
+@Category("MinEmotes")
+@StackTrace(false)
+public final class EmoteStopEvent extends jdk.jfr.Event {
+  @Label("Player")
+  String player;
+
+  @Label("Emote")
+  String emote;
+
+  @Label("Reason")
+  String reason;
+
+  public static void emit(UUID player, EmoteType emote, SeatRemovalReason reason) {
+    EmoteStopEvent event = new EmoteStopEvent();
+    if (event.isEnabled()) {
+      event.player = player.toString();
+      event.emote = emote.id();
+      event.reason = reason.name().toLowerCase(Locale.ROOT);
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package dev.minemotes.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Spans one world's seat tick, or the server-wide part of a tick, in {@code EmoteService}. */
+@Name("minemotes.Tick")
+@Label("Emote Tick")
+@Category("MinEmotes")
+@StackTrace(false)
+public final class EmoteTickEvent extends jdk.jfr.Event {
+  /** World whose seats were ticked; empty for the server-wide part. */
+  @Label("World")
+  public String world;
+
+  @Label("Crawlers")
+  public int crawlers;
+
+  @Label("Seats")
+  public int seats;
+}
@@ -0,0 +1,19 @@
+package dev.minemotes.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Spans one {@code Perms.check} made for an emote command. */
+@Name("minemotes.PermissionCheck")
+@Label("Permission Check")
+@Category("MinEmotes")
+@StackTrace(false)
+public final class PermissionCheckEvent extends jdk.jfr.Event {
+  @Label("Node")
+  public String node;
+
+  @Label("Allowed")
+  public boolean allowed;
+}
@@ -0,0 +1,111 @@
+package dev.minemotes.profiling;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import net.fabricmc.loader.api.FabricLoader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Time-boxed JFR recordings started from {@code /minemotes profile}. A recording uses the JDK's
+ * {@code profile} settings plus every MinEmotes event, and JFR writes it to its destination file
+ * when the duration runs out or {@link #stop()} is called. Only one recording runs at a time.
+ */
+public final class ProfileRecorder {
+  private static final Logger LOGGER = LogManager.getLogger("minemotes");
+  private static final DateTimeFormatter FILE_TIME =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.ROOT);
+
+  /** Every MinEmotes event type; a recording enables all of them. */
+  public static final List<Class<? extends Event>> EVENTS =
+      List.of(
+          EmoteStartEvent.class,
+          EmoteStopEvent.class,
+          SeatSpawnEvent.class,
+          SeatDiscardEvent.class,
+          EmoteTickEvent.class,
+          PermissionCheckEvent.class,
+          ConfigReloadEvent.class);
+
+  private final Path directory;
+  private Recording recording;
+  private Path destination;
+
+  public ProfileRecorder(Path directory) {
+    this.directory = directory;
+  }
+
+  public static Path defaultDirectory() {
+    return FabricLoader.getInstance().getGameDir().resolve("minemotes").resolve("profiles");
+  }
+
+  /**
+   * Starts a recording that ends after {@code duration} and returns the file it will be written
+   * to.
+   *
+   * @throws IllegalStateException if a recording is already running
+   */
+  public synchronized Path start(Duration duration) throws IOException {
+    if (active()) {
+      throw new IllegalStateException("a recording is already running");
+    }
+    Configuration settings;
+    try {
+      settings = Configuration.getConfiguration("profile");
+    } catch (ParseException e) {
+      throw new IOException("JFR profile settings unreadable", e);
+    }
+    if (recording != null) {
+      // The previous recording ran out on its own and has already been written.
+      recording.close();
+      recording = null;
+    }
+    Files.createDirectories(directory);
+    Path file = directory.resolve("minemotes-" + LocalDateTime.now().format(FILE_TIME) + ".jfr");
+    Recording next = new Recording(settings);
+    next.setName("minemotes");
+    for (Class<? extends Event> event : EVENTS) {
+      next.enable(event).withoutThreshold();
+    }
+    next.setToDisk(true);
+    next.setDestination(file);
+    next.setDuration(duration);
+    next.start();
+    recording = next;
+    destination = file;
+    LOGGER.info("(minemotes) JFR recording started for {} s; writing to {}", duration.toSeconds(), file);
+    return file;
+  }
+
+  /** Ends the running recording early and returns where it was written, or {@code null}. */
+  public synchronized Path stop() {
+    if (!active()) {
+      return null;
+    }
+    recording.stop();
+    recording.close();
+    recording = null;
+    LOGGER.info("(minemotes) JFR recording written to {}", destination);
+    return destination;
+  }
+
+  public synchronized boolean active() {
+    return recording != null && recording.getState() == RecordingState.RUNNING;
+  }
+
+  /** File of the running or most recent recording, or {@code null}. */
+  public synchronized Path destination() {
+    return destination;
+  }
+}
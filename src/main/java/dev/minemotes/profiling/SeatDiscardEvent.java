@@ -0,0 +1,22 @@
+package dev.minemotes.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A seat entity was discarded; fill the fields only once {@link #isEnabled()} returns true. */
+@Name("minemotes.SeatDiscard")
+@Label("Seat Discard")
+@Category("MinEmotes")
+@StackTrace(false)
+public final class SeatDiscardEvent extends jdk.jfr.Event {
+  @Label("World")
+  public String world;
+
+  @Label("Emote")
+  public String emote;
+
+  @Label("Reason")
+  public String reason;
+}
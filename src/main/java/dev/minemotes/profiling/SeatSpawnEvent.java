@@ -0,0 +1,27 @@
+package dev.minemotes.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans one {@code SeatManager.createSeat} call. Fill the fields only once {@link #shouldCommit()}
+ * returns true.
+ */
+@Name("minemotes.SeatSpawn")
+@Label("Seat Spawn")
+@Category("MinEmotes")
+@StackTrace(false)
+public final class SeatSpawnEvent extends jdk.jfr.Event {
+  @Label("World")
+  public String world;
+
+  @Label("Emote")
+  public String emote;
+
+  @Label("Error")
+  @Description("Failed step (seat.create, seat.spawn or seat.ride); empty on success")
+  public String error;
+}
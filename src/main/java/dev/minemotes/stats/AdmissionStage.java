@@ -0,0 +1,56 @@
+package dev.minemotes.stats;
+
+/**
+ * Checks an emote command must pass before it runs, declared in the order {@code EmoteService}
+ * runs them. That order follows {@link Cost}, so a command that is going to be refused is refused
+ * by the cheapest check that can tell.
+ */
+public enum AdmissionStage {
+  RATE_LIMIT("rate_limit", Cost.MEMORY),
+  ENABLED("enabled", Cost.MEMORY),
+  WORLD("world", Cost.MEMORY),
+  COOLDOWN("cooldown", Cost.MEMORY),
+  STATE("state", Cost.PLAYER),
+  ZONE("zone", Cost.INDEX),
+  PERMISSION("permission", Cost.GATEWAY),
+  CHAIR("chair", Cost.WORLD);
+
+  /** What a check has to touch, from cheapest to most expensive. */
+  public enum Cost {
+    /** Config flags and per-player maps. */
+    MEMORY,
+    /** Fields of the player entity. */
+    PLAYER,
+    /** A lookup in a spatial index. */
+    INDEX,
+    /** The permission provider, reached through reflection; may be arbitrarily slow. */
+    GATEWAY,
+    /** A raycast through the world, e.g. for the block /chair targets. */
+    WORLD
+  }
+
+  static {
+    AdmissionStage[] stages = values();
+    for (int i = 1; i < stages.length; i++) {
+      if (stages[i].cost.compareTo(stages[i - 1].cost) < 0) {
+        throw new ExceptionInInitializerError(stages[i] + " is cheaper than " + stages[i - 1]);
+      }
+    }
+  }
+
+  private final String id;
+  private final Cost cost;
+
+  AdmissionStage(String id, Cost cost) {
+    this.id = id;
+    this.cost = cost;
+  }
+
+  public String id() {
+    return id;
+  }
+
+  public Cost cost() {
+    return cost;
+  }
+}
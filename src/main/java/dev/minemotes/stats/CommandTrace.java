@@ -0,0 +1,98 @@
+package dev.minemotes.stats;
+
+import java.util.Arrays;
+
+/**
+ * Phase timings of the emote command running on the current thread. One instance per thread is
+ * reused for every command, so tracing allocates nothing. Code that may run inside a command
+ * reports its phase through {@link #phase}, which does nothing when no command is being traced.
+ */
+public final class CommandTrace {
+  /** Parts of an emote command that are timed separately. */
+  public enum Phase {
+    PERMISSION("permission"),
+    ZONE("zone"),
+    PLACEMENT("placement"),
+    SPAWN("spawn"),
+    RIDE("ride"),
+    LEDGER("ledger");
+
+    private final String id;
+
+    Phase(String id) {
+      this.id = id;
+    }
+
+    public String id() {
+      return id;
+    }
+  }
+
+  private static final Phase[] PHASES = Phase.values();
+  private static final ThreadLocal<CommandTrace> CURRENT = ThreadLocal.withInitial(CommandTrace::new);
+
+  private final long[] nanos = new long[PHASES.length];
+  private String command;
+  private long startNanos;
+  private long totalNanos;
+  private int depth;
+
+  private CommandTrace() {}
+
+  /**
+   * Starts tracing {@code command} on this thread. Nested calls join the outer trace; pair each
+   * with {@link #end()}.
+   */
+  public static CommandTrace begin(String command) {
+    CommandTrace trace = CURRENT.get();
+    if (trace.depth++ == 0) {
+      Arrays.fill(trace.nanos, 0L);
+      trace.command = command;
+      trace.totalNanos = 0L;
+      trace.startNanos = System.nanoTime();
+    }
+    return trace;
+  }
+
+  /** Adds the time since {@code startNanos} to {@code phase} of the command traced on this thread. */
+  public static void phase(Phase phase, long startNanos) {
+    CommandTrace trace = CURRENT.get();
+    if (trace.depth > 0) {
+      trace.nanos[phase.ordinal()] += System.nanoTime() - startNanos;
+    }
+  }
+
+  /** Ends one level of tracing; returns true when the outermost command finished. */
+  public boolean end() {
+    if (--depth > 0) {
+      return false;
+    }
+    totalNanos = System.nanoTime() - startNanos;
+    return true;
+  }
+
+  public String command() {
+    return command;
+  }
+
+  public long totalNanos() {
+    return totalNanos;
+  }
+
+  public long nanos(Phase phase) {
+    return nanos[phase.ordinal()];
+  }
+
+  /** One log-friendly line: {@code total=…us permission=…us …}, skipping phases that did not run. */
+  public String describe() {
+    StringBuilder out = new StringBuilder(96);
+    out.append("total=").append(totalNanos / 1000L).append("us");
+    for (Phase phase : PHASES) {
+      long value = nanos[phase.ordinal()];
+      if (value > 0L) {
+        out.append(' ').append(phase.id()).append('=').append(value / 1000L).append("us");
+      }
+    }
+    return out.toString();
+  }
+}
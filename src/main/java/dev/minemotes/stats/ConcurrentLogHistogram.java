@@ -0,0 +1,50 @@
+package dev.minemotes.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free counterpart of {@link LogHistogram} for values recorded from any thread. Recording is
+ * one atomic bucket increment plus a sum update; min and max only CAS when they move. Percentiles
+ * are read through {@link #snapshot()}, which is only as consistent as a concurrent read allows.
+ */
+public final class ConcurrentLogHistogram {
+  private final AtomicLongArray counts = new AtomicLongArray(LogHistogram.BUCKETS);
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong max = new AtomicLong();
+
+  public void record(long value) {
+    long v = Math.max(0L, value);
+    counts.incrementAndGet(LogHistogram.index(v));
+    sum.addAndGet(v);
+    long low = min.get();
+    while (v < low && !min.compareAndSet(low, v)) {
+      low = min.get();
+    }
+    long high = max.get();
+    while (v > high && !max.compareAndSet(high, v)) {
+      high = max.get();
+    }
+  }
+
+  public LogHistogram snapshot() {
+    long[] copy = new long[LogHistogram.BUCKETS];
+    for (int i = 0; i < copy.length; i++) {
+      copy[i] = counts.get(i);
+    }
+    return LogHistogram.fromCounts(copy, sum.get(), min.get(), max.get());
+  }
+
+  /** Clears the histogram; samples recorded concurrently with the reset may be kept or dropped. */
+  public void reset() {
+    for (int i = 0; i < LogHistogram.BUCKETS; i++) {
+      if (counts.get(i) != 0L) {
+        counts.set(i, 0L);
+      }
+    }
+    sum.set(0L);
+    min.set(Long.MAX_VALUE);
+    max.set(0L);
+  }
+}
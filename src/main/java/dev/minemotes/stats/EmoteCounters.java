@@ -0,0 +1,71 @@
+package dev.minemotes.stats;
+
+import dev.minemotes.core.SeatManager.SeatRemovalReason;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counters for external monitoring. Unlike {@link PerfMonitor} these are never reset, so
+ * a scraper can compute rates from successive reads.
+ */
+public final class EmoteCounters {
+  /** Error codes reported by {@code SeatManager.createSeat}; anything else counts as "other". */
+  public static final List<String> SEAT_FAILURES = List.of("seat.create", "seat.spawn", "seat.ride");
+
+  private static final SeatRemovalReason[] REASONS = SeatRemovalReason.values();
+  private static final AdmissionStage[] STAGES = AdmissionStage.values();
+
+  private final AtomicLongArray removals = new AtomicLongArray(REASONS.length);
+  private final AtomicLongArray seatFailures = new AtomicLongArray(SEAT_FAILURES.size() + 1);
+  private final AtomicLongArray admissionRejections = new AtomicLongArray(STAGES.length);
+  private final LongAdder rateLimitPenalties = new LongAdder();
+  private final ConcurrentLogHistogram permissionChecks = new ConcurrentLogHistogram();
+
+  public void removed(SeatRemovalReason reason) {
+    removals.incrementAndGet(reason.ordinal());
+  }
+
+  public void seatFailed(String error) {
+    int index = SEAT_FAILURES.indexOf(error);
+    seatFailures.incrementAndGet(index < 0 ? SEAT_FAILURES.size() : index);
+  }
+
+  /** Counts a command refused by {@code stage}. */
+  public void rejected(AdmissionStage stage) {
+    admissionRejections.incrementAndGet(stage.ordinal());
+  }
+
+  /** Counts a lockout handed to a player who drained their rate limit bucket. */
+  public void rateLimitPenalized() {
+    rateLimitPenalties.increment();
+  }
+
+  /** Records a permission lookup that began at {@code startNanos}, from {@link System#nanoTime()}. */
+  public void permissionChecked(long startNanos) {
+    permissionChecks.record(System.nanoTime() - startNanos);
+  }
+
+  public long removals(SeatRemovalReason reason) {
+    return removals.get(reason.ordinal());
+  }
+
+  /** Failures for one of {@link #SEAT_FAILURES}, or for any other code when {@code error} is unknown. */
+  public long seatFailures(String error) {
+    int index = SEAT_FAILURES.indexOf(error);
+    return seatFailures.get(index < 0 ? SEAT_FAILURES.size() : index);
+  }
+
+  public long rejections(AdmissionStage stage) {
+    return admissionRejections.get(stage.ordinal());
+  }
+
+  public long rateLimitPenalties() {
+    return rateLimitPenalties.sum();
+  }
+
+  /** Permission check latencies in nanoseconds. */
+  public LogHistogram permissionChecks() {
+    return permissionChecks.snapshot();
+  }
+}
@@ -0,0 +1,140 @@
+package dev.minemotes.stats;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size, log-linear histogram of non-negative longs. Values below 32 are counted exactly;
+ * above that every power of two is split into 32 buckets, so any reported percentile is within
+ * about 3% of the recorded value. Recording is a couple of shifts with no allocation, and two
+ * histograms merge by adding bucket counts. Not thread-safe.
+ */
+public final class LogHistogram {
+  private static final int SUB_BITS = 5;
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+  static final int BUCKETS = SUB_COUNT + (63 - SUB_BITS) * SUB_COUNT;
+
+  private final long[] counts = new long[BUCKETS];
+  private long count;
+  private long sum;
+  private long min = Long.MAX_VALUE;
+  private long max;
+
+  public void record(long value) {
+    long v = Math.max(0L, value);
+    counts[index(v)]++;
+    count++;
+    sum += v;
+    if (v < min) {
+      min = v;
+    }
+    if (v > max) {
+      max = v;
+    }
+  }
+
+  /** Adds every sample of {@code other} to this histogram. */
+  public void merge(LogHistogram other) {
+    if (other.count == 0) {
+      return;
+    }
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] += other.counts[i];
+    }
+    count += other.count;
+    sum += other.sum;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  public void reset() {
+    Arrays.fill(counts, 0L);
+    count = 0L;
+    sum = 0L;
+    min = Long.MAX_VALUE;
+    max = 0L;
+  }
+
+  /** Builds a histogram from bucket counts gathered elsewhere, e.g. by {@link ConcurrentLogHistogram}. */
+  static LogHistogram fromCounts(long[] bucketCounts, long sum, long min, long max) {
+    LogHistogram histogram = new LogHistogram();
+    long total = 0L;
+    for (int i = 0; i < BUCKETS; i++) {
+      histogram.counts[i] = bucketCounts[i];
+      total += bucketCounts[i];
+    }
+    if (total > 0L) {
+      histogram.count = total;
+      histogram.sum = sum;
+      histogram.min = min;
+      histogram.max = max;
+    }
+    return histogram;
+  }
+
+  public LogHistogram copy() {
+    LogHistogram copy = new LogHistogram();
+    copy.merge(this);
+    return copy;
+  }
+
+  public long count() {
+    return count;
+  }
+
+  public long min() {
+    return count == 0 ? 0L : min;
+  }
+
+  public long max() {
+    return max;
+  }
+
+  public long sum() {
+    return sum;
+  }
+
+  public double mean() {
+    return count == 0 ? 0.0d : (double) sum / count;
+  }
+
+  /**
+   * Returns the upper bound of the bucket holding the given percentile (0-100), clamped to the
+   * largest recorded value; {@code 0} when empty.
+   */
+  public long valueAtPercentile(double percentile) {
+    if (count == 0) {
+      return 0L;
+    }
+    double p = Math.max(0.0d, Math.min(100.0d, percentile));
+    long rank = Math.max(1L, (long) Math.ceil(p / 100.0d * count));
+    long seen = 0L;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.max(min, Math.min(max, upperBound(i)));
+      }
+    }
+    return max;
+  }
+
+  static int index(long value) {
+    int shift = Math.max(0, (63 - SUB_BITS) - Long.numberOfLeadingZeros(value));
+    return (shift << SUB_BITS) + (int) (value >>> shift);
+  }
+
+  static long lowerBound(int index) {
+    if (index < SUB_COUNT) {
+      return index;
+    }
+    int shift = (index >> SUB_BITS) - 1;
+    return (long) (index - (shift << SUB_BITS)) << shift;
+  }
+
+  static long upperBound(int index) {
+    if (index < SUB_COUNT) {
+      return index;
+    }
+    int shift = (index >> SUB_BITS) - 1;
+    return lowerBound(index) + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,118 @@
+package dev.minemotes.stats;
+
+import dev.minemotes.core.SeatManager.SeatRemovalReason;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Wall-clock cost of MinEmotes' hot paths, in nanoseconds per call, plus how often seats and
+ * crawls end for each reason. Recording is two {@link System#nanoTime()} reads and a few atomic
+ * increments; percentiles are only computed when {@link #snapshot()} is called.
+ */
+public final class PerfMonitor {
+  /** Instrumented code paths. */
+  public enum Stage {
+    TICK("tick"),
+    WORLD_TICK("worldTick"),
+    HANDLE_SEAT("handleSeat"),
+    HANDLE_CRAWL("handleCrawl"),
+    CREATE_SEAT("createSeat"),
+    REMOVE_SEAT("removeSeat");
+
+    private final String id;
+
+    Stage(String id) {
+      this.id = id;
+    }
+
+    public String id() {
+      return id;
+    }
+  }
+
+  private static final Stage[] STAGES = Stage.values();
+  private static final CommandTrace.Phase[] PHASES = CommandTrace.Phase.values();
+  private static final SeatRemovalReason[] REASONS = SeatRemovalReason.values();
+
+  private final ConcurrentLogHistogram[] stages = new ConcurrentLogHistogram[STAGES.length];
+  private final ConcurrentLogHistogram[] phases = new ConcurrentLogHistogram[PHASES.length];
+  private final AtomicLongArray removals = new AtomicLongArray(REASONS.length);
+  private volatile long sinceMillis;
+
+  public PerfMonitor() {
+    for (int i = 0; i < stages.length; i++) {
+      stages[i] = new ConcurrentLogHistogram();
+    }
+    for (int i = 0; i < phases.length; i++) {
+      phases[i] = new ConcurrentLogHistogram();
+    }
+    this.sinceMillis = System.currentTimeMillis();
+  }
+
+  /** Records the time elapsed since {@code startNanos}, taken from {@link System#nanoTime()}. */
+  public void record(Stage stage, long startNanos) {
+    stages[stage.ordinal()].record(System.nanoTime() - startNanos);
+  }
+
+  /** Records every phase that ran during a finished command. */
+  public void record(CommandTrace trace) {
+    for (CommandTrace.Phase phase : PHASES) {
+      long nanos = trace.nanos(phase);
+      if (nanos > 0L) {
+        phases[phase.ordinal()].record(nanos);
+      }
+    }
+  }
+
+  public void removed(SeatRemovalReason reason) {
+    removals.incrementAndGet(reason.ordinal());
+  }
+
+  public Snapshot snapshot() {
+    Map<Stage, LogHistogram> timings = new EnumMap<>(Stage.class);
+    for (Stage stage : STAGES) {
+      timings.put(stage, stages[stage.ordinal()].snapshot());
+    }
+    Map<CommandTrace.Phase, LogHistogram> phaseTimings = new EnumMap<>(CommandTrace.Phase.class);
+    for (CommandTrace.Phase phase : PHASES) {
+      phaseTimings.put(phase, phases[phase.ordinal()].snapshot());
+    }
+    Map<SeatRemovalReason, Long> reasons = new EnumMap<>(SeatRemovalReason.class);
+    for (SeatRemovalReason reason : REASONS) {
+      long count = removals.get(reason.ordinal());
+      if (count > 0L) {
+        reasons.put(reason, count);
+      }
+    }
+    return new Snapshot(
+        sinceMillis,
+        Collections.unmodifiableMap(timings),
+        Collections.unmodifiableMap(phaseTimings),
+        Collections.unmodifiableMap(reasons));
+  }
+
+  public void reset() {
+    for (ConcurrentLogHistogram histogram : stages) {
+      histogram.reset();
+    }
+    for (ConcurrentLogHistogram histogram : phases) {
+      histogram.reset();
+    }
+    for (int i = 0; i < REASONS.length; i++) {
+      removals.set(i, 0L);
+    }
+    sinceMillis = System.currentTimeMillis();
+  }
+
+  /**
+   * Timings per stage and per command phase (nanoseconds) and removal counts since {@code
+   * sinceMillis}. Phase histograms only hold commands in which that phase ran.
+   */
+  public record Snapshot(
+      long sinceMillis,
+      Map<Stage, LogHistogram> timings,
+      Map<CommandTrace.Phase, LogHistogram> phases,
+      Map<SeatRemovalReason, Long> removals) {}
+}
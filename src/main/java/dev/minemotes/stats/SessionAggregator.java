@@ -0,0 +1,207 @@
+package dev.minemotes.stats;
+
+import dev.minemotes.core.EmoteType;
+import dev.minemotes.core.SeatManager.SeatRemovalReason;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pairs emote starts with their stops and accumulates per-type counts, session durations and
+ * removal reasons until {@link #rollup} closes the window. The same figures are also kept since
+ * startup, together with rapid re-toggles, and read through {@link #lifetime()}. Driven from the
+ * server thread.
+ */
+public final class SessionAggregator {
+  private static final EmoteType[] TYPES = EmoteType.values();
+  private static final SeatRemovalReason[] REASONS = SeatRemovalReason.values();
+  private static final int TOP_REASONS = 3;
+  private static final long NOT_OPEN = Long.MIN_VALUE;
+
+  private final Map<UUID, long[]> openSince = new ConcurrentHashMap<>();
+  private final long[] started = new long[TYPES.length];
+  private final long[] ended = new long[TYPES.length];
+  private final long[][] reasons = new long[TYPES.length][REASONS.length];
+  private final LogHistogram[] durations = new LogHistogram[TYPES.length];
+  private long windowStartMillis;
+  private long unmatchedStops;
+
+  // Since startup; never reset by rollup().
+  private final Map<UUID, long[]> lastStop = new ConcurrentHashMap<>();
+  private final long[] totalStarted = new long[TYPES.length];
+  private final long[] totalEnded = new long[TYPES.length];
+  private final long[] retoggles = new long[TYPES.length];
+  private final long[][] totalReasons = new long[TYPES.length][REASONS.length];
+  private final LogHistogram[] lifetimes = new LogHistogram[TYPES.length];
+  private final long sinceMillis;
+
+  public SessionAggregator(long nowMillis) {
+    for (int i = 0; i < TYPES.length; i++) {
+      durations[i] = new LogHistogram();
+      lifetimes[i] = new LogHistogram();
+    }
+    this.windowStartMillis = nowMillis;
+    this.sinceMillis = nowMillis;
+  }
+
+  public void started(UUID playerId, EmoteType type, long nowMillis) {
+    started(playerId, type, nowMillis, Duration.ZERO);
+  }
+
+  /**
+   * Opens a session. A start less than {@code retoggleWindow} after the player's last stop of the
+   * same type counts as a rapid re-toggle.
+   */
+  public void started(UUID playerId, EmoteType type, long nowMillis, Duration retoggleWindow) {
+    int t = type.ordinal();
+    long[] since = openSince.computeIfAbsent(playerId, SessionAggregator::closedSessions);
+    since[t] = nowMillis;
+    started[t]++;
+    totalStarted[t]++;
+    long[] stops = lastStop.get(playerId);
+    if (stops != null && stops[t] != NOT_OPEN && nowMillis - stops[t] < retoggleWindow.toMillis()) {
+      retoggles[t]++;
+    }
+  }
+
+  /** Closes the player's open session of {@code type}; returns false if none was open. */
+  public boolean ended(UUID playerId, EmoteType type, SeatRemovalReason reason, long nowMillis) {
+    long[] since = openSince.get(playerId);
+    int t = type.ordinal();
+    if (since == null || since[t] == NOT_OPEN) {
+      unmatchedStops++;
+      return false;
+    }
+    long duration = nowMillis - since[t];
+    since[t] = NOT_OPEN;
+    if (isClosed(since)) {
+      openSince.remove(playerId);
+    }
+    ended[t]++;
+    reasons[t][reason.ordinal()]++;
+    durations[t].record(duration);
+    totalEnded[t]++;
+    totalReasons[t][reason.ordinal()]++;
+    lifetimes[t].record(duration);
+    lastStop.computeIfAbsent(playerId, SessionAggregator::closedSessions)[t] = nowMillis;
+    return true;
+  }
+
+  /** Drops per-player state once the player has left; call after their sessions ended. */
+  public void forget(UUID playerId) {
+    openSince.remove(playerId);
+    lastStop.remove(playerId);
+  }
+
+  /** Players with per-player state held, open sessions or not. */
+  public int trackedPlayers() {
+    return Math.max(openSince.size(), lastStop.size());
+  }
+
+  /** Per-type figures since startup. Copies the histograms, so call it at most every few ticks. */
+  public SessionStats lifetime() {
+    List<SessionStats.Lifetime> types = new ArrayList<>();
+    for (int t = 0; t < TYPES.length; t++) {
+      if (totalStarted[t] == 0L && totalEnded[t] == 0L) {
+        continue;
+      }
+      Map<SeatRemovalReason, Long> byReason = new EnumMap<>(SeatRemovalReason.class);
+      for (int r = 0; r < REASONS.length; r++) {
+        if (totalReasons[t][r] > 0L) {
+          byReason.put(REASONS[r], totalReasons[t][r]);
+        }
+      }
+      types.add(
+          new SessionStats.Lifetime(
+              TYPES[t],
+              totalStarted[t],
+              totalEnded[t],
+              retoggles[t],
+              lifetimes[t].copy(),
+              Collections.unmodifiableMap(byReason)));
+    }
+    return new SessionStats(sinceMillis, List.copyOf(types));
+  }
+
+  public int openSessions() {
+    int open = 0;
+    for (long[] since : openSince.values()) {
+      for (long value : since) {
+        if (value != NOT_OPEN) {
+          open++;
+        }
+      }
+    }
+    return open;
+  }
+
+  /** Stops that arrived without a matching start since this aggregator was created. */
+  public long unmatchedStops() {
+    return unmatchedStops;
+  }
+
+  public boolean rollupDue(long nowMillis, Duration interval) {
+    return !interval.isZero() && nowMillis - windowStartMillis >= interval.toMillis();
+  }
+
+  /** Summarises the current window and starts a new one at {@code nowMillis}. */
+  public SessionRollup rollup(long nowMillis) {
+    List<SessionRollup.TypeStats> types = new ArrayList<>();
+    for (int t = 0; t < TYPES.length; t++) {
+      if (started[t] == 0L && ended[t] == 0L) {
+        continue;
+      }
+      types.add(
+          new SessionRollup.TypeStats(
+              TYPES[t], started[t], ended[t], durations[t], topReasons(reasons[t])));
+      durations[t] = new LogHistogram();
+      started[t] = 0L;
+      ended[t] = 0L;
+      Arrays.fill(reasons[t], 0L);
+    }
+    SessionRollup rollup =
+        new SessionRollup(windowStartMillis, nowMillis, openSessions(), List.copyOf(types));
+    windowStartMillis = nowMillis;
+    return rollup;
+  }
+
+  private static List<SessionRollup.ReasonCount> topReasons(long[] counts) {
+    List<SessionRollup.ReasonCount> top = new ArrayList<>(TOP_REASONS);
+    boolean[] taken = new boolean[counts.length];
+    for (int pick = 0; pick < TOP_REASONS; pick++) {
+      int best = -1;
+      for (int r = 0; r < counts.length; r++) {
+        if (!taken[r] && counts[r] > 0L && (best < 0 || counts[r] > counts[best])) {
+          best = r;
+        }
+      }
+      if (best < 0) {
+        break;
+      }
+      taken[best] = true;
+      top.add(new SessionRollup.ReasonCount(REASONS[best], counts[best]));
+    }
+    return List.copyOf(top);
+  }
+
+  private static long[] closedSessions(UUID playerId) {
+    long[] since = new long[TYPES.length];
+    Arrays.fill(since, NOT_OPEN);
+    return since;
+  }
+
+  private static boolean isClosed(long[] since) {
+    for (long value : since) {
+      if (value != NOT_OPEN) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,47 @@
+package dev.minemotes.stats;
+
+import dev.minemotes.core.EmoteType;
+import dev.minemotes.core.SeatManager.SeatRemovalReason;
+import java.util.List;
+
+/**
+ * Emote sessions aggregated over one window. Only emote types with activity in the window are
+ * listed.
+ */
+public record SessionRollup(
+    long windowStartMillis, long windowEndMillis, int openSessions, List<TypeStats> types) {
+
+  public boolean isEmpty() {
+    return types.isEmpty();
+  }
+
+  /**
+   * Per-type counts for a window. {@code durations} holds the lengths of sessions that ended in the
+   * window, in milliseconds, and can be merged across windows.
+   */
+  public record TypeStats(
+      EmoteType type,
+      long started,
+      long ended,
+      LogHistogram durations,
+      List<ReasonCount> topReasons) {
+
+    public long p50Millis() {
+      return durations.valueAtPercentile(50.0d);
+    }
+
+    public long p90Millis() {
+      return durations.valueAtPercentile(90.0d);
+    }
+
+    public long p99Millis() {
+      return durations.valueAtPercentile(99.0d);
+    }
+
+    public long maxMillis() {
+      return durations.max();
+    }
+  }
+
+  public record ReasonCount(SeatRemovalReason reason, long count) {}
+}
@@ -0,0 +1,37 @@
+package dev.minemotes.stats;
+
+import dev.minemotes.core.EmoteType;
+import dev.minemotes.core.SeatManager.SeatRemovalReason;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Emote sessions since {@code sinceMillis}, unlike {@link SessionRollup} which covers a single
+ * window. Only emote types that were ever started or stopped are listed.
+ */
+public record SessionStats(long sinceMillis, List<Lifetime> types) {
+
+  /**
+   * Counts for one emote type. {@code durations} holds session lengths in milliseconds. {@code
+   * retoggles} counts starts that followed the same player's previous stop of this emote within the
+   * cooldown, which is a sign the cooldown or cancel rules are interrupting players.
+   */
+  public record Lifetime(
+      EmoteType type,
+      long started,
+      long ended,
+      long retoggles,
+      LogHistogram durations,
+      Map<SeatRemovalReason, Long> reasons) {
+
+    /** Fraction of starts that were rapid re-toggles, 0 when nothing started. */
+    public double retoggleRate() {
+      return started == 0L ? 0.0d : (double) retoggles / started;
+    }
+
+    /** Fraction of ended sessions that ended for {@code reason}. */
+    public double share(SeatRemovalReason reason) {
+      return ended == 0L ? 0.0d : (double) reasons.getOrDefault(reason, 0L) / ended;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package dev.minemotes.stats;
+
+import dev.minemotes.core.EmoteType;
+import dev.minemotes.core.SeatManager.SeatRemovalReason;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size ring of the most recent session starts and stops, for working out after the fact why
+ * a seat went away. Every field is stored in preallocated primitive arrays, so recording allocates
+ * nothing; the oldest entry is overwritten once the ring is full. Writers claim a slot with one
+ * atomic increment and publish it through a per-slot sequence, so readers never block them and
+ * skip slots that are being overwritten.
+ */
+public final class TransitionLog {
+  public static final int DEFAULT_CAPACITY = 8192;
+
+  private static final EmoteType[] TYPES = EmoteType.values();
+  private static final SeatRemovalReason[] REASONS = SeatRemovalReason.values();
+  private static final long WRITING = -1L;
+
+  private final int mask;
+  private final AtomicLong next = new AtomicLong();
+  private final AtomicLongArray published;
+  private final long[] playerHigh;
+  private final long[] playerLow;
+  private final long[] ticks;
+  private final long[] times;
+  private final byte[] types;
+  // Removal reason ordinal for stops, -1 for starts.
+  private final byte[] reasons;
+
+  public TransitionLog() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /** {@code capacity} is rounded up to a power of two. */
+  public TransitionLog(int capacity) {
+    int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+    this.mask = size - 1;
+    this.published = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      published.set(i, WRITING);
+    }
+    this.playerHigh = new long[size];
+    this.playerLow = new long[size];
+    this.ticks = new long[size];
+    this.times = new long[size];
+    this.types = new byte[size];
+    this.reasons = new byte[size];
+  }
+
+  public int capacity() {
+    return mask + 1;
+  }
+
+  /** Total transitions recorded since startup, including those already overwritten. */
+  public long recorded() {
+    return next.get();
+  }
+
+  public void started(UUID player, EmoteType type, long tick) {
+    write(player, type, -1, tick);
+  }
+
+  public void stopped(UUID player, EmoteType type, SeatRemovalReason reason, long tick) {
+    write(player, type, reason.ordinal(), tick);
+  }
+
+  private void write(UUID player, EmoteType type, int reason, long tick) {
+    long sequence = next.getAndIncrement();
+    int slot = (int) (sequence & mask);
+    published.set(slot, WRITING);
+    VarHandle.storeStoreFence();
+    playerHigh[slot] = player.getMostSignificantBits();
+    playerLow[slot] = player.getLeastSignificantBits();
+    ticks[slot] = tick;
+    times[slot] = System.currentTimeMillis();
+    types[slot] = (byte) type.ordinal();
+    reasons[slot] = (byte) reason;
+    published.set(slot, sequence);
+  }
+
+  /**
+   * Returns up to {@code limit} of the newest entries, oldest first. With a non-null {@code player}
+   * only that player's entries are returned.
+   */
+  public List<Entry> last(int limit, UUID player) {
+    long end = next.get();
+    long start = Math.max(0L, end - capacity());
+    List<Entry> newestFirst = new ArrayList<>(Math.min(limit, capacity()));
+    for (long sequence = end - 1; sequence >= start && newestFirst.size() < limit; sequence--) {
+      Entry entry = read(sequence);
+      if (entry != null && (player == null || player.equals(entry.player()))) {
+        newestFirst.add(entry);
+      }
+    }
+    Collections.reverse(newestFirst);
+    return newestFirst;
+  }
+
+  private Entry read(long sequence) {
+    int slot = (int) (sequence & mask);
+    if (published.get(slot) != sequence) {
+      return null;
+    }
+    long high = playerHigh[slot];
+    long low = playerLow[slot];
+    long tick = ticks[slot];
+    long time = times[slot];
+    int type = types[slot];
+    int reason = reasons[slot];
+    VarHandle.loadLoadFence();
+    if (published.get(slot) != sequence) {
+      return null;
+    }
+    return new Entry(
+        sequence,
+        time,
+        tick,
+        new UUID(high, low),
+        TYPES[type],
+        reason < 0 ? null : REASONS[reason]);
+  }
+
+  /** One transition; {@code reason} is {@code null} for starts. */
+  public record Entry(
+      long sequence, long timeMillis, long tick, UUID player, EmoteType type, SeatRemovalReason reason) {
+    public boolean start() {
+      return reason == null;
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package dev.minemotes.trace;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decodes a {@link TraceRecorder} file and hands each record to a {@link Visitor}, with positions
+ * made absolute and string indexes resolved. A record cut short at the end of the file, e.g. by a
+ * crash, ends the trace.
+ */
+public final class TraceReader {
+  private static final TraceRecorder.Event[] EVENTS = TraceRecorder.Event.values();
+  private static final int MAX_PLAYERS = 1 << 20;
+
+  private final DataInputStream in;
+  private final List<String> strings = new ArrayList<>();
+  private int[] flags = new int[64];
+  private int[] hurtTimes = new int[64];
+  private String[] worlds = new String[64];
+  private double[] positions = new double[64 * 3];
+  private float[] yaws = new float[64];
+  private long tick;
+
+  private TraceReader(InputStream in) {
+    this.in = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+  }
+
+  /** What a trace contains, in recording order. */
+  public interface Visitor {
+    /** A player's full state after applying the recorded changes. */
+    void state(
+        int player, int flags, int hurtTime, String world, double x, double y, double z, float yaw);
+
+    /** Every state of this tick has been delivered; run the tick now. */
+    void tick(long serverTick);
+
+    void command(int player, String emote, int toggle, boolean success);
+
+    void event(int player, TraceRecorder.Event event);
+  }
+
+  /**
+   * Reads the whole trace and returns the number of records delivered.
+   *
+   * @throws IOException if the file cannot be read or is not a trace
+   */
+  public static long read(Path file, Visitor visitor) throws IOException {
+    try (InputStream in = Files.newInputStream(file)) {
+      return new TraceReader(in).readAll(visitor);
+    }
+  }
+
+  private long readAll(Visitor visitor) throws IOException {
+    if (in.readInt() != TraceRecorder.MAGIC) {
+      throw new IOException("not a MinEmotes trace");
+    }
+    byte version = in.readByte();
+    if (version != TraceRecorder.VERSION) {
+      throw new IOException("unsupported trace version " + version);
+    }
+    long records = 0L;
+    try {
+      int tag;
+      while ((tag = in.read()) >= 0) {
+        switch (tag) {
+          case TraceRecorder.STRING -> readString();
+          case TraceRecorder.STATE -> readState(visitor);
+          case TraceRecorder.TICK -> {
+            tick += readVarlong();
+            visitor.tick(tick);
+          }
+          case TraceRecorder.COMMAND -> {
+            int player = readPlayer();
+            String emote = string(readVarint());
+            int toggle = in.readByte();
+            boolean success = in.readByte() != 0;
+            visitor.command(player, emote, toggle, success);
+          }
+          case TraceRecorder.EVENT -> {
+            int player = readPlayer();
+            int event = in.readUnsignedByte();
+            if (event >= EVENTS.length) {
+              throw new IOException("unknown trace event " + event);
+            }
+            visitor.event(player, EVENTS[event]);
+          }
+          default -> throw new IOException("unknown trace record " + tag);
+        }
+        if (tag != TraceRecorder.STRING) {
+          records++;
+        }
+      }
+    } catch (EOFException truncated) {
+      // The recorder never finished its last record.
+    }
+    return records;
+  }
+
+  private void readString() throws IOException {
+    int index = readVarint();
+    int length = readVarint();
+    if (index != strings.size() || length > TraceRecorder.MAX_STRING_BYTES) {
+      throw new IOException("corrupt trace string table");
+    }
+    byte[] utf8 = new byte[length];
+    in.readFully(utf8);
+    strings.add(new String(utf8, StandardCharsets.UTF_8));
+  }
+
+  private void readState(Visitor visitor) throws IOException {
+    int player = readPlayer();
+    int changed = in.readUnsignedByte();
+    if ((changed & TraceRecorder.CHANGED_FLAGS) != 0) {
+      flags[player] = in.readShort() & 0xFFFF;
+    }
+    if ((changed & TraceRecorder.CHANGED_HURT) != 0) {
+      hurtTimes[player] = in.readByte();
+    }
+    if ((changed & TraceRecorder.CHANGED_WORLD) != 0) {
+      worlds[player] = string(readVarint());
+    }
+    int p = player * 3;
+    if ((changed & TraceRecorder.MOVED) != 0) {
+      positions[p] += in.readFloat();
+      positions[p + 1] += in.readFloat();
+      positions[p + 2] += in.readFloat();
+    } else if ((changed & TraceRecorder.JUMPED) != 0) {
+      positions[p] = in.readDouble();
+      positions[p + 1] = in.readDouble();
+      positions[p + 2] = in.readDouble();
+    }
+    if ((changed & TraceRecorder.TURNED) != 0) {
+      yaws[player] = in.readFloat();
+    }
+    visitor.state(
+        player,
+        flags[player],
+        hurtTimes[player],
+        worlds[player],
+        positions[p],
+        positions[p + 1],
+        positions[p + 2],
+        yaws[player]);
+  }
+
+  /** Reads a player number and grows the per-player tables to hold it. */
+  private int readPlayer() throws IOException {
+    int player = readVarint();
+    if (player < 0 || player > MAX_PLAYERS) {
+      throw new IOException("corrupt trace player " + player);
+    }
+    if (player >= flags.length) {
+      int size = Math.max(player + 1, flags.length * 2);
+      flags = Arrays.copyOf(flags, size);
+      hurtTimes = Arrays.copyOf(hurtTimes, size);
+      worlds = Arrays.copyOf(worlds, size);
+      positions = Arrays.copyOf(positions, size * 3);
+      yaws = Arrays.copyOf(yaws, size);
+    }
+    if (worlds[player] == null) {
+      worlds[player] = "";
+    }
+    return player;
+  }
+
+  private String string(int index) throws IOException {
+    if (index >= strings.size()) {
+      throw new IOException("trace string " + index + " used before it was defined");
+    }
+    return strings.get(index);
+  }
+
+  private int readVarint() throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("corrupt trace varint");
+  }
+
+  private long readVarlong() throws IOException {
+    long value = 0L;
+    for (int shift = 0; shift < 70; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("corrupt trace varint");
+  }
+}
@@ -0,0 +1,416 @@
+package dev.minemotes.trace;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.fabricmc.loader.api.FabricLoader;
+
+/**
+ * Time-boxed binary trace of what reaches {@code EmoteService}: commands with their outcome, the
+ * state of every player it looks at in a tick, and the disconnect, death, world change and teleport
+ * hooks. {@link TraceReader} decodes it for replay. Players are numbered in order of appearance,
+ * so a trace holds no UUIDs or names. A state record is only written for a player whose state
+ * changed since its last one.
+ *
+ * <p>Layout: {@code int magic, byte version}, then records that each start with a tag byte. Varints
+ * use 7 bits per byte, low bits first.
+ *
+ * <ul>
+ *   <li>{@code STRING}: varint index, varint length, UTF-8 bytes. Adds a world key or emote name to
+ *       the string table.
+ *   <li>{@code STATE}: varint player, byte changed, then only the changed fields in this order:
+ *       {@code short flags}, {@code byte hurtTime}, {@code varint world}, {@code float dx, dy, dz}
+ *       or {@code double x, y, z}, {@code float yaw}.
+ *   <li>{@code TICK}: varint server ticks since the previous {@code TICK}. States written before it
+ *       belong to that tick.
+ *   <li>{@code COMMAND}: varint player, varint emote, byte toggle ordinal or -1 for seat emotes,
+ *       byte success.
+ *   <li>{@code EVENT}: varint player, byte {@link Event} ordinal.
+ * </ul>
+ *
+ * <p>Call from the server thread only. Records are encoded into a heap buffer, and full buffers are
+ * written by a background thread. If that thread falls behind, or the file reaches its size cap,
+ * the recorder reports itself {@link #expired()} and stops accepting records.
+ */
+public final class TraceRecorder implements AutoCloseable {
+  public static final int ON_GROUND = 1;
+  public static final int TOUCHING_WATER = 1 << 1;
+  public static final int FLYING = 1 << 2;
+  public static final int SPECTATOR = 1 << 3;
+  public static final int SLEEPING = 1 << 4;
+  public static final int DEAD = 1 << 5;
+  public static final int REMOVED = 1 << 6;
+  public static final int HAS_VEHICLE = 1 << 7;
+  /** The vehicle is the player's own emote seat. */
+  public static final int RIDING_SEAT = 1 << 8;
+  /** The player's emote seat entity is gone, e.g. killed by a command. */
+  public static final int SEAT_REMOVED = 1 << 9;
+  /** A crawler's head room is blocked, so crawling would suffocate them. */
+  public static final int HEAD_BLOCKED = 1 << 10;
+
+  /** Hooks recorded as {@code EVENT} records. */
+  public enum Event {
+    DISCONNECT,
+    DEATH,
+    WORLD_CHANGE,
+    TELEPORT
+  }
+
+  /** Default size cap; a busy server writes a few hundred kilobytes a second. */
+  public static final long DEFAULT_MAX_BYTES = 256L * 1024L * 1024L;
+
+  static final int MAGIC = 0x4D455452;
+  static final byte VERSION = 1;
+  static final byte STRING = 1;
+  static final byte STATE = 2;
+  static final byte TICK = 3;
+  static final byte COMMAND = 4;
+  static final byte EVENT = 5;
+  static final int CHANGED_FLAGS = 1;
+  static final int CHANGED_HURT = 1 << 1;
+  static final int CHANGED_WORLD = 1 << 2;
+  static final int MOVED = 1 << 3;
+  static final int JUMPED = 1 << 4;
+  static final int TURNED = 1 << 5;
+  static final int MAX_STRING_BYTES = 1024;
+
+  // Moves beyond this are written as absolute positions, so float deltas stay precise.
+  private static final double MAX_DELTA = 64.0d;
+  private static final int BUFFER_BYTES = 256 * 1024;
+  private static final int MAX_PENDING_BUFFERS = 16;
+  private static final int MAX_RECORD_BYTES = 64;
+  private static final DateTimeFormatter FILE_TIME =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.ROOT);
+
+  private final Path file;
+  private final FileChannel channel;
+  private final ExecutorService writer;
+  private final long deadlineNanos;
+  private final long maxBytes;
+  private final Map<UUID, Player> players = new HashMap<>();
+  private final Map<String, Integer> strings = new HashMap<>();
+  private final AtomicInteger pendingBuffers = new AtomicInteger();
+  private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+  private long bytes;
+  private long lastTick;
+  private boolean overflowed;
+  private boolean closed;
+  private volatile IOException failure;
+
+  private TraceRecorder(Path file, FileChannel channel, Duration duration, long maxBytes) {
+    this.file = file;
+    this.channel = channel;
+    this.deadlineNanos = System.nanoTime() + duration.toNanos();
+    this.maxBytes = maxBytes;
+    this.writer =
+        Executors.newSingleThreadExecutor(
+            r -> {
+              Thread thread = new Thread(r, "MinEmotes-Trace");
+              thread.setDaemon(true);
+              return thread;
+            });
+    buffer.putInt(MAGIC).put(VERSION);
+  }
+
+  public static Path defaultDirectory() {
+    return FabricLoader.getInstance().getGameDir().resolve("minemotes").resolve("traces");
+  }
+
+  /** Opens a trace file in {@code directory} that stops recording after {@code duration}. */
+  public static TraceRecorder start(Path directory, Duration duration, long maxBytes)
+      throws IOException {
+    Files.createDirectories(directory);
+    Path file = directory.resolve("trace-" + LocalDateTime.now().format(FILE_TIME) + ".bin");
+    FileChannel channel =
+        FileChannel.open(
+            file,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE);
+    return new TraceRecorder(file, channel, duration, maxBytes);
+  }
+
+  public Path file() {
+    return file;
+  }
+
+  /** Bytes recorded so far, including any still waiting to be written. */
+  public long bytes() {
+    return bytes + buffer.position();
+  }
+
+  /**
+   * True once the duration has run out, the size cap was reached, the writer fell behind or a
+   * write failed. Records are dropped from then on; the owner should {@link #close()} it.
+   */
+  public boolean expired() {
+    return overflowed
+        || failure != null
+        || bytes() >= maxBytes
+        || System.nanoTime() - deadlineNanos >= 0L;
+  }
+
+  /** Why writing failed or fell behind, or {@code null}. */
+  public String problem() {
+    IOException error = failure;
+    if (error != null) {
+      return String.valueOf(error.getMessage());
+    }
+    return overflowed ? "trace writer fell behind" : null;
+  }
+
+  /** Records a player's state if any of it changed since the last state written for them. */
+  public void state(
+      UUID player,
+      int flags,
+      int hurtTime,
+      String world,
+      double x,
+      double y,
+      double z,
+      float yaw) {
+    if (closed || expired()) {
+      return;
+    }
+    Player known = players.get(player);
+    int changed;
+    if (known == null) {
+      known = new Player(players.size());
+      players.put(player, known);
+      changed = CHANGED_FLAGS | CHANGED_HURT | CHANGED_WORLD | JUMPED | TURNED;
+    } else {
+      changed = 0;
+      if (known.flags != flags) {
+        changed |= CHANGED_FLAGS;
+      }
+      if (known.hurtTime != hurtTime) {
+        changed |= CHANGED_HURT;
+      }
+      if (!world.equals(known.world)) {
+        changed |= CHANGED_WORLD;
+      }
+      if (x != known.x || y != known.y || z != known.z) {
+        boolean far =
+            Math.abs(x - known.x) > MAX_DELTA
+                || Math.abs(y - known.y) > MAX_DELTA
+                || Math.abs(z - known.z) > MAX_DELTA;
+        changed |= far ? JUMPED : MOVED;
+      }
+      if (yaw != known.yaw) {
+        changed |= TURNED;
+      }
+      if (changed == 0) {
+        return;
+      }
+    }
+    int worldIndex = (changed & CHANGED_WORLD) != 0 ? string(world) : 0;
+    ensure(MAX_RECORD_BYTES);
+    buffer.put(STATE);
+    putVarint(known.slot);
+    buffer.put((byte) changed);
+    if ((changed & CHANGED_FLAGS) != 0) {
+      buffer.putShort((short) flags);
+      known.flags = flags;
+    }
+    if ((changed & CHANGED_HURT) != 0) {
+      buffer.put((byte) Math.min(hurtTime, 127));
+      known.hurtTime = hurtTime;
+    }
+    if ((changed & CHANGED_WORLD) != 0) {
+      putVarint(worldIndex);
+      known.world = world;
+    }
+    if ((changed & MOVED) != 0) {
+      float dx = (float) (x - known.x);
+      float dy = (float) (y - known.y);
+      float dz = (float) (z - known.z);
+      buffer.putFloat(dx).putFloat(dy).putFloat(dz);
+      // Track what a reader reconstructs, so rounding does not accumulate.
+      known.x += dx;
+      known.y += dy;
+      known.z += dz;
+    } else if ((changed & JUMPED) != 0) {
+      buffer.putDouble(x).putDouble(y).putDouble(z);
+      known.x = x;
+      known.y = y;
+      known.z = z;
+    }
+    if ((changed & TURNED) != 0) {
+      buffer.putFloat(yaw);
+      known.yaw = yaw;
+    }
+  }
+
+  /** Marks the end of the states of one server tick; the tick itself runs after this. */
+  public void tick(long serverTick) {
+    if (closed || expired()) {
+      return;
+    }
+    ensure(MAX_RECORD_BYTES);
+    buffer.put(TICK);
+    putVarlong(Math.max(0L, serverTick - lastTick));
+    lastTick = serverTick;
+  }
+
+  /**
+   * Records a command and whether it succeeded. {@code toggle} is the crawl toggle ordinal, or -1
+   * for seat emotes.
+   */
+  public void command(UUID player, String emote, int toggle, boolean success) {
+    if (closed || expired()) {
+      return;
+    }
+    int slot = slot(player);
+    int emoteIndex = string(emote);
+    ensure(MAX_RECORD_BYTES);
+    buffer.put(COMMAND);
+    putVarint(slot);
+    putVarint(emoteIndex);
+    buffer.put((byte) toggle);
+    buffer.put((byte) (success ? 1 : 0));
+  }
+
+  public void event(UUID player, Event event) {
+    if (closed || expired()) {
+      return;
+    }
+    int slot = slot(player);
+    ensure(MAX_RECORD_BYTES);
+    buffer.put(EVENT);
+    putVarint(slot);
+    buffer.put((byte) event.ordinal());
+  }
+
+  /** Hands the last records to the writer and closes the file in the background. */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    flush();
+    writer.execute(
+        () -> {
+          try {
+            channel.force(false);
+            channel.close();
+          } catch (IOException e) {
+            failure = e;
+          }
+        });
+    writer.shutdown();
+  }
+
+  /** Waits for a closed trace to reach the disk; true if it did within {@code timeout}. */
+  public boolean awaitClosed(Duration timeout) throws InterruptedException {
+    return writer.awaitTermination(timeout.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  private int slot(UUID player) {
+    Player known = players.get(player);
+    if (known == null) {
+      // A command or event before any state; the reader starts it from zeroed state.
+      known = new Player(players.size());
+      known.world = "";
+      players.put(player, known);
+    }
+    return known.slot;
+  }
+
+  private int string(String value) {
+    Integer index = strings.get(value);
+    if (index != null) {
+      return index;
+    }
+    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+    int length = Math.min(utf8.length, MAX_STRING_BYTES);
+    int next = strings.size();
+    strings.put(value, next);
+    ensure(length + 16);
+    buffer.put(STRING);
+    putVarint(next);
+    putVarint(length);
+    buffer.put(utf8, 0, length);
+    return next;
+  }
+
+  private void ensure(int needed) {
+    if (buffer.remaining() < needed) {
+      flush();
+    }
+  }
+
+  private void flush() {
+    if (buffer.position() == 0) {
+      return;
+    }
+    ByteBuffer full = buffer;
+    bytes += full.position();
+    buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    if (pendingBuffers.get() >= MAX_PENDING_BUFFERS) {
+      overflowed = true;
+      return;
+    }
+    full.flip();
+    pendingBuffers.incrementAndGet();
+    writer.execute(
+        () -> {
+          try {
+            while (full.hasRemaining()) {
+              channel.write(full);
+            }
+          } catch (IOException e) {
+            failure = e;
+          } finally {
+            pendingBuffers.decrementAndGet();
+          }
+        });
+  }
+
+  private void putVarint(int value) {
+    while ((value & ~0x7F) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  private void putVarlong(long value) {
+    while ((value & ~0x7FL) != 0L) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  /** Last state written for one player, as a reader will have reconstructed it. */
+  private static final class Player {
+    private final int slot;
+    private int flags;
+    private int hurtTime;
+    private String world;
+    private double x;
+    private double y;
+    private double z;
+    private float yaw;
+
+    Player(int slot) {
+      this.slot = slot;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package dev.minemotes.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.minemotes.core.EmoteType;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ConfigDiffTest {
+  @Test
+  void identicalSnapshotsProduceEmptyDiff() {
+    ConfigDiff diff = ConfigDiff.between(Config.defaults(), Config.defaults());
+
+    assertTrue(diff.isEmpty());
+    assertFalse(diff.affects(EnumSet.allOf(ConfigDiff.Section.class)));
+  }
+
+  @Test
+  void disabledEmoteAndWorldAreReportedUnderTheirSections() {
+    Config before = Config.defaults();
+    Config.Emotes emotes = before.emotes();
+    Config.SeatEmoteConfig lay = emotes.lay();
+    Config after =
+        before
+            .withCore(before.core().withDisableInWorlds(Set.of("minecraft:the_end")))
+            .withEmotes(
+                new Config.Emotes(
+                    emotes.crawl(),
+                    emotes.sit(),
+                    emotes.chair(),
+                    new Config.SeatEmoteConfig(
+                        false, lay.offsetX(), lay.offsetY(), lay.offsetZ(), lay.targetPitch()),
+                    emotes.belly()));
+
+    ConfigDiff diff = ConfigDiff.between(before, after);
+
+    assertEquals(EnumSet.of(ConfigDiff.Section.CORE, ConfigDiff.Section.EMOTES), diff.sections());
+    assertEquals(Set.of(EmoteType.LAY), diff.emotesDisabled());
+    assertEquals(Set.of("minecraft:the_end"), diff.worldsDisabled());
+    assertTrue(diff.placementChanged().isEmpty());
+    assertFalse(diff.chairBlockTagsChanged());
+    assertFalse(diff.affects(EnumSet.of(ConfigDiff.Section.LEDGER)));
+  }
+
+  @Test
+  void chairBlockTagsAreAnEmotesChange() {
+    Config before = Config.defaults();
+    Config after =
+        before.withEmotes(before.emotes().withChairBlockTags(List.of("minecraft:beds")));
+
+    ConfigDiff diff = ConfigDiff.between(before, after);
+
+    assertEquals(EnumSet.of(ConfigDiff.Section.EMOTES), diff.sections());
+    assertTrue(diff.chairBlockTagsChanged());
+    assertTrue(diff.emotesDisabled().isEmpty());
+  }
+
+  @Test
+  void placementAndPermissionChangesAreTrackedPerEmote() {
+    Config before = Config.defaults();
+    Config.Emotes emotes = before.emotes();
+    Config.SeatEmoteConfig sit = emotes.sit();
+    Config.Permissions perms = before.permissions();
+    Map<EmoteType, Integer> levels = new EnumMap<>(EmoteType.class);
+    for (EmoteType type : EmoteType.values()) {
+      levels.put(type, perms.fallbackLevel(type));
+    }
+    Config after =
+        before
+            .withEmotes(
+                new Config.Emotes(
+                    emotes.crawl(),
+                    new Config.SeatEmoteConfig(
+                        true, sit.offsetX(), sit.offsetY() - 0.1d, sit.offsetZ(), sit.targetPitch()),
+                    emotes.chair(),
+                    emotes.lay(),
+                    emotes.belly()))
+            .withPermissions(
+                new Config.Permissions(
+                    perms.crawl(),
+                    perms.sit(),
+                    perms.chair(),
+                    perms.lay(),
+                    "example.belly",
+                    perms.admin(),
+                    levels));
+
+    ConfigDiff diff = ConfigDiff.between(before, after);
+
+    assertEquals(Set.of(EmoteType.SIT), diff.placementChanged());
+    assertTrue(diff.permissionsChanged().contains(EmoteType.BELLY));
+    assertFalse(diff.permissionsChanged().contains(EmoteType.SIT));
+    assertFalse(diff.sections().contains(ConfigDiff.Section.CORE));
+  }
+}
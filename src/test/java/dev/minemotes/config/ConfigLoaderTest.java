@@ -2,9 +2,13 @@ package dev.minemotes.config;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import dev.minemotes.core.EmoteType;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 
 class ConfigLoaderTest {
@@ -28,15 +32,87 @@ class ConfigLoaderTest {
     Files.writeString(
         path,
         "{" +
-            "core:{enabled:true,cooldownS:5}," +
-            "emotes:{sit:{enabled:false}}," +
+            "core:{enabled:true,cooldownS:5,rateLimit:{burst:3,penaltyS:10}}," +
+            "emotes:{sit:{enabled:false},chair:{blockTags:[\"minecraft:beds\"]}}," +
             "permissions:{admin:\"test.admin\"}" +
             "}");
 
     Config config = ConfigLoader.load(path);
 
     assertEquals(5.0, config.core().cooldown().toSeconds());
+    assertEquals(3, config.core().rateLimit().burst());
+    assertEquals(Duration.ofSeconds(10), config.core().rateLimit().penalty());
+    assertEquals(
+        Config.RateLimit.defaults().refillInterval(), config.core().rateLimit().refillInterval());
     assertFalse(config.emotes().sit().enabled());
+    assertEquals(List.of("minecraft:beds"), config.emotes().chairBlockTags());
     assertEquals("test.admin", config.permissions().admin());
   }
+
+  @Test
+  void coreWithersKeepRateLimit() {
+    Config.Core core = Config.defaults().core();
+    Config.RateLimit defaults = core.rateLimit();
+    Config.RateLimit limit =
+        new Config.RateLimit(
+            !defaults.enabled(),
+            defaults.burst() + 1,
+            defaults.refillInterval(),
+            defaults.penalty(),
+            defaults.maxPenalty());
+    Config.Core limited = core.withRateLimit(limit);
+
+    assertSame(limit, limited.withCancelOnDanger(!core.cancelOnDanger()).rateLimit());
+    assertSame(limit, limited.withCooldown(Duration.ofSeconds(1)).rateLimit());
+    assertSame(limit, limited.withSlowCommandThreshold(Duration.ofMillis(5)).rateLimit());
+    assertSame(limit, limited.withDisableInWorlds(Set.of("minecraft:the_end")).rateLimit());
+  }
+
+  @Test
+  void invalidSectionsFallBackToDefaultsAtStartup() {
+    Config defaults = Config.defaults();
+    Config.CustomEmote wave =
+        new Config.CustomEmote(
+            "Wave",
+            EmoteType.SIT,
+            new Config.SeatEmoteConfig(true, 0.0d, 0.0d, 0.0d, 0.0f),
+            true,
+            true,
+            false,
+            "example.wave",
+            0,
+            "Waving.",
+            "Done.");
+    Config.Zone zone =
+        new Config.Zone(
+            "spawn", "minecraft:overworld", 0, 0, 0, 9, 9, 9, 0, Set.of("Wave"), null, null);
+    Config.RateLimit limit = defaults.core().rateLimit();
+    Config loaded =
+        defaults
+            .withCore(
+                defaults
+                    .core()
+                    .withCooldown(Duration.ofSeconds(5))
+                    .withRateLimit(
+                        new Config.RateLimit(
+                            true, 0, limit.refillInterval(), limit.penalty(), limit.maxPenalty())))
+            .withLedger(
+                new Config.Ledger(
+                    -1, 64, Duration.ZERO, Config.OverflowPolicy.DROP_OLDEST, Duration.ZERO))
+            .withEmotes(defaults.emotes().withCustom(List.of(wave)))
+            .withZones(List.of(zone));
+    assertFalse(loaded.validationErrors().isEmpty());
+
+    Config config = ConfigLoader.withInvalidSectionsReset(loaded);
+
+    assertEquals(List.of(), config.validationErrors());
+    Config.Ledger ledger = Config.Ledger.defaults();
+    assertEquals(ledger.flushInterval(), config.ledger().flushInterval());
+    assertEquals(ledger.queueCapacity(), config.ledger().queueCapacity());
+    assertEquals(Config.RateLimit.defaults().burst(), config.core().rateLimit().burst());
+    assertEquals(5.0, config.core().cooldown().toSeconds());
+    assertTrue(config.emotes().custom().isEmpty());
+    assertTrue(config.zones().isEmpty());
+    assertSame(config, ConfigLoader.withInvalidSectionsReset(config));
+  }
 }
@@ -0,0 +1,88 @@
+package dev.minemotes.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ConfigManagerTest {
+  @Test
+  void reloadIsAppliedAtTickBoundary() throws Exception {
+    Path path = Files.createTempDirectory("minemotes-config").resolve("minemotes.json5");
+    ConfigManager manager = new ConfigManager(path);
+    manager.start();
+    try {
+      List<Config> seen = new ArrayList<>();
+      manager.addListener(seen::add);
+      Files.writeString(path, "{core:{cooldownS:5}}");
+
+      CompletableFuture<ReloadResult> future = manager.reloadAsync();
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (!manager.hasPending() && System.nanoTime() < deadline) {
+        Thread.sleep(5);
+      }
+
+      assertFalse(future.isDone());
+      assertNotEquals(5.0, manager.current().core().cooldown().toSeconds());
+      while (!future.isDone() && System.nanoTime() < deadline) {
+        manager.applyPending();
+        Thread.sleep(5);
+      }
+      assertTrue(future.get(1, TimeUnit.SECONDS).applied());
+      assertEquals(5.0, manager.current().core().cooldown().toSeconds());
+      assertSame(manager.current(), seen.get(seen.size() - 1));
+    } finally {
+      manager.close();
+    }
+  }
+
+  @Test
+  void invalidReloadKeepsPreviousConfig() throws Exception {
+    Path path = Files.createTempDirectory("minemotes-config").resolve("minemotes.json5");
+    ConfigManager manager = new ConfigManager(path);
+    manager.start();
+    try {
+      Config before = manager.current();
+      Files.writeString(path, "{ledger:{queueCapacity:1}}");
+
+      ReloadResult result = manager.reloadAsync().get(5, TimeUnit.SECONDS);
+      manager.applyPending();
+
+      assertFalse(result.applied());
+      assertTrue(
+          result.errors().stream().anyMatch(error -> error.startsWith("ledger.queueCapacity")));
+      assertSame(before, manager.current());
+    } finally {
+      manager.close();
+    }
+  }
+
+  @Test
+  void unchangedContentIsNotRepublished() throws Exception {
+    Path path = Files.createTempDirectory("minemotes-config").resolve("minemotes.json5");
+    ConfigManager manager = new ConfigManager(path);
+    manager.start();
+    try {
+      List<Config> seen = new ArrayList<>();
+      manager.addListener(seen::add);
+
+      assertTrue(manager.reloadAsync().get(5, TimeUnit.SECONDS).applied());
+      assertFalse(manager.hasPending());
+
+      Config before = manager.current();
+      Files.writeString(path, "{ core: { enabled: " + before.core().enabled() + " } }");
+      assertTrue(manager.reloadAsync().get(5, TimeUnit.SECONDS).applied());
+      manager.applyPending();
+
+      assertSame(before, manager.current());
+      assertEquals(1, seen.size());
+    } finally {
+      manager.close();
+    }
+  }
+}
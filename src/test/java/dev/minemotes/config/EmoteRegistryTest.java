@@ -0,0 +1,71 @@
+package dev.minemotes.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.minemotes.core.EmoteType;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class EmoteRegistryTest {
+  @Test
+  void builtinsUseOrdinalIds() {
+    EmoteRegistry registry = Config.defaults().registry();
+
+    assertEquals(EmoteRegistry.BUILTIN_COUNT, registry.size());
+    for (EmoteType type : List.of(EmoteType.CRAWL, EmoteType.SIT, EmoteType.BELLY)) {
+      int id = EmoteRegistry.id(type);
+      assertEquals(id, registry.id(type.id()));
+      assertEquals(type, registry.pose(id));
+      assertEquals(type.startKey(), registry.startMessage(id));
+    }
+    assertNull(registry.seat(EmoteRegistry.id(EmoteType.CRAWL)));
+    assertThrows(IllegalArgumentException.class, () -> EmoteRegistry.id(EmoteType.ADMIN));
+  }
+
+  @Test
+  void customEmotesFollowBuiltinsAndSkipClashes() {
+    Config defaults = Config.defaults();
+    Config.Emotes emotes = defaults.emotes();
+    Config config =
+        defaults.withEmotes(
+            new Config.Emotes(
+                emotes.crawl(),
+                emotes.sit(),
+                emotes.chair(),
+                emotes.lay(),
+                emotes.belly(),
+                List.of(
+                    custom("kneel", EmoteType.SIT, true),
+                    custom("sit", EmoteType.LAY, false),
+                    custom("kneel", EmoteType.BELLY, false),
+                    custom("sprawl", EmoteType.LAY, false))));
+
+    EmoteRegistry registry = config.registry();
+
+    assertEquals(EmoteRegistry.BUILTIN_COUNT + 2, registry.size());
+    int kneel = registry.id("kneel");
+    assertEquals(EmoteRegistry.BUILTIN_COUNT, kneel);
+    assertEquals(EmoteType.SIT, registry.pose(kneel));
+    assertTrue(registry.cancelOnMove(kneel));
+    assertFalse(registry.isBuiltin(kneel));
+    assertEquals("Kneeling.", registry.startMessage(kneel));
+    assertEquals(EmoteType.LAY, registry.pose(registry.id("sprawl")));
+    assertEquals(EmoteRegistry.id(EmoteType.SIT), registry.id("sit"));
+    assertEquals(-1, registry.id("missing"));
+    assertEquals(2, config.validationErrors().size());
+  }
+
+  private static Config.CustomEmote custom(String id, EmoteType pose, boolean cancelOnMove) {
+    return new Config.CustomEmote(
+        id,
+        pose,
+        new Config.SeatEmoteConfig(true, 0.0d, -0.6d, 0.0d, 10.0f),
+        true,
+        cancelOnMove,
+        false,
+        "example." + id,
+        0,
+        "Kneeling.",
+        "Standing.");
+  }
+}
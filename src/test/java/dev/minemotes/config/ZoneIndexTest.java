@@ -0,0 +1,62 @@
+package dev.minemotes.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ZoneIndexTest {
+  private static final String OVERWORLD = "minecraft:overworld";
+
+  @Test
+  void resolvesHighestPriorityZoneContainingPosition() {
+    Config.Zone spawn = zone("spawn", OVERWORLD, -40, 40, 0, Set.of("sit"));
+    Config.Zone arena = zone("arena", OVERWORLD, 10, 20, 5, null);
+    ZoneIndex index = ZoneIndex.build(List.of(spawn, arena));
+
+    assertSame(arena, index.zoneAt(OVERWORLD, 15, 64, 15));
+    assertSame(spawn, index.zoneAt(OVERWORLD, -40, 64, 40));
+    assertSame(spawn, index.zoneAt(OVERWORLD, 25, 64, 25));
+    assertNull(index.zoneAt(OVERWORLD, 41, 64, 0));
+    assertNull(index.zoneAt(OVERWORLD, 0, 400, 0));
+    assertNull(index.zoneAt("minecraft:the_nether", 0, 64, 0));
+  }
+
+  @Test
+  void resolvesEveryChunkOfAWideZoneAcrossNegativeCoordinates() {
+    Config.Zone wide = zone("wide", OVERWORLD, -200, 200, 0, null);
+    Config.Zone pocket = zone("pocket", OVERWORLD, -150, -140, 1, null);
+    ZoneIndex index = ZoneIndex.build(List.of(wide, pocket));
+
+    assertEquals(26 * 26 + 2 * 2, index.indexedChunks());
+    for (int x = -200; x <= 200; x += 16) {
+      for (int z = -200; z <= 200; z += 16) {
+        Config.Zone expected = pocket.contains(x, 64, z) ? pocket : wide;
+        assertSame(expected, index.zoneAt(OVERWORLD, x, 64, z), x + "," + z);
+      }
+    }
+    assertSame(pocket, index.zoneAt(OVERWORLD, -145, 64, -145));
+    assertNull(index.zoneAt(OVERWORLD, -201, 64, 0));
+    assertNull(index.zoneAt(OVERWORLD, 0, 64, 201));
+  }
+
+  @Test
+  void bucketsPerChunkColumnAndSkipsInvertedZones() {
+    ZoneIndex index =
+        ZoneIndex.build(
+            List.of(
+                zone("small", OVERWORLD, 0, 15, 0, null),
+                zone("inverted", OVERWORLD, 10, 0, 0, null)));
+
+    assertEquals(1, index.indexedChunks());
+    assertTrue(ZoneIndex.build(List.of()).isEmpty());
+    assertEquals(9L, ZoneIndex.chunkSpan(zone("wide", OVERWORLD, -16, 31, 0, null)));
+  }
+
+  private static Config.Zone zone(
+      String name, String world, int min, int max, int priority, Set<String> emotes) {
+    return new Config.Zone(
+        name, world, min, 0, min, max, 255, max, priority, emotes, null, Boolean.TRUE);
+  }
+}
@@ -2,26 +2,27 @@ package dev.minemotes.core;
 
 import static org.junit.jupiter.api.Assertions.*;
 import dev.minemotes.config.Config;
+import dev.minemotes.config.ConfigDiff;
+import dev.minemotes.stats.AdmissionStage;
+import dev.minemotes.trace.TraceReader;
+import dev.minemotes.trace.TraceRecorder;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
-import net.minecraft.SharedConstants;
-import net.minecraft.util.math.Box;
-import net.minecraft.util.math.Vec3d;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class EmoteServiceTest {
-  static {
-    SharedConstants.createGameVersion();
-  }
-
   private TestPlayerAdapter player;
 
   @BeforeEach
   void setup() {
     player = new TestPlayerAdapter(UUID.randomUUID(), "Tester", "minecraft:overworld");
-    player.setBoundingBox(new Box(0, 0, 0, 1, 1, 1));
-    player.setPosition(Vec3d.ZERO);
     player.setYaw(0f);
     player.setPitch(0f);
   }
@@ -29,7 +30,7 @@ class EmoteServiceTest {
   @Test
   void crawlEnableThenCooldown() {
     Config config = Config.defaults();
-    EmoteService service = new EmoteService(() -> config, new SeatManager());
+    EmoteService service = new EmoteService(() -> config, new SeatManager(new SimulatedSeats()));
 
     EmoteService.Result enable = service.handleCrawl(player, EmoteService.Toggle.ENABLE);
     assertTrue(enable.success());
@@ -39,7 +40,43 @@ class EmoteServiceTest {
 
     EmoteService.Result secondEnable = service.handleCrawl(player, EmoteService.Toggle.ENABLE);
     assertFalse(secondEnable.success());
-    assertTrue(secondEnable.message().getString().contains("cooldown"));
+    assertEquals("minemotes.cmd.cooldown", secondEnable.message().key());
+  }
+
+  @Test
+  void sitSpamIsRateLimitedIncludingStops() {
+    Config defaults = Config.defaults();
+    Config config = defaults.withCore(defaults.core().withCooldown(Duration.ZERO));
+    EmoteService service = new EmoteService(() -> config, new SeatManager(new SimulatedSeats()));
+    int burst = config.core().rateLimit().burst();
+
+    for (int i = 0; i < burst; i++) {
+      assertTrue(service.handleSeat(player, EmoteType.SIT).success(), "command " + i);
+    }
+    EmoteService.Result limited = service.handleSeat(player, EmoteType.SIT);
+    assertFalse(limited.success());
+    assertEquals("minemotes.cmd.rate_limited", limited.message().key());
+    assertEquals(1L, service.counters().rejections(AdmissionStage.RATE_LIMIT));
+    assertEquals(1L, service.counters().rateLimitPenalties());
+  }
+
+  @Test
+  void cooldownRejectsBeforePermissionAndKeepsTheCurrentSeat() {
+    Config config = Config.defaults();
+    EmoteService service = new EmoteService(() -> config, new SeatManager(new SimulatedSeats()));
+    assertTrue(service.handleSeat(player, EmoteType.SIT).success());
+
+    EmoteService.Result lay = service.handleSeat(player, EmoteType.LAY);
+    assertFalse(lay.success());
+    assertEquals("minemotes.cmd.cooldown", lay.message().key());
+    assertEquals(Map.of(EmoteType.SIT, 1), service.activeCounts());
+    assertEquals(1L, service.counters().permissionChecks().count());
+    assertEquals(1L, service.counters().rejections(AdmissionStage.COOLDOWN));
+
+    player.setPermitted(false);
+    EmoteService.Result stop = service.handleSeat(player, EmoteType.SIT);
+    assertEquals("commands.generic.unknown", stop.message().key());
+    assertEquals(1L, service.counters().rejections(AdmissionStage.PERMISSION));
   }
 
   @Test
@@ -55,9 +92,233 @@ class EmoteServiceTest {
             Set.of("minecraft:overworld"),
             defaults.core().cancelOnDanger());
     Config config = new Config(core, defaults.emotes(), defaults.permissions());
-    EmoteService service = new EmoteService(() -> config, new SeatManager());
+    EmoteService service = new EmoteService(() -> config, new SeatManager(new SimulatedSeats()));
 
     EmoteService.Result result = service.handleCrawl(player, EmoteService.Toggle.ENABLE);
     assertFalse(result.success());
   }
+
+  @Test
+  void disablingCrawlOnReloadStopsOnlyCrawlers() {
+    Config before = Config.defaults();
+    Config.Emotes emotes = before.emotes();
+    Config after =
+        before.withEmotes(
+            new Config.Emotes(
+                new Config.CrawlConfig(false, emotes.crawl().waterOnly()),
+                emotes.sit(),
+                emotes.chair(),
+                emotes.lay(),
+                emotes.belly()));
+    EmoteService service = new EmoteService(() -> before, new SeatManager(new SimulatedSeats()));
+    assertTrue(service.handleCrawl(player, EmoteService.Toggle.ENABLE).success());
+
+    service.onConfigChanged(after, ConfigDiff.between(before, after));
+
+    assertFalse(player.crawlPose());
+    assertEquals(0, service.sessions().openSessions());
+  }
+
+  @Test
+  void crawlDeniedInsideZoneThatOnlyAllowsSitting() {
+    Config config =
+        Config.defaults()
+            .withZones(
+                List.of(
+                    new Config.Zone(
+                        "spawn",
+                        "minecraft:overworld",
+                        -8,
+                        -64,
+                        -8,
+                        8,
+                        320,
+                        8,
+                        0,
+                        Set.of("sit"),
+                        null,
+                        null)));
+    EmoteService service = new EmoteService(() -> config, new SeatManager(new SimulatedSeats()));
+
+    EmoteService.Result result = service.handleCrawl(player, EmoteService.Toggle.ENABLE);
+
+    assertFalse(result.success());
+    assertEquals("minemotes.cmd.zone", result.message().key());
+  }
+
+  @Test
+  void chairCentresOnSeatableBlocksAndOtherwiseSits() {
+    Config config = Config.defaults();
+    SeatManager seats = new SeatManager(new SimulatedSeats());
+    EmoteService service = new EmoteService(() -> config, seats);
+    SeatableBlocks table = new SeatableBlocks(16);
+    table.set(3, 0.5f, 90.0f);
+    table.set(7, 0.5625f, Float.NaN);
+    service.seatableBlocks(table);
+    player.setPosition(10.25d, 64.0d, -3.75d);
+    player.setTargetedBlock(new PlayerAdapter.TargetedBlock(11, 63, -4, 3));
+    TestPlayerAdapter bed = new TestPlayerAdapter(UUID.randomUUID(), "Bed", "minecraft:overworld");
+    bed.setTargetedBlock(new PlayerAdapter.TargetedBlock(0, 70, 0, 7));
+    TestPlayerAdapter stone =
+        new TestPlayerAdapter(UUID.randomUUID(), "Stone", "minecraft:overworld");
+    stone.setTargetedBlock(new PlayerAdapter.TargetedBlock(0, 70, 0, 4));
+
+    assertTrue(service.handleSeat(player, EmoteType.CHAIR).success());
+    assertTrue(service.handleSeat(bed, EmoteType.CHAIR).success());
+    assertTrue(service.handleSeat(stone, EmoteType.CHAIR).success());
+
+    Config.SeatEmoteConfig cfg = config.emotes().chair();
+    SeatManager.SeatSession chair = seats.session(player).orElseThrow();
+    assertEquals(EmoteType.CHAIR, chair.type());
+    assertEquals(11.5d - 10.25d + cfg.offsetX(), chair.offsetX(), 1e-9);
+    assertEquals(63.5d - 64.0d + cfg.offsetY(), chair.offsetY(), 1e-9);
+    assertEquals(-3.5d + 3.75d + cfg.offsetZ(), chair.offsetZ(), 1e-9);
+    SeatManager.SeatSession onBed = seats.session(bed).orElseThrow();
+    assertEquals(EmoteType.CHAIR, onBed.type());
+    assertEquals(70.5625d + cfg.offsetY(), onBed.offsetY(), 1e-6);
+    assertEquals(EmoteType.SIT, seats.session(stone).orElseThrow().type());
+  }
+
+  @Test
+  void takenChairsRefuseUntilTheBlockBreaksAndBenchesShareAFacing() {
+    Config config =
+        Config.defaults().withCore(Config.defaults().core().withCooldown(Duration.ZERO));
+    SeatManager seats = new SeatManager(new SimulatedSeats());
+    EmoteService service = new EmoteService(() -> config, seats);
+    SeatableBlocks table = new SeatableBlocks(16);
+    table.set(5, 0.5f, Float.NaN);
+    service.seatableBlocks(table);
+    player.setYaw(30.0f);
+    player.setTargetedBlock(new PlayerAdapter.TargetedBlock(4, 64, 4, 5));
+    TestPlayerAdapter other =
+        new TestPlayerAdapter(UUID.randomUUID(), "Other", "minecraft:overworld");
+    other.setYaw(200.0f);
+    other.setTargetedBlock(new PlayerAdapter.TargetedBlock(4, 64, 4, 5));
+
+    assertTrue(service.handleSeat(player, EmoteType.CHAIR).success());
+    EmoteService.Result taken = service.handleSeat(other, EmoteType.CHAIR);
+    assertFalse(taken.success());
+    assertEquals("minemotes.cmd.chair_taken", taken.message().key());
+    assertEquals(1L, service.counters().rejections(AdmissionStage.CHAIR));
+
+    other.setTargetedBlock(new PlayerAdapter.TargetedBlock(5, 64, 4, 5));
+    assertTrue(service.handleSeat(other, EmoteType.CHAIR).success());
+    assertEquals(30.0f, seats.session(other).orElseThrow().yaw());
+    assertEquals(2, seats.occupiedBlocks());
+
+    service.onBlockBroken("minecraft:the_nether", 4, 64, 4);
+    assertTrue(seats.session(player).isPresent());
+    service.onBlockBroken("minecraft:overworld", 4, 64, 4);
+    assertTrue(seats.session(player).isEmpty());
+    assertEquals(1L, service.counters().removals(SeatManager.SeatRemovalReason.BLOCK_BROKEN));
+    assertEquals(1, seats.occupiedBlocks());
+  }
+
+  @Test
+  void chairsEndOnTheNextTickOnceTheBlockIsNoLongerSeatable() {
+    SeatManager seats = new SeatManager(new SimulatedSeats());
+    EmoteService service = new EmoteService(Config::defaults, seats);
+    SeatableBlocks table = new SeatableBlocks(16);
+    table.set(5, 0.5f, Float.NaN);
+    service.seatableBlocks(table);
+    player.setTargetedBlock(new PlayerAdapter.TargetedBlock(4, 64, 4, 5));
+    assertTrue(service.handleSeat(player, EmoteType.CHAIR).success());
+
+    service.tickWorld("minecraft:overworld", 1L);
+    assertTrue(seats.session(player).isPresent());
+
+    player.setBlockState(4, 64, 4, 0);
+    service.tickWorld("minecraft:overworld", 2L);
+    assertTrue(seats.session(player).isEmpty());
+    assertEquals(1L, service.counters().removals(SeatManager.SeatRemovalReason.BLOCK_BROKEN));
+    assertEquals(0, seats.occupiedBlocks());
+  }
+
+  @Test
+  void worldTicksVisitOnlyTheirOwnSeatsAndUnloadingAWorldEndsThem() {
+    SimulatedSeats factory = new SimulatedSeats();
+    SeatManager seats = new SeatManager(factory);
+    EmoteService service = new EmoteService(Config::defaults, seats);
+    TestPlayerAdapter nether =
+        new TestPlayerAdapter(UUID.randomUUID(), "Nether", "minecraft:the_nether");
+    assertTrue(service.handleSeat(player, EmoteType.SIT).success());
+    assertTrue(service.handleSeat(nether, EmoteType.SIT).success());
+
+    nether.setPosition(5, 0, 0);
+    service.tickWorld("minecraft:overworld", 1L);
+    assertTrue(seats.session(nether).isPresent());
+    service.tickWorld("minecraft:the_nether", 1L);
+    assertTrue(seats.session(nether).isEmpty());
+    assertEquals(1L, service.counters().removals(SeatManager.SeatRemovalReason.MOVE));
+    assertEquals(1, service.activeByWorld().get("minecraft:overworld").seats());
+    assertEquals(0, service.activeByWorld().get("minecraft:the_nether").seats());
+
+    service.onWorldUnloaded("minecraft:overworld");
+    assertTrue(seats.session(player).isEmpty());
+    assertEquals(1L, service.counters().removals(SeatManager.SeatRemovalReason.WORLD_UNLOADED));
+    assertEquals(0, factory.live());
+    assertFalse(seats.worlds().contains("minecraft:overworld"));
+  }
+
+  @Test
+  void traceRecordsStatesCommandsTicksAndHooks(@TempDir Path dir) throws Exception {
+    Config config = Config.defaults();
+    EmoteService service = new EmoteService(() -> config, new SeatManager(new SimulatedSeats()));
+    TraceRecorder recorder =
+        TraceRecorder.start(dir, Duration.ofMinutes(1), TraceRecorder.DEFAULT_MAX_BYTES);
+    assertTrue(service.startTrace(recorder));
+    assertFalse(service.startTrace(recorder));
+
+    service.handleCrawl(player, EmoteService.Toggle.ENABLE);
+    service.tick(7L);
+    player.setHurtTime(5);
+    service.tick(8L);
+    service.onDisconnect(player);
+    assertSame(recorder, service.stopTrace());
+    assertNull(service.stopTrace());
+    assertTrue(recorder.awaitClosed(Duration.ofSeconds(5)));
+
+    List<String> records = new ArrayList<>();
+    TraceReader.read(
+        recorder.file(),
+        new TraceReader.Visitor() {
+          @Override
+          public void state(
+              int id,
+              int flags,
+              int hurtTime,
+              String world,
+              double x,
+              double y,
+              double z,
+              float yaw) {
+            records.add("state " + id + " hurt=" + hurtTime + " " + world);
+          }
+
+          @Override
+          public void tick(long serverTick) {
+            records.add("tick " + serverTick);
+          }
+
+          @Override
+          public void command(int id, String emote, int toggle, boolean success) {
+            records.add("command " + id + " " + emote + " " + toggle + " " + success);
+          }
+
+          @Override
+          public void event(int id, TraceRecorder.Event event) {
+            records.add("event " + id + " " + event);
+          }
+        });
+
+    assertEquals(
+        List.of(
+            "state 0 hurt=0 minecraft:overworld",
+            "command 0 crawl 0 true",
+            "tick 7",
+            "state 0 hurt=5 minecraft:overworld",
+            "tick 8",
+            "event 0 DISCONNECT"),
+        records);
+  }
 }
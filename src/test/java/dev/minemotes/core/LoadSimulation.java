@@ -0,0 +1,232 @@
+package dev.minemotes.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.minemotes.config.Config;
+import dev.minemotes.config.EmoteRegistry;
+import dev.minemotes.stats.LogHistogram;
+import dev.minemotes.stats.PerfMonitor;
+import dev.minemotes.trace.TraceRecorder;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives {@link EmoteService} with a fleet of scripted players for a number of simulated ticks and
+ * prints tick and command timings, allocation per tick and the size of every per-player table.
+ * Seats are {@link SimulatedSeats}, so the numbers cover the mod's own bookkeeping and not entity
+ * spawning. Ticks run back to back rather than every 50 ms, so the cooldown is off unless set and
+ * the rate limit is always off. Run with {@code ./gradlew simulate -Psim.players=5000
+ * -Psim.ticks=12000}; add {@code -Psim.traceDir=build/traces} to also record the run for {@link
+ * TraceReplay}.
+ */
+@Tag("simulation")
+class LoadSimulation {
+  private static final int PLAYERS = Integer.getInteger("minemotes.sim.players", 2_000);
+  private static final int TICKS = Integer.getInteger("minemotes.sim.ticks", 6_000);
+  private static final long SEED = Long.getLong("minemotes.sim.seed", 1L);
+  private static final long COOLDOWN_MS = Long.getLong("minemotes.sim.cooldownMs", 0L);
+  private static final String TRACE_DIR = System.getProperty("minemotes.sim.traceDir");
+  private static final int WARMUP = TICKS / 10;
+  private static final int SAMPLE_EVERY = 20;
+  private static final int HURT_TICKS = 10;
+  private static final int OFFLINE_TICKS = 200;
+
+  private static final String[] WORLDS = {
+    "minecraft:overworld", "minecraft:the_nether", "minecraft:the_end"
+  };
+  private static final int[] SEAT_EMOTES = {
+    EmoteRegistry.id(EmoteType.SIT),
+    EmoteRegistry.id(EmoteType.LAY),
+    EmoteRegistry.id(EmoteType.BELLY)
+  };
+
+  // Chance per online player per tick; at 20 TPS 0.004 is about one command every 12 s.
+  private static final double COMMAND = 0.004;
+  private static final double MOVE = 0.006;
+  private static final double DAMAGE = 0.001;
+  private static final double CAVE_IN = 0.0005;
+  private static final double WORLD_CHANGE = 0.0003;
+  private static final double DISCONNECT = 0.0003;
+  private static final double SEAT_KILLED = 0.0001;
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  @Test
+  void scriptedFleet() throws Exception {
+    Config defaults = Config.defaults();
+    Config config =
+        defaults.withCore(
+            defaults
+                .core()
+                .withCooldown(Duration.ofMillis(COOLDOWN_MS))
+                .withRateLimit(Config.RateLimit.disabled()));
+    SimulatedSeats seats = new SimulatedSeats();
+    SeatManager seatManager = new SeatManager(seats);
+    EmoteService service = new EmoteService(() -> config, seatManager);
+    if (TRACE_DIR != null) {
+      service.startTrace(
+          TraceRecorder.start(
+              Path.of(TRACE_DIR), Duration.ofDays(1), TraceRecorder.DEFAULT_MAX_BYTES));
+    }
+    SplittableRandom random = new SplittableRandom(SEED);
+    Bot[] bots = new Bot[PLAYERS];
+    for (int i = 0; i < PLAYERS; i++) {
+      // A quarter of the fleet lives in tunnels and only crawls.
+      bots[i] = new Bot(i, i % 4 == 0, random);
+    }
+
+    Map<String, Integer> peaks = new LinkedHashMap<>();
+    long scriptBytes = 0L;
+    long tickBytes = 0L;
+    long wallStart = System.nanoTime();
+    for (int tick = 0; tick < TICKS; tick++) {
+      if (tick == WARMUP) {
+        service.perf().reset();
+        scriptBytes = 0L;
+        tickBytes = 0L;
+      }
+      long allocStart = THREADS.getCurrentThreadAllocatedBytes();
+      for (Bot bot : bots) {
+        bot.act(tick, random, service, seatManager);
+      }
+      long allocScript = THREADS.getCurrentThreadAllocatedBytes();
+      service.tick(tick);
+      long allocTick = THREADS.getCurrentThreadAllocatedBytes();
+      scriptBytes += allocScript - allocStart;
+      tickBytes += allocTick - allocScript;
+
+      if (tick % SAMPLE_EVERY == 0) {
+        Map<String, Integer> sizes = service.tableSizes();
+        sizes.forEach((table, size) -> peaks.merge(table, size, Math::max));
+        assertEquals(sizes.get("seats"), sizes.get("seatIndex"), "seat index drifted");
+        assertEquals(
+            sizes.get("crawling") + sizes.get("seats"),
+            (int) sizes.get("openSessions"),
+            "open sessions drifted");
+      }
+    }
+    long wallNanos = System.nanoTime() - wallStart;
+    TraceRecorder trace = service.stopTrace();
+    if (trace != null) {
+      assertTrue(trace.awaitClosed(Duration.ofMinutes(1)));
+      System.out.printf("trace: %s (%d bytes)%n", trace.file(), trace.bytes());
+    }
+
+    Map<String, Integer> last = service.tableSizes();
+    print(service.perf().snapshot(), scriptBytes, tickBytes, wallNanos, peaks, last, seats);
+
+    for (Map.Entry<String, Integer> table : peaks.entrySet()) {
+      assertTrue(table.getValue() <= PLAYERS, table.getKey() + " outgrew the fleet");
+    }
+    service.shutdown();
+    assertEquals(0, service.sessions().openSessions());
+    Map<String, Integer> after = service.tableSizes();
+    assertEquals(0, (int) after.get("crawling"));
+    assertEquals(0, (int) after.get("seats"));
+    assertEquals(0, seats.live());
+  }
+
+  private static void print(
+      PerfMonitor.Snapshot perf,
+      long scriptBytes,
+      long tickBytes,
+      long wallNanos,
+      Map<String, Integer> peaks,
+      Map<String, Integer> last,
+      SimulatedSeats seats) {
+    int measured = TICKS - WARMUP;
+    System.out.printf(
+        "%d players, %d ticks (first %d excluded), seed %d, cooldown %d ms, %.1f s wall%n",
+        PLAYERS, TICKS, WARMUP, SEED, COOLDOWN_MS, wallNanos / 1e9d);
+    System.out.printf(
+        "%-14s %10s %10s %10s %10s %10s%n",
+        "stage", "calls", "p50 us", "p90 us", "p99 us", "max us");
+    for (Map.Entry<PerfMonitor.Stage, LogHistogram> entry : perf.timings().entrySet()) {
+      LogHistogram timings = entry.getValue();
+      System.out.printf(
+          "%-14s %10d %10.1f %10.1f %10.1f %10.1f%n",
+          entry.getKey().id(),
+          timings.count(),
+          timings.valueAtPercentile(50.0d) / 1e3d,
+          timings.valueAtPercentile(90.0d) / 1e3d,
+          timings.valueAtPercentile(99.0d) / 1e3d,
+          timings.max() / 1e3d);
+    }
+    double tickPerTick = tickBytes / (double) measured;
+    double scriptPerTick = scriptBytes / (double) measured;
+    System.out.printf(
+        "allocated: tick %.0f B/tick (%.2f MB/s at 20 TPS), commands and script %.0f B/tick%n",
+        tickPerTick, tickPerTick * 20.0d / 1e6d, scriptPerTick);
+    System.out.printf("%-14s %10s %10s%n", "table", "peak", "last");
+    for (Map.Entry<String, Integer> table : peaks.entrySet()) {
+      System.out.printf(
+          "%-14s %10d %10d%n", table.getKey(), table.getValue(), last.get(table.getKey()));
+    }
+    System.out.printf("seats spawned %d, still live %d%n", seats.spawned(), seats.live());
+    System.out.println("ended by reason: " + perf.removals());
+  }
+
+  /** One synthetic player and its script. */
+  private static final class Bot {
+    private final TestPlayerAdapter player;
+    private final boolean tunneler;
+    private int world;
+    private int offlineUntil;
+    private double x;
+    private double z;
+
+    Bot(int index, boolean tunneler, SplittableRandom random) {
+      this.world = index % WORLDS.length;
+      this.player = new TestPlayerAdapter(new UUID(SEED, index), "Bot" + index, WORLDS[world]);
+      this.tunneler = tunneler;
+      this.x = random.nextDouble(-1_000.0d, 1_000.0d);
+      this.z = random.nextDouble(-1_000.0d, 1_000.0d);
+      player.setPosition(x, 64.0d, z);
+    }
+
+    void act(int tick, SplittableRandom random, EmoteService service, SeatManager seatManager) {
+      if (tick < offlineUntil) {
+        return;
+      }
+      if (player.hurtTime() > 0) {
+        player.setHurtTime(player.hurtTime() - 1);
+      }
+      player.setSpaceEmpty(true);
+      double roll = random.nextDouble();
+      if ((roll -= COMMAND) < 0.0d) {
+        if (tunneler) {
+          service.handleCrawl(player, EmoteService.Toggle.TOGGLE);
+        } else {
+          service.handleSeat(player, SEAT_EMOTES[random.nextInt(SEAT_EMOTES.length)]);
+        }
+      } else if ((roll -= MOVE) < 0.0d) {
+        x += random.nextDouble(-0.5d, 0.5d);
+        z += random.nextDouble(-0.5d, 0.5d);
+        player.setPosition(x, 64.0d, z);
+      } else if ((roll -= DAMAGE) < 0.0d) {
+        player.setHurtTime(HURT_TICKS);
+      } else if ((roll -= CAVE_IN) < 0.0d) {
+        player.setSpaceEmpty(false);
+      } else if ((roll -= WORLD_CHANGE) < 0.0d) {
+        world = (world + 1) % WORLDS.length;
+        player.setWorldKey(WORLDS[world]);
+        service.onWorldChange(player);
+      } else if ((roll -= DISCONNECT) < 0.0d) {
+        service.onDisconnect(player);
+        player.setHurtTime(0);
+        offlineUntil = tick + OFFLINE_TICKS;
+      } else if ((roll -= SEAT_KILLED) < 0.0d) {
+        // Someone ran /kill on armor stands; the next tick must notice the orphan.
+        seatManager.session(player).ifPresent(session -> session.seat().discard());
+      }
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package dev.minemotes.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.minemotes.config.Config;
+import dev.minemotes.stats.EmoteCounters;
+import java.time.Duration;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+  private static final long SECOND = 1_000_000_000L;
+  // Burst of 3, one token a second, 4 s lockout doubling up to 10 s.
+  private static final Config.RateLimit LIMIT =
+      new Config.RateLimit(
+          true, 3, Duration.ofSeconds(1), Duration.ofSeconds(4), Duration.ofSeconds(10));
+
+  private final EmoteCounters counters = new EmoteCounters();
+  private final RateLimiter limiter = new RateLimiter(counters);
+  private final UUID player = UUID.randomUUID();
+
+  @Test
+  void burstThenLockoutThenOneToken() {
+    long now = 100 * SECOND;
+    for (int i = 0; i < 3; i++) {
+      assertEquals(0L, limiter.acquire(player, now, LIMIT));
+    }
+    assertEquals(4 * SECOND, limiter.acquire(player, now, LIMIT));
+    assertEquals(SECOND, limiter.acquire(player, now + 3 * SECOND, LIMIT));
+
+    now += 4 * SECOND;
+    assertEquals(0L, limiter.acquire(player, now, LIMIT));
+    assertEquals(0L, limiter.acquire(player, now + SECOND, LIMIT));
+    assertEquals(1L, counters.rateLimitPenalties());
+  }
+
+  @Test
+  void lockoutDoublesWhileSpammingAndIdlingForgivesStrikes() {
+    long now = 100 * SECOND;
+    for (int i = 0; i < 3; i++) {
+      limiter.acquire(player, now, LIMIT);
+    }
+    long[] lockouts = {4 * SECOND, 8 * SECOND, 10 * SECOND, 10 * SECOND};
+    for (long lockout : lockouts) {
+      assertEquals(lockout, limiter.acquire(player, now, LIMIT));
+      now += lockout;
+      assertEquals(0L, limiter.acquire(player, now, LIMIT));
+    }
+
+    // The bucket is full three seconds later; two more refills spent idle forgive three strikes.
+    now += 3 * SECOND + 6 * SECOND;
+    for (int i = 0; i < 3; i++) {
+      assertEquals(0L, limiter.acquire(player, now, LIMIT));
+    }
+    assertEquals(8 * SECOND, limiter.acquire(player, now, LIMIT));
+  }
+
+  @Test
+  void disabledLimitNeverRejectsNorTracks() {
+    Config.RateLimit off = Config.RateLimit.disabled();
+    for (int i = 0; i < 100; i++) {
+      assertEquals(0L, limiter.acquire(player, 0L, off));
+    }
+    assertEquals(0, limiter.size());
+  }
+
+  @Test
+  void idleBucketsAreDroppedWhenTheTableFills() {
+    long now = 0L;
+    for (int i = 0; i < 10_000; i++) {
+      assertEquals(0L, limiter.acquire(new UUID(i, i), now, LIMIT));
+      now += SECOND;
+    }
+    // Only players whose bucket has not refilled yet survive a rebuild.
+    assertTrue(limiter.size() < 64, "size " + limiter.size());
+
+    limiter.clear();
+    assertEquals(0, limiter.size());
+  }
+}
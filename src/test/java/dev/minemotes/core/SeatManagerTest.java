@@ -2,22 +2,20 @@ package dev.minemotes.core;
 
 import static org.junit.jupiter.api.Assertions.*;
 import dev.minemotes.config.Config;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import net.minecraft.SharedConstants;
-import net.minecraft.util.math.Vec3d;
 import org.junit.jupiter.api.Test;
 
 class SeatManagerTest {
-  static {
-    SharedConstants.createGameVersion();
-  }
+  private static final String OVERWORLD = "minecraft:overworld";
 
   @Test
   void seatLifecycleRegistersAndCleansUp() {
     StubSeat seat = new StubSeat();
-    SeatManager manager = new SeatManager((player, position, yaw) -> seat);
+    SeatManager manager = new SeatManager((player, x, y, z, yaw) -> seat);
     TestPlayerAdapter player = new TestPlayerAdapter(UUID.randomUUID(), "Tester", "minecraft:overworld");
-    player.setPosition(Vec3d.ZERO);
     Config.SeatEmoteConfig cfg = new Config.SeatEmoteConfig(true, 0, 0, 0, 0);
 
     SeatManager.SeatResult result = manager.createSeat(player, EmoteType.SIT, cfg);
@@ -31,37 +29,134 @@ class SeatManagerTest {
   @Test
   void overrideOffsetAndYawApplied() {
     StubSeat seat = new StubSeat();
-    final Vec3d[] capturedPos = new Vec3d[1];
+    final double[] capturedPos = new double[3];
     final float[] capturedYaw = new float[1];
     SeatManager manager =
         new SeatManager(
-            (player, position, yaw) -> {
-              capturedPos[0] = position;
+            (player, x, y, z, yaw) -> {
+              capturedPos[0] = x;
+              capturedPos[1] = y;
+              capturedPos[2] = z;
               capturedYaw[0] = yaw;
               return seat;
             });
     TestPlayerAdapter player = new TestPlayerAdapter(UUID.randomUUID(), "Tester", "minecraft:overworld");
-    player.setPosition(new Vec3d(1, 2, 3));
+    player.setPosition(1, 2, 3);
     player.setYaw(15f);
     Config.SeatEmoteConfig cfg = new Config.SeatEmoteConfig(true, 0.1, -0.2, 0.3, 0);
 
-    Vec3d override = new Vec3d(0.4, 0.6, -0.5);
-    float overrideYaw = 90f;
+    SeatManager.Placement override = new SeatManager.Placement(0.4, 0.6, -0.5, 90f);
 
-    SeatManager.SeatResult result = manager.createSeat(player, EmoteType.SIT, cfg, override, overrideYaw);
+    SeatManager.SeatResult result = manager.createSeat(player, EmoteType.SIT, cfg, override);
 
     assertTrue(result.success());
-    Vec3d expectedOffset = new Vec3d(cfg.offsetX(), cfg.offsetY(), cfg.offsetZ()).add(override);
-    Vec3d expectedSpawn = player.position().add(expectedOffset);
-    assertEquals(expectedSpawn.x, capturedPos[0].x, 1e-6);
-    assertEquals(expectedSpawn.y, capturedPos[0].y, 1e-6);
-    assertEquals(expectedSpawn.z, capturedPos[0].z, 1e-6);
-    assertEquals(overrideYaw, capturedYaw[0]);
+    assertEquals(1 + 0.1 + 0.4, capturedPos[0], 1e-6);
+    assertEquals(2 - 0.2 + 0.6, capturedPos[1], 1e-6);
+    assertEquals(3 + 0.3 - 0.5, capturedPos[2], 1e-6);
+    assertEquals(override.yaw(), capturedYaw[0]);
+    SeatManager.SeatSession session = manager.session(player).orElseThrow();
+    assertEquals(0.1 + 0.4, session.offsetX(), 1e-6);
+    assertEquals(-0.2 + 0.6, session.offsetY(), 1e-6);
+    assertEquals(0.3 - 0.5, session.offsetZ(), 1e-6);
+  }
+
+  @Test
+  void seatsInAnUnloadedChunkAreSuspendedAndRestoredForTheirRider() {
+    SimulatedSeats factory = new SimulatedSeats();
+    SeatManager manager = new SeatManager(factory);
+    List<SeatManager.SeatRemovalReason> removed = new ArrayList<>();
+    manager.setRemovalListener((playerId, type, reason) -> removed.add(reason));
+    TestPlayerAdapter player = new TestPlayerAdapter(UUID.randomUUID(), "Tester", OVERWORLD);
+    player.setPosition(40.5, 64, -3.5);
+    Config.SeatEmoteConfig cfg = new Config.SeatEmoteConfig(true, 0, -0.4, 0, 10);
+    assertTrue(manager.createSeat(player, EmoteType.LAY, cfg).success());
+
+    assertEquals(0, manager.suspendChunk(OVERWORLD, 2, 0));
+    assertEquals(0, manager.suspendChunk("minecraft:the_nether", 2, -1));
+    assertEquals(1, manager.suspendChunk(OVERWORLD, 2, -1));
+    assertTrue(manager.session(player).isEmpty());
+    assertEquals(1, manager.suspendedSeats());
+    assertEquals(0, factory.live());
+    assertTrue(removed.isEmpty());
+
+    player.stopRiding();
+    player.setPosition(40.5, 64.5, -3.0);
+    assertEquals(
+        1, manager.restoreChunk(OVERWORLD, 2, -1, Map.of(player.uuid(), player)::get));
     SeatManager.SeatSession session = manager.session(player).orElseThrow();
-    Vec3d sessionOffset = session.offset();
-    assertEquals(expectedOffset.x, sessionOffset.x, 1e-6);
-    assertEquals(expectedOffset.y, sessionOffset.y, 1e-6);
-    assertEquals(expectedOffset.z, sessionOffset.z, 1e-6);
+    assertEquals(EmoteType.LAY, session.type());
+    assertEquals(-0.4, session.offsetY(), 1e-6);
+    assertEquals(10f, session.targetPitch());
+    assertEquals(1, factory.live());
+    assertEquals(0, manager.suspendedSeats());
+    assertTrue(removed.isEmpty());
+    assertEquals(1, manager.suspendChunk(OVERWORLD, 2, -1));
+  }
+
+  @Test
+  void suspendedSeatsAreDroppedWhenTheRiderIsGoneOrMovesOn() {
+    SeatManager manager = new SeatManager(new SimulatedSeats());
+    List<SeatManager.SeatRemovalReason> removed = new ArrayList<>();
+    manager.setRemovalListener((playerId, type, reason) -> removed.add(reason));
+    TestPlayerAdapter away = new TestPlayerAdapter(UUID.randomUUID(), "Away", OVERWORLD);
+    TestPlayerAdapter gone = new TestPlayerAdapter(UUID.randomUUID(), "Gone", OVERWORLD);
+    TestPlayerAdapter moved = new TestPlayerAdapter(UUID.randomUUID(), "Moved", OVERWORLD);
+    Config.SeatEmoteConfig cfg = new Config.SeatEmoteConfig(true, 0, 0, 0, 0);
+    for (TestPlayerAdapter player : List.of(away, gone, moved)) {
+      assertTrue(manager.createSeat(player, EmoteType.SIT, cfg).success());
+    }
+    assertEquals(3, manager.suspendChunk(OVERWORLD, 0, 0));
+
+    manager.createSeat(moved, EmoteType.SIT, cfg);
+    assertEquals(List.of(SeatManager.SeatRemovalReason.REPLACED), removed);
+    away.setPosition(20, 0, 0);
+    away.stopRiding();
+    assertEquals(
+        0, manager.restoreChunk(OVERWORLD, 0, 0, Map.of(away.uuid(), away)::get));
+    assertEquals(
+        List.of(
+            SeatManager.SeatRemovalReason.REPLACED,
+            SeatManager.SeatRemovalReason.CHUNK_UNLOADED,
+            SeatManager.SeatRemovalReason.CHUNK_UNLOADED),
+        removed);
+    assertEquals(0, manager.suspendedSeats());
+    assertTrue(manager.session(moved).isPresent());
+  }
+
+  @Test
+  void seatsAreShardedByTheWorldTheyWereSpawnedIn() {
+    SimulatedSeats factory = new SimulatedSeats();
+    SeatManager manager = new SeatManager(factory);
+    List<SeatManager.SeatRemovalReason> removed = new ArrayList<>();
+    manager.setRemovalListener((playerId, type, reason) -> removed.add(reason));
+    Config.SeatEmoteConfig cfg = new Config.SeatEmoteConfig(true, 0, 0, 0, 0);
+    TestPlayerAdapter first = new TestPlayerAdapter(UUID.randomUUID(), "First", OVERWORLD);
+    TestPlayerAdapter second = new TestPlayerAdapter(UUID.randomUUID(), "Second", OVERWORLD);
+    TestPlayerAdapter parked = new TestPlayerAdapter(UUID.randomUUID(), "Parked", OVERWORLD);
+    TestPlayerAdapter end = new TestPlayerAdapter(UUID.randomUUID(), "End", "minecraft:the_end");
+    parked.setPosition(100, 64, 100);
+    for (TestPlayerAdapter player : List.of(first, second, parked, end)) {
+      assertTrue(manager.createSeat(player, EmoteType.SIT, cfg).success());
+    }
+    manager.suspendChunk(OVERWORLD, 6, 6);
+    manager.removeSeat(second, SeatManager.SeatRemovalReason.COMMAND);
+
+    assertEquals(Map.of(OVERWORLD, 1, "minecraft:the_end", 1), manager.seatsByWorld());
+    assertEquals(1, manager.sessions(OVERWORLD).size());
+    assertTrue(manager.sessions("minecraft:the_nether").isEmpty());
+
+    assertEquals(2, manager.discardWorld(OVERWORLD, SeatManager.SeatRemovalReason.WORLD_UNLOADED));
+    assertEquals(
+        List.of(
+            SeatManager.SeatRemovalReason.COMMAND,
+            SeatManager.SeatRemovalReason.WORLD_UNLOADED,
+            SeatManager.SeatRemovalReason.WORLD_UNLOADED),
+        removed);
+    assertEquals(Map.of("minecraft:the_end", 1), manager.seatsByWorld());
+    assertTrue(manager.session(end).isPresent());
+    assertEquals(0, manager.suspendedSeats());
+    assertEquals(1, manager.indexedSeats());
+    assertEquals(1, factory.live());
   }
 
   private static final class StubSeat implements SeatManager.Seat {
@@ -94,6 +189,6 @@ class SeatManagerTest {
     }
 
     @Override
-    public void reposition(Vec3d pos, float yaw) {}
+    public void reposition(double x, double y, double z, float yaw) {}
   }
 }
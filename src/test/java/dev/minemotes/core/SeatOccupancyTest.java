@@ -0,0 +1,81 @@
+package dev.minemotes.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.minemotes.config.Config;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class SeatOccupancyTest {
+  private static final String OVERWORLD = "minecraft:overworld";
+
+  @Test
+  void packsLikeBlockPosAndRoundTrips() {
+    assertEquals((1L << 38) | (3L << 12) | 2L, SeatOccupancy.pack(1, 2, 3));
+    int[][] positions = {{0, 0, 0}, {-1, -64, -1}, {29_999_999, 319, -29_999_999}, {-7, 2047, 12}};
+    for (int[] pos : positions) {
+      long packed = SeatOccupancy.pack(pos[0], pos[1], pos[2]);
+      assertEquals(pos[0], SeatOccupancy.unpackX(packed));
+      assertEquals(pos[1], SeatOccupancy.unpackY(packed));
+      assertEquals(pos[2], SeatOccupancy.unpackZ(packed));
+      assertNotEquals(SeatOccupancy.NONE, packed);
+    }
+  }
+
+  @Test
+  void claimsAndReleasesSurviveManyCollisions() {
+    SeatOccupancy occupancy = new SeatOccupancy();
+    List<SeatManager.SeatSession> sessions = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      SeatManager.SeatSession session = session(i);
+      sessions.add(session);
+      occupancy.claim(OVERWORLD, SeatOccupancy.pack(i, 64, -i), session);
+    }
+    occupancy.claim("minecraft:the_nether", SeatOccupancy.pack(0, 64, 0), session(-1));
+    assertEquals(1001, occupancy.size());
+
+    for (int i = 0; i < 1000; i += 2) {
+      long block = SeatOccupancy.pack(i, 64, -i);
+      occupancy.release(OVERWORLD, block, sessions.get(i + 1));
+      occupancy.release(OVERWORLD, block, sessions.get(i));
+    }
+    assertEquals(501, occupancy.size());
+    for (int i = 0; i < 1000; i++) {
+      SeatManager.SeatSession expected = i % 2 == 0 ? null : sessions.get(i);
+      assertSame(expected, occupancy.occupant(OVERWORLD, SeatOccupancy.pack(i, 64, -i)));
+    }
+    assertNotNull(occupancy.occupant("minecraft:the_nether", SeatOccupancy.pack(0, 64, 0)));
+
+    occupancy.clear();
+    assertEquals(0, occupancy.size());
+    assertNull(occupancy.occupant(OVERWORLD, SeatOccupancy.pack(1, 64, -1)));
+  }
+
+  @Test
+  void neighboursAreTheFourSideBlocksAtTheSameHeight() {
+    SeatOccupancy occupancy = new SeatOccupancy();
+    SeatManager.SeatSession east = session(1);
+    SeatManager.SeatSession north = session(2);
+    occupancy.claim(OVERWORLD, SeatOccupancy.pack(11, 64, 5), east);
+    occupancy.claim(OVERWORLD, SeatOccupancy.pack(10, 64, 4), north);
+    occupancy.claim(OVERWORLD, SeatOccupancy.pack(10, 65, 5), session(3));
+    occupancy.claim(OVERWORLD, SeatOccupancy.pack(11, 64, 6), session(4));
+
+    List<SeatManager.SeatSession> found =
+        occupancy.neighbours(OVERWORLD, SeatOccupancy.pack(10, 64, 5));
+
+    assertEquals(2, found.size());
+    assertTrue(found.contains(east));
+    assertTrue(found.contains(north));
+    assertTrue(occupancy.neighbours("minecraft:the_end", SeatOccupancy.pack(10, 64, 5)).isEmpty());
+  }
+
+  private static SeatManager.SeatSession session(int i) {
+    TestPlayerAdapter player = new TestPlayerAdapter(new UUID(i, i), "P" + i, OVERWORLD);
+    return new SeatManager(new SimulatedSeats())
+        .createSeat(player, EmoteType.SIT, Config.defaults().emotes().sit())
+        .session();
+  }
+}
@@ -0,0 +1,70 @@
+package dev.minemotes.core;
+
+/**
+ * Seat factory for load tests whose seats only mount a {@link TestPlayerAdapter} and count
+ * themselves, so leaked seat entities show up in {@link #live()}.
+ */
+final class SimulatedSeats implements SeatManager.SeatFactory {
+  private int nextId = 1;
+  private long spawned;
+  private int live;
+
+  @Override
+  public SeatManager.Seat create(PlayerAdapter player, double x, double y, double z, float yaw) {
+    return new SimulatedSeat(this, nextId++);
+  }
+
+  long spawned() {
+    return spawned;
+  }
+
+  /** Seats spawned and not yet discarded. */
+  int live() {
+    return live;
+  }
+
+  private static final class SimulatedSeat implements SeatManager.Seat {
+    private final SimulatedSeats factory;
+    private final int id;
+    private boolean removed;
+
+    SimulatedSeat(SimulatedSeats factory, int id) {
+      this.factory = factory;
+      this.id = id;
+    }
+
+    @Override
+    public boolean spawn() {
+      factory.spawned++;
+      factory.live++;
+      return true;
+    }
+
+    @Override
+    public boolean startRiding(PlayerAdapter player) {
+      ((TestPlayerAdapter) player).setVehicle(true, id);
+      return true;
+    }
+
+    @Override
+    public void discard() {
+      if (!removed) {
+        removed = true;
+        factory.live--;
+      }
+    }
+
+    @Override
+    public boolean isRemoved() {
+      return removed;
+    }
+
+    @Override
+    public int id() {
+      return id;
+    }
+
+    @Override
+    public void reposition(double x, double y, double z, float yaw) {}
+  }
+}
@@ -1,17 +1,13 @@
 package dev.minemotes.core;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
-import net.minecraft.entity.Entity;
-import net.minecraft.entity.EntityPose;
-import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.server.world.ServerWorld;
-import net.minecraft.util.math.Box;
-import net.minecraft.util.math.Vec3d;
 
 final class TestPlayerAdapter implements PlayerAdapter {
   private final UUID uuid;
   private final String name;
-  private final String worldKey;
+  private String worldKey;
   private boolean spectator;
   private boolean removed;
   private boolean dead;
@@ -22,13 +18,16 @@ final class TestPlayerAdapter implements PlayerAdapter {
   private boolean flying;
   private boolean onGround = true;
   private int hurtTime;
-  private Vec3d position = Vec3d.ZERO;
+  private double x;
+  private double y;
+  private double z;
   private float yaw;
   private float pitch;
-  private Box box = new Box(0, 0, 0, 1, 1, 1);
   private boolean spaceEmpty = true;
-  private boolean swimming;
-  private EntityPose pose = EntityPose.STANDING;
+  private boolean permitted = true;
+  private TargetedBlock targetedBlock;
+  private final Map<Long, Integer> blocks = new HashMap<>();
+  private boolean crawlPose;
 
   TestPlayerAdapter(UUID uuid, String name, String worldKey) {
     this.uuid = uuid;
@@ -36,6 +35,10 @@ final class TestPlayerAdapter implements PlayerAdapter {
     this.worldKey = worldKey;
   }
 
+  void setWorldKey(String worldKey) {
+    this.worldKey = worldKey;
+  }
+
   void setSpectator(boolean spectator) {
     this.spectator = spectator;
   }
@@ -73,28 +76,37 @@ final class TestPlayerAdapter implements PlayerAdapter {
     this.hurtTime = hurtTime;
   }
 
-  void setPosition(Vec3d position) {
-    this.position = position;
+  void setPosition(double x, double y, double z) {
+    this.x = x;
+    this.y = y;
+    this.z = z;
   }
 
   void setYaw(float yaw) {
     this.yaw = yaw;
   }
 
-  void setBoundingBox(Box box) {
-    this.box = box;
-  }
-
   void setSpaceEmpty(boolean spaceEmpty) {
     this.spaceEmpty = spaceEmpty;
   }
 
-  boolean swimming() {
-    return swimming;
+  void setPermitted(boolean permitted) {
+    this.permitted = permitted;
+  }
+
+  void setTargetedBlock(TargetedBlock block) {
+    this.targetedBlock = block;
+    if (block != null) {
+      setBlockState(block.x(), block.y(), block.z(), block.stateId());
+    }
   }
 
-  EntityPose pose() {
-    return pose;
+  void setBlockState(int x, int y, int z, int stateId) {
+    blocks.put(SeatOccupancy.pack(x, y, z), stateId);
+  }
+
+  boolean crawlPose() {
+    return crawlPose;
   }
 
   @Override
@@ -162,13 +174,6 @@ final class TestPlayerAdapter implements PlayerAdapter {
     return hurtTime;
   }
 
-  @Override
-  public boolean startRiding(Entity seat, boolean force) {
-    this.hasVehicle = true;
-    this.vehicleId = seat.getId();
-    return true;
-  }
-
   @Override
   public void stopRiding() {
     this.hasVehicle = false;
@@ -176,8 +181,18 @@ final class TestPlayerAdapter implements PlayerAdapter {
   }
 
   @Override
-  public Vec3d position() {
-    return position;
+  public double x() {
+    return x;
+  }
+
+  @Override
+  public double y() {
+    return y;
+  }
+
+  @Override
+  public double z() {
+    return z;
   }
 
   @Override
@@ -196,37 +211,32 @@ final class TestPlayerAdapter implements PlayerAdapter {
   }
 
   @Override
-  public void setSwimming(boolean swimming) {
-    this.swimming = swimming;
-  }
-
-  @Override
-  public void setPose(EntityPose pose) {
-    this.pose = pose;
+  public void setCrawlPose(boolean crawling) {
+    this.crawlPose = crawling;
   }
 
   @Override
-  public Box boundingBox() {
-    return box;
+  public boolean isSpaceEmpty(double lift) {
+    return spaceEmpty;
   }
 
   @Override
-  public boolean isSpaceEmpty(Box box) {
-    return spaceEmpty;
+  public boolean hasPermission(String node, int fallbackLevel) {
+    return permitted;
   }
 
   @Override
-  public String worldKey() {
-    return worldKey;
+  public TargetedBlock targetedBlock(double reach) {
+    return targetedBlock;
   }
 
   @Override
-  public ServerWorld world() {
-    throw new UnsupportedOperationException("not used in tests");
+  public int blockStateAt(int x, int y, int z) {
+    return blocks.getOrDefault(SeatOccupancy.pack(x, y, z), 0);
   }
 
   @Override
-  public ServerPlayerEntity entity() {
-    return null;
+  public String worldKey() {
+    return worldKey;
   }
 }
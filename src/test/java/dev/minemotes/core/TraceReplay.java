@@ -0,0 +1,196 @@
+package dev.minemotes.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import dev.minemotes.config.Config;
+import dev.minemotes.config.ConfigLoader;
+import dev.minemotes.stats.LogHistogram;
+import dev.minemotes.stats.PerfMonitor;
+import dev.minemotes.trace.TraceReader;
+import dev.minemotes.trace.TraceRecorder;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Feeds a trace recorded with {@code /minemotes trace} into a fresh {@link EmoteService} as fast as
+ * it will go, through {@link TestPlayerAdapter}s and {@link SimulatedSeats}. Each pass prints its
+ * wall time, allocation and how many commands came out differently than on the server; the last
+ * pass also prints stage timings. Run with {@code ./gradlew replay -Ptrace=trace-....bin}, adding
+ * {@code -Preplay.config=minemotes.json5} to replay under the server's settings. The rate limit is
+ * off, since commands arrive faster than they were recorded.
+ */
+@Tag("replay")
+class TraceReplay {
+  private static final String TRACE = System.getProperty("minemotes.replay.trace");
+  private static final String CONFIG = System.getProperty("minemotes.replay.config");
+  private static final int REPEAT = Integer.getInteger("minemotes.replay.repeat", 3);
+  private static final long COOLDOWN_MS = Long.getLong("minemotes.replay.cooldownMs", 0L);
+  private static final EmoteService.Toggle[] TOGGLES = EmoteService.Toggle.values();
+  // Vehicle id for anything that is not an emote seat, e.g. a boat.
+  private static final int OTHER_VEHICLE = -2;
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  @Test
+  void replayTrace() throws IOException {
+    assumeTrue(TRACE != null, "pass -Ptrace=<file> to replay a trace");
+    Config loaded = CONFIG == null ? Config.defaults() : ConfigLoader.load(Path.of(CONFIG));
+    Config config =
+        loaded.withCore(
+            loaded
+                .core()
+                .withCooldown(Duration.ofMillis(COOLDOWN_MS))
+                .withRateLimit(Config.RateLimit.disabled()));
+    Path trace = Path.of(TRACE);
+
+    Replayer last = null;
+    for (int pass = 1; pass <= REPEAT; pass++) {
+      Replayer replayer = new Replayer(config);
+      long allocStart = THREADS.getCurrentThreadAllocatedBytes();
+      long start = System.nanoTime();
+      long records = TraceReader.read(trace, replayer);
+      long nanos = System.nanoTime() - start;
+      long bytes = THREADS.getCurrentThreadAllocatedBytes() - allocStart;
+      System.out.printf(
+          "pass %d: %d records, %d ticks, %d commands (%d diverged), %d players,"
+              + " %.1f ms, %.1f MB allocated%n",
+          pass,
+          records,
+          replayer.ticks,
+          replayer.commands,
+          replayer.diverged,
+          replayer.players.size(),
+          nanos / 1e6d,
+          bytes / 1e6d);
+      last = replayer;
+    }
+
+    System.out.printf(
+        "%-14s %10s %10s %10s %10s %10s%n",
+        "stage", "calls", "p50 us", "p90 us", "p99 us", "max us");
+    for (Map.Entry<PerfMonitor.Stage, LogHistogram> entry :
+        last.service.perf().snapshot().timings().entrySet()) {
+      LogHistogram timings = entry.getValue();
+      System.out.printf(
+          "%-14s %10d %10.1f %10.1f %10.1f %10.1f%n",
+          entry.getKey().id(),
+          timings.count(),
+          timings.valueAtPercentile(50.0d) / 1e3d,
+          timings.valueAtPercentile(90.0d) / 1e3d,
+          timings.valueAtPercentile(99.0d) / 1e3d,
+          timings.max() / 1e3d);
+    }
+    System.out.println("ended by reason: " + last.service.perf().snapshot().removals());
+    last.service.shutdown();
+    assertEquals(0, last.service.sessions().openSessions());
+    assertEquals(0, last.seats.live());
+  }
+
+  /** Applies each record to the fake players and the service under test. */
+  private static final class Replayer implements TraceReader.Visitor {
+    private final SimulatedSeats seats = new SimulatedSeats();
+    private final SeatManager seatManager = new SeatManager(seats);
+    private final EmoteService service;
+    private final Config config;
+    private final List<TestPlayerAdapter> players = new ArrayList<>();
+    private long ticks;
+    private long commands;
+    private long diverged;
+
+    Replayer(Config config) {
+      this.config = config;
+      this.service = new EmoteService(() -> config, seatManager);
+    }
+
+    @Override
+    public void state(
+        int player,
+        int flags,
+        int hurtTime,
+        String world,
+        double x,
+        double y,
+        double z,
+        float yaw) {
+      TestPlayerAdapter fake = player(player);
+      fake.setOnGround((flags & TraceRecorder.ON_GROUND) != 0);
+      fake.setTouchingWater((flags & TraceRecorder.TOUCHING_WATER) != 0);
+      fake.setFlying((flags & TraceRecorder.FLYING) != 0);
+      fake.setSpectator((flags & TraceRecorder.SPECTATOR) != 0);
+      fake.setSleeping((flags & TraceRecorder.SLEEPING) != 0);
+      fake.setDead((flags & TraceRecorder.DEAD) != 0);
+      fake.setRemoved((flags & TraceRecorder.REMOVED) != 0);
+      fake.setSpaceEmpty((flags & TraceRecorder.HEAD_BLOCKED) == 0);
+      fake.setHurtTime(hurtTime);
+      fake.setWorldKey(world);
+      fake.setYaw(yaw);
+      fake.setPosition(x, y, z);
+      // A seat the replay gave the player stays mounted while the server's one was.
+      if ((flags & TraceRecorder.RIDING_SEAT) == 0) {
+        boolean other = (flags & TraceRecorder.HAS_VEHICLE) != 0;
+        fake.setVehicle(other, other ? OTHER_VEHICLE : -1);
+      }
+      if ((flags & TraceRecorder.SEAT_REMOVED) != 0) {
+        seatManager.session(fake).ifPresent(session -> session.seat().discard());
+      }
+    }
+
+    @Override
+    public void tick(long serverTick) {
+      ticks++;
+      service.tick(serverTick);
+    }
+
+    @Override
+    public void command(int player, String emote, int toggle, boolean success) {
+      commands++;
+      TestPlayerAdapter fake = player(player);
+      EmoteService.Result result;
+      if (toggle >= 0 && toggle < TOGGLES.length) {
+        result = service.handleCrawl(fake, TOGGLES[toggle]);
+      } else {
+        int id = config.registry().id(emote);
+        if (id < 0) {
+          diverged++;
+          return;
+        }
+        result = service.handleSeat(fake, id);
+      }
+      if (result.success() != success) {
+        diverged++;
+      }
+    }
+
+    @Override
+    public void event(int player, TraceRecorder.Event event) {
+      TestPlayerAdapter fake = player(player);
+      switch (event) {
+        case DISCONNECT -> service.onDisconnect(fake);
+        case DEATH -> service.onDeath(fake);
+        case WORLD_CHANGE -> service.onWorldChange(fake);
+        case TELEPORT -> service.onTeleport(fake);
+      }
+    }
+
+    private TestPlayerAdapter player(int index) {
+      while (players.size() <= index) {
+        int next = players.size();
+        TestPlayerAdapter fake =
+            new TestPlayerAdapter(new UUID(0L, next), "Replay" + next, "minecraft:overworld");
+        fake.setVehicle(false, -1);
+        players.add(fake);
+      }
+      return players.get(index);
+    }
+  }
+}
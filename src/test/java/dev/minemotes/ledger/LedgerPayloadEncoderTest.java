@@ -0,0 +1,41 @@
+package dev.minemotes.ledger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.minemotes.core.EmoteType;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class LedgerPayloadEncoderTest {
+  @Test
+  void uuidMatchesToString() {
+    for (int i = 0; i < 100; i++) {
+      UUID id = UUID.randomUUID();
+      StringBuilder out = new StringBuilder();
+      LedgerPayloadEncoder.appendUuid(out, id);
+      assertEquals(id.toString(), out.toString());
+    }
+    UUID edge = new UUID(0x000000000000000FL, 0xF000000000000000L);
+    StringBuilder out = new StringBuilder();
+    LedgerPayloadEncoder.appendUuid(out, edge);
+    assertEquals(edge.toString(), out.toString());
+  }
+
+  @Test
+  void payloadAndReasonUsePrecomputedFields() {
+    LedgerPayloadEncoder encoder = new LedgerPayloadEncoder();
+    UUID id = UUID.randomUUID();
+
+    String payload = encoder.payload(new LedgerEntry(42L, id, EmoteType.LAY, LedgerEntry.Action.STOP));
+
+    assertEquals("{\"player\":\"" + id + "\",\"state\":\"stop\",\"ts\":42}", payload);
+    assertEquals("emote:lay", encoder.reason(EmoteType.LAY));
+  }
+
+  @Test
+  void escapesJsonSpecialCharacters() {
+    StringBuilder out = new StringBuilder();
+    LedgerPayloadEncoder.appendEscaped(out, "a\"b\\c\nd\u0001e" + (char) 0x2028);
+    assertEquals("a\\\"b\\\\c\\nd\\u0001e\\u2028", out.toString());
+  }
+}
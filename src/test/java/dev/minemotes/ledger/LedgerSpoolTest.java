@@ -0,0 +1,135 @@
+package dev.minemotes.ledger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+import dev.minemotes.core.EmoteType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LedgerSpoolTest {
+  private static final int FOUR_RECORDS = LedgerSpool.HEADER_BYTES + 4 * LedgerSpool.RECORD_BYTES;
+
+  @TempDir Path dir;
+
+  @Test
+  void pendingEntriesSurviveReopen() throws Exception {
+    List<LedgerEntry> entries = entries(3);
+    try (LedgerSpool spool = new LedgerSpool(dir, FOUR_RECORDS, 8)) {
+      assertEquals(3, spool.append(entries));
+      List<LedgerEntry> first = new ArrayList<>();
+      assertEquals(1, spool.readPending(1, first));
+      assertEquals(entries.get(0), first.get(0));
+      spool.markReplayed(1);
+    }
+
+    try (LedgerSpool reopened = new LedgerSpool(dir, FOUR_RECORDS, 8)) {
+      assertEquals(2, reopened.pending());
+      List<LedgerEntry> out = new ArrayList<>();
+      assertEquals(2, reopened.readPending(16, out));
+      assertEquals(entries.subList(1, 3), out);
+    }
+  }
+
+  @Test
+  void rollsSegmentsAndDiscardsBeyondRetention() throws Exception {
+    try (LedgerSpool spool = new LedgerSpool(dir, FOUR_RECORDS, 2)) {
+      spool.append(entries(10));
+
+      assertEquals(2, spool.segmentCount());
+      assertEquals(4, spool.discarded());
+      assertEquals(6, spool.pending());
+    }
+
+    try (LedgerSpool reopened = new LedgerSpool(dir, FOUR_RECORDS, 2)) {
+      assertEquals(2, reopened.segmentCount());
+      assertEquals(6, reopened.pending());
+    }
+  }
+
+  @Test
+  void undeletableReplayedSegmentsDoNotStopTheSpoolOpening() throws Exception {
+    try (LedgerSpool spool = new LedgerSpool(dir, FOUR_RECORDS, 8)) {
+      spool.append(entries(12));
+      List<LedgerEntry> out = new ArrayList<>();
+      while (spool.readPending(16, out) > 0) {
+        spool.markReplayed(out.size());
+        out.clear();
+      }
+    }
+    assertTrue(dir.toFile().setWritable(false));
+    try {
+      assumeFalse(Files.isWritable(dir), "the directory stays writable, e.g. when run as root");
+      try (LedgerSpool reopened = new LedgerSpool(dir, FOUR_RECORDS, 1)) {
+        assertEquals(0, reopened.pending());
+      }
+    } finally {
+      dir.toFile().setWritable(true);
+    }
+  }
+
+  @Test
+  void detailsAndMissingPlayersRoundTrip() throws Exception {
+    List<LedgerEntry> entries =
+        List.of(
+            new LedgerEntry(1L, UUID.randomUUID(), EmoteType.SIT, LedgerEntry.Action.STOP, "move"),
+            new LedgerEntry(2L, null, EmoteType.SIT, LedgerEntry.Action.ROLLUP, "{\"type\":\"sit\"}"),
+            new LedgerEntry(3L, UUID.randomUUID(), EmoteType.CRAWL, LedgerEntry.Action.START));
+    try (LedgerSpool spool = new LedgerSpool(dir, FOUR_RECORDS, 8)) {
+      assertEquals(3, spool.append(entries));
+    }
+
+    try (LedgerSpool reopened = new LedgerSpool(dir, FOUR_RECORDS, 8)) {
+      List<LedgerEntry> out = new ArrayList<>();
+      reopened.readPending(16, out);
+      reopened.markReplayed(out.size());
+      reopened.readPending(16, out);
+      assertEquals(entries, out);
+    }
+  }
+
+  @Test
+  void spoolingSinkReplaysOnceDownstreamAccepts() throws Exception {
+    GatedSink downstream = new GatedSink();
+    List<LedgerEntry> entries = entries(5);
+    try (SpoolingLedgerSink sink =
+        new SpoolingLedgerSink(new LedgerSpool(dir, FOUR_RECORDS, 8), downstream)) {
+      assertEquals(5, sink.write(entries));
+      assertEquals(5, sink.backlog());
+
+      downstream.open = true;
+      sink.poll();
+
+      assertEquals(0, sink.backlog());
+      assertEquals(entries, downstream.entries);
+    }
+  }
+
+  private static List<LedgerEntry> entries(int count) {
+    List<LedgerEntry> entries = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      LedgerEntry.Action action = i % 2 == 0 ? LedgerEntry.Action.START : LedgerEntry.Action.STOP;
+      entries.add(new LedgerEntry(1_000L + i, UUID.randomUUID(), EmoteType.LAY, action));
+    }
+    return entries;
+  }
+
+  private static final class GatedSink implements LedgerSink {
+    private final List<LedgerEntry> entries = new ArrayList<>();
+    private boolean open;
+
+    @Override
+    public int write(List<LedgerEntry> batch) {
+      if (!open) {
+        return 0;
+      }
+      entries.addAll(batch);
+      return batch.size();
+    }
+  }
+}
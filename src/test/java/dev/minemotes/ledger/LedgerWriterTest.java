@@ -0,0 +1,105 @@
+package dev.minemotes.ledger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.minemotes.config.Config;
+import dev.minemotes.core.EmoteType;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class LedgerWriterTest {
+  @Test
+  void dropNewestKeepsEarliestEntries() {
+    RecordingSink sink = new RecordingSink();
+    LedgerWriter writer = new LedgerWriter(sink, settings(Config.OverflowPolicy.DROP_NEWEST));
+
+    List<UUID> ids = submit(writer, 20);
+    writer.flush();
+
+    assertEquals(4, writer.metrics().dropped());
+    assertEquals(ids.subList(0, 16), sink.playerIds());
+  }
+
+  @Test
+  void dropOldestKeepsLatestEntries() {
+    RecordingSink sink = new RecordingSink();
+    LedgerWriter writer = new LedgerWriter(sink, settings(Config.OverflowPolicy.DROP_OLDEST));
+
+    List<UUID> ids = submit(writer, 20);
+    writer.flush();
+
+    assertEquals(4, writer.metrics().dropped());
+    assertEquals(ids.subList(4, 20), sink.playerIds());
+  }
+
+  @Test
+  void blockGivesUpAfterTimeout() {
+    RecordingSink sink = new RecordingSink();
+    LedgerWriter writer = new LedgerWriter(sink, settings(Config.OverflowPolicy.BLOCK));
+
+    submit(writer, 17);
+
+    assertEquals(1, writer.metrics().dropped());
+    assertEquals(16, writer.metrics().queueDepth());
+  }
+
+  @Test
+  void flushWritesInBatches() {
+    RecordingSink sink = new RecordingSink();
+    LedgerWriter writer = new LedgerWriter(sink, settings(Config.OverflowPolicy.DROP_OLDEST));
+
+    submit(writer, 10);
+    writer.flush();
+
+    assertEquals(List.of(4, 4, 2), sink.batchSizes);
+    LedgerWriter.Metrics metrics = writer.metrics();
+    assertEquals(10, metrics.written());
+    assertEquals(3, metrics.flushes());
+    assertEquals(0, metrics.queueDepth());
+  }
+
+  @Test
+  void closeDrainsBufferedEntries() {
+    RecordingSink sink = new RecordingSink();
+    LedgerWriter writer = new LedgerWriter(sink, settings(Config.OverflowPolicy.DROP_OLDEST));
+    writer.start();
+
+    List<UUID> ids = submit(writer, 3);
+    writer.close();
+
+    assertEquals(ids, sink.playerIds());
+  }
+
+  private static List<UUID> submit(LedgerWriter writer, int count) {
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      UUID id = UUID.randomUUID();
+      ids.add(id);
+      writer.submit(id, EmoteType.SIT, LedgerEntry.Action.START);
+    }
+    return ids;
+  }
+
+  private static Config.Ledger settings(Config.OverflowPolicy policy) {
+    return new Config.Ledger(16, 4, Duration.ofSeconds(10), policy, Duration.ofMillis(1));
+  }
+
+  private static final class RecordingSink implements LedgerSink {
+    private final List<LedgerEntry> entries = new ArrayList<>();
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    @Override
+    public synchronized int write(List<LedgerEntry> batch) {
+      batchSizes.add(batch.size());
+      entries.addAll(batch);
+      return batch.size();
+    }
+
+    synchronized List<UUID> playerIds() {
+      return entries.stream().map(LedgerEntry::playerId).toList();
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package dev.minemotes.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.minemotes.config.Config;
+import dev.minemotes.config.ConfigManager;
+import dev.minemotes.core.EmoteService;
+import dev.minemotes.core.EmoteType;
+import dev.minemotes.core.SeatManager.SeatRemovalReason;
+import dev.minemotes.ledger.LedgerWriter;
+import dev.minemotes.stats.AdmissionStage;
+import dev.minemotes.stats.EmoteCounters;
+import dev.minemotes.stats.SessionAggregator;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class PrometheusExporterTest {
+  @Test
+  void rendersCountersAndLabelsInExpositionFormat() {
+    EmoteCounters counters = new EmoteCounters();
+    counters.removed(SeatRemovalReason.MOVE);
+    counters.seatFailed("seat.ride");
+    counters.seatFailed("seat.unexpected");
+    counters.rejected(AdmissionStage.PERMISSION);
+    counters.rateLimitPenalized();
+    counters.permissionChecked(System.nanoTime());
+    SessionAggregator sessions = new SessionAggregator(0L);
+    UUID player = UUID.randomUUID();
+    sessions.started(player, EmoteType.SIT, 0L, Duration.ofSeconds(2));
+    sessions.ended(player, EmoteType.SIT, SeatRemovalReason.MOVE, 1_500L);
+    sessions.started(player, EmoteType.SIT, 2_000L, Duration.ofSeconds(2));
+    MetricsSnapshot snapshot =
+        new MetricsSnapshot(
+            12_000L,
+            Map.of("minecraft:\"odd\"", new EmoteService.WorldActivity(2, 1)),
+            Map.of(SeatRemovalReason.MOVE, counters.removals(SeatRemovalReason.MOVE)),
+            Map.of(
+                "seat.ride", counters.seatFailures("seat.ride"),
+                "other", counters.seatFailures("seat.unexpected")),
+            Map.of(AdmissionStage.PERMISSION, counters.rejections(AdmissionStage.PERMISSION)),
+            counters.rateLimitPenalties(),
+            counters.permissionChecks(),
+            sessions.lifetime(),
+            new LedgerWriter.Metrics(3, 1024, 10, 7, 0, 0, 2, 0, 0, 0, 5),
+            new ConfigManager.ReloadStats(4, 1, 2));
+
+    List<String> lines = PrometheusExporter.render(snapshot).lines().toList();
+
+    assertTrue(lines.contains("# TYPE minemotes_active_seats gauge"));
+    assertTrue(lines.contains("minemotes_active_seats{world=\"minecraft:\\\"odd\\\"\"} 2"));
+    assertTrue(lines.contains("minemotes_active_crawlers{world=\"minecraft:\\\"odd\\\"\"} 1"));
+    assertTrue(lines.contains("minemotes_session_removals_total{reason=\"move\"} 1"));
+    assertTrue(lines.contains("minemotes_seat_failures_total{error=\"seat.ride\"} 1"));
+    assertTrue(lines.contains("minemotes_seat_failures_total{error=\"other\"} 1"));
+    assertTrue(lines.contains("minemotes_command_rejections_total{stage=\"permission\"} 1"));
+    assertTrue(lines.stream().noneMatch(line -> line.contains("minemotes_rate_limited_total")));
+    assertTrue(lines.contains("minemotes_rate_limit_penalties_total 1"));
+    assertTrue(lines.contains("minemotes_permission_check_seconds_count 1"));
+    assertTrue(lines.contains("minemotes_session_starts_total{emote=\"sit\"} 2"));
+    assertTrue(lines.contains("minemotes_session_retoggles_total{emote=\"sit\"} 1"));
+    assertTrue(lines.contains("minemotes_session_duration_seconds_count{emote=\"sit\"} 1"));
+    String median = "minemotes_session_duration_seconds{emote=\"sit\",quantile=\"0.5\"} 1.";
+    assertTrue(lines.stream().anyMatch(line -> line.startsWith(median)));
+    assertTrue(lines.contains("minemotes_ledger_queue_depth 3"));
+    assertTrue(lines.contains("minemotes_ledger_spool_backlog 5"));
+    assertTrue(lines.contains("minemotes_config_reloads_total{result=\"applied\"} 4"));
+    assertTrue(lines.contains("minemotes_snapshot_timestamp_seconds 12.0"));
+    for (String line : lines) {
+      assertTrue(line.startsWith("#") || line.startsWith("minemotes_"), line);
+    }
+  }
+
+  @Test
+  void disabledSettingsLeaveTheEndpointStopped() {
+    try (PrometheusExporter exporter = new PrometheusExporter()) {
+      exporter.apply(Config.Metrics.defaults());
+      assertFalse(exporter.running());
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package dev.minemotes.profiling;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.minemotes.core.EmoteType;
+import dev.minemotes.core.SeatManager.SeatRemovalReason;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProfileRecorderTest {
+  @TempDir Path dir;
+
+  @Test
+  void recordingCapturesMinEmotesEventsAndIsWrittenOnStop() throws Exception {
+    ProfileRecorder recorder = new ProfileRecorder(dir);
+    UUID player = UUID.randomUUID();
+
+    Path file = recorder.start(Duration.ofMinutes(1));
+    assertTrue(recorder.active());
+    assertThrows(IllegalStateException.class, () -> recorder.start(Duration.ofMinutes(1)));
+    EmoteStartEvent.emit(player, EmoteType.SIT);
+    EmoteStopEvent.emit(player, EmoteType.SIT, SeatRemovalReason.MOVE);
+    ConfigReloadEvent.emit("skipped", "");
+
+    assertEquals(file, recorder.stop());
+    assertFalse(recorder.active());
+    assertNull(recorder.stop());
+    assertTrue(Files.size(file) > 0L);
+
+    List<RecordedEvent> events =
+        RecordingFile.readAllEvents(file).stream()
+            .filter(event -> event.getEventType().getName().startsWith("minemotes."))
+            .toList();
+    RecordedEvent stop =
+        events.stream()
+            .filter(event -> event.getEventType().getName().equals("minemotes.EmoteStop"))
+            .findFirst()
+            .orElseThrow();
+    assertEquals("sit", stop.getString("emote"));
+    assertEquals("move", stop.getString("reason"));
+    assertTrue(
+        events.stream().anyMatch(e -> e.getEventType().getName().equals("minemotes.ConfigReload")));
+  }
+}
@@ -0,0 +1,85 @@
+package dev.minemotes.stats;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.minemotes.core.SeatManager.SeatRemovalReason;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class PerfMonitorTest {
+  @Test
+  void concurrentHistogramMatchesSingleThreadedOne() throws Exception {
+    ConcurrentLogHistogram concurrent = new ConcurrentLogHistogram();
+    LogHistogram expected = new LogHistogram();
+    Thread[] writers = new Thread[4];
+    for (int t = 0; t < writers.length; t++) {
+      int offset = t;
+      writers[t] =
+          new Thread(
+              () -> {
+                for (int i = 0; i < 10_000; i++) {
+                  concurrent.record(i * 4L + offset);
+                }
+              });
+      writers[t].start();
+    }
+    for (int i = 0; i < 40_000; i++) {
+      expected.record(i);
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+
+    LogHistogram snapshot = concurrent.snapshot();
+    assertEquals(expected.count(), snapshot.count());
+    assertEquals(0L, snapshot.min());
+    assertEquals(39_999L, snapshot.max());
+    assertEquals(expected.valueAtPercentile(99.0d), snapshot.valueAtPercentile(99.0d));
+
+    concurrent.reset();
+    assertEquals(0L, concurrent.snapshot().count());
+  }
+
+  @Test
+  void snapshotReportsStagesAndRemovalsUntilReset() {
+    PerfMonitor monitor = new PerfMonitor();
+    monitor.record(PerfMonitor.Stage.TICK, System.nanoTime());
+    monitor.removed(SeatRemovalReason.MOVE);
+    monitor.removed(SeatRemovalReason.MOVE);
+
+    PerfMonitor.Snapshot snapshot = monitor.snapshot();
+    assertEquals(1L, snapshot.timings().get(PerfMonitor.Stage.TICK).count());
+    assertEquals(0L, snapshot.timings().get(PerfMonitor.Stage.CREATE_SEAT).count());
+    assertEquals(Map.of(SeatRemovalReason.MOVE, 2L), snapshot.removals());
+
+    monitor.reset();
+    assertTrue(monitor.snapshot().removals().isEmpty());
+    assertEquals(0L, monitor.snapshot().timings().get(PerfMonitor.Stage.TICK).count());
+  }
+
+  @Test
+  void commandTraceCollectsPhasesOfTheOutermostCommand() {
+    CommandTrace.phase(CommandTrace.Phase.LEDGER, System.nanoTime() - 5_000L);
+
+    CommandTrace trace = CommandTrace.begin("sit");
+    CommandTrace.phase(CommandTrace.Phase.PERMISSION, System.nanoTime() - 2_000L);
+    CommandTrace nested = CommandTrace.begin("chair");
+    CommandTrace.phase(CommandTrace.Phase.SPAWN, System.nanoTime() - 3_000L);
+    assertFalse(nested.end());
+    assertTrue(trace.end());
+
+    assertEquals("sit", trace.command());
+    assertTrue(trace.nanos(CommandTrace.Phase.PERMISSION) >= 2_000L);
+    assertTrue(trace.nanos(CommandTrace.Phase.SPAWN) >= 3_000L);
+    assertEquals(0L, trace.nanos(CommandTrace.Phase.LEDGER));
+    assertTrue(trace.describe().startsWith("total="));
+    assertTrue(trace.describe().contains(" spawn="));
+    assertFalse(trace.describe().contains("ledger"));
+
+    PerfMonitor monitor = new PerfMonitor();
+    monitor.record(trace);
+    PerfMonitor.Snapshot snapshot = monitor.snapshot();
+    assertEquals(1L, snapshot.phases().get(CommandTrace.Phase.SPAWN).count());
+    assertEquals(0L, snapshot.phases().get(CommandTrace.Phase.RIDE).count());
+  }
+}
@@ -0,0 +1,116 @@
+package dev.minemotes.stats;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.minemotes.core.EmoteType;
+import dev.minemotes.core.SeatManager.SeatRemovalReason;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class SessionAggregatorTest {
+  @Test
+  void pairsStartsWithStopsPerType() {
+    SessionAggregator aggregator = new SessionAggregator(0L);
+    UUID player = UUID.randomUUID();
+
+    aggregator.started(player, EmoteType.CRAWL, 0L);
+    aggregator.started(player, EmoteType.SIT, 100L);
+    assertEquals(2, aggregator.openSessions());
+    assertTrue(aggregator.ended(player, EmoteType.SIT, SeatRemovalReason.MOVE, 600L));
+    assertFalse(aggregator.ended(player, EmoteType.LAY, SeatRemovalReason.COMMAND, 700L));
+
+    SessionRollup rollup = aggregator.rollup(1_000L);
+
+    assertEquals(1, rollup.openSessions());
+    assertEquals(1, aggregator.unmatchedStops());
+    assertEquals(
+        List.of(EmoteType.CRAWL, EmoteType.SIT),
+        rollup.types().stream().map(SessionRollup.TypeStats::type).toList());
+    SessionRollup.TypeStats sit = rollup.types().get(1);
+    assertEquals(1, sit.ended());
+    assertEquals(500L, sit.maxMillis());
+    assertEquals(List.of(new SessionRollup.ReasonCount(SeatRemovalReason.MOVE, 1)), sit.topReasons());
+  }
+
+  @Test
+  void rollupSummarisesWindowAndResets() {
+    SessionAggregator aggregator = new SessionAggregator(0L);
+    for (int i = 1; i <= 100; i++) {
+      UUID player = UUID.randomUUID();
+      aggregator.started(player, EmoteType.LAY, 0L);
+      SeatRemovalReason reason =
+          i <= 60
+              ? SeatRemovalReason.COMMAND
+              : i <= 90 ? SeatRemovalReason.DAMAGE : SeatRemovalReason.MOVE;
+      aggregator.ended(player, EmoteType.LAY, reason, i * 1_000L);
+    }
+    assertFalse(aggregator.rollupDue(59_999L, Duration.ofMinutes(1)));
+    assertTrue(aggregator.rollupDue(60_000L, Duration.ofMinutes(1)));
+
+    SessionRollup.TypeStats lay = aggregator.rollup(120_000L).types().get(0);
+
+    assertEquals(100, lay.started());
+    assertEquals(50_000L, lay.p50Millis(), 50_000L * 0.04);
+    assertEquals(99_000L, lay.p99Millis(), 99_000L * 0.04);
+    assertEquals(100_000L, lay.maxMillis());
+    assertEquals(
+        List.of(SeatRemovalReason.COMMAND, SeatRemovalReason.DAMAGE, SeatRemovalReason.MOVE),
+        lay.topReasons().stream().map(SessionRollup.ReasonCount::reason).toList());
+    assertTrue(aggregator.rollup(180_000L).isEmpty());
+    assertFalse(aggregator.rollupDue(180_000L, Duration.ZERO));
+  }
+
+  @Test
+  void lifetimeSurvivesRollupsAndCountsRetoggles() {
+    SessionAggregator aggregator = new SessionAggregator(0L);
+    Duration cooldown = Duration.ofSeconds(3);
+    UUID player = UUID.randomUUID();
+
+    aggregator.started(player, EmoteType.SIT, 0L, cooldown);
+    aggregator.ended(player, EmoteType.SIT, SeatRemovalReason.MOVE, 2_000L);
+    aggregator.rollup(60_000L);
+    aggregator.started(player, EmoteType.SIT, 61_000L, cooldown);
+    aggregator.ended(player, EmoteType.SIT, SeatRemovalReason.DAMAGE, 62_000L);
+    aggregator.started(player, EmoteType.SIT, 63_000L, cooldown);
+    aggregator.ended(player, EmoteType.SIT, SeatRemovalReason.MOVE, 67_000L);
+    aggregator.forget(player);
+    aggregator.started(player, EmoteType.SIT, 68_000L, cooldown);
+
+    SessionStats stats = aggregator.lifetime();
+
+    assertEquals(0L, stats.sinceMillis());
+    SessionStats.Lifetime sit = stats.types().get(0);
+    assertEquals(EmoteType.SIT, sit.type());
+    assertEquals(4, sit.started());
+    assertEquals(3, sit.ended());
+    assertEquals(1, sit.retoggles());
+    assertEquals(0.25d, sit.retoggleRate(), 1e-9);
+    assertEquals(3, sit.durations().count());
+    assertEquals(4_000L, sit.durations().max());
+    assertEquals(2.0d / 3.0d, sit.share(SeatRemovalReason.MOVE), 1e-9);
+    assertEquals(0.0d, sit.share(SeatRemovalReason.COMMAND));
+    assertEquals(1, stats.types().size());
+  }
+
+  @Test
+  void histogramsMergeAcrossWindows() {
+    LogHistogram first = new LogHistogram();
+    LogHistogram second = new LogHistogram();
+    for (long v = 0; v < 1_000; v++) {
+      first.record(v);
+      second.record(v + 1_000);
+    }
+    first.merge(second);
+
+    assertEquals(2_000, first.count());
+    assertEquals(0L, first.min());
+    assertEquals(1_999L, first.max());
+    assertEquals(1_000L, first.valueAtPercentile(50.0d), 1_000L * 0.04);
+    for (long v = 1; v < 1L << 40; v = v * 3 + 1) {
+      int index = LogHistogram.index(v);
+      assertTrue(LogHistogram.lowerBound(index) <= v && v <= LogHistogram.upperBound(index));
+    }
+  }
+}
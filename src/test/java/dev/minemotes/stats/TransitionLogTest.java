@@ -0,0 +1,70 @@
+package dev.minemotes.stats;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.minemotes.core.EmoteType;
+import dev.minemotes.core.SeatManager.SeatRemovalReason;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class TransitionLogTest {
+  private final UUID alice = UUID.randomUUID();
+  private final UUID bob = UUID.randomUUID();
+
+  @Test
+  void keepsNewestEntriesOldestFirstAndFiltersByPlayer() {
+    TransitionLog log = new TransitionLog(5);
+    assertEquals(8, log.capacity());
+    for (int tick = 0; tick < 10; tick++) {
+      UUID player = tick % 2 == 0 ? alice : bob;
+      if (tick % 4 < 2) {
+        log.started(player, EmoteType.SIT, tick);
+      } else {
+        log.stopped(player, EmoteType.SIT, SeatRemovalReason.MOVE, tick);
+      }
+    }
+
+    assertEquals(10L, log.recorded());
+    List<TransitionLog.Entry> newest = log.last(3, null);
+    assertEquals(List.of(7L, 8L, 9L), newest.stream().map(TransitionLog.Entry::tick).toList());
+    assertTrue(newest.get(1).start());
+    assertEquals(SeatRemovalReason.MOVE, newest.get(0).reason());
+
+    List<TransitionLog.Entry> all = log.last(100, null);
+    assertEquals(8, all.size());
+    assertEquals(2L, all.get(0).tick());
+
+    List<TransitionLog.Entry> bobs = log.last(100, bob);
+    assertEquals(List.of(3L, 5L, 7L, 9L), bobs.stream().map(TransitionLog.Entry::tick).toList());
+    assertEquals(bob, bobs.get(0).player());
+  }
+
+  @Test
+  void concurrentWritersNeverProduceTornEntries() throws Exception {
+    TransitionLog log = new TransitionLog(64);
+    Thread[] writers = new Thread[4];
+    for (int t = 0; t < writers.length; t++) {
+      UUID player = new UUID(t, t);
+      writers[t] =
+          new Thread(
+              () -> {
+                for (int i = 0; i < 20_000; i++) {
+                  log.started(player, EmoteType.LAY, player.getMostSignificantBits());
+                }
+              });
+      writers[t].start();
+    }
+    for (int i = 0; i < 200; i++) {
+      for (TransitionLog.Entry entry : log.last(64, null)) {
+        assertEquals(entry.player().getMostSignificantBits(), entry.player().getLeastSignificantBits());
+        assertEquals(entry.player().getMostSignificantBits(), entry.tick());
+      }
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    assertEquals(80_000L, log.recorded());
+    assertEquals(64, log.last(1_000, null).size());
+  }
+}
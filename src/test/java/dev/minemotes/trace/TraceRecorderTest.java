@@ -0,0 +1,141 @@
+package dev.minemotes.trace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TraceRecorderTest {
+  private static final String OVERWORLD = "minecraft:overworld";
+
+  @TempDir Path dir;
+
+  private final UUID alice = UUID.randomUUID();
+  private final UUID bob = UUID.randomUUID();
+
+  @Test
+  void roundTripsChangedStatesCommandsAndEvents() throws Exception {
+    TraceRecorder recorder =
+        TraceRecorder.start(dir, Duration.ofMinutes(1), TraceRecorder.DEFAULT_MAX_BYTES);
+    int seated = TraceRecorder.ON_GROUND | TraceRecorder.HAS_VEHICLE | TraceRecorder.RIDING_SEAT;
+    recorder.state(alice, TraceRecorder.ON_GROUND, 0, OVERWORLD, 1_000_000.5d, 64.0d, -20.25d, 90f);
+    recorder.command(alice, "sit", -1, true);
+    recorder.state(alice, seated, 0, OVERWORLD, 1_000_000.5d, 64.0d, -20.25d, 90f);
+    recorder.state(alice, seated, 0, OVERWORLD, 1_000_000.5d, 64.0d, -20.25d, 90f);
+    recorder.tick(100L);
+    recorder.state(alice, seated, 8, OVERWORLD, 1_000_001.0d, 64.0d, -20.25d, 90f);
+    recorder.command(bob, "crawl", 2, false);
+    recorder.state(bob, TraceRecorder.HEAD_BLOCKED, 0, "minecraft:the_nether", 3d, 40d, 3d, 0f);
+    recorder.tick(101L);
+    recorder.event(alice, TraceRecorder.Event.WORLD_CHANGE);
+    recorder.close();
+    assertTrue(recorder.awaitClosed(Duration.ofSeconds(5)));
+
+    List<String> records = read(recorder.file());
+
+    assertEquals(
+        List.of(
+            "state 0 1 0 minecraft:overworld 1000000.5 64.0 -20.25 90.0",
+            "command 0 sit -1 true",
+            "state 0 385 0 minecraft:overworld 1000000.5 64.0 -20.25 90.0",
+            "tick 100",
+            "state 0 385 8 minecraft:overworld 1000001.0 64.0 -20.25 90.0",
+            "command 1 crawl 2 false",
+            "state 1 1024 0 minecraft:the_nether 3.0 40.0 3.0 0.0",
+            "tick 101",
+            "event 0 WORLD_CHANGE"),
+        records);
+    assertEquals(Files.size(recorder.file()), recorder.bytes());
+    assertNull(recorder.problem());
+  }
+
+  @Test
+  void truncatedTailEndsTheTrace() throws Exception {
+    TraceRecorder recorder =
+        TraceRecorder.start(dir, Duration.ofMinutes(1), TraceRecorder.DEFAULT_MAX_BYTES);
+    recorder.state(alice, 0, 0, OVERWORLD, 0d, 0d, 0d, 0f);
+    recorder.tick(1L);
+    recorder.state(alice, 0, 0, OVERWORLD, 1d, 0d, 0d, 0f);
+    recorder.close();
+    assertTrue(recorder.awaitClosed(Duration.ofSeconds(5)));
+    try (FileChannel channel = FileChannel.open(recorder.file(), StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 2);
+    }
+
+    assertEquals(
+        List.of("state 0 0 0 minecraft:overworld 0.0 0.0 0.0 0.0", "tick 1"),
+        read(recorder.file()));
+  }
+
+  @Test
+  void stopsAcceptingRecordsAtTheSizeCap() throws Exception {
+    TraceRecorder recorder = TraceRecorder.start(dir, Duration.ofMinutes(1), 64L);
+    for (int i = 0; i < 10 && !recorder.expired(); i++) {
+      recorder.state(alice, 0, 0, OVERWORLD, i * 100d, 0d, 0d, 0f);
+    }
+    assertTrue(recorder.expired());
+    long bytes = recorder.bytes();
+    recorder.tick(5L);
+    assertEquals(bytes, recorder.bytes());
+    recorder.close();
+    assertTrue(recorder.awaitClosed(Duration.ofSeconds(5)));
+  }
+
+  @Test
+  void rejectsFilesThatAreNotTraces() throws IOException {
+    Path file = dir.resolve("other.bin");
+    Files.write(file, new byte[] {1, 2, 3, 4, 5});
+
+    assertThrows(IOException.class, () -> read(file));
+  }
+
+  private static List<String> read(Path file) throws IOException {
+    List<String> records = new ArrayList<>();
+    TraceReader.read(
+        file,
+        new TraceReader.Visitor() {
+          @Override
+          public void state(
+              int player,
+              int flags,
+              int hurtTime,
+              String world,
+              double x,
+              double y,
+              double z,
+              float yaw) {
+            records.add(
+                String.format(
+                    Locale.ROOT,
+                    "state %d %d %d %s %s %s %s %s",
+                    player, flags, hurtTime, world, x, y, z, yaw));
+          }
+
+          @Override
+          public void tick(long serverTick) {
+            records.add("tick " + serverTick);
+          }
+
+          @Override
+          public void command(int player, String emote, int toggle, boolean success) {
+            records.add("command " + player + " " + emote + " " + toggle + " " + success);
+          }
+
+          @Override
+          public void event(int player, TraceRecorder.Event event) {
+            records.add("event " + player + " " + event);
+          }
+        });
+    return records;
+  }
+}